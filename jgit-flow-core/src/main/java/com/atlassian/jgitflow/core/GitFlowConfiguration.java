@@ -1,17 +1,25 @@
 package com.atlassian.jgitflow.core;
 
+import java.io.File;
+import java.io.IOException;
 import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
 
 import com.atlassian.jgitflow.core.exception.JGitFlowGitAPIException;
 import com.atlassian.jgitflow.core.exception.JGitFlowIOException;
-import com.atlassian.jgitflow.core.util.GitHelper;
+import com.atlassian.jgitflow.core.util.BranchPrefixMatcher;
+import com.atlassian.jgitflow.core.util.ConfigTransaction;
+import com.atlassian.jgitflow.core.util.RefSnapshot;
 
 import org.eclipse.jgit.api.Git;
-import org.eclipse.jgit.lib.ConfigConstants;
-import org.eclipse.jgit.lib.Constants;
-import org.eclipse.jgit.lib.StoredConfig;
+import org.eclipse.jgit.lib.*;
+import org.eclipse.jgit.util.StringUtils;
 
 /**
  * Represents the configuration for a git flow project
@@ -21,6 +29,12 @@ import org.eclipse.jgit.lib.StoredConfig;
  * <p>
  * for example: JGitFlow.getOrInit(new File(&quot;some dir&quot;));
  * </p>
+ * <p>
+ * The git flow settings are read from the git config once into an immutable snapshot, which also holds a matcher for
+ * the branch prefixes. The snapshot is dropped whenever jgitflow writes the settings, through any instance for the same
+ * repository, and when a command is created, so each command sees the config as it was when it started. Call
+ * {@link #invalidate()} after changing the settings in the git config directly.
+ * </p>
  */
 public class GitFlowConfiguration
 {
@@ -31,7 +45,12 @@ public class GitFlowConfiguration
             , JGitFlowConstants.PREFIXES.SUPPORT.configKey()
             , JGitFlowConstants.PREFIXES.VERSIONTAG.configKey());
 
+    private static final ConcurrentMap<File, AtomicLong> GENERATIONS = new ConcurrentHashMap<File, AtomicLong>();
+
     private final Git git;
+    private final AtomicLong generation;
+    private volatile Snapshot snapshot;
+    private ConfigTransaction transaction;
 
     /**
      * Create a new configuration instance
@@ -41,6 +60,82 @@ public class GitFlowConfiguration
     public GitFlowConfiguration(Git git)
     {
         this.git = git;
+        this.generation = generationFor(git.getRepository());
+    }
+
+    /**
+     * Drops the cached settings, the next call reads them from the git config again
+     */
+    public void invalidate()
+    {
+        this.snapshot = null;
+    }
+
+    /**
+     * Starts batching the changes made by the setters. Nothing is written until {@link #commitTransaction()}, which
+     * writes the git config once and only if something changed.
+     *
+     * @return the transaction, which can also be used for other changes to the same git config
+     */
+    public ConfigTransaction beginTransaction()
+    {
+        if (null == transaction || !transaction.isOpen())
+        {
+            transaction = new ConfigTransaction(git.getRepository().getConfig());
+        }
+
+        return transaction;
+    }
+
+    /**
+     * Writes the changes made since {@link #beginTransaction()} if there are any
+     *
+     * @return whether the git config was written
+     * @throws com.atlassian.jgitflow.core.exception.JGitFlowIOException
+     */
+    public boolean commitTransaction() throws JGitFlowIOException
+    {
+        if (null == transaction)
+        {
+            return false;
+        }
+
+        ConfigTransaction committing = transaction;
+        transaction = null;
+
+        try
+        {
+            return committing.commit();
+        }
+        finally
+        {
+            configChanged();
+        }
+    }
+
+    /**
+     * Throws away the changes made since {@link #beginTransaction()}
+     *
+     * @throws com.atlassian.jgitflow.core.exception.JGitFlowIOException
+     */
+    public void rollbackTransaction() throws JGitFlowIOException
+    {
+        if (null == transaction)
+        {
+            return;
+        }
+
+        ConfigTransaction rollingBack = transaction;
+        transaction = null;
+
+        try
+        {
+            rollingBack.rollback();
+        }
+        finally
+        {
+            configChanged();
+        }
     }
 
     /**
@@ -48,7 +143,7 @@ public class GitFlowConfiguration
      */
     public String getDevelop()
     {
-        return git.getRepository().getConfig().getString(JGitFlowConstants.SECTION, ConfigConstants.CONFIG_BRANCH_SECTION, JGitFlowConstants.DEVELOP_KEY);
+        return snapshot().develop;
     }
 
     /**
@@ -56,7 +151,7 @@ public class GitFlowConfiguration
      */
     public String getMaster()
     {
-        return git.getRepository().getConfig().getString(JGitFlowConstants.SECTION, ConfigConstants.CONFIG_BRANCH_SECTION, Constants.MASTER);
+        return snapshot().master;
     }
 
     /**
@@ -69,15 +164,7 @@ public class GitFlowConfiguration
     {
         StoredConfig config = git.getRepository().getConfig();
         config.setString(JGitFlowConstants.SECTION, ConfigConstants.CONFIG_BRANCH_SECTION, Constants.MASTER, branchName);
-        try
-        {
-            config.save();
-            config.load();
-        }
-        catch (Exception e)
-        {
-            throw new JGitFlowIOException(e);
-        }
+        store(config);
     }
 
     /**
@@ -90,15 +177,7 @@ public class GitFlowConfiguration
     {
         StoredConfig config = git.getRepository().getConfig();
         config.setString(JGitFlowConstants.SECTION, ConfigConstants.CONFIG_BRANCH_SECTION, JGitFlowConstants.DEVELOP_KEY, branchName);
-        try
-        {
-            config.save();
-            config.load();
-        }
-        catch (Exception e)
-        {
-            throw new JGitFlowIOException(e);
-        }
+        store(config);
     }
 
     /**
@@ -107,7 +186,30 @@ public class GitFlowConfiguration
      */
     public boolean gitFlowIsInitialized() throws JGitFlowGitAPIException
     {
-        return (hasMasterConfigured() && hasDevelopConfigured() && !getMaster().equals(getDevelop()) && hasPrefixesConfigured());
+        Snapshot current = snapshot();
+
+        //the config checks are free, only look at the refs if they pass
+        if (null == current.master || current.master.equals(current.develop) || !current.hasAllPrefixes())
+        {
+            return false;
+        }
+
+        return localBranchExists(current.master) && localBranchExists(current.develop);
+    }
+
+    /**
+     * Same as {@link #gitFlowIsInitialized()} but answers the branch checks from an existing ref snapshot
+     *
+     * @param refs The ref snapshot to check for the master and develop branches
+     * @return if the current project has been initialized for git flow
+     */
+    public boolean gitFlowIsInitialized(RefSnapshot refs)
+    {
+        Snapshot current = snapshot();
+        String master = current.master;
+        String develop = current.develop;
+
+        return (refs.localBranchExists(master) && refs.localBranchExists(develop) && !master.equals(develop) && current.hasAllPrefixes());
     }
 
     /**
@@ -116,7 +218,7 @@ public class GitFlowConfiguration
      */
     public boolean hasDevelopConfigured() throws JGitFlowGitAPIException
     {
-        return GitHelper.localBranchExists(git, git.getRepository().getConfig().getString(JGitFlowConstants.SECTION, ConfigConstants.CONFIG_BRANCH_SECTION, JGitFlowConstants.DEVELOP_KEY));
+        return localBranchExists(getDevelop());
     }
 
     /**
@@ -125,7 +227,7 @@ public class GitFlowConfiguration
      */
     public boolean hasMasterConfigured() throws JGitFlowGitAPIException
     {
-        return GitHelper.localBranchExists(git, git.getRepository().getConfig().getString(JGitFlowConstants.SECTION, ConfigConstants.CONFIG_BRANCH_SECTION, Constants.MASTER));
+        return localBranchExists(getMaster());
     }
 
     /**
@@ -133,9 +235,7 @@ public class GitFlowConfiguration
      */
     public boolean hasPrefixesConfigured()
     {
-        Set<String> entries = git.getRepository().getConfig().getNames(JGitFlowConstants.SECTION, JGitFlowConstants.PREFIX_SUB);
-
-        return entries.containsAll(getPrefixNames());
+        return snapshot().hasAllPrefixes();
     }
 
     /**
@@ -152,10 +252,7 @@ public class GitFlowConfiguration
      */
     public boolean hasPrefixConfigured(String prefixName)
     {
-        Set<String> entries = git.getRepository().getConfig().getNames(JGitFlowConstants.SECTION, JGitFlowConstants.PREFIX_SUB);
-
-        return entries.contains(prefixName);
-
+        return snapshot().prefixNames.contains(prefixName);
     }
 
     /**
@@ -164,7 +261,12 @@ public class GitFlowConfiguration
      */
     public String getPrefixValue(String prefixName)
     {
-        String val = git.getRepository().getConfig().getString(JGitFlowConstants.SECTION, JGitFlowConstants.PREFIX_SUB, prefixName);
+        String val = snapshot().prefixValues.get(prefixName);
+
+        if (null == val)
+        {
+            val = git.getRepository().getConfig().getString(JGitFlowConstants.SECTION, JGitFlowConstants.PREFIX_SUB, prefixName);
+        }
 
         return (null != val) ? val : "";
     }
@@ -182,74 +284,172 @@ public class GitFlowConfiguration
         if (getPrefixNames().contains(prefixName))
         {
             config.setString(JGitFlowConstants.SECTION, JGitFlowConstants.PREFIX_SUB, prefixName, prefixValue);
-            try
-            {
-                config.save();
-                config.load();
-            }
-            catch (Exception e)
-            {
-                throw new JGitFlowIOException(e);
-            }
+            store(config);
         }
 
     }
 
+    /**
+     * @param branchName The short name of a branch
+     * @return the longest configured prefix the branch starts with, or an empty string if there is none
+     */
     public String getPrefixForBranch(String branchName)
     {
-        String branchPrefix = "";
+        return snapshot().matcher.prefixFor(branchName);
+    }
 
-        for (String prefixName : getPrefixNames())
+    public BranchType getTypeForBranch(String branchName)
+    {
+        Snapshot current = snapshot();
+
+        if (branchName.equals(current.master))
         {
-            if (hasPrefixConfigured(prefixName))
-            {
-                String prefix = getPrefixValue(prefixName);
+            return BranchType.MASTER;
+        }
 
-                if (branchName.startsWith(prefix))
-                {
-                    branchPrefix = prefix;
-                    break;
-                }
-            }
+        if (branchName.equals(current.develop))
+        {
+            return BranchType.DEVELOP;
         }
 
-        return branchPrefix;
+        return current.matcher.typeFor(branchName);
     }
 
-    public BranchType getTypeForBranch(String branchName)
+    private Snapshot snapshot()
     {
-        if (getMaster().equals(branchName))
+        Snapshot current = snapshot;
+        long expected = generation.get();
+        if (null == current || current.generation != expected)
         {
-            return BranchType.MASTER;
+            current = new Snapshot(git.getRepository().getConfig(), expected);
+            this.snapshot = current;
         }
 
-        if (getDevelop().equals(branchName))
+        return current;
+    }
+
+    private void store(StoredConfig config) throws JGitFlowIOException
+    {
+        if (null != transaction && transaction.isOpen())
         {
-            return BranchType.DEVELOP;
+            //written by commitTransaction()
+            invalidate();
+            return;
         }
 
-        String branchPrefix = "";
+        try
+        {
+            config.save();
+            config.load();
+        }
+        catch (Exception e)
+        {
+            throw new JGitFlowIOException(e);
+        }
+        finally
+        {
+            configChanged();
+        }
+    }
 
-        for (String prefixName : getPrefixNames())
+    private void configChanged()
+    {
+        //other instances for the same repository compare their snapshot against this
+        generation.incrementAndGet();
+        invalidate();
+    }
+
+    private static AtomicLong generationFor(Repository repository)
+    {
+        File gitDir = repository.getDirectory();
+        if (null == gitDir)
+        {
+            return new AtomicLong();
+        }
+
+        File key = gitDir.getAbsoluteFile();
+        AtomicLong generation = GENERATIONS.get(key);
+        if (null == generation)
+        {
+            AtomicLong created = new AtomicLong();
+            generation = GENERATIONS.putIfAbsent(key, created);
+            if (null == generation)
+            {
+                generation = created;
+            }
+        }
+
+        return generation;
+    }
+
+    private boolean localBranchExists(String branchName) throws JGitFlowGitAPIException
+    {
+        if (StringUtils.isEmptyOrNull(branchName))
+        {
+            return false;
+        }
+
+        try
+        {
+            Ref ref = git.getRepository().getRefDatabase().getRef(Constants.R_HEADS + branchName);
+
+            return null != ref && ref.getName().equals(Constants.R_HEADS + branchName);
+        }
+        catch (IOException e)
+        {
+            throw new JGitFlowGitAPIException(e);
+        }
+    }
+
+    private static class Snapshot
+    {
+        private final long generation;
+        private final String master;
+        private final String develop;
+        private final Set<String> prefixNames;
+        private final Map<String, String> prefixValues;
+        private final BranchPrefixMatcher matcher;
+
+        private Snapshot(Config config, long generation)
         {
-            if (hasPrefixConfigured(prefixName))
+            this.generation = generation;
+            this.master = config.getString(JGitFlowConstants.SECTION, ConfigConstants.CONFIG_BRANCH_SECTION, Constants.MASTER);
+            this.develop = config.getString(JGitFlowConstants.SECTION, ConfigConstants.CONFIG_BRANCH_SECTION, JGitFlowConstants.DEVELOP_KEY);
+            this.prefixNames = config.getNames(JGitFlowConstants.SECTION, JGitFlowConstants.PREFIX_SUB);
+            this.prefixValues = new HashMap<String, String>();
+
+            for (String name : prefixNames)
             {
-                String prefix = getPrefixValue(prefixName);
+                prefixValues.put(name, config.getString(JGitFlowConstants.SECTION, JGitFlowConstants.PREFIX_SUB, name));
+            }
 
-                if (branchName.startsWith(prefix))
+            BranchPrefixMatcher.Builder builder = BranchPrefixMatcher.builder();
+            for (String prefixName : PREFIX_NAMES)
+            {
+                if (prefixNames.contains(prefixName))
                 {
-                    try
-                    {
-                        return BranchType.valueOf(prefixName.toUpperCase());
-                    }
-                    catch (IllegalArgumentException e)
-                    {
-                        return BranchType.UNKNOWN;
-                    }
+                    String prefix = prefixValues.get(prefixName);
+                    builder.add((null != prefix) ? prefix : "", typeOf(prefixName));
                 }
             }
+            this.matcher = builder.build();
         }
 
-        return BranchType.UNKNOWN;
+        private boolean hasAllPrefixes()
+        {
+            return prefixNames.containsAll(PREFIX_NAMES);
+        }
+
+        private static BranchType typeOf(String prefixName)
+        {
+            try
+            {
+                return BranchType.valueOf(prefixName.toUpperCase());
+            }
+            catch (IllegalArgumentException e)
+            {
+                return BranchType.UNKNOWN;
+            }
+        }
     }
 }
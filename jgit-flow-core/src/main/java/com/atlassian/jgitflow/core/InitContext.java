@@ -1,5 +1,7 @@
 package com.atlassian.jgitflow.core;
 
+import com.atlassian.jgitflow.core.report.JGitFlowLogWriter;
+
 import org.eclipse.jgit.util.StringUtils;
 
 import static com.atlassian.jgitflow.core.util.Preconditions.checkNotNull;
@@ -41,6 +43,8 @@ public class InitContext
     private String hotfix;
     private String support;
     private String versiontag;
+    private long logMaxSize;
+    private int logMaxFiles;
 
 
     /**
@@ -55,6 +59,8 @@ public class InitContext
         this.hotfix = "hotfix/";
         this.support = "support/";
         this.versiontag = "";
+        this.logMaxSize = JGitFlowLogWriter.DEFAULT_MAX_LOG_SIZE;
+        this.logMaxFiles = JGitFlowLogWriter.DEFAULT_MAX_LOG_FILES;
     }
 
     /**
@@ -144,6 +150,31 @@ public class InitContext
         return this;
     }
 
+    /**
+     * Set the size in bytes the jgitflow log may grow to before it's rotated, 0 or less to never rotate it
+     *
+     * @param logMaxSize
+     * @return {@code this}
+     */
+    public InitContext setLogMaxSize(long logMaxSize)
+    {
+        this.logMaxSize = logMaxSize;
+        return this;
+    }
+
+    /**
+     * Set the number of compressed segments of the jgitflow log to keep when it's rotated
+     *
+     * @param logMaxFiles
+     * @return {@code this}
+     */
+    public InitContext setLogMaxFiles(int logMaxFiles)
+    {
+        checkState(logMaxFiles >= 0);
+        this.logMaxFiles = logMaxFiles;
+        return this;
+    }
+
     public String getMaster()
     {
         return master;
@@ -179,6 +210,16 @@ public class InitContext
         return versiontag;
     }
 
+    public long getLogMaxSize()
+    {
+        return logMaxSize;
+    }
+
+    public int getLogMaxFiles()
+    {
+        return logMaxFiles;
+    }
+
     public void setPrefix(String prefixName, String prefixValue)
     {
         JGitFlowConstants.PREFIXES prefix = JGitFlowConstants.PREFIXES.valueOf(prefixName.toUpperCase());
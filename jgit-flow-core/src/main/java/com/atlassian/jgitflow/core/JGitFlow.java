@@ -8,10 +8,12 @@ import com.atlassian.jgitflow.core.exception.AlreadyInitializedException;
 import com.atlassian.jgitflow.core.exception.JGitFlowGitAPIException;
 import com.atlassian.jgitflow.core.exception.JGitFlowIOException;
 import com.atlassian.jgitflow.core.exception.SameBranchException;
+import com.atlassian.jgitflow.core.jira.JiraGateway;
+import com.atlassian.jgitflow.core.jira.JiraIssueCache;
+import com.atlassian.jgitflow.core.jira.JiraMetadataCache;
+import com.atlassian.jgitflow.core.jira.JiraOutbox;
+import com.atlassian.jgitflow.core.report.JGitFlowEventDispatcher;
 
-import net.rcarz.jiraclient.BasicCredentials;
-import net.rcarz.jiraclient.JiraClient;
-import net.rcarz.jiraclient.JiraException;
 import org.eclipse.jgit.api.Git;
 import org.eclipse.jgit.lib.RepositoryBuilder;
 
@@ -33,18 +35,21 @@ public class JGitFlow
 {
     private Git git;
     private GitFlowConfiguration gfConfig;
-    private JGitFlowReporter reporter = JGitFlowReporter.get();
-    private JiraClient jira;
+    private JGitFlowReporter reporter;
+    private JGitFlowEventDispatcher events;
+    private JiraGateway jira;
     private JGitFlow()
     {
     }
 
-    JGitFlow(Git git, GitFlowConfiguration gfConfig, JiraClient jira)
+    JGitFlow(Git git, GitFlowConfiguration gfConfig, JiraGateway jira)
     {
         this.git = git;
         this.gfConfig = gfConfig;
         this.jira = jira;
+        this.reporter = JGitFlowReporter.forRepository(git.getRepository());
         this.reporter.setGitFlowConfiguration(git, gfConfig);
+        this.events = JGitFlowEventDispatcher.forRepository(git.getRepository());
     }
 
     /**
@@ -226,15 +231,8 @@ public class JGitFlow
             File gitDir = rb.getGitDir();
             Git gitRepo = Git.open(gitDir);
             GitFlowConfiguration gfConfig = new GitFlowConfiguration(gitRepo);
-            //todo complete here password and jira url
-            BasicCredentials creds = new BasicCredentials("", "");
-            JiraClient jira = new JiraClient("", creds);
-            try {
-                jira.getIssueTypes(); // checks if the connection established correcly
-            } catch (JiraException e) {
-                jira = null;
-                e.printStackTrace();
-            }
+            JiraGateway jira = JiraGateway.forRepository(gitRepo.getRepository());
+            jira.probeAsync(JiraMetadataCache.forRepository(gitRepo.getRepository(), jira));
             return new JGitFlow(gitRepo, gfConfig, jira);
         }
         catch (IOException e)
@@ -489,6 +487,49 @@ public class JGitFlow
         return new HotfixPublishCommand(name, git, gfConfig, jira);
     }
 
+    /**
+     * Returns the dispatcher the commands of this instance publish their events to. Use it to add listeners, or to
+     * stop writing the events to the jgitflow log.
+     *
+     * @return
+     */
+    public JGitFlowEventDispatcher events()
+    {
+        return events;
+    }
+
+    /**
+     * Returns the reporter writing this instance's jgitflow log
+     *
+     * @return
+     */
+    public JGitFlowReporter getReporter()
+    {
+        return reporter;
+    }
+
+    /**
+     * Returns the outbox holding the Jira transitions the commands queued. Use it to send them now or to see which are
+     * still waiting.
+     *
+     * @return
+     */
+    public JiraOutbox jiraOutbox()
+    {
+        return JiraOutbox.forRepository(git.getRepository(), jira);
+    }
+
+    /**
+     * Returns the cached snapshots of the Jira issues for this repository. Extensions should look issues up here
+     * rather than fetching them themselves.
+     *
+     * @return
+     */
+    public JiraIssueCache jiraIssues()
+    {
+        return JiraIssueCache.forRepository(git.getRepository(), jira);
+    }
+
     /**
      * Returns the {@link org.eclipse.jgit.api.Git} instance used by this JGitFlow instance
      *
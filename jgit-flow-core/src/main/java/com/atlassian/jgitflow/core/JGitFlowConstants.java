@@ -10,7 +10,10 @@ public final class JGitFlowConstants
     public static final String SECTION = "gitflow";
     public static final String PREFIX_SUB = "prefix";
     public static final String DEVELOP_KEY = "develop";
+    public static final String STAT_CACHE_KEY = "statcache";
+    public static final String JIRA_SUB = "jira";
     public static final String GITFLOW_DIR = ".gitflow";
+    public static final String JGITFLOW_DIR = "jgitflow";
     public static final String MERGE_BASE = "MERGE_BASE";
     public static final String R_REMOTE_ORIGIN = Constants.R_REMOTES + Constants.DEFAULT_REMOTE_NAME + "/";
 
@@ -2,23 +2,25 @@ package com.atlassian.jgitflow.core;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.Callable;
 
 import com.atlassian.jgitflow.core.exception.AlreadyInitializedException;
 import com.atlassian.jgitflow.core.exception.JGitFlowGitAPIException;
 import com.atlassian.jgitflow.core.exception.JGitFlowIOException;
 import com.atlassian.jgitflow.core.exception.SameBranchException;
-import com.atlassian.jgitflow.core.util.GitHelper;
+import com.atlassian.jgitflow.core.jira.JiraGateway;
+import com.atlassian.jgitflow.core.jira.JiraMetadataCache;
+import com.atlassian.jgitflow.core.util.InitFingerprint;
+import com.atlassian.jgitflow.core.util.RefCache;
+import com.atlassian.jgitflow.core.util.TargetedFetch;
 
 import com.google.common.base.Strings;
 
-import net.rcarz.jiraclient.BasicCredentials;
-import net.rcarz.jiraclient.JiraClient;
-import net.rcarz.jiraclient.JiraException;
 import org.eclipse.jgit.api.CreateBranchCommand;
 import org.eclipse.jgit.api.Git;
 import org.eclipse.jgit.api.errors.GitAPIException;
-import org.eclipse.jgit.errors.ConfigInvalidException;
 import org.eclipse.jgit.errors.IncorrectObjectTypeException;
 import org.eclipse.jgit.errors.MissingObjectException;
 import org.eclipse.jgit.errors.RepositoryNotFoundException;
@@ -73,6 +75,8 @@ public class JGitFlowInitCommand implements Callable<JGitFlow>
     private boolean alwaysUpdateOrigin;
     private boolean pullMaster;
     private boolean pullDevelop;
+    private boolean targetedFetch;
+    private boolean fastAttach;
 
     /**
      * Create a new init command instance.
@@ -87,6 +91,8 @@ public class JGitFlowInitCommand implements Callable<JGitFlow>
         this.pullMaster = false;
         this.pullDevelop = false;
         this.allowRemote = true;
+        this.targetedFetch = false;
+        this.fastAttach = false;
         this.reporter = JGitFlowReporter.get();
     }
 
@@ -102,9 +108,7 @@ public class JGitFlowInitCommand implements Callable<JGitFlow>
     {
 
         Git git = null;
-        JiraClient jira = null;
-
-        reporter.debugCommandCall(SHORT_NAME);
+        JiraGateway jira = null;
 
         if (null == this.context)
         {
@@ -118,16 +122,21 @@ public class JGitFlowInitCommand implements Callable<JGitFlow>
         catch (IOException e)
         {
             reporter.errorText(SHORT_NAME, e.getMessage());
-            reporter.endCommand();
+            reporter.flush();
             throw new JGitFlowIOException(e);
         }
         catch (GitAPIException e)
         {
             reporter.errorText(SHORT_NAME, e.getMessage());
-            reporter.endCommand();
+            reporter.flush();
             throw new JGitFlowGitAPIException(e);
         }
 
+        //from here on everything is logged to the repository's own log
+        this.reporter = JGitFlowReporter.forRepository(git.getRepository()).makeCurrent();
+        reporter.setLogRotation(context.getLogMaxSize(), context.getLogMaxFiles());
+        reporter.debugCommandCall(SHORT_NAME);
+
         Repository repo = git.getRepository();
         GitFlowConfiguration gfConfig = new GitFlowConfiguration(git);
 
@@ -135,14 +144,42 @@ public class JGitFlowInitCommand implements Callable<JGitFlow>
         try
         {
             String currentBranch = repo.getBranch();
-            StoredConfig gitConfig = git.getRepository().getConfig();
+
+            if (canAttach(repo, gfConfig))
+            {
+                reporter.infoText(SHORT_NAME, "git flow config and branches are unchanged since the last init, attaching");
+                jira = connectJira(repo);
+                return new JGitFlow(git, gfConfig, jira);
+            }
+
+            //all of init's config changes are written once at the end, and only if anything changed
+            StoredConfig gitConfig = gfConfig.beginTransaction().getConfig();
             String originUrl = gitConfig.getString(ConfigConstants.CONFIG_REMOTE_SECTION, Constants.DEFAULT_REMOTE_NAME, "url");
 
             String finalOriginUrl = setupOriginIfNeeded(git, gitConfig, originUrl);
 
             if (allowRemote && !Strings.isNullOrEmpty(finalOriginUrl))
             {
-                git.fetch().setRemote(Constants.DEFAULT_REMOTE_NAME).call();
+                if (targetedFetch)
+                {
+                    //init looks at master and develop, the release and hotfix branches keep the start checks honest
+                    TargetedFetch fetch = new TargetedFetch(git, Constants.DEFAULT_REMOTE_NAME)
+                            .addBranches(context.getMaster(), context.getDevelop())
+                            .addBranchPrefixes(context.getRelease(), context.getHotfix());
+                    if (gfConfig.hasMasterConfigured())
+                    {
+                        fetch.addBranches(gfConfig.getMaster());
+                    }
+                    if (gfConfig.hasDevelopConfigured())
+                    {
+                        fetch.addBranches(gfConfig.getDevelop());
+                    }
+                    fetch.call();
+                }
+                else
+                {
+                    git.fetch().setRemote(Constants.DEFAULT_REMOTE_NAME).call();
+                }
             }
 
             if (!force && gfConfig.gitFlowIsInitialized())
@@ -152,6 +189,9 @@ public class JGitFlowInitCommand implements Callable<JGitFlow>
                 throw new AlreadyInitializedException("Already initialized for git flow.");
             }
 
+            //the branch checks below are answered from one read of the refs, re-read only after init changes them
+            RefCache refs = new RefCache(repo);
+
             //First setup master
             if (gfConfig.hasMasterConfigured() && !force)
             {
@@ -160,26 +200,24 @@ public class JGitFlowInitCommand implements Callable<JGitFlow>
 
             //TODO: we should set an allowFetch flag and do a complete fetch before the local/remote checks if needed.
             //if no local master exists, but a remote does, check it out
-            if (!GitHelper.localBranchExists(git, context.getMaster()) && GitHelper.remoteBranchExists(git, context.getMaster()))
+            if (!refs.get().localBranchExists(context.getMaster()) && refs.get().remoteBranchExists(context.getMaster()))
             {
                 reporter.debugText(SHORT_NAME, "creating new local '" + context.getMaster() + "' branch from origin '" + context.getMaster() + "'");
-                git.branchCreate()
-                   .setName(context.getMaster())
-                   .setUpstreamMode(CreateBranchCommand.SetupUpstreamMode.SET_UPSTREAM)
-                   .setStartPoint("origin/" + context.getMaster())
-                   .call();
+                createTrackingBranch(git, gitConfig, context.getMaster());
+                refs.invalidate();
             }
 
 
             gfConfig.setMaster(context.getMaster());
 
-            if (allowRemote && pullMaster && GitHelper.remoteBranchExists(git, context.getMaster()))
+            if (allowRemote && pullMaster && refs.get().remoteBranchExists(context.getMaster()))
             {
                 reporter.debugText("JgitFlowInitCommand", "pulling '" + context.getMaster());
                 reporter.flush();
 
                 git.checkout().setName(context.getMaster()).call();
                 git.pull().call();
+                refs.invalidate();
             }
 
             //now setup develop
@@ -229,20 +267,17 @@ public class JGitFlowInitCommand implements Callable<JGitFlow>
                 refUpdate.link(Constants.R_HEADS + context.getMaster());
 
                 git.commit().setMessage("Initial Commit").call();
+                refs.invalidate();
 
             }
 
             //creation of develop
-            if (!GitHelper.localBranchExists(git, context.getDevelop()))
+            if (!refs.get().localBranchExists(context.getDevelop()))
             {
-                if (GitHelper.remoteBranchExists(git, context.getDevelop()))
+                if (refs.get().remoteBranchExists(context.getDevelop()))
                 {
                     reporter.debugText(SHORT_NAME, "creating new local '" + context.getDevelop() + "' branch from origin '" + context.getDevelop() + "'");
-                    git.branchCreate()
-                       .setName(context.getDevelop())
-                       .setUpstreamMode(CreateBranchCommand.SetupUpstreamMode.SET_UPSTREAM)
-                       .setStartPoint("origin/" + context.getDevelop())
-                       .call();
+                    createTrackingBranch(git, gitConfig, context.getDevelop());
                 }
                 else
                 {
@@ -252,15 +287,17 @@ public class JGitFlowInitCommand implements Callable<JGitFlow>
                        .setUpstreamMode(CreateBranchCommand.SetupUpstreamMode.NOTRACK)
                        .call();
                 }
+                refs.invalidate();
             }
 
-            if (allowRemote && pullDevelop && GitHelper.remoteBranchExists(git, context.getDevelop()))
+            if (allowRemote && pullDevelop && refs.get().remoteBranchExists(context.getDevelop()))
             {
                 reporter.debugText("JgitFlowInitCommand", "pulling '" + context.getDevelop());
                 reporter.flush();
 
                 git.checkout().setName(context.getDevelop()).call();
                 git.pull().call();
+                refs.invalidate();
             }
 
             //setup prefixes
@@ -274,21 +311,23 @@ public class JGitFlowInitCommand implements Callable<JGitFlow>
                 gfConfig.setPrefix(prefixName, context.getPrefix(prefixName));
             }
 
-            if (!Strings.isNullOrEmpty(currentBranch) && !currentBranch.equals(repo.getBranch()) && (GitHelper.localBranchExists(git, currentBranch) || GitHelper.remoteBranchExists(git, currentBranch)))
+            if (!gfConfig.commitTransaction())
+            {
+                reporter.debugText(SHORT_NAME, "config is unchanged, not writing it");
+            }
+
+            if (!Strings.isNullOrEmpty(currentBranch) && !currentBranch.equals(repo.getBranch()) && (refs.get().localBranchExists(currentBranch) || refs.get().remoteBranchExists(currentBranch)))
             {
                 git.checkout().setName(currentBranch).call();
             }
 
-            //todo complete here password and jira url
-            BasicCredentials creds = new BasicCredentials("", "");
-            jira = new JiraClient("", creds);
-            try {
-                jira.getIssueTypes(); // checks if the connection established correcly
-            } catch (JiraException e) {
-                jira = null;
-                e.printStackTrace();
+            if (fastAttach)
+            {
+                InitFingerprint.save(repo, fingerprint(repo, finalOriginUrl));
             }
 
+            jira = connectJira(repo);
+
         }
         catch (IOException e)
         {
@@ -302,12 +341,6 @@ public class JGitFlowInitCommand implements Callable<JGitFlow>
             reporter.flush();
             throw new JGitFlowGitAPIException(e);
         }
-        catch (ConfigInvalidException e)
-        {
-            reporter.errorText(SHORT_NAME, e.getMessage());
-            reporter.flush();
-            throw new JGitFlowGitAPIException(e);
-        }
         finally
         {
             if (null != walk)
@@ -315,41 +348,122 @@ public class JGitFlowInitCommand implements Callable<JGitFlow>
                 walk.release();
             }
 
+            rollbackConfig(gfConfig);
             reporter.endCommand();
+            JGitFlowReporter.clearCurrent();
         }
 
         return new JGitFlow(git, gfConfig, jira);
     }
 
-    private String setupOriginIfNeeded(Git git, StoredConfig gitConfig, String originUrl) throws IOException, ConfigInvalidException
+    private JiraGateway connectJira(Repository repo)
+    {
+        //nothing waits on jira here, the gateway connects when a command first needs it
+        JiraGateway jira = JiraGateway.forRepository(repo);
+        jira.probeAsync(JiraMetadataCache.forRepository(repo, jira));
+
+        return jira;
+    }
+
+    /*
+     * A forced init with the same settings against the same config and branches as the last one would only fetch and
+     * rewrite what's already there, so it can be skipped. Pulls are always done by the full init.
+     */
+    private boolean canAttach(Repository repo, GitFlowConfiguration gfConfig) throws IOException, JGitFlowGitAPIException
+    {
+        if (!fastAttach || !force || pullMaster || pullDevelop || !gfConfig.gitFlowIsInitialized())
+        {
+            return false;
+        }
+
+        String originUrl = resolveOriginUrl(repo.getConfig().getString(ConfigConstants.CONFIG_REMOTE_SECTION, Constants.DEFAULT_REMOTE_NAME, "url"));
+
+        return InitFingerprint.matches(repo, fingerprint(repo, originUrl));
+    }
+
+    private String fingerprint(Repository repo, String originUrl) throws IOException
+    {
+        List<String> settings = new ArrayList<String>();
+        settings.add(context.getMaster());
+        settings.add(context.getDevelop());
+
+        for (JGitFlowConstants.PREFIXES prefix : JGitFlowConstants.PREFIXES.values())
+        {
+            settings.add(prefix.configKey() + "=" + context.getPrefix(prefix.configKey()));
+        }
+
+        settings.add(Strings.nullToEmpty(originUrl));
+        settings.add(Boolean.toString(allowRemote));
+
+        return InitFingerprint.compute(repo, settings, context.getMaster(), context.getDevelop());
+    }
+
+    /*
+     * SET_UPSTREAM saves the whole config, pending transaction included, so the upstream keys go through the transaction
+     * like everything else init writes.
+     */
+    private void createTrackingBranch(Git git, StoredConfig gitConfig, String branchName) throws GitAPIException
     {
-        String newOriginUrl = originUrl;
+        git.branchCreate()
+           .setName(branchName)
+           .setUpstreamMode(CreateBranchCommand.SetupUpstreamMode.NOTRACK)
+           .setStartPoint(Constants.DEFAULT_REMOTE_NAME + "/" + branchName)
+           .call();
+
+        gitConfig.setString(ConfigConstants.CONFIG_BRANCH_SECTION, branchName, ConfigConstants.CONFIG_KEY_REMOTE, Constants.DEFAULT_REMOTE_NAME);
+        gitConfig.setString(ConfigConstants.CONFIG_BRANCH_SECTION, branchName, ConfigConstants.CONFIG_KEY_MERGE, Constants.R_HEADS + branchName);
+
+        String autoSetupRebase = gitConfig.getString(ConfigConstants.CONFIG_BRANCH_SECTION, null, ConfigConstants.CONFIG_KEY_AUTOSETUPREBASE);
+        if (ConfigConstants.CONFIG_KEY_ALWAYS.equals(autoSetupRebase) || ConfigConstants.CONFIG_KEY_REMOTE.equals(autoSetupRebase))
+        {
+            gitConfig.setBoolean(ConfigConstants.CONFIG_BRANCH_SECTION, branchName, ConfigConstants.CONFIG_KEY_REBASE, true);
+        }
+    }
+
+    private void rollbackConfig(GitFlowConfiguration gfConfig)
+    {
+        //only does something if init failed before the config was written
+        try
+        {
+            gfConfig.rollbackTransaction();
+        }
+        catch (JGitFlowIOException e)
+        {
+            reporter.errorText(SHORT_NAME, "unable to roll back config changes: " + e.getMessage());
+        }
+    }
+
+    private String setupOriginIfNeeded(Git git, StoredConfig gitConfig, String originUrl) throws IOException
+    {
+        String newOriginUrl = resolveOriginUrl(originUrl);
 
         //set origin if we need to
+        if ((Strings.isNullOrEmpty(originUrl) || alwaysUpdateOrigin) && !Strings.isNullOrEmpty(defaultOriginUrl))
+        {
+            gitConfig.setString(ConfigConstants.CONFIG_REMOTE_SECTION, Constants.DEFAULT_REMOTE_NAME, "url", newOriginUrl);
+            gitConfig.setString(ConfigConstants.CONFIG_REMOTE_SECTION, Constants.DEFAULT_REMOTE_NAME, "fetch", "+refs/heads/*:refs/remotes/origin/*");
+        }
+
+        return newOriginUrl;
+    }
+
+    private String resolveOriginUrl(String originUrl) throws IOException
+    {
         if ((Strings.isNullOrEmpty(originUrl) || alwaysUpdateOrigin) && !Strings.isNullOrEmpty(defaultOriginUrl))
         {
             if (defaultOriginUrl.startsWith("file://"))
             {
                 File originFile = new File(defaultOriginUrl.substring(7));
-                newOriginUrl = "file://" + originFile.getCanonicalPath();
-            }
-            else
-            {
-                newOriginUrl = defaultOriginUrl;
+                return "file://" + originFile.getCanonicalPath();
             }
 
-            gitConfig.setString(ConfigConstants.CONFIG_REMOTE_SECTION, Constants.DEFAULT_REMOTE_NAME, "url", newOriginUrl);
-            gitConfig.setString(ConfigConstants.CONFIG_REMOTE_SECTION, Constants.DEFAULT_REMOTE_NAME, "fetch", "+refs/heads/*:refs/remotes/origin/*");
-
-            gitConfig.save();
-
-            gitConfig.load();
+            return defaultOriginUrl;
         }
 
-        return newOriginUrl;
+        return originUrl;
     }
 
-    private void setupRemotesInConfig(StoredConfig gitConfig, String originUrl) throws IOException, ConfigInvalidException
+    private void setupRemotesInConfig(StoredConfig gitConfig, String originUrl)
     {
         if (!Strings.isNullOrEmpty(originUrl))
         {
@@ -377,10 +491,6 @@ public class JGitFlowInitCommand implements Callable<JGitFlow>
             {
                 gitConfig.setString(ConfigConstants.CONFIG_REMOTE_SECTION, Constants.DEFAULT_REMOTE_NAME, "fetch", "+refs/heads/*:refs/remotes/origin/*");
             }
-
-            gitConfig.save();
-
-            gitConfig.load();
         }
     }
 
@@ -451,6 +561,35 @@ public class JGitFlowInitCommand implements Callable<JGitFlow>
         return this;
     }
 
+    /**
+     * Set whether to fetch only master, develop and the release and hotfix branches from origin instead of every branch
+     *
+     * @param targetedFetch {@code true} to fetch only those, {@code false}(default) to fetch everything
+     * @return {@code this}
+     */
+    public JGitFlowInitCommand setTargetedFetch(boolean targetedFetch)
+    {
+        this.targetedFetch = targetedFetch;
+        return this;
+    }
+
+    /**
+     * Set whether a forced init may attach to a repository that is unchanged since the last init.
+     * <p>
+     * When the settings, the git config and the master and develop branches match the fingerprint saved by the last
+     * init, the fetch, config writes and branch setup are skipped. Anything else, or asking for a pull, runs the full
+     * init.
+     * </p>
+     *
+     * @param fastAttach {@code true} to attach when nothing changed, {@code false}(default) to always run the full init
+     * @return {@code this}
+     */
+    public JGitFlowInitCommand setFastAttach(boolean fastAttach)
+    {
+        this.fastAttach = fastAttach;
+        return this;
+    }
+
     private Git getOrInitGit(File folder) throws IOException, GitAPIException
     {
         reporter.debugMethod(SHORT_NAME, "getOrInitGit");
@@ -2,74 +2,164 @@ package com.atlassian.jgitflow.core;
 
 import java.io.File;
 import java.io.IOException;
-import java.nio.charset.Charset;
 import java.text.SimpleDateFormat;
 import java.util.Date;
 import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
 
-import com.atlassian.jgitflow.core.exception.JGitFlowGitAPIException;
+import com.atlassian.jgitflow.core.report.JGitFlowLogWriter;
 import com.atlassian.jgitflow.core.report.JGitFlowReportEntry;
-import com.atlassian.jgitflow.core.util.GitHelper;
+import com.atlassian.jgitflow.core.report.JGitFlowReportHistory;
+import com.atlassian.jgitflow.core.report.JGitFlowReportLevel;
+import com.atlassian.jgitflow.core.util.RefSnapshot;
 
 import com.google.common.base.Joiner;
 import com.google.common.base.Strings;
-import com.google.common.collect.ImmutableList;
-import com.google.common.io.Files;
+import com.google.common.collect.MapMaker;
 
 import org.eclipse.jgit.api.Git;
 import org.eclipse.jgit.api.MergeResult;
+import org.eclipse.jgit.lib.Repository;
 
 import static com.google.common.collect.Lists.newArrayList;
 
 /**
+ * Collects what jgitflow does and writes it to .git/jgitflow.log.
+ * <p>
+ * Each repository has its own reporter, see {@link #forRepository(Repository)}, so several JGitFlow instances can run
+ * side by side without mixing up their logs. A reporter can be used from several threads at once. A repository's
+ * reporter, and any settings made on it, lives as long as a Repository it was handed out for.
+ * </p>
+ *
  * @since version
  */
 public class JGitFlowReporter
 {
-    private static JGitFlowReporter INSTANCE;
+    private static final JGitFlowReporter DEFAULT = new JGitFlowReporter();
+    //held by the Repository instances they were handed out for, and shared by every instance of the same directory
+    private static final ConcurrentMap<Repository, JGitFlowReporter> REPOSITORY_REPORTERS = new MapMaker().weakKeys().makeMap();
+    private static final ConcurrentMap<File, JGitFlowReporter> REPORTERS = new MapMaker().weakValues().makeMap();
+    private static final ThreadLocal<JGitFlowReporter> CURRENT = new ThreadLocal<JGitFlowReporter>();
 
     public static final String EOL = System.getProperty("line.separator");
     public static final String P = EOL.concat(EOL);
     public static final String HR = P.concat(Strings.repeat("-", 80)).concat(P);
     public static final int PAD = 4;
 
+    //how many entries the shared reporter holds on to until a repository reporter takes them over
+    private static final int MAX_SHARED_ENTRIES = 1000;
+
     private boolean wroteHeader;
     private boolean clearLog;
 
+    private final JGitFlowLogWriter writer;
+
     private String header;
     private File logDir;
     private String startTime;
-    private int indent;
+    private final AtomicInteger indent;
+    private volatile JGitFlowReportLevel level;
 
-    private List<JGitFlowReportEntry> entries;
-    private List<JGitFlowReportEntry> allEntries;
+    private final Queue<JGitFlowReportEntry> entries;
+    private final JGitFlowReportHistory history;
 
     private JGitFlowReporter()
     {
         this.wroteHeader = false;
         this.clearLog = false;
-        this.entries = newArrayList();
-        this.allEntries = newArrayList();
+        this.entries = new ConcurrentLinkedQueue<JGitFlowReportEntry>();
+        this.history = new JGitFlowReportHistory();
+        this.writer = new JGitFlowLogWriter();
 
         Date now = new Date();
         SimpleDateFormat displayFormat = new SimpleDateFormat("EEE MMM dd yyyy HH:mm:ss zzz");
         this.startTime = displayFormat.format(now);
 
-        indent = 0;
-
+        indent = new AtomicInteger(0);
+        level = JGitFlowReportLevel.DEBUG;
     }
 
+    /**
+     * Gets the reporter bound to the current thread by {@link #makeCurrent()}, or a shared reporter if there is none.
+     * Entries in the shared reporter are written to the log of the first repository reporter that flushes.
+     * Code that has the repository at hand should use {@link #get(Git)} instead.
+     *
+     * @return the reporter for the current thread
+     */
     public static JGitFlowReporter get()
     {
-        if (null == INSTANCE)
+        JGitFlowReporter current = CURRENT.get();
+
+        return (null == current) ? DEFAULT : current;
+    }
+
+    public static JGitFlowReporter get(Git git)
+    {
+        return forRepository(git.getRepository());
+    }
+
+    /**
+     * Gets the reporter that writes to the log of the given repository, creating it on first use
+     *
+     * @param repository The repository
+     * @return the reporter for the repository
+     */
+    public static JGitFlowReporter forRepository(Repository repository)
+    {
+        File gitDir = repository.getDirectory();
+        if (null == gitDir)
+        {
+            return get();
+        }
+
+        JGitFlowReporter reporter = REPOSITORY_REPORTERS.get(repository);
+        if (null != reporter)
         {
-            INSTANCE = new JGitFlowReporter();
+            return reporter;
+        }
+
+        File key = gitDir.getAbsoluteFile();
+        reporter = REPORTERS.get(key);
+        if (null == reporter)
+        {
+            JGitFlowReporter created = new JGitFlowReporter();
+            created.logDir = key;
+            reporter = REPORTERS.putIfAbsent(key, created);
+            if (null == reporter)
+            {
+                reporter = created;
+            }
         }
 
-        return INSTANCE;
+        JGitFlowReporter existing = REPOSITORY_REPORTERS.putIfAbsent(repository, reporter);
+
+        return (null == existing) ? reporter : existing;
     }
 
-    public void setGitFlowConfiguration(Git git, GitFlowConfiguration config)
+    /**
+     * Makes {@link #get()} return this reporter on the current thread
+     *
+     * @return {@code this}
+     */
+    public JGitFlowReporter makeCurrent()
+    {
+        CURRENT.set(this);
+
+        return this;
+    }
+
+    /**
+     * Makes {@link #get()} return the shared reporter again on the current thread
+     */
+    public static void clearCurrent()
+    {
+        CURRENT.remove();
+    }
+
+    public synchronized void setGitFlowConfiguration(Git git, GitFlowConfiguration config)
     {
         this.logDir = git.getRepository().getDirectory();
         this.header = generateHeader(git, config);
@@ -77,51 +167,170 @@ public class JGitFlowReporter
     }
 
 
+    /**
+     * Sets the lowest level that is written to the log. Entries below it are never built.
+     *
+     * @param level The level to report at
+     * @return {@code this}
+     */
+    public JGitFlowReporter setLevel(JGitFlowReportLevel level)
+    {
+        this.level = level;
+
+        return this;
+    }
+
+    public JGitFlowReportLevel getLevel()
+    {
+        return level;
+    }
+
+    /**
+     * Sets when the log file is rotated, see {@link JGitFlowLogWriter#setRotation(long, int)}
+     *
+     * @param maxLogSize  The size in bytes the log may grow to before it's rotated
+     * @param maxLogFiles The number of compressed segments to keep
+     * @return {@code this}
+     */
+    public JGitFlowReporter setLogRotation(long maxLogSize, int maxLogFiles)
+    {
+        writer.setRotation(maxLogSize, maxLogFiles);
+
+        return this;
+    }
+
+    /**
+     * Limits how many of the flushed entries are kept in memory. Older entries are only in the log file.
+     *
+     * @param maxEntries The maximum number of entries to keep
+     * @param maxChars   The maximum total length of the text of the entries to keep
+     * @return {@code this}
+     */
+    public JGitFlowReporter setHistoryLimits(int maxEntries, int maxChars)
+    {
+        history.setLimits(maxEntries, maxChars);
+
+        return this;
+    }
+
+    /**
+     * Gets the most recent entries, e.g. to show what led up to an error
+     *
+     * @param max The maximum number of entries to return
+     * @return the newest flushed and pending entries, oldest first
+     */
+    public synchronized List<JGitFlowReportEntry> getRecentEntries(int max)
+    {
+        List<JGitFlowReportEntry> queued = newArrayList(entries);
+        List<JGitFlowReportEntry> recent = newArrayList();
+        int pending = Math.min(Math.max(0, max), queued.size());
+
+        recent.addAll(history.getRecent(max - pending));
+        recent.addAll(queued.subList(queued.size() - pending, queued.size()));
+
+        return recent;
+    }
+
+    /**
+     * Callers that need to do extra work to build a debug entry should check this first
+     *
+     * @return whether debug entries are reported
+     */
+    public boolean isDebugEnabled()
+    {
+        return JGitFlowReportLevel.DEBUG.isEnabledAt(level);
+    }
+
     public JGitFlowReporter debugCommandCall(String shortName)
     {
-        entries.add(new JGitFlowReportEntry(shortName, Strings.repeat(" ", indent) + "## _Command call():_ ", true, false));
-        indent += PAD;
+        if (isDebugEnabled())
+        {
+            entries.add(new JGitFlowReportEntry(shortName, indent.get(), "## _Command call():_ ", true, false));
+        }
+        indent.addAndGet(PAD);
 
         return this;
     }
 
     public JGitFlowReporter debugText(String shortName, String text)
     {
-        entries.add(new JGitFlowReportEntry(shortName, Strings.repeat(" ", indent) + "_ " + text + " _", true, false));
+        if (isDebugEnabled())
+        {
+            entries.add(new JGitFlowReportEntry(shortName, indent.get(), "_ " + text + " _", true, false));
+        }
 
         return this;
     }
 
-    public JGitFlowReporter errorText(String shortName, String text)
+    /**
+     * Reports a debug entry, replacing the {} in the template with the argument only if debug entries are reported
+     *
+     * @param shortName The name of the reporting class
+     * @param template  The text of the entry
+     * @param arg       The value for the placeholder
+     * @return {@code this}
+     */
+    public JGitFlowReporter debugText(String shortName, String template, Object arg)
     {
-        entries.add(new JGitFlowReportEntry(shortName, Strings.repeat(" ", indent) + "** " + text + " **", false, true));
+        if (isDebugEnabled())
+        {
+            debugText(shortName, format(template, arg));
+        }
 
         return this;
     }
 
-    public JGitFlowReporter commandCall(String shortName)
+    /**
+     * Reports a debug entry, replacing the {}s in the template with the arguments only if debug entries are reported
+     *
+     * @param shortName The name of the reporting class
+     * @param template  The text of the entry
+     * @param arg1      The value for the first placeholder
+     * @param arg2      The value for the second placeholder
+     * @return {@code this}
+     */
+    public JGitFlowReporter debugText(String shortName, String template, Object arg1, Object arg2)
     {
-        entries.add(new JGitFlowReportEntry(shortName, Strings.repeat(" ", indent) + "## Command call(): ", false, false));
-        indent += PAD;
+        if (isDebugEnabled())
+        {
+            debugText(shortName, format(template, arg1, arg2));
+        }
 
         return this;
     }
 
-    public JGitFlowReporter endCommand()
+    public JGitFlowReporter errorText(String shortName, String text)
     {
-        indent -= PAD;
+        if (JGitFlowReportLevel.ERROR.isEnabledAt(level))
+        {
+            entries.add(new JGitFlowReportEntry(shortName, indent.get(), "** " + text + " **", false, true));
+        }
 
-        if (indent < 0)
+        return this;
+    }
+
+    public JGitFlowReporter commandCall(String shortName)
+    {
+        if (JGitFlowReportLevel.INFO.isEnabledAt(level))
         {
-            indent = 0;
+            entries.add(new JGitFlowReportEntry(shortName, indent.get(), "## Command call(): ", false, false));
         }
+        indent.addAndGet(PAD);
+
+        return this;
+    }
+
+    public JGitFlowReporter endCommand()
+    {
+        outdent();
 
         flush();
+        writer.sync();
 
         return this;
     }
 
-    public JGitFlowReporter clearLog()
+    public synchronized JGitFlowReporter clearLog()
     {
         this.clearLog = true;
 
@@ -130,14 +339,12 @@ public class JGitFlowReporter
 
     public JGitFlowReporter endMethod()
     {
-        indent -= PAD;
+        outdent();
 
-        if (indent < 0)
+        if (isDebugEnabled())
         {
-            indent = 0;
+            entries.add(new JGitFlowReportEntry("", indent.get(), "_method END:_ ", true, false));
         }
-
-        entries.add(new JGitFlowReportEntry("", Strings.repeat(" ", indent) + "_method END:_ ", true, false));
         flush();
 
         return this;
@@ -145,83 +352,138 @@ public class JGitFlowReporter
 
     public JGitFlowReporter debugMethod(String shortName, String text)
     {
-        entries.add(new JGitFlowReportEntry(shortName, Strings.repeat(" ", indent) + "_method start:_ " + text, true, false));
-        indent += PAD;
+        if (isDebugEnabled())
+        {
+            entries.add(new JGitFlowReportEntry(shortName, indent.get(), "_method start:_ " + text, true, false));
+        }
+        indent.addAndGet(PAD);
 
         return this;
     }
 
     public JGitFlowReporter infoText(String shortName, String text)
     {
-        entries.add(new JGitFlowReportEntry(shortName, Strings.repeat(" ", indent) + text, false, false));
+        if (JGitFlowReportLevel.INFO.isEnabledAt(level))
+        {
+            entries.add(new JGitFlowReportEntry(shortName, indent.get(), text, false, false));
+        }
 
         return this;
     }
 
     public JGitFlowReporter mergeResult(String shortName, MergeResult mergeResult)
     {
+        if (!JGitFlowReportLevel.INFO.isEnabledAt(level))
+        {
+            return this;
+        }
+
         StringBuilder sb = new StringBuilder();
 
-        sb.append(Strings.repeat(" ", indent))
-          .append("### Merge Result")
+        sb.append("### Merge Result")
           .append(EOL)
           .append(mergeResult.toString());
 
-        entries.add(new JGitFlowReportEntry(shortName, sb.toString(), false, false));
+        entries.add(new JGitFlowReportEntry(shortName, indent.get(), sb.toString(), false, false));
 
         return this;
     }
 
+    /**
+     * Hands the pending entries to the background log writer. Use {@link #sync()} to wait for them to be written.
+     */
     public synchronized void flush()
     {
         if (null == logDir || !".git".equals(logDir.getName()))
         {
+            //nowhere to write them yet, e.g. the shared reporter before a flow exists. Keep the newest ones.
+            while (entries.size() > MAX_SHARED_ENTRIES)
+            {
+                entries.poll();
+            }
             return;
         }
 
-        File logFile = new File(logDir, "jgitflow.log");
-        Charset utf8 = Charset.forName("UTF-8");
-        try
+        StringBuilder content = new StringBuilder();
+        boolean truncate = DEFAULT.takeClearLog() || clearLog;
+        clearLog = false;
+
+        if (!wroteHeader && null != header)
         {
-            if (clearLog && null != logDir && logDir.exists())
-            {
-                if (logFile.exists())
-                {
-                    logFile.delete();
-                }
+            content.append(header);
+            wroteHeader = true;
+        }
 
-                Files.touch(logFile);
+        List<JGitFlowReportEntry> flushed = newArrayList();
+        JGitFlowReportEntry entry;
+        while (null != (entry = DEFAULT.entries.poll()))
+        {
+            flushed.add(entry);
+        }
+        while (null != (entry = entries.poll()))
+        {
+            flushed.add(entry);
+        }
 
-                clearLog = false;
-            }
+        if (!flushed.isEmpty())
+        {
+            history.addAll(flushed);
+            content.append(Joiner.on(EOL).join(flushed)).append(EOL);
+        }
 
-            if (!clearLog && null == logDir || !logFile.exists())
-            {
-                logDir.mkdirs();
-                Files.touch(logFile);
-            }
+        if (truncate || content.length() > 0)
+        {
+            writer.write(new File(logDir, "jgitflow.log"), content.toString(), truncate);
+        }
+    }
 
-            if (!wroteHeader && null != header)
-            {
-                Files.append(header, logFile, utf8);
-                wroteHeader = true;
-            }
+    /**
+     * Flushes the pending entries and waits until everything has been written to the log
+     */
+    public void sync()
+    {
+        flush();
+        writer.sync();
+    }
 
-            if (!entries.isEmpty())
-            {
-                allEntries.addAll(entries);
-                List<JGitFlowReportEntry> entriesToWrite = ImmutableList.copyOf(entries);
-                this.entries = newArrayList();
+    private synchronized boolean takeClearLog()
+    {
+        boolean requested = clearLog;
+        clearLog = false;
 
-                String content = Joiner.on(EOL).join(entriesToWrite) + EOL;
-                Files.append(content, logFile, utf8);
+        return requested;
+    }
+
+    private void outdent()
+    {
+        while (true)
+        {
+            int current = indent.get();
+            if (indent.compareAndSet(current, Math.max(0, current - PAD)))
+            {
+                return;
             }
         }
-        catch (IOException e)
+    }
+
+    private static String format(String template, Object... args)
+    {
+        StringBuilder sb = new StringBuilder(template.length() + 32);
+        int start = 0;
+
+        for (Object arg : args)
         {
-            //ignore
+            int placeholder = template.indexOf("{}", start);
+            if (placeholder < 0)
+            {
+                break;
+            }
+
+            sb.append(template, start, placeholder).append(arg);
+            start = placeholder + 2;
         }
 
+        return sb.append(template, start, template.length()).toString();
     }
 
     private String generateHeader(Git git, GitFlowConfiguration config)
@@ -244,28 +506,30 @@ public class JGitFlowReporter
           .append("    Master name: ").append(config.getMaster())
           .append(EOL);
 
+        RefSnapshot refs = null;
         try
         {
-            sb.append("    Origin master exists = ").append(GitHelper.remoteBranchExists(git, config.getMaster()))
-              .append(EOL);
+            refs = RefSnapshot.read(git.getRepository());
         }
-        catch (JGitFlowGitAPIException e)
+        catch (IOException e)
         {
             //ignore
         }
 
+        if (null != refs)
+        {
+            sb.append("    Origin master exists = ").append(refs.remoteBranchExists(config.getMaster()))
+              .append(EOL);
+        }
+
         sb.append("    Develop name: ").append(config.getDevelop())
           .append(EOL);
 
-        try
+        if (null != refs)
         {
-            sb.append("    Origin develop exists = ").append(GitHelper.remoteBranchExists(git, config.getDevelop()))
+            sb.append("    Origin develop exists = ").append(refs.remoteBranchExists(config.getDevelop()))
               .append(EOL);
         }
-        catch (JGitFlowGitAPIException e)
-        {
-            //ignore
-        }
 
         for (String pname : config.getPrefixNames())
         {
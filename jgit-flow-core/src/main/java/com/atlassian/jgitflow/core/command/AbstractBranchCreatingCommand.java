@@ -7,9 +7,9 @@ import com.atlassian.jgitflow.core.JGitFlowConstants;
 import com.atlassian.jgitflow.core.exception.*;
 import com.atlassian.jgitflow.core.extension.BranchCreatingExtension;
 import com.atlassian.jgitflow.core.extension.JGitFlowExtension;
+import com.atlassian.jgitflow.core.jira.JiraGateway;
 import com.atlassian.jgitflow.core.util.GitHelper;
 
-import net.rcarz.jiraclient.JiraClient;
 import org.eclipse.jgit.api.Git;
 import org.eclipse.jgit.api.errors.GitAPIException;
 import org.eclipse.jgit.errors.ConfigInvalidException;
@@ -18,6 +18,7 @@ import org.eclipse.jgit.lib.Constants;
 import org.eclipse.jgit.lib.Ref;
 import org.eclipse.jgit.lib.StoredConfig;
 import org.eclipse.jgit.revwalk.RevCommit;
+import org.eclipse.jgit.transport.PushResult;
 import org.eclipse.jgit.transport.RefSpec;
 import org.eclipse.jgit.util.StringUtils;
 
@@ -26,7 +27,7 @@ public abstract class AbstractBranchCreatingCommand<C, T> extends AbstractGitFlo
     private RevCommit startCommit;
     private String startCommitString;
 
-    protected AbstractBranchCreatingCommand(String branchName, Git git, GitFlowConfiguration gfConfig, JiraClient jira)
+    protected AbstractBranchCreatingCommand(String branchName, Git git, GitFlowConfiguration gfConfig, JiraGateway jira)
     {
         super(branchName, git, gfConfig, jira);
         this.startCommit = null;
@@ -35,17 +36,17 @@ public abstract class AbstractBranchCreatingCommand<C, T> extends AbstractGitFlo
 
     protected Ref doCreateBranch(String rootBranch, String newBranchName, BranchCreatingExtension extension) throws JGitFlowExtensionException, JGitFlowIOException, LocalBranchMissingException, JGitFlowGitAPIException, BranchOutOfDateException, LocalBranchExistsException, TagExistsException, GitAPIException
     {
-        git.checkout().setName(rootBranch).call();
+        checkout(rootBranch);
 
         runExtensionCommands(extension.beforeCreateBranch());
 
         RevCommit startPoint = getStartingPoint(rootBranch);
 
-        RevCommit latest = GitHelper.getLatestCommit(git, rootBranch);
+        RevCommit latest = GitHelper.getLatestCommit(session, rootBranch);
         reporter.debugText(getCommandName(), "startPoint is: " + startPoint);
         reporter.debugText(getCommandName(), "latestCommit is: " + latest.getName());
 
-        if (GitHelper.remoteBranchExists(git, rootBranch))
+        if (refs().remoteBranchExists(rootBranch))
         {
             enforcer().requireLocalBranchNotBehindRemote(rootBranch);
         }
@@ -55,31 +56,36 @@ public abstract class AbstractBranchCreatingCommand<C, T> extends AbstractGitFlo
         enforcer().requireTagAbsent(gfConfig.getPrefixValue(JGitFlowConstants.PREFIXES.VERSIONTAG.configKey()) + getBranchName());
 
 
-        Ref newBranch = git.checkout()
+        //create the branch without moving HEAD, the working tree only needs to be updated once for the new branch
+        Ref newBranch = git.branchCreate()
                            .setName(newBranchName)
-                           .setCreateBranch(true)
                            .setStartPoint(startPoint)
                            .call();
+        invalidateRefs();
+        events.refUpdated(getCommandName(), newBranch.getName(), null, newBranch.getObjectId());
 
         reporter.debugText(getCommandName(), "created branch: " + newBranchName);
 
+        checkout(newBranchName);
+        syncWorkingTree();
+
         runExtensionCommands(extension.afterCreateBranch());
 
         return newBranch;
     }
 
-    protected void doPushNewBranchIfNeeded(JGitFlowExtension pushExtension, String branchToPush) throws GitAPIException, JGitFlowGitAPIException, JGitFlowExtensionException, RemoteBranchExistsException, IOException
+    protected void doPushNewBranchIfNeeded(JGitFlowExtension pushExtension, String branchToPush) throws GitAPIException, JGitFlowGitAPIException, JGitFlowExtensionException, RemoteBranchExistsException, JGitFlowIOException, IOException
     {
         if (isPush())
         {
             enforcer().requireRemoteBranchAbsent(branchToPush);
             reporter.infoText(getCommandName(), "pushing new branch to origin: " + branchToPush);
 
-            git.push().setRemote(Constants.DEFAULT_REMOTE_NAME).setRefSpecs(new RefSpec(gfConfig.getDevelop()), new RefSpec(branchToPush)).call();
+            Iterable<PushResult> results = git.push().setRemote(Constants.DEFAULT_REMOTE_NAME).setRefSpecs(new RefSpec(gfConfig.getDevelop()), new RefSpec(branchToPush)).call();
 
             reporter.debugText(getCommandName(), "push complete");
 
-            git.fetch().setRemote(Constants.DEFAULT_REMOTE_NAME).call();
+            refreshTrackingRefs(results);
 
             //setup tracking
             StoredConfig config = git.getRepository().getConfig();
@@ -108,14 +114,22 @@ public abstract class AbstractBranchCreatingCommand<C, T> extends AbstractGitFlo
         }
         else if (!StringUtils.isEmptyOrNull(startCommitString))
         {
-            startPoint = GitHelper.getCommitForString(git, startCommitString);
+            startPoint = GitHelper.getCommitForString(session, startCommitString);
         }
         else
         {
-            startPoint = GitHelper.getLatestCommit(git, fromBranch);
+            startPoint = GitHelper.getLatestCommit(session, fromBranch);
         }
 
-        return startPoint;
+        try
+        {
+            //creating the branch writes the commit message to the reflog
+            return session.parseBody(startPoint);
+        }
+        catch (IOException e)
+        {
+            throw new JGitFlowIOException(e);
+        }
     }
 
     public C setStartCommit(String commitId)
@@ -1,5 +1,8 @@
 package com.atlassian.jgitflow.core.command;
 
+import java.io.IOException;
+import java.util.Collections;
+
 import com.atlassian.jgitflow.core.GitFlowConfiguration;
 import com.atlassian.jgitflow.core.JGitFlowConstants;
 import com.atlassian.jgitflow.core.exception.JGitFlowExtensionException;
@@ -7,28 +10,31 @@ import com.atlassian.jgitflow.core.exception.JGitFlowGitAPIException;
 import com.atlassian.jgitflow.core.exception.JGitFlowIOException;
 import com.atlassian.jgitflow.core.exception.LocalBranchMissingException;
 import com.atlassian.jgitflow.core.extension.BranchMergingExtension;
+import com.atlassian.jgitflow.core.extension.ExtensionCommand;
+import com.atlassian.jgitflow.core.extension.WorkingTreeExtensionCommand;
 import com.atlassian.jgitflow.core.extension.impl.MergeProcessExtensionWrapper;
+import com.atlassian.jgitflow.core.jira.JiraGateway;
 import com.atlassian.jgitflow.core.util.GitHelper;
 
-import net.rcarz.jiraclient.JiraClient;
 import org.eclipse.jgit.api.Git;
 import org.eclipse.jgit.api.MergeCommand;
 import org.eclipse.jgit.api.MergeResult;
 import org.eclipse.jgit.api.errors.GitAPIException;
-import org.eclipse.jgit.lib.Constants;
-import org.eclipse.jgit.lib.ObjectId;
-import org.eclipse.jgit.lib.Ref;
+import org.eclipse.jgit.lib.*;
+import org.eclipse.jgit.merge.MergeMessageFormatter;
 import org.eclipse.jgit.merge.MergeStrategy;
-import org.eclipse.jgit.transport.RefSpec;
+import org.eclipse.jgit.merge.ThreeWayMerger;
+import org.eclipse.jgit.revwalk.RevCommit;
 import org.eclipse.jgit.util.StringUtils;
 
 public abstract class AbstractBranchMergingCommand<C, T> extends AbstractGitFlowCommand<C, T>
 {
     private boolean keepBranch;
     private boolean forceDeleteBranch;
+    private boolean inCoreMerge;
     private String message;
 
-    protected AbstractBranchMergingCommand(String branchName, Git git, GitFlowConfiguration gfConfig, JiraClient jira)
+    protected AbstractBranchMergingCommand(String branchName, Git git, GitFlowConfiguration gfConfig, JiraGateway jira)
     {
         super(branchName, git, gfConfig, jira);
         this.forceDeleteBranch = true;
@@ -48,21 +54,53 @@ public abstract class AbstractBranchMergingCommand<C, T> extends AbstractGitFlow
     protected MergeResult doMerge(String branchToMerge, String mergeTarget, MergeProcessExtensionWrapper extension, boolean squash, MergeCommand.FastForwardMode ffMode) throws LocalBranchMissingException, JGitFlowGitAPIException, JGitFlowIOException, GitAPIException, JGitFlowExtensionException
     {
         MergeResult mergeResult = createEmptyMergeResult();
+        boolean inCore = inCoreMerge && !needsWorkingTree(extension) && !checkouts.isCheckedOut(mergeTarget);
 
         runExtensionCommands(extension.beforeCheckout());
 
-        git.checkout().setName(mergeTarget).call();
+        if (!inCore)
+        {
+            checkout(mergeTarget);
+        }
 
         runExtensionCommands(extension.afterCheckout());
 
-        if (!GitHelper.isMergedInto(git, branchToMerge, mergeTarget))
+        if (!GitHelper.isMergedInto(session, branchToMerge, mergeTarget))
         {
             reporter.infoText(getCommandName(), "merging '" + branchToMerge + "' into '" + mergeTarget + "'...");
 
             runExtensionCommands(extension.beforeMerge());
 
             Ref localBranchRef = GitHelper.getLocalBranch(git, branchToMerge);
-            if (squash)
+            MergeResult inCoreResult = null;
+
+            if (inCore)
+            {
+                inCoreResult = doInCoreMerge(localBranchRef, mergeTarget, squash, ffMode);
+
+                if (null == inCoreResult)
+                {
+                    //conflicts need to be resolved in the working tree
+                    reporter.infoText(getCommandName(), "in-core merge into '" + mergeTarget + "' has conflicts, checking out '" + mergeTarget + "'");
+                    checkout(mergeTarget);
+                }
+            }
+
+            if (null == inCoreResult)
+            {
+                //merging in the working tree needs the target checked out
+                syncWorkingTree();
+            }
+
+            if (null != inCoreResult)
+            {
+                mergeResult = inCoreResult;
+                if (squash)
+                {
+                    this.forceDeleteBranch = true;
+                }
+            }
+            else if (squash)
             {
                 reporter.infoText(getCommandName(), "squashing merge");
                 mergeResult = git.merge().setSquash(true).include(localBranchRef).call();
@@ -92,10 +130,12 @@ public abstract class AbstractBranchMergingCommand<C, T> extends AbstractGitFlow
                 }
             }
 
+            invalidateRefs();
+
             runExtensionCommands(extension.afterMerge());
         }
 
-        reporter.mergeResult(getCommandName(), mergeResult);
+        events.mergeResult(getCommandName(), branchToMerge, mergeTarget, mergeResult);
 
         if (!mergeResult.getMergeStatus().isSuccessful())
         {
@@ -113,13 +153,164 @@ public abstract class AbstractBranchMergingCommand<C, T> extends AbstractGitFlow
         return mergeResult;
     }
 
+    /**
+     * Merges a branch into another branch without touching the index or the working tree.
+     * <p>
+     * The merge tree and commit are created in memory and the target branch ref is moved directly. Commits are created
+     * the same way the checkout based merge in {@link #doMerge} creates them, so both modes give the same history.
+     * </p>
+     *
+     * @param branchToMerge The ref of the branch to merge
+     * @param mergeTarget   The name of the branch to merge into
+     * @param squash        whether to squash the merge into a single commit
+     * @param ffMode        the fast forward mode to use
+     * @return the result of the merge or null if the merge has conflicts
+     * @throws com.atlassian.jgitflow.core.exception.JGitFlowIOException
+     * @throws com.atlassian.jgitflow.core.exception.JGitFlowGitAPIException
+     */
+    protected MergeResult doInCoreMerge(Ref branchToMerge, String mergeTarget, boolean squash, MergeCommand.FastForwardMode ffMode) throws JGitFlowIOException, JGitFlowGitAPIException
+    {
+        Repository repo = git.getRepository();
+        ObjectInserter inserter = repo.newObjectInserter();
+        try
+        {
+            Ref targetRef = refs().getLocalBranch(mergeTarget);
+            RevCommit target = session.parseCommit(targetRef.getObjectId());
+            RevCommit source = session.parseCommit(branchToMerge.getObjectId());
+            String shortSource = Repository.shortenRefName(branchToMerge.getName());
+            String mergeMessage = getScmMessagePrefix() + "merging '" + shortSource + "' into '" + mergeTarget + "'" + getScmMessageSuffix();
+            boolean isCustomScmMessage = (!StringUtils.isEmptyOrNull(getScmMessagePrefix())) || (!StringUtils.isEmptyOrNull(getScmMessageSuffix()));
+            boolean fastForward = GitHelper.isMergedInto(session.getWalk(), target, source);
+
+            ObjectId tree;
+            if (fastForward)
+            {
+                tree = source.getTree();
+            }
+            else
+            {
+                ThreeWayMerger merger = MergeStrategy.RECURSIVE.newMerger(repo, true);
+                if (!merger.merge(target, source))
+                {
+                    return null;
+                }
+                tree = merger.getResultTreeId();
+            }
+
+            ObjectId newHead;
+            MergeResult.MergeStatus status;
+
+            if (squash)
+            {
+                newHead = commit(inserter, tree, getScmMessagePrefix() + "squashing '" + shortSource + "' into '" + mergeTarget + "'" + getScmMessageSuffix(), target);
+                status = fastForward ? MergeResult.MergeStatus.FAST_FORWARD_SQUASHED : MergeResult.MergeStatus.MERGED_SQUASHED;
+            }
+            else if (fastForward && !MergeCommand.FastForwardMode.NO_FF.equals(ffMode))
+            {
+                newHead = source;
+                status = MergeResult.MergeStatus.FAST_FORWARD;
+
+                //the checkout based merge commits again after a fast forward
+                if (MergeCommand.FastForwardMode.FF.equals(ffMode) || isCustomScmMessage)
+                {
+                    newHead = commit(inserter, tree, mergeMessage, source);
+                }
+            }
+            else if (!fastForward && MergeCommand.FastForwardMode.FF_ONLY.equals(ffMode))
+            {
+                return new MergeResult(target, null, new ObjectId[]{target, source}, MergeResult.MergeStatus.ABORTED, MergeStrategy.RECURSIVE, null);
+            }
+            else
+            {
+                String message = isCustomScmMessage ? mergeMessage : new MergeMessageFormatter().format(Collections.singletonList(branchToMerge), targetRef);
+                newHead = commit(inserter, tree, message, target, source);
+                status = MergeResult.MergeStatus.MERGED;
+
+                if (MergeCommand.FastForwardMode.FF.equals(ffMode) && !isCustomScmMessage)
+                {
+                    newHead = commit(inserter, tree, mergeMessage, newHead);
+                }
+            }
+
+            inserter.flush();
+
+            RefUpdate update = repo.updateRef(targetRef.getName());
+            update.setExpectedOldObjectId(target);
+            update.setNewObjectId(newHead);
+            update.setRefLogMessage("merge " + shortSource + ": in-core merge", false);
+
+            RefUpdate.Result result = update.update(session.getWalk());
+            if (!RefUpdate.Result.FAST_FORWARD.equals(result) && !RefUpdate.Result.FORCED.equals(result) && !RefUpdate.Result.NO_CHANGE.equals(result))
+            {
+                throw new JGitFlowGitAPIException("unable to update '" + mergeTarget + "' after merging: " + result.name());
+            }
+            events.refUpdated(getCommandName(), targetRef.getName(), target, newHead);
+
+            return new MergeResult(newHead, null, new ObjectId[]{target, source}, status, MergeStrategy.RECURSIVE, null);
+        }
+        catch (IOException e)
+        {
+            throw new JGitFlowIOException(e);
+        }
+        finally
+        {
+            inserter.release();
+        }
+    }
+
+    private ObjectId commit(ObjectInserter inserter, ObjectId tree, String message, ObjectId... parents) throws IOException
+    {
+        PersonIdent ident = new PersonIdent(git.getRepository());
+
+        CommitBuilder commit = new CommitBuilder();
+        commit.setTreeId(tree);
+        commit.setParentIds(parents);
+        commit.setAuthor(ident);
+        commit.setCommitter(ident);
+        commit.setMessage(message);
+
+        return inserter.insert(commit);
+    }
+
+    private boolean needsWorkingTree(MergeProcessExtensionWrapper extension)
+    {
+        return needsWorkingTree(extension.beforeCheckout())
+                || needsWorkingTree(extension.afterCheckout())
+                || needsWorkingTree(extension.beforeMerge())
+                || needsWorkingTree(extension.afterMerge());
+    }
+
+    private boolean needsWorkingTree(Iterable<ExtensionCommand> commands)
+    {
+        for (ExtensionCommand command : commands)
+        {
+            if (command instanceof WorkingTreeExtensionCommand)
+            {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
     protected void doTag(String branchToTag, String tagMessage, MergeResult resultToLog, BranchMergingExtension extension) throws GitAPIException, JGitFlowGitAPIException, JGitFlowExtensionException
     {
         runExtensionCommands(extension.beforeTag());
-        git.checkout().setName(branchToTag).call();
+
+        //tag the tip of the branch directly, there's no need to check it out
+        RevCommit commitToTag;
+        try
+        {
+            commitToTag = session.parseCommit(refs().getLocalBranch(branchToTag).getObjectId());
+        }
+        catch (IOException e)
+        {
+            throw new JGitFlowGitAPIException("unable to read '" + branchToTag + "'", e);
+        }
+
         String tagName = gfConfig.getPrefixValue(JGitFlowConstants.PREFIXES.VERSIONTAG.configKey()) + getBranchName();
 
-        if (!GitHelper.tagExists(git, tagName))
+        if (!refs().tagExists(tagName))
         {
             reporter.infoText(
                     getCommandName(),
@@ -129,40 +320,51 @@ public abstract class AbstractBranchMergingCommand<C, T> extends AbstractGitFlow
                             resultToLog.getMergeStatus()
                     )
             );
-            git.tag().setName(tagName).setMessage(getScmMessagePrefix() + tagMessage + getScmMessageSuffix()).call();
+            Ref tag = git.tag().setName(tagName).setMessage(getScmMessagePrefix() + tagMessage + getScmMessageSuffix()).setObjectId(commitToTag).call();
+            invalidateRefs();
+            events.refUpdated(getCommandName(), tag.getName(), null, tag.getObjectId());
         }
 
         runExtensionCommands(extension.afterTag());
     }
 
-    protected void cleanupBranchesIfNeeded(String branchToCheckout, String... branchesToDelete) throws GitAPIException, JGitFlowGitAPIException
+    protected void cleanupBranchesIfNeeded(String branchToCheckout, String... branchesToDelete) throws GitAPIException, JGitFlowGitAPIException, JGitFlowIOException, JGitFlowExtensionException
     {
         if (!keepBranch)
         {
-            git.checkout().setName(branchToCheckout).call();
+            checkout(branchToCheckout);
+            syncWorkingTree();
 
             for (String branchToDelete : branchesToDelete)
             {
-                if (GitHelper.localBranchExists(git, branchToDelete))
+                if (isPush() && refs().remoteBranchExists(branchToDelete))
                 {
-                    reporter.infoText(getCommandName(), "deleting local branch: " + branchToDelete);
-
-                    git.branchDelete().setForce(forceDeleteBranch).setBranchNames(branchToDelete).call();
+                    reporter.infoText(getCommandName(), "pushing deleted branch: :" + branchToDelete);
+                    pushBatch.deleteBranch(branchToDelete);
                 }
+            }
+
+            //the deletes go out with the rest of the command's updates before anything is removed locally
+            pushQueuedRefs();
 
-                if (isPush() && GitHelper.remoteBranchExists(git, branchToDelete))
+            for (String branchToDelete : branchesToDelete)
+            {
+                if (refs().localBranchExists(branchToDelete))
                 {
-                    reporter.infoText(getCommandName(), "pushing deleted branch: :" + branchToDelete);
-                    RefSpec deleteSpec = new RefSpec().setSource(null).setDestination(Constants.R_HEADS + branchToDelete);
-                    git.push().setRemote(Constants.DEFAULT_REMOTE_NAME).setRefSpecs(deleteSpec).call();
+                    reporter.infoText(getCommandName(), "deleting local branch: " + branchToDelete);
+                    Ref deleted = refs().getLocalBranch(branchToDelete);
+
+                    git.branchDelete().setForce(forceDeleteBranch).setBranchNames(branchToDelete).call();
+                    invalidateRefs();
+                    events.refUpdated(getCommandName(), deleted.getName(), deleted.getObjectId(), null);
                 }
             }
         }
     }
 
-    protected void checkoutTopicBranch(String branchName, BranchMergingExtension extension) throws GitAPIException, JGitFlowExtensionException
+    protected void checkoutTopicBranch(String branchName, BranchMergingExtension extension) throws GitAPIException, JGitFlowExtensionException, JGitFlowIOException
     {
-        git.checkout().setName(branchName).call();
+        checkout(branchName);
         runExtensionCommands(extension.afterTopicCheckout());
     }
 
@@ -216,6 +418,27 @@ public abstract class AbstractBranchMergingCommand<C, T> extends AbstractGitFlow
         return (C) this;
     }
 
+    /**
+     * Set whether to do merges in memory instead of checking out each branch that is merged into.
+     * <p>
+     * Merges that have conflicts, target the branch that is checked out or have extension commands that implement
+     * {@link com.atlassian.jgitflow.core.extension.WorkingTreeExtensionCommand} still check out the target branch.
+     * </p>
+     *
+     * @param inCoreMerge {@code true} to merge in memory, {@code false}(default) otherwise
+     * @return {@code this}
+     */
+    public C setInCoreMerge(boolean inCoreMerge)
+    {
+        this.inCoreMerge = inCoreMerge;
+        return (C) this;
+    }
+
+    public boolean isInCoreMerge()
+    {
+        return inCoreMerge;
+    }
+
     public boolean isForceDeleteBranch()
     {
         return forceDeleteBranch;
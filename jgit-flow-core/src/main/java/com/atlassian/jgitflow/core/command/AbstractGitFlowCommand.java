@@ -1,5 +1,7 @@
 package com.atlassian.jgitflow.core.command;
 
+import java.io.IOException;
+import java.util.List;
 import java.util.concurrent.Callable;
 
 import com.atlassian.jgitflow.core.GitFlowConfiguration;
@@ -12,10 +14,19 @@ import com.atlassian.jgitflow.core.exception.JGitFlowIOException;
 import com.atlassian.jgitflow.core.extension.ExtensionCommand;
 import com.atlassian.jgitflow.core.extension.ExtensionFailStrategy;
 import com.atlassian.jgitflow.core.extension.JGitFlowExtension;
+import com.atlassian.jgitflow.core.jira.JiraGateway;
+import com.atlassian.jgitflow.core.jira.JiraOutbox;
+import com.atlassian.jgitflow.core.jira.JiraTransition;
+import com.atlassian.jgitflow.core.report.JGitFlowEventDispatcher;
+import com.atlassian.jgitflow.core.util.CheckoutCoordinator;
 import com.atlassian.jgitflow.core.util.GitHelper;
+import com.atlassian.jgitflow.core.util.GitSession;
+import com.atlassian.jgitflow.core.util.PushBatch;
+import com.atlassian.jgitflow.core.util.RefCache;
+import com.atlassian.jgitflow.core.util.RefSnapshot;
 import com.atlassian.jgitflow.core.util.RequirementHelper;
+import com.atlassian.jgitflow.core.util.TargetedFetch;
 
-import net.rcarz.jiraclient.JiraClient;
 import org.eclipse.jgit.api.Git;
 import org.eclipse.jgit.api.errors.GitAPIException;
 import org.eclipse.jgit.lib.Constants;
@@ -42,88 +53,222 @@ public abstract class AbstractGitFlowCommand<C, T> implements Callable<T>, JGitF
     private static final Logger log = LoggerFactory.getLogger(AbstractGitFlowCommand.class);
     protected final Git git;
     protected final GitFlowConfiguration gfConfig;
-    protected final JGitFlowReporter reporter = JGitFlowReporter.get();
+    protected final JGitFlowReporter reporter;
+    protected final JGitFlowEventDispatcher events;
     protected final RequirementHelper requirementHelper;
+    protected final GitSession session;
+    protected final RefCache refCache;
+    protected final CheckoutCoordinator checkouts;
+    protected final PushBatch pushBatch;
+    private JGitFlowExtension pushExtension;
     private boolean allowUntracked;
     private String scmMessagePrefix;
     private String scmMessageSuffix;
     private boolean fetch;
+    private boolean targetedFetch;
     private boolean push;
     private final String branchName;
-    protected JiraClient jira;
-    protected AbstractGitFlowCommand(String branchName, Git git, GitFlowConfiguration gfConfig, JiraClient jira)
+    private boolean commandRunning;
+    private long commandStartNanos;
+    protected JiraGateway jira;
+    protected AbstractGitFlowCommand(String branchName, Git git, GitFlowConfiguration gfConfig, JiraGateway jira)
     {
         checkNotNull(branchName);
         checkNotNull(git);
         checkNotNull(gfConfig);
 
-        this.requirementHelper = new RequirementHelper(git, gfConfig, getCommandName());
+        this.reporter = JGitFlowReporter.get(git);
+        this.events = JGitFlowEventDispatcher.forRepository(git.getRepository());
+        this.session = new GitSession(git);
+        this.refCache = session.getRefCache();
+        this.checkouts = new CheckoutCoordinator(git);
+        this.pushBatch = new PushBatch();
+        this.requirementHelper = new RequirementHelper(git, gfConfig, session, getCommandName());
         this.jira = jira;
         this.git = git;
         this.gfConfig = gfConfig;
+        //read the settings once per command, they only change when jgitflow writes them
+        gfConfig.invalidate();
         this.allowUntracked = false;
         this.scmMessagePrefix = "";
         this.scmMessageSuffix = "";
         this.fetch = false;
+        this.targetedFetch = false;
         this.push = false;
         this.branchName = branchName;
     }
 
-    protected void doFetchIfNeeded(JGitFlowExtension fetchingExtension) throws GitAPIException, JGitFlowGitAPIException, JGitFlowExtensionException
+    /**
+     * Fetches from origin if fetching is turned on.
+     * <p>
+     * With a targeted fetch only master, develop, the given branches and the version tag are fetched, and nothing is
+     * fetched if origin's refs match the local tracking refs.
+     * </p>
+     *
+     * @param fetchingExtension The extension to run before and after the fetch
+     * @param branchesToFetch   The branches this command needs besides master and develop
+     */
+    protected void doFetchIfNeeded(JGitFlowExtension fetchingExtension, String... branchesToFetch) throws GitAPIException, JGitFlowGitAPIException, JGitFlowExtensionException, JGitFlowIOException
     {
         if (fetch)
         {
             runExtensionCommands(fetchingExtension.beforeFetch());
 
-            git.fetch().setRemote(Constants.DEFAULT_REMOTE_NAME).call();
+            if (targetedFetch)
+            {
+                List<RefSpec> fetched = new TargetedFetch(git, Constants.DEFAULT_REMOTE_NAME)
+                        .addBranches(gfConfig.getMaster(), gfConfig.getDevelop())
+                        .addBranches(branchesToFetch)
+                        //the checks for an existing release or hotfix need every one the remote has
+                        .addBranchPrefixes(gfConfig.getPrefixValue(JGitFlowConstants.PREFIXES.RELEASE.configKey()), gfConfig.getPrefixValue(JGitFlowConstants.PREFIXES.HOTFIX.configKey()))
+                        .addTag(gfConfig.getPrefixValue(JGitFlowConstants.PREFIXES.VERSIONTAG.configKey()) + branchName)
+                        .call();
+
+                reporter.debugText(getCommandName(), fetched.isEmpty() ? "tracking refs are current, skipped fetch" : "fetched " + fetched);
+            }
+            else
+            {
+                git.fetch().setRemote(Constants.DEFAULT_REMOTE_NAME).call();
+            }
+            invalidateRefs();
 
             runExtensionCommands(fetchingExtension.afterFetch());
         }
     }
 
+    /**
+     * Queues the given branches, and the version tag if asked for, to be pushed by {@link #pushQueuedRefs()}.
+     * Branches that don't exist on the remote are left alone.
+     */
     protected void doPushIfNeeded(JGitFlowExtension pushExtension, boolean includeTags, String... branchesToPush) throws GitAPIException, JGitFlowGitAPIException, JGitFlowExtensionException
     {
         if (push)
+        {
+            for (String branchToPush : branchesToPush)
+            {
+                if (refs().remoteBranchExists(branchToPush))
+                {
+                    reporter.debugText(getCommandName(), "queueing push of '" + branchToPush + "'");
+                    pushBatch.addBranch(branchToPush);
+                }
+            }
+
+            if (includeTags)
+            {
+                String tagName = gfConfig.getPrefixValue(JGitFlowConstants.PREFIXES.VERSIONTAG.configKey()) + branchName;
+                if (refs().tagExists(tagName))
+                {
+                    reporter.debugText(getCommandName(), "queueing push of tag '" + tagName + "'");
+                    pushBatch.addTag(tagName);
+                }
+            }
+
+            this.pushExtension = pushExtension;
+        }
+    }
+
+    /**
+     * Pushes everything queued by this command to origin in a single push, then runs the afterPush extensions. The
+     * extensions run even if there was nothing to push.
+     *
+     * @throws com.atlassian.jgitflow.core.exception.JGitFlowGitAPIException if the push fails or any ref is rejected
+     */
+    protected void pushQueuedRefs() throws GitAPIException, JGitFlowGitAPIException, JGitFlowExtensionException, JGitFlowIOException
+    {
+        if (!push)
+        {
+            return;
+        }
+
+        if (!pushBatch.isEmpty())
         {
             reporter.infoText(getCommandName(), "pushing changes to origin...");
 
-            for (String branchToPush : branchesToPush)
+            List<RefSpec> refSpecs = pushBatch.getRefSpecs();
+            pushBatch.clear();
+
+            Iterable<PushResult> results = git.push().setRemote(Constants.DEFAULT_REMOTE_NAME).setRefSpecs(refSpecs).call();
+            for (PushResult pr : results)
             {
-                if (GitHelper.remoteBranchExists(git, branchToPush))
+                events.pushResult(getCommandName(), pr);
+
+                for (RemoteRefUpdate update : pr.getRemoteUpdates())
                 {
-                    reporter.infoText(getCommandName(), "pushing '" + branchToPush + "'");
-                    RefSpec branchSpec = new RefSpec(branchToPush);
-                    Iterable<PushResult> i = git.push().setRemote(Constants.DEFAULT_REMOTE_NAME).setRefSpecs(branchSpec).call();
-                    for (PushResult pr : i)
+                    if (failedStatus(update.getStatus()))
                     {
-                        reporter.infoText(getCommandName(), "messages: '" + pr.getMessages() + "'");
-
-                        for(RemoteRefUpdate update : pr.getRemoteUpdates()) {
-                            if (update.hasTrackingRefUpdate()) {
-                                RefUpdate.Result trackingResult = update.getTrackingRefUpdate().getResult();
-                                if (failedResult(trackingResult)) {
-                                    if (pr.getMessages() != null && pr.getMessages().length() > 0) {
-                                        throw new JGitFlowGitAPIException("error pushing to " + branchToPush + " - status: " + trackingResult.name() + " - " + pr.getMessages());
-                                    } else {
-                                        throw new JGitFlowGitAPIException("error pushing to " + branchToPush + " - " + trackingResult.name());
-                                    }
-                                }
-                            }
+                        throw new JGitFlowGitAPIException(pushErrorMessage(update.getRemoteName(), update.getStatus().name(), pr));
+                    }
+
+                    if (update.hasTrackingRefUpdate())
+                    {
+                        RefUpdate.Result trackingResult = update.getTrackingRefUpdate().getResult();
+                        if (failedResult(trackingResult))
+                        {
+                            throw new JGitFlowGitAPIException(pushErrorMessage(update.getRemoteName(), trackingResult.name(), pr));
                         }
                     }
                 }
             }
 
-            if (includeTags)
-            {
-                reporter.infoText(getCommandName(), "pushing tags");
-                // TODO: check for errors or at least log error messages received
-                git.push().setRemote(Constants.DEFAULT_REMOTE_NAME).setPushTags().call();
-            }
+            updateTrackingRefs(results);
+        }
+
+        if (null != pushExtension)
+        {
+            JGitFlowExtension extension = pushExtension;
+            pushExtension = null;
+            runExtensionCommands(extension.afterPush());
+        }
+    }
+
+    /**
+     * Publishes the results of a push and updates the origin tracking refs from them. Only fetches if a result leaves
+     * the remote state unclear.
+     *
+     * @param results The results of a push to origin
+     * @throws com.atlassian.jgitflow.core.exception.JGitFlowIOException
+     */
+    protected void refreshTrackingRefs(Iterable<PushResult> results) throws GitAPIException, JGitFlowIOException
+    {
+        for (PushResult pr : results)
+        {
+            events.pushResult(getCommandName(), pr);
+        }
+
+        updateTrackingRefs(results);
+    }
 
+    private void updateTrackingRefs(Iterable<PushResult> results) throws GitAPIException, JGitFlowIOException
+    {
+        if (!GitHelper.updateTrackingRefs(git, Constants.DEFAULT_REMOTE_NAME, results))
+        {
+            reporter.debugText(getCommandName(), "push results are ambiguous, fetching from origin");
             git.fetch().setRemote(Constants.DEFAULT_REMOTE_NAME).call();
+        }
+
+        invalidateRefs();
+    }
 
-            runExtensionCommands(pushExtension.afterPush());
+    private String pushErrorMessage(String refName, String status, PushResult pr)
+    {
+        if (pr.getMessages() != null && pr.getMessages().length() > 0)
+        {
+            return "error pushing to " + refName + " - status: " + status + " - " + pr.getMessages();
+        }
+
+        return "error pushing to " + refName + " - " + status;
+    }
+
+    private boolean failedStatus(RemoteRefUpdate.Status status)
+    {
+        switch (status)
+        {
+            case OK:
+            case UP_TO_DATE:
+            case NON_EXISTING:
+                return false;
+            default:
+                return true;
         }
     }
 
@@ -145,20 +290,14 @@ public abstract class AbstractGitFlowCommand<C, T> implements Callable<T>, JGitF
 
     protected String runBeforeAndGetPrefixedBranchName(Iterable<ExtensionCommand> before, JGitFlowConstants.PREFIXES prefix) throws JGitFlowExtensionException
     {
-        reporter.commandCall(getCommandName());
+        startCommand();
         runExtensionCommands(before);
         return gfConfig.getPrefixValue(prefix.configKey()) + branchName;
     }
 
     protected void ensureLocalBranchesNotBehindRemotes(String... branchesToTest) throws JGitFlowGitAPIException, BranchOutOfDateException, JGitFlowIOException
     {
-        for (String branchToTest : branchesToTest)
-        {
-            if (GitHelper.remoteBranchExists(git, branchToTest))
-            {
-                enforcer().requireLocalBranchNotBehindRemote(branchToTest);
-            }
-        }
+        enforcer().requireLocalBranchesNotBehindRemotes(branchesToTest);
     }
 
     @Override
@@ -219,6 +358,27 @@ public abstract class AbstractGitFlowCommand<C, T> implements Callable<T>, JGitF
         return fetch;
     }
 
+    /**
+     * Set whether a fetch should only get the refs this command works with
+     *
+     * @param targetedFetch {@code true} to fetch master, develop, release and hotfix branches, the command's branch and
+     *                      version tag only,
+     *                      {@code false}(default) to fetch everything
+     * @return {@code this}
+     */
+    @Override
+    public C setTargetedFetch(boolean targetedFetch)
+    {
+        this.targetedFetch = targetedFetch;
+        return (C) this;
+    }
+
+    @Override
+    public boolean isTargetedFetch()
+    {
+        return targetedFetch;
+    }
+
     /**
      * Set whether to push the changes to the remote repository
      *
@@ -246,16 +406,58 @@ public abstract class AbstractGitFlowCommand<C, T> implements Callable<T>, JGitF
 
     protected abstract String getCommandName();
 
+    protected void startCommand()
+    {
+        commandRunning = true;
+        //for extensions and helpers that only know JGitFlowReporter.get()
+        reporter.makeCurrent();
+        reporter.commandCall(getCommandName());
+        commandStartNanos = System.nanoTime();
+        events.commandStarted(getCommandName(), branchName);
+    }
+
+    /**
+     * Ends the command started by {@link #startCommand()}. Only the first call after the start is published, so error
+     * paths can safely call this before the finally block does.
+     */
+    protected void endCommand()
+    {
+        if (commandRunning)
+        {
+            commandRunning = false;
+            events.commandEnded(getCommandName(), branchName, System.nanoTime() - commandStartNanos);
+            //the log is flushed whether or not anything listens to the events
+            reporter.endCommand();
+            JGitFlowReporter.clearCurrent();
+        }
+    }
+
     protected void runExtensionCommands(Iterable<ExtensionCommand> commands) throws JGitFlowExtensionException
     {
+        if (commands.iterator().hasNext() && checkouts.hasPendingCheckout())
+        {
+            //extensions expect to run on the branch we asked for
+            try
+            {
+                checkedOut(checkouts.sync());
+            }
+            catch (JGitFlowGitAPIException e)
+            {
+                throw new JGitFlowExtensionException("unable to check out the working tree for extensions", e);
+            }
+        }
+
         for (final ExtensionCommand command : commands)
         {
+            long start = events.hasListeners() ? System.nanoTime() : 0L;
             try
             {
                 command.execute(gfConfig, git, this);
+                extensionExecuted(command, start, null);
             }
             catch (JGitFlowExtensionException e)
             {
+                extensionExecuted(command, start, e);
                 if (ExtensionFailStrategy.ERROR.equals(command.failStrategy()))
                 {
                     throw e;
@@ -265,6 +467,55 @@ public abstract class AbstractGitFlowCommand<C, T> implements Callable<T>, JGitF
                     log.warn("Error running JGitFlow Extension", e);
                 }
             }
+            finally
+            {
+                //extensions are free to commit, branch or tag, so we can't trust our refs afterwards
+                invalidateRefs();
+            }
+        }
+    }
+
+    private void extensionExecuted(ExtensionCommand command, long start, JGitFlowExtensionException failure)
+    {
+        if (events.hasListeners())
+        {
+            events.extensionCommandExecuted(getCommandName(), command, System.nanoTime() - start, failure);
+        }
+    }
+
+    /**
+     * Publishes a checkout that touched the working tree
+     *
+     * @param branchName The branch that was checked out, null if nothing was checked out
+     */
+    protected void checkedOut(String branchName)
+    {
+        if (null != branchName)
+        {
+            events.checkoutPerformed(getCommandName(), branchName);
+        }
+    }
+
+    /**
+     * Queues a Jira transition to be sent in the background if Jira is configured. The command never waits for Jira.
+     *
+     * @param transition The transition to send
+     */
+    protected void queueJiraTransition(JiraTransition transition)
+    {
+        if (!jira.isConfigured())
+        {
+            return;
+        }
+
+        try
+        {
+            JiraOutbox.forRepository(git.getRepository(), jira).enqueue(transition);
+            reporter.debugText(getCommandName(), "queued jira transition " + transition);
+        }
+        catch (IOException e)
+        {
+            reporter.errorText(getCommandName(), "unable to queue jira transition " + transition + ": " + e.getMessage());
         }
     }
 
@@ -272,4 +523,53 @@ public abstract class AbstractGitFlowCommand<C, T> implements Callable<T>, JGitF
     {
         return requirementHelper;
     }
+
+    /**
+     * @return the ref snapshot for this command, read on first use
+     * @throws com.atlassian.jgitflow.core.exception.JGitFlowGitAPIException
+     */
+    protected RefSnapshot refs() throws JGitFlowGitAPIException
+    {
+        return refCache.get();
+    }
+
+    /**
+     * Must be called after this command creates, moves or deletes a ref so the next check re-reads the refs
+     */
+    protected void invalidateRefs()
+    {
+        refCache.invalidate();
+        checkouts.invalidate();
+    }
+
+    /**
+     * Asks for a branch to be checked out. The working tree is updated by the next {@link #syncWorkingTree()}, or
+     * before the next extension commands run.
+     *
+     * @param branchName The branch to check out
+     * @throws com.atlassian.jgitflow.core.exception.JGitFlowIOException
+     */
+    protected void checkout(String branchName) throws JGitFlowIOException
+    {
+        checkouts.checkout(branchName);
+    }
+
+    /**
+     * Updates the working tree to the branch asked for by the last {@link #checkout(String)}
+     *
+     * @throws com.atlassian.jgitflow.core.exception.JGitFlowGitAPIException
+     */
+    protected void syncWorkingTree() throws JGitFlowGitAPIException
+    {
+        checkedOut(checkouts.sync());
+        reporter.debugText(getCommandName(), "checkouts done: " + checkouts.getCheckoutCount() + ", skipped: " + checkouts.getSkippedCount());
+    }
+
+    /**
+     * @return the number of checkouts this command didn't need to do
+     */
+    public int getSkippedCheckoutCount()
+    {
+        return checkouts.getSkippedCount();
+    }
 }
@@ -10,11 +10,13 @@ import com.atlassian.jgitflow.core.exception.*;
 import com.atlassian.jgitflow.core.extension.FeatureFinishExtension;
 import com.atlassian.jgitflow.core.extension.impl.EmptyFeatureFinishExtension;
 import com.atlassian.jgitflow.core.extension.impl.MergeProcessExtensionWrapper;
+import com.atlassian.jgitflow.core.jira.JiraGateway;
+import com.atlassian.jgitflow.core.jira.JiraIssueCache;
+import com.atlassian.jgitflow.core.jira.JiraTransition;
 import com.atlassian.jgitflow.core.util.FileHelper;
 import com.atlassian.jgitflow.core.util.GitHelper;
 import com.atlassian.jgitflow.core.util.IterableHelper;
 
-import net.rcarz.jiraclient.*;
 import org.eclipse.jgit.api.Git;
 import org.eclipse.jgit.api.MergeCommand;
 import org.eclipse.jgit.api.MergeResult;
@@ -68,7 +70,7 @@ public class FeatureFinishCommand extends AbstractBranchMergingCommand<FeatureFi
      * @param git      The git instance to use
      * @param gfConfig The GitFlowConfiguration to use
      */
-    public FeatureFinishCommand(String branchName, Git git, GitFlowConfiguration gfConfig, JiraClient jira)
+    public FeatureFinishCommand(String branchName, Git git, GitFlowConfiguration gfConfig, JiraGateway jira)
     {
         super(branchName, git, gfConfig, jira);
 
@@ -110,11 +112,14 @@ public class FeatureFinishCommand extends AbstractBranchMergingCommand<FeatureFi
             {
                 //check to see if the merge was done
                 String finishBase = FileHelper.readFirstLine(mergeBase);
-                if (GitHelper.isMergedInto(git, prefixedBranchName, finishBase))
+                if (GitHelper.isMergedInto(session, prefixedBranchName, finishBase))
                 {
                     mergeBase.delete();
                     cleanupBranchesIfNeeded(gfConfig.getDevelop(), prefixedBranchName);
-                    reporter.endCommand();
+
+                    //anything not pushed by the cleanup, e.g. when keeping the branch
+                    pushQueuedRefs();
+                    endCommand();
                     return null;
                 }
                 else
@@ -125,7 +130,7 @@ public class FeatureFinishCommand extends AbstractBranchMergingCommand<FeatureFi
             else
             {
                 reporter.errorText(getCommandName(), "Merge conflicts are not resolved");
-                reporter.endCommand();
+                endCommand();
                 throw new MergeConflictsNotResolvedException("Merge conflicts are not resolved");
             }
         }
@@ -135,7 +140,7 @@ public class FeatureFinishCommand extends AbstractBranchMergingCommand<FeatureFi
 
         try
         {
-            doFetchIfNeeded(extension);
+            doFetchIfNeeded(extension, prefixedBranchName);
 
             ensureLocalBranchesNotBehindRemotes(prefixedBranchName, prefixedBranchName, gfConfig.getDevelop());
 
@@ -147,14 +152,15 @@ public class FeatureFinishCommand extends AbstractBranchMergingCommand<FeatureFi
                 runExtensionCommands(extension.beforeRebase());
                 FeatureRebaseCommand rebaseCommand = new FeatureRebaseCommand(getBranchName(), git, gfConfig, jira);
                 rebaseCommand.setAllowUntracked(isAllowUntracked()).call();
+                invalidateRefs();
                 runExtensionCommands(extension.afterRebase());
             }
 
             if (!noMerge)
             {
 
-                RevCommit developCommit = GitHelper.getLatestCommit(git, gfConfig.getDevelop());
-                RevCommit featureCommit = GitHelper.getLatestCommit(git, prefixedBranchName);
+                RevCommit developCommit = GitHelper.getLatestCommit(session, gfConfig.getDevelop());
+                RevCommit featureCommit = GitHelper.getLatestCommit(session, prefixedBranchName);
 
                 List<RevCommit> commitList = IterableHelper.asList(git.log().setMaxCount(2).addRange(developCommit, featureCommit).call());
 
@@ -174,7 +180,7 @@ public class FeatureFinishCommand extends AbstractBranchMergingCommand<FeatureFi
                     FileHelper.createParentDirs(mergeBase);
                     FileUtils.createNewFile(mergeBase);
                     FileHelper.writeStringToFile(gfConfig.getDevelop(), mergeBase);
-                    reporter.endCommand();
+                    endCommand();
                     reporter.flush();
                     throw new MergeConflictsNotResolvedException("merge conflicts exist, please resolve!");
                 }
@@ -184,46 +190,34 @@ public class FeatureFinishCommand extends AbstractBranchMergingCommand<FeatureFi
 
             cleanupBranchesIfNeeded(gfConfig.getDevelop(), prefixedBranchName);
 
-            Issue issue = jira.getIssue(getBranchName().substring(getBranchName().lastIndexOf("/") + 1));
-
             reporter.infoText(getCommandName(), "checking out '" + gfConfig.getDevelop() + "'");
-            git.checkout().setName(gfConfig.getDevelop()).call();
-            reporter.endCommand();
+            checkout(gfConfig.getDevelop());
+            syncWorkingTree();
 
             runExtensionCommands(extension.after());
-            if (jira != null) {
-                try {
-                    if (issue.getTimeSpent() == 0) throw new MissingTimeSpentException();
-                    reporter.infoText("Closing Ticket blah...", "Closing Ticket " + getBranchName() + "... ");
-                    issue.addComment("The issue was resolved by auto process on feature finish command");
-                    issue.transition()
-                            .field(Field.RESOLUTION, "Done")
-                            .execute("QA");
-                } catch (MissingTimeSpentException e) {
-                    e.printStackTrace();
-                } catch (Exception e) {
-                    e.printStackTrace();
-                }
-            }
+            reporter.infoText("Closing Ticket blah...", "Closing Ticket " + getBranchName() + "... ");
+            queueJiraTransition(new JiraTransition(JiraIssueCache.issueKeyOf(getBranchName()), "QA")
+                    .setComment("The issue was resolved by auto process on feature finish command")
+                    .setResolution("Done")
+                    .setRequireTimeSpent(true));
+            endCommand();
             return mergeResult;
         }
         catch (GitAPIException e)
         {
-            reporter.endCommand();
+            endCommand();
             throw new JGitFlowGitAPIException(e);
         }
         catch (IOException e)
         {
-            reporter.endCommand();
-            throw new JGitFlowIOException(e);
-        } catch (JiraException e) {
-            reporter.endCommand();
-            e.printStackTrace();
+            endCommand();
             throw new JGitFlowIOException(e);
-        }  finally
+        }
+        finally
         {
-            reporter.endCommand();
+            endCommand();
             reporter.flush();
+            session.release();
         }
     }
 
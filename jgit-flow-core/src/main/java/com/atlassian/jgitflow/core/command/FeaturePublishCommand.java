@@ -7,14 +7,15 @@ import com.atlassian.jgitflow.core.JGitFlowConstants;
 import com.atlassian.jgitflow.core.exception.*;
 import com.atlassian.jgitflow.core.extension.JGitFlowExtension;
 import com.atlassian.jgitflow.core.extension.impl.EmptyFeatureStartExtension;
+import com.atlassian.jgitflow.core.jira.JiraGateway;
 
-import net.rcarz.jiraclient.JiraClient;
 import org.eclipse.jgit.api.Git;
 import org.eclipse.jgit.api.errors.GitAPIException;
 import org.eclipse.jgit.errors.ConfigInvalidException;
 import org.eclipse.jgit.lib.ConfigConstants;
 import org.eclipse.jgit.lib.Constants;
 import org.eclipse.jgit.lib.StoredConfig;
+import org.eclipse.jgit.transport.PushResult;
 import org.eclipse.jgit.transport.RefSpec;
 
 /**
@@ -40,7 +41,7 @@ public class FeaturePublishCommand extends AbstractGitFlowCommand<FeaturePublish
      * @param git      The git instance to use
      * @param gfConfig The GitFlowConfiguration to use
      */
-    public FeaturePublishCommand(String branchName, Git git, GitFlowConfiguration gfConfig, JiraClient jira)
+    public FeaturePublishCommand(String branchName, Git git, GitFlowConfiguration gfConfig, JiraGateway jira)
     {
         super(branchName, git, gfConfig, jira);
     }
@@ -68,14 +69,14 @@ public class FeaturePublishCommand extends AbstractGitFlowCommand<FeaturePublish
         {
             setFetch(true);
 
-            doFetchIfNeeded(extension);
+            doFetchIfNeeded(extension, prefixedBranchName);
 
             enforcer().requireRemoteBranchAbsent(prefixedBranchName);
 
             //create remote feature branch
             RefSpec branchSpec = new RefSpec(prefixedBranchName + ":" + Constants.R_HEADS + prefixedBranchName);
-            git.push().setRemote(Constants.DEFAULT_REMOTE_NAME).setRefSpecs(branchSpec).call();
-            git.fetch().setRemote(Constants.DEFAULT_REMOTE_NAME).call();
+            Iterable<PushResult> results = git.push().setRemote(Constants.DEFAULT_REMOTE_NAME).setRefSpecs(branchSpec).call();
+            refreshTrackingRefs(results);
 
             //setup tracking
             StoredConfig config = git.getRepository().getConfig();
@@ -84,7 +85,8 @@ public class FeaturePublishCommand extends AbstractGitFlowCommand<FeaturePublish
             config.save();
             config.load();
             //checkout the branch
-            git.checkout().setName(prefixedBranchName).call();
+            checkout(prefixedBranchName);
+            syncWorkingTree();
 
         }
         catch (IOException e)
@@ -101,8 +103,9 @@ public class FeaturePublishCommand extends AbstractGitFlowCommand<FeaturePublish
         }
         finally
         {
-            reporter.endCommand();
+            endCommand();
             reporter.flush();
+            session.release();
         }
 
         return null;
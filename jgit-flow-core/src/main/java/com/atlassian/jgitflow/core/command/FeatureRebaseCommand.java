@@ -3,8 +3,8 @@ package com.atlassian.jgitflow.core.command;
 import com.atlassian.jgitflow.core.GitFlowConfiguration;
 import com.atlassian.jgitflow.core.JGitFlowConstants;
 import com.atlassian.jgitflow.core.exception.*;
+import com.atlassian.jgitflow.core.jira.JiraGateway;
 
-import net.rcarz.jiraclient.JiraClient;
 import org.eclipse.jgit.api.Git;
 import org.eclipse.jgit.api.errors.GitAPIException;
 
@@ -31,7 +31,7 @@ public class FeatureRebaseCommand extends AbstractGitFlowCommand<FeatureRebaseCo
      * @param git      The git instance to use
      * @param gfConfig The GitFlowConfiguration to use
      */
-    public FeatureRebaseCommand(String branchName, Git git, GitFlowConfiguration gfConfig, JiraClient jira)
+    public FeatureRebaseCommand(String branchName, Git git, GitFlowConfiguration gfConfig, JiraGateway jira)
     {
         super(branchName, git, gfConfig, jira);
     }
@@ -55,6 +55,7 @@ public class FeatureRebaseCommand extends AbstractGitFlowCommand<FeatureRebaseCo
         try
         {
             git.checkout().setName(prefixedBranchName).call();
+            checkedOut(prefixedBranchName);
             git.rebase().setUpstream(gfConfig.getDevelop()).call();
         }
         catch (GitAPIException e)
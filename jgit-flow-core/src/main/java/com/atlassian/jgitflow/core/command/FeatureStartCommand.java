@@ -7,10 +7,10 @@ import com.atlassian.jgitflow.core.JGitFlowConstants;
 import com.atlassian.jgitflow.core.exception.*;
 import com.atlassian.jgitflow.core.extension.FeatureStartExtension;
 import com.atlassian.jgitflow.core.extension.impl.EmptyFeatureStartExtension;
+import com.atlassian.jgitflow.core.jira.JiraGateway;
+import com.atlassian.jgitflow.core.jira.JiraIssueCache;
+import com.atlassian.jgitflow.core.jira.JiraTransition;
 
-import net.rcarz.jiraclient.Issue;
-import net.rcarz.jiraclient.JiraClient;
-import net.rcarz.jiraclient.JiraException;
 import org.eclipse.jgit.api.Git;
 import org.eclipse.jgit.api.errors.GitAPIException;
 import org.eclipse.jgit.lib.Ref;
@@ -48,7 +48,7 @@ public class FeatureStartCommand extends AbstractBranchCreatingCommand<FeatureSt
      * @param git        The git instance to use
      * @param gfConfig   The GitFlowConfiguration to use
      */
-    public FeatureStartCommand(String branchName, Git git, GitFlowConfiguration gfConfig, JiraClient jira) {
+    public FeatureStartCommand(String branchName, Git git, GitFlowConfiguration gfConfig, JiraGateway jira) {
         super(branchName, git, gfConfig, jira);
         this.extension = new EmptyFeatureStartExtension();
     }
@@ -69,25 +69,15 @@ public class FeatureStartCommand extends AbstractBranchCreatingCommand<FeatureSt
         enforcer().requireLocalBranchAbsent(prefixedBranchName);
 
         try {
-            doFetchIfNeeded(extension);
+            doFetchIfNeeded(extension, prefixedBranchName);
 
             Ref newBranch = doCreateBranch(gfConfig.getDevelop(), prefixedBranchName, extension);
 
             doPushNewBranchIfNeeded(extension, prefixedBranchName);
 
             runExtensionCommands(extension.after());
-            if (jira != null) {
-                try {
-                    Issue issue = jira.getIssue(newBranch.getName().substring(newBranch.getName().lastIndexOf("/") + 1));
-                    reporter.infoText("Set ticket", "Set ticket resolution to 'In Progress'");
-                    issue.transition().execute("In Progress");
-                } catch (JiraException e) {
-                    reporter.infoText("In Progress failed", "An error accoured while setting ticket resolution to 'In Progress'");
-                    e.printStackTrace();
-                } catch (Exception e) {
-                    e.printStackTrace();
-                }
-            }
+            reporter.infoText("Set ticket", "Set ticket resolution to 'In Progress'");
+            queueJiraTransition(new JiraTransition(JiraIssueCache.issueKeyOf(newBranch.getName()), "In Progress"));
             return newBranch;
 
         } catch (GitAPIException e) {
@@ -95,8 +85,9 @@ public class FeatureStartCommand extends AbstractBranchCreatingCommand<FeatureSt
         } catch (IOException e) {
             throw new JGitFlowIOException(e);
         } finally {
-            reporter.endCommand();
+            endCommand();
             reporter.flush();
+            session.release();
         }
     }
 
@@ -9,9 +9,8 @@ import com.atlassian.jgitflow.core.exception.*;
 import com.atlassian.jgitflow.core.extension.HotfixFinishExtension;
 import com.atlassian.jgitflow.core.extension.impl.EmptyHotfixFinishExtension;
 import com.atlassian.jgitflow.core.extension.impl.MergeProcessExtensionWrapper;
-import com.atlassian.jgitflow.core.util.GitHelper;
+import com.atlassian.jgitflow.core.jira.JiraGateway;
 
-import net.rcarz.jiraclient.JiraClient;
 import org.eclipse.jgit.api.Git;
 import org.eclipse.jgit.api.MergeResult;
 import org.eclipse.jgit.api.errors.GitAPIException;
@@ -74,7 +73,7 @@ public class HotfixFinishCommand extends AbstractBranchMergingCommand<HotfixFini
      * @param git        The git instance to use
      * @param gfConfig   The GitFlowConfiguration to use
      */
-    public HotfixFinishCommand(String hotfixName, Git git, GitFlowConfiguration gfConfig, JiraClient jira)
+    public HotfixFinishCommand(String hotfixName, Git git, GitFlowConfiguration gfConfig, JiraGateway jira)
     {
         super(hotfixName, git, gfConfig, jira);
 
@@ -106,7 +105,7 @@ public class HotfixFinishCommand extends AbstractBranchMergingCommand<HotfixFini
         MergeResult releaseResult = createEmptyMergeResult();
         try
         {
-            doFetchIfNeeded(extension);
+            doFetchIfNeeded(extension, prefixedBranchName);
 
             ensureLocalBranchesNotBehindRemotes(prefixedBranchName, gfConfig.getMaster(), gfConfig.getDevelop());
 
@@ -155,9 +154,13 @@ public class HotfixFinishCommand extends AbstractBranchMergingCommand<HotfixFini
             {
                 cleanupBranchesIfNeeded(gfConfig.getDevelop(), prefixedBranchName);
             }
+
+            //anything not pushed by the cleanup, e.g. when keeping the branch
+            pushQueuedRefs();
             
             reporter.infoText(getCommandName(), "checking out '" + gfConfig.getDevelop() + "'");
-            git.checkout().setName(gfConfig.getDevelop()).call();
+            checkout(gfConfig.getDevelop());
+            syncWorkingTree();
 
             runExtensionCommands(extension.after());
             return new ReleaseMergeResult(masterResult, developResult);
@@ -169,8 +172,9 @@ public class HotfixFinishCommand extends AbstractBranchMergingCommand<HotfixFini
         }
         finally
         {
-            reporter.endCommand();
+            endCommand();
             reporter.flush();
+            session.release();
         }
     }
 
@@ -178,7 +182,7 @@ public class HotfixFinishCommand extends AbstractBranchMergingCommand<HotfixFini
     {
         boolean exists = false;
 
-        List<Ref> branches = GitHelper.listBranchesWithPrefix(git, gfConfig.getPrefixValue(JGitFlowConstants.PREFIXES.RELEASE.configKey()));
+        List<Ref> branches = refs().branchesWithPrefix(gfConfig.getPrefixValue(JGitFlowConstants.PREFIXES.RELEASE.configKey()));
 
         if (!branches.isEmpty())
         {
@@ -192,7 +196,7 @@ public class HotfixFinishCommand extends AbstractBranchMergingCommand<HotfixFini
     {
         String branchName = "";
 
-        List<Ref> branches = GitHelper.listBranchesWithPrefix(git, gfConfig.getPrefixValue(JGitFlowConstants.PREFIXES.RELEASE.configKey()));
+        List<Ref> branches = refs().branchesWithPrefix(gfConfig.getPrefixValue(JGitFlowConstants.PREFIXES.RELEASE.configKey()));
 
         if (!branches.isEmpty())
         {
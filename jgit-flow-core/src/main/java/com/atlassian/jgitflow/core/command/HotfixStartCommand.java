@@ -7,8 +7,8 @@ import com.atlassian.jgitflow.core.JGitFlowConstants;
 import com.atlassian.jgitflow.core.exception.*;
 import com.atlassian.jgitflow.core.extension.HotfixStartExtension;
 import com.atlassian.jgitflow.core.extension.impl.EmptyHotfixStartExtension;
+import com.atlassian.jgitflow.core.jira.JiraGateway;
 
-import net.rcarz.jiraclient.JiraClient;
 import org.eclipse.jgit.api.Git;
 import org.eclipse.jgit.api.errors.GitAPIException;
 import org.eclipse.jgit.lib.Ref;
@@ -47,7 +47,7 @@ public class HotfixStartCommand extends AbstractBranchCreatingCommand<HotfixStar
      * @param git        The git instance to use
      * @param gfConfig   The GitFlowConfiguration to use
      */
-    public HotfixStartCommand(String hotfixName, Git git, GitFlowConfiguration gfConfig, JiraClient jira)
+    public HotfixStartCommand(String hotfixName, Git git, GitFlowConfiguration gfConfig, JiraGateway jira)
     {
         super(hotfixName, git, gfConfig, jira);
         this.extension = new EmptyHotfixStartExtension();
@@ -77,7 +77,7 @@ public class HotfixStartCommand extends AbstractBranchCreatingCommand<HotfixStar
 
         try
         {
-            doFetchIfNeeded(extension);
+            doFetchIfNeeded(extension, prefixedBranchName);
 
             Ref newBranch = doCreateBranch(gfConfig.getMaster(), prefixedBranchName, extension);
 
@@ -96,8 +96,9 @@ public class HotfixStartCommand extends AbstractBranchCreatingCommand<HotfixStar
         }
         finally
         {
-            reporter.endCommand();
+            endCommand();
             reporter.flush();
+            session.release();
         }
     }
 
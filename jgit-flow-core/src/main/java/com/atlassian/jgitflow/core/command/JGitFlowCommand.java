@@ -19,6 +19,10 @@ public interface JGitFlowCommand
 
     boolean isFetch();
 
+    Object setTargetedFetch(boolean targetedFetch);
+
+    boolean isTargetedFetch();
+
     Object setPush(boolean push);
 
     boolean isPush();
@@ -7,8 +7,8 @@ import com.atlassian.jgitflow.core.exception.*;
 import com.atlassian.jgitflow.core.extension.ReleaseFinishExtension;
 import com.atlassian.jgitflow.core.extension.impl.EmptyReleaseFinishExtension;
 import com.atlassian.jgitflow.core.extension.impl.MergeProcessExtensionWrapper;
+import com.atlassian.jgitflow.core.jira.JiraGateway;
 
-import net.rcarz.jiraclient.JiraClient;
 import org.eclipse.jgit.api.Git;
 import org.eclipse.jgit.api.MergeResult;
 import org.eclipse.jgit.api.errors.GitAPIException;
@@ -75,7 +75,7 @@ public class ReleaseFinishCommand extends AbstractBranchMergingCommand<ReleaseFi
      * @param git         The git instance to use
      * @param gfConfig    The GitFlowConfiguration to use
      */
-    public ReleaseFinishCommand(String releaseName, Git git, GitFlowConfiguration gfConfig, JiraClient jira)
+    public ReleaseFinishCommand(String releaseName, Git git, GitFlowConfiguration gfConfig, JiraGateway jira)
     {
         super(releaseName, git, gfConfig, jira);
         checkState(!StringUtils.isEmptyOrNull(releaseName));
@@ -106,7 +106,7 @@ public class ReleaseFinishCommand extends AbstractBranchMergingCommand<ReleaseFi
         MergeResult masterResult = createEmptyMergeResult();
         try
         {
-            doFetchIfNeeded(extension);
+            doFetchIfNeeded(extension, prefixedBranchName);
 
 
             ensureLocalBranchesNotBehindRemotes(prefixedBranchName, gfConfig.getMaster(), gfConfig.getDevelop());
@@ -155,13 +155,17 @@ public class ReleaseFinishCommand extends AbstractBranchMergingCommand<ReleaseFi
                 cleanupBranchesIfNeeded(gfConfig.getDevelop(), prefixedBranchName);
             }
 
+            //anything not pushed by the cleanup, e.g. when keeping the branch
+            pushQueuedRefs();
+
             if (log.isDebugEnabled())
             {
                 log.debug("checking out develop...");
             }
 
             reporter.infoText(getCommandName(), "checking out '" + gfConfig.getDevelop() + "'");
-            git.checkout().setName(gfConfig.getDevelop()).call();
+            checkout(gfConfig.getDevelop());
+            syncWorkingTree();
 
             runExtensionCommands(extension.after());
             return new ReleaseMergeResult(masterResult, developResult);
@@ -173,8 +177,9 @@ public class ReleaseFinishCommand extends AbstractBranchMergingCommand<ReleaseFi
         }
         finally
         {
-            reporter.endCommand();
+            endCommand();
             reporter.flush();
+            session.release();
         }
     }
 
@@ -7,8 +7,8 @@ import com.atlassian.jgitflow.core.JGitFlowConstants;
 import com.atlassian.jgitflow.core.exception.*;
 import com.atlassian.jgitflow.core.extension.ReleaseStartExtension;
 import com.atlassian.jgitflow.core.extension.impl.EmptyReleaseStartExtension;
+import com.atlassian.jgitflow.core.jira.JiraGateway;
 
-import net.rcarz.jiraclient.JiraClient;
 import org.eclipse.jgit.api.Git;
 import org.eclipse.jgit.api.errors.GitAPIException;
 import org.eclipse.jgit.lib.Ref;
@@ -47,7 +47,7 @@ public class ReleaseStartCommand extends AbstractBranchCreatingCommand<ReleaseSt
      * @param git         The git instance to use
      * @param gfConfig    The GitFlowConfiguration to use
      */
-    public ReleaseStartCommand(String releaseName, Git git, GitFlowConfiguration gfConfig, JiraClient jira)
+    public ReleaseStartCommand(String releaseName, Git git, GitFlowConfiguration gfConfig, JiraGateway jira)
     {
         super(releaseName, git, gfConfig, jira);
         this.extension = new EmptyReleaseStartExtension();
@@ -77,7 +77,7 @@ public class ReleaseStartCommand extends AbstractBranchCreatingCommand<ReleaseSt
 
         try
         {
-            doFetchIfNeeded(extension);
+            doFetchIfNeeded(extension, prefixedBranchName);
 
             Ref newBranch = doCreateBranch(gfConfig.getDevelop(), prefixedBranchName, extension);
 
@@ -97,8 +97,9 @@ public class ReleaseStartCommand extends AbstractBranchCreatingCommand<ReleaseSt
         }
         finally
         {
-            reporter.endCommand();
+            endCommand();
             reporter.flush();
+            session.release();
         }
     }
 
@@ -0,0 +1,12 @@
+package com.atlassian.jgitflow.core.extension;
+
+/**
+ * An extension command that reads or changes files in the working tree.
+ * <p>
+ * When a merging command does its merges in memory, a merge step only checks out the target branch if one of the
+ * commands registered for that step (before/after checkout or before/after merge) implements this interface.
+ * </p>
+ */
+public interface WorkingTreeExtensionCommand extends ExtensionCommand
+{
+}
@@ -0,0 +1,14 @@
+package com.atlassian.jgitflow.core.jira;
+
+import net.rcarz.jiraclient.JiraClient;
+import net.rcarz.jiraclient.JiraException;
+
+/**
+ * A call made to Jira through a {@link JiraGateway}
+ *
+ * @param <T> what the call returns
+ */
+public interface JiraCall<T>
+{
+    T call(JiraClient jira) throws JiraException;
+}
@@ -0,0 +1,285 @@
+package com.atlassian.jgitflow.core.jira;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.atlassian.jgitflow.core.JGitFlowConstants;
+
+import com.google.common.base.Strings;
+
+import net.rcarz.jiraclient.BasicCredentials;
+import net.rcarz.jiraclient.IssueType;
+import net.rcarz.jiraclient.JiraClient;
+import net.rcarz.jiraclient.JiraException;
+import net.rcarz.jiraclient.RestException;
+import org.apache.http.params.HttpConnectionParams;
+import org.apache.http.params.HttpParams;
+import org.eclipse.jgit.lib.Config;
+import org.eclipse.jgit.lib.Repository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * The single way into Jira for git flow commands.
+ * <p>
+ * Nothing is sent to Jira until a command actually needs it: the client is created on the first call, with connect and
+ * read timeouts so a slow or unreachable server can't stall a command. Calls that fail to reach Jira are counted per
+ * server, and once {@code maxfailures} of them happen in a row Jira is switched off for the rest of the process and
+ * {@link #isEnabled()} returns false. Errors returned by Jira itself, e.g. a missing issue, don't count.
+ * </p>
+ * <p>
+ * The gateway is configured in the gitflow.jira section of the git config. Without a url Jira is off. The issuettl and
+ * issuecache options belong to the {@link JiraIssueCache} and metadatattl to the {@link JiraMetadataCache}.
+ * </p>
+ * <pre>
+ * [gitflow "jira"]
+ *     url = https://jira.example.com
+ *     username = builder
+ *     password = secret
+ *     connecttimeout = 5000
+ *     readtimeout = 10000
+ *     maxfailures = 3
+ *     issuettl = 300
+ *     issuecache = true
+ *     metadatattl = 86400
+ * </pre>
+ */
+public class JiraGateway
+{
+    public static final String URL_KEY = "url";
+    public static final String USERNAME_KEY = "username";
+    public static final String PASSWORD_KEY = "password";
+    public static final String CONNECT_TIMEOUT_KEY = "connecttimeout";
+    public static final String READ_TIMEOUT_KEY = "readtimeout";
+    public static final String MAX_FAILURES_KEY = "maxfailures";
+
+    public static final int DEFAULT_CONNECT_TIMEOUT = 5000;
+    public static final int DEFAULT_READ_TIMEOUT = 10000;
+    public static final int DEFAULT_MAX_FAILURES = 3;
+
+    private static final Logger log = LoggerFactory.getLogger(JiraGateway.class);
+
+    //consecutive failures per server, shared by every gateway in the process
+    private static final ConcurrentMap<String, AtomicInteger> FAILURES = new ConcurrentHashMap<String, AtomicInteger>();
+    private static final ConcurrentMap<String, Boolean> PROBED = new ConcurrentHashMap<String, Boolean>();
+
+    private final String url;
+    private final String username;
+    private final String password;
+    private final int connectTimeout;
+    private final int readTimeout;
+    private final int maxFailures;
+    private final AtomicInteger failures;
+    private volatile JiraClient client;
+
+    public JiraGateway(String url, String username, String password, int connectTimeout, int readTimeout, int maxFailures)
+    {
+        this.url = Strings.nullToEmpty(url).trim();
+        this.username = Strings.nullToEmpty(username);
+        this.password = Strings.nullToEmpty(password);
+        this.connectTimeout = connectTimeout;
+        this.readTimeout = readTimeout;
+        this.maxFailures = Math.max(1, maxFailures);
+        this.failures = failuresFor(this.url);
+    }
+
+    /**
+     * @return a gateway that never calls Jira
+     */
+    public static JiraGateway disabled()
+    {
+        return new JiraGateway("", "", "", DEFAULT_CONNECT_TIMEOUT, DEFAULT_READ_TIMEOUT, DEFAULT_MAX_FAILURES);
+    }
+
+    /**
+     * Creates a gateway from the gitflow.jira section of a repository's config. This doesn't connect to Jira.
+     *
+     * @param repository The repository to read the settings from
+     * @return the gateway
+     */
+    public static JiraGateway forRepository(Repository repository)
+    {
+        Config config = repository.getConfig();
+
+        return new JiraGateway(
+                config.getString(JGitFlowConstants.SECTION, JGitFlowConstants.JIRA_SUB, URL_KEY),
+                config.getString(JGitFlowConstants.SECTION, JGitFlowConstants.JIRA_SUB, USERNAME_KEY),
+                config.getString(JGitFlowConstants.SECTION, JGitFlowConstants.JIRA_SUB, PASSWORD_KEY),
+                config.getInt(JGitFlowConstants.SECTION, JGitFlowConstants.JIRA_SUB, CONNECT_TIMEOUT_KEY, DEFAULT_CONNECT_TIMEOUT),
+                config.getInt(JGitFlowConstants.SECTION, JGitFlowConstants.JIRA_SUB, READ_TIMEOUT_KEY, DEFAULT_READ_TIMEOUT),
+                config.getInt(JGitFlowConstants.SECTION, JGitFlowConstants.JIRA_SUB, MAX_FAILURES_KEY, DEFAULT_MAX_FAILURES));
+    }
+
+    /**
+     * @return whether a Jira url is configured, even if Jira has been switched off since
+     */
+    public boolean isConfigured()
+    {
+        return !url.isEmpty();
+    }
+
+    /**
+     * @return whether Jira is configured and hasn't been switched off by repeated failures
+     */
+    public boolean isEnabled()
+    {
+        return isConfigured() && failures.get() < maxFailures;
+    }
+
+    public String getUrl()
+    {
+        return url;
+    }
+
+    /**
+     * Runs a call against Jira, connecting first if this is the first one
+     *
+     * @param call The call to make
+     * @return what the call returned
+     * @throws net.rcarz.jiraclient.JiraException if Jira is off or the call failed
+     */
+    public <T> T call(JiraCall<T> call) throws JiraException
+    {
+        if (!isEnabled())
+        {
+            throw new JiraException("Jira is not available");
+        }
+
+        try
+        {
+            T result = call.call(client());
+            failures.set(0);
+
+            return result;
+        }
+        catch (JiraException e)
+        {
+            if (!reachedJira(e))
+            {
+                failed(e);
+            }
+            throw e;
+        }
+        catch (RuntimeException e)
+        {
+            failed(e);
+            throw new JiraException(e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Checks the connection to Jira in the background so the first real call knows whether Jira is there, and caches
+     * the issue types it reads. Only the first probe for a server in a process does anything, and there's no probe at
+     * all while the cached issue types are fresh.
+     *
+     * @param metadata The cache to keep the probe result in
+     */
+    public void probeAsync(final JiraMetadataCache metadata)
+    {
+        if (!isEnabled() || metadata.hasFreshIssueTypes() || null != PROBED.putIfAbsent(url, Boolean.TRUE))
+        {
+            return;
+        }
+
+        Thread probe = new Thread(new Runnable()
+        {
+            @Override
+            public void run()
+            {
+                try
+                {
+                    List<IssueType> types = call(new JiraCall<List<IssueType>>()
+                    {
+                        @Override
+                        public List<IssueType> call(JiraClient jira) throws JiraException
+                        {
+                            return jira.getIssueTypes();
+                        }
+                    });
+                    metadata.issueTypesFetched(types);
+                }
+                catch (JiraException e)
+                {
+                    log.debug("Jira probe of " + url + " failed: " + e.getMessage());
+                }
+            }
+        }, "jgitflow-jira-probe");
+
+        probe.setDaemon(true);
+        probe.start();
+    }
+
+    private JiraClient client()
+    {
+        JiraClient current = client;
+        if (null == current)
+        {
+            synchronized (this)
+            {
+                current = client;
+                if (null == current)
+                {
+                    current = new JiraClient(url, new BasicCredentials(username, password));
+
+                    HttpParams params = current.getRestClient().getHttpClient().getParams();
+                    HttpConnectionParams.setConnectionTimeout(params, connectTimeout);
+                    HttpConnectionParams.setSoTimeout(params, readTimeout);
+
+                    client = current;
+                }
+            }
+        }
+
+        return current;
+    }
+
+    private void failed(Exception e)
+    {
+        int count = failures.incrementAndGet();
+
+        if (count == maxFailures)
+        {
+            log.warn("Jira at " + url + " failed " + count + " times in a row, Jira features are off until restart: " + e.getMessage());
+        }
+    }
+
+    /*
+     * jira-client wraps HTTP error responses in a RestException and reports things like an unknown transition without a
+     * cause. An I/O or runtime error underneath means Jira couldn't be reached.
+     */
+    static boolean reachedJira(Throwable e)
+    {
+        for (Throwable cause = e; null != cause; cause = cause.getCause())
+        {
+            if (cause instanceof RestException)
+            {
+                return true;
+            }
+            if (cause instanceof IOException || cause instanceof RuntimeException)
+            {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    private static AtomicInteger failuresFor(String url)
+    {
+        AtomicInteger count = FAILURES.get(url);
+        if (null == count)
+        {
+            AtomicInteger created = new AtomicInteger();
+            count = FAILURES.putIfAbsent(url, created);
+            if (null == count)
+            {
+                count = created;
+            }
+        }
+
+        return count;
+    }
+}
@@ -0,0 +1,156 @@
+package com.atlassian.jgitflow.core.jira;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Properties;
+
+import com.google.common.base.Joiner;
+import com.google.common.base.Splitter;
+import com.google.common.base.Strings;
+
+import net.rcarz.jiraclient.Issue;
+import net.rcarz.jiraclient.Version;
+
+/**
+ * A snapshot of the few fields of a Jira issue that git flow looks at, as held by the {@link JiraIssueCache}
+ */
+public class JiraIssue
+{
+    private static final String KEY = "key";
+    private static final String ISSUE_TYPE = "issueType";
+    private static final String STATUS = "status";
+    private static final String RESOLUTION = "resolution";
+    private static final String TIME_SPENT = "timeSpent";
+    private static final String FIX_VERSIONS = "fixVersions";
+    private static final String FETCHED = "fetched";
+    private static final char VERSION_SEPARATOR = '\n';
+
+    private final String key;
+    private final String issueType;
+    private final String status;
+    private final String resolution;
+    private final int timeSpent;
+    private final List<String> fixVersions;
+    private final long fetched;
+
+    JiraIssue(String key, String issueType, String status, String resolution, int timeSpent, List<String> fixVersions, long fetched)
+    {
+        this.key = key;
+        this.issueType = Strings.nullToEmpty(issueType);
+        this.status = Strings.nullToEmpty(status);
+        this.resolution = Strings.nullToEmpty(resolution);
+        this.timeSpent = timeSpent;
+        this.fixVersions = Collections.unmodifiableList(new ArrayList<String>(fixVersions));
+        this.fetched = fetched;
+    }
+
+    static JiraIssue of(Issue issue, long fetched)
+    {
+        List<String> versions = new ArrayList<String>();
+        if (null != issue.getFixVersions())
+        {
+            for (Version version : issue.getFixVersions())
+            {
+                versions.add(version.getName());
+            }
+        }
+
+        Integer timeSpent = issue.getTimeSpent();
+
+        return new JiraIssue(
+                issue.getKey(),
+                (null == issue.getIssueType()) ? "" : issue.getIssueType().getName(),
+                (null == issue.getStatus()) ? "" : issue.getStatus().getName(),
+                (null == issue.getResolution()) ? "" : issue.getResolution().getName(),
+                (null == timeSpent) ? 0 : timeSpent,
+                versions,
+                fetched);
+    }
+
+    public String getKey()
+    {
+        return key;
+    }
+
+    /**
+     * @return the issue type name, e.g. Bug
+     */
+    public String getIssueType()
+    {
+        return issueType;
+    }
+
+    /**
+     * @return the status name, e.g. In Progress
+     */
+    public String getStatus()
+    {
+        return status;
+    }
+
+    /**
+     * @return the resolution name, or an empty string if the issue is unresolved
+     */
+    public String getResolution()
+    {
+        return resolution;
+    }
+
+    /**
+     * @return the logged time in seconds
+     */
+    public int getTimeSpent()
+    {
+        return timeSpent;
+    }
+
+    public List<String> getFixVersions()
+    {
+        return fixVersions;
+    }
+
+    /**
+     * @return when the snapshot was taken, in milliseconds since the epoch
+     */
+    public long getFetched()
+    {
+        return fetched;
+    }
+
+    @Override
+    public String toString()
+    {
+        return key + " [" + status + "]";
+    }
+
+    void writeTo(Properties props)
+    {
+        props.setProperty(KEY, key);
+        props.setProperty(ISSUE_TYPE, issueType);
+        props.setProperty(STATUS, status);
+        props.setProperty(RESOLUTION, resolution);
+        props.setProperty(TIME_SPENT, Integer.toString(timeSpent));
+        props.setProperty(FIX_VERSIONS, Joiner.on(VERSION_SEPARATOR).join(fixVersions));
+        props.setProperty(FETCHED, Long.toString(fetched));
+    }
+
+    static JiraIssue readFrom(Properties props)
+    {
+        List<String> versions = new ArrayList<String>();
+        for (String version : Splitter.on(VERSION_SEPARATOR).omitEmptyStrings().split(props.getProperty(FIX_VERSIONS, "")))
+        {
+            versions.add(version);
+        }
+
+        //a snapshot written without the issue type is treated as stale so it's fetched again
+        return new JiraIssue(
+                props.getProperty(KEY),
+                props.getProperty(ISSUE_TYPE),
+                props.getProperty(STATUS),
+                props.getProperty(RESOLUTION),
+                Integer.parseInt(props.getProperty(TIME_SPENT, "0")),
+                versions,
+                (null == props.getProperty(ISSUE_TYPE)) ? 0L : Long.parseLong(props.getProperty(FETCHED, "0")));
+    }
+}
@@ -0,0 +1,270 @@
+package com.atlassian.jgitflow.core.jira;
+
+import java.io.*;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import com.atlassian.jgitflow.core.JGitFlowConstants;
+
+import net.rcarz.jiraclient.Field;
+import net.rcarz.jiraclient.Issue;
+import net.rcarz.jiraclient.JiraClient;
+import net.rcarz.jiraclient.JiraException;
+import org.eclipse.jgit.lib.Config;
+import org.eclipse.jgit.lib.Repository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Snapshots of the Jira issues behind the git flow branches, shared by the commands and extensions working on a
+ * repository.
+ * <p>
+ * Issues are fetched with only the fields git flow looks at, and a snapshot is reused until it is older than the
+ * gitflow.jira.issuettl config option (in seconds, 300 by default). Snapshots are kept in memory and, unless
+ * gitflow.jira.issuecache is false, in .git/jgitflow/jira-issues so the next command can use them too. The snapshot
+ * of an issue is dropped as soon as git flow transitions it.
+ * </p>
+ */
+public class JiraIssueCache
+{
+    public static final String DIR_NAME = "jira-issues";
+    public static final String TTL_KEY = "issuettl";
+    public static final String DISK_KEY = "issuecache";
+    public static final int DEFAULT_TTL_SECONDS = 300;
+
+    //everything JiraIssue and the outbox need, instead of every field of the issue
+    static final String FIELDS = Field.ISSUE_TYPE + "," + Field.STATUS + "," + Field.TIME_SPENT + "," + Field.RESOLUTION + "," + Field.FIX_VERSIONS;
+
+    private static final String SUFFIX = ".issue";
+    private static final String TMP_SUFFIX = ".tmp";
+
+    private static final Logger log = LoggerFactory.getLogger(JiraIssueCache.class);
+    private static final ConcurrentMap<File, JiraIssueCache> CACHES = new ConcurrentHashMap<File, JiraIssueCache>();
+
+    private final File dir;
+    private final ConcurrentMap<String, JiraIssue> issues;
+    private volatile JiraGateway jira;
+    private volatile long ttlMillis;
+    private volatile boolean onDisk;
+
+    JiraIssueCache(File dir, JiraGateway jira, long ttlMillis, boolean onDisk)
+    {
+        this.dir = dir;
+        this.issues = new ConcurrentHashMap<String, JiraIssue>();
+        this.jira = jira;
+        this.ttlMillis = ttlMillis;
+        this.onDisk = onDisk;
+    }
+
+    /**
+     * Gets the issue cache for the given repository with a gateway read from its config. This is the way in for
+     * extensions, which only have the {@link org.eclipse.jgit.api.Git} instance.
+     *
+     * @param repository The repository
+     * @return the cache for the repository
+     */
+    public static JiraIssueCache forRepository(Repository repository)
+    {
+        return forRepository(repository, JiraGateway.forRepository(repository));
+    }
+
+    /**
+     * Gets the issue cache for the given repository, creating it on first use
+     *
+     * @param repository The repository
+     * @param jira       The gateway to fetch issues through
+     * @return the cache for the repository
+     */
+    public static JiraIssueCache forRepository(Repository repository, JiraGateway jira)
+    {
+        Config config = repository.getConfig();
+        long ttlMillis = 1000L * Math.max(0, config.getInt(JGitFlowConstants.SECTION, JGitFlowConstants.JIRA_SUB, TTL_KEY, DEFAULT_TTL_SECONDS));
+        boolean onDisk = config.getBoolean(JGitFlowConstants.SECTION, JGitFlowConstants.JIRA_SUB, DISK_KEY, true);
+
+        File key = new File(new File(repository.getDirectory(), JGitFlowConstants.JGITFLOW_DIR), DIR_NAME).getAbsoluteFile();
+        JiraIssueCache cache = CACHES.get(key);
+
+        if (null == cache)
+        {
+            JiraIssueCache created = new JiraIssueCache(key, jira, ttlMillis, onDisk);
+            cache = CACHES.putIfAbsent(key, created);
+            if (null == cache)
+            {
+                cache = created;
+            }
+        }
+
+        cache.jira = jira;
+        cache.ttlMillis = ttlMillis;
+        cache.onDisk = onDisk;
+
+        return cache;
+    }
+
+    /**
+     * @param branchName A branch name, with or without its prefix, e.g. feature/PROJ-12
+     * @return the issue key the branch is named after, e.g. PROJ-12
+     */
+    public static String issueKeyOf(String branchName)
+    {
+        return branchName.substring(branchName.lastIndexOf("/") + 1);
+    }
+
+    /**
+     * Gets the issue for a branch, see {@link #get(String)}
+     *
+     * @param branchName The branch, e.g. feature/PROJ-12
+     * @return the issue snapshot
+     * @throws net.rcarz.jiraclient.JiraException if the issue isn't cached and can't be fetched
+     */
+    public JiraIssue getForBranch(String branchName) throws JiraException
+    {
+        return get(issueKeyOf(branchName));
+    }
+
+    /**
+     * Gets an issue, from memory or disk if a fresh enough snapshot is there, otherwise from Jira
+     *
+     * @param issueKey The issue key, e.g. PROJ-12
+     * @return the issue snapshot
+     * @throws net.rcarz.jiraclient.JiraException if the issue isn't cached and can't be fetched
+     */
+    public JiraIssue get(String issueKey) throws JiraException
+    {
+        long now = System.currentTimeMillis();
+
+        JiraIssue cached = issues.get(issueKey);
+        if (null == cached && onDisk)
+        {
+            cached = load(issueKey);
+            if (null != cached)
+            {
+                issues.put(issueKey, cached);
+            }
+        }
+
+        if (null != cached && isFresh(cached, now))
+        {
+            return cached;
+        }
+
+        return refresh(issueKey);
+    }
+
+    /**
+     * Drops the snapshot of an issue so the next lookup goes to Jira
+     *
+     * @param issueKey The issue key
+     */
+    public void invalidate(String issueKey)
+    {
+        issues.remove(issueKey);
+        fileFor(issueKey).delete();
+    }
+
+    /**
+     * Fetches an issue from Jira whatever is cached, and remembers it
+     *
+     * @param issueKey The issue key
+     * @return the new issue snapshot
+     * @throws net.rcarz.jiraclient.JiraException if the issue can't be fetched
+     */
+    public JiraIssue refresh(final String issueKey) throws JiraException
+    {
+        Issue issue = jira.call(new JiraCall<Issue>()
+        {
+            @Override
+            public Issue call(JiraClient client) throws JiraException
+            {
+                return client.getIssue(issueKey, FIELDS);
+            }
+        });
+
+        JiraIssue snapshot = JiraIssue.of(issue, System.currentTimeMillis());
+        issues.put(issueKey, snapshot);
+        if (onDisk)
+        {
+            save(issueKey, snapshot);
+        }
+
+        return snapshot;
+    }
+
+    private boolean isFresh(JiraIssue issue, long now)
+    {
+        long age = now - issue.getFetched();
+        return age >= 0 && age < ttlMillis;
+    }
+
+    private File fileFor(String issueKey)
+    {
+        return new File(dir, issueKey + SUFFIX);
+    }
+
+    private JiraIssue load(String issueKey)
+    {
+        File file = fileFor(issueKey);
+        if (!file.isFile())
+        {
+            return null;
+        }
+
+        try
+        {
+            Properties props = new Properties();
+            InputStream in = new FileInputStream(file);
+            try
+            {
+                props.load(in);
+            }
+            finally
+            {
+                in.close();
+            }
+
+            return JiraIssue.readFrom(props);
+        }
+        catch (Exception e)
+        {
+            log.debug("unable to read cached jira issue " + file.getName() + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+    private void save(String issueKey, JiraIssue issue)
+    {
+        Properties props = new Properties();
+        issue.writeTo(props);
+
+        File file = fileFor(issueKey);
+        try
+        {
+            dir.mkdirs();
+            File tmpFile = File.createTempFile(issueKey + "-", TMP_SUFFIX, dir);
+            OutputStream out = new FileOutputStream(tmpFile);
+            try
+            {
+                props.store(out, "jgitflow jira issue");
+            }
+            finally
+            {
+                out.close();
+            }
+
+            if (!tmpFile.renameTo(file))
+            {
+                file.delete();
+                if (!tmpFile.renameTo(file))
+                {
+                    tmpFile.delete();
+                }
+            }
+        }
+        catch (IOException e)
+        {
+            //the snapshot is still in memory
+            log.debug("unable to cache jira issue " + issueKey + ": " + e.getMessage());
+        }
+    }
+}
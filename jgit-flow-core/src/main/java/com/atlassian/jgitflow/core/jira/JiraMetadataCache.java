@@ -0,0 +1,348 @@
+package com.atlassian.jgitflow.core.jira;
+
+import java.io.*;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import com.atlassian.jgitflow.core.JGitFlowConstants;
+
+import com.google.common.base.Joiner;
+import com.google.common.base.Splitter;
+
+import net.rcarz.jiraclient.IssueType;
+import net.rcarz.jiraclient.JiraClient;
+import net.rcarz.jiraclient.JiraException;
+import net.rcarz.jiraclient.Resource;
+import net.sf.json.JSON;
+import net.sf.json.JSONArray;
+import net.sf.json.JSONObject;
+import org.eclipse.jgit.lib.Repository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Jira workflow metadata that hardly ever changes: the transition ids available from each status of a project's issue
+ * types, which can each have their own workflow, and the issue types the connection probe saw.
+ * <p>
+ * With the transition id at hand a transition is a single POST, where looking it up by name costs a GET of the issue's
+ * transitions first. Entries are reused until they are older than the gitflow.jira.metadatattl config option (in
+ * seconds, a day by default) and are kept in .git/jgitflow/jira-metadata for the next run. A cached id that Jira
+ * rejects is forgotten and looked up again, see {@link #forget(String, String, String)}.
+ * </p>
+ */
+public class JiraMetadataCache
+{
+    public static final String FILE_NAME = "jira-metadata";
+    public static final String TTL_KEY = "metadatattl";
+    public static final int DEFAULT_TTL_SECONDS = 24 * 60 * 60;
+
+    private static final String URL = "url";
+    private static final String ISSUE_TYPES = "issuetypes";
+    private static final String TRANSITIONS = "transitions.";
+    private static final String FETCHED = ".fetched";
+    private static final char SEPARATOR = '\n';
+    private static final String TMP_SUFFIX = ".tmp";
+
+    private static final Logger log = LoggerFactory.getLogger(JiraMetadataCache.class);
+    private static final ConcurrentMap<File, JiraMetadataCache> CACHES = new ConcurrentHashMap<File, JiraMetadataCache>();
+
+    private final File file;
+    private Properties props;
+    private volatile JiraGateway jira;
+    private volatile long ttlMillis;
+
+    JiraMetadataCache(File file, JiraGateway jira, long ttlMillis)
+    {
+        this.file = file;
+        this.jira = jira;
+        this.ttlMillis = ttlMillis;
+    }
+
+    /**
+     * Gets the metadata cache for the given repository, creating it on first use
+     *
+     * @param repository The repository
+     * @param jira       The gateway to look metadata up through
+     * @return the cache for the repository
+     */
+    public static JiraMetadataCache forRepository(Repository repository, JiraGateway jira)
+    {
+        long ttlMillis = 1000L * Math.max(0, repository.getConfig().getInt(JGitFlowConstants.SECTION, JGitFlowConstants.JIRA_SUB, TTL_KEY, DEFAULT_TTL_SECONDS));
+
+        File key = new File(new File(repository.getDirectory(), JGitFlowConstants.JGITFLOW_DIR), FILE_NAME).getAbsoluteFile();
+        JiraMetadataCache cache = CACHES.get(key);
+
+        if (null == cache)
+        {
+            JiraMetadataCache created = new JiraMetadataCache(key, jira, ttlMillis);
+            cache = CACHES.putIfAbsent(key, created);
+            if (null == cache)
+            {
+                cache = created;
+            }
+        }
+
+        cache.jira = jira;
+        cache.ttlMillis = ttlMillis;
+
+        return cache;
+    }
+
+    /**
+     * @param issueKey An issue key, e.g. PROJ-12
+     * @return the project key, e.g. PROJ
+     */
+    public static String projectOf(String issueKey)
+    {
+        int dash = issueKey.lastIndexOf('-');
+        return (dash > 0) ? issueKey.substring(0, dash) : issueKey;
+    }
+
+    /**
+     * @return the names of the issue types the last probe saw, or an empty list if there is no fresh probe
+     */
+    public synchronized List<String> getIssueTypes()
+    {
+        if (!isFresh(ISSUE_TYPES))
+        {
+            return Collections.emptyList();
+        }
+
+        return split(props().getProperty(ISSUE_TYPES, ""));
+    }
+
+    /**
+     * @return whether a fresh enough probe result is cached, in which case there's no need to probe again
+     */
+    public synchronized boolean hasFreshIssueTypes()
+    {
+        return isFresh(ISSUE_TYPES);
+    }
+
+    synchronized void issueTypesFetched(List<IssueType> types)
+    {
+        List<String> names = new ArrayList<String>();
+        for (IssueType type : types)
+        {
+            names.add(type.getName());
+        }
+
+        props().setProperty(ISSUE_TYPES, Joiner.on(SEPARATOR).join(names));
+        props().setProperty(ISSUE_TYPES + FETCHED, Long.toString(System.currentTimeMillis()));
+        save();
+    }
+
+    /**
+     * Gets the cached id of a transition
+     *
+     * @param project        The project key
+     * @param issueType      The issue type
+     * @param status         The status the issue is in
+     * @param transitionName The transition name
+     * @return the id, or null if it isn't cached
+     */
+    public synchronized Integer getTransitionId(String project, String issueType, String status, String transitionName)
+    {
+        String prefix = transitionsPrefix(project, issueType, status);
+        if (!isFresh(prefix))
+        {
+            return null;
+        }
+
+        String id = props().getProperty(prefix + "." + transitionName);
+        return (null == id) ? null : Integer.valueOf(id);
+    }
+
+    /**
+     * Asks Jira for the transitions an issue has and caches them for its project, issue type and status
+     *
+     * @param issueKey       The issue
+     * @param issueType      The issue type
+     * @param status         The status the issue is in
+     * @param transitionName The transition wanted
+     * @return the id of the wanted transition, or null if the issue doesn't have it
+     * @throws net.rcarz.jiraclient.JiraException if the transitions can't be read
+     */
+    public Integer lookupTransitionId(final String issueKey, String issueType, String status, String transitionName) throws JiraException
+    {
+        JSON response = jira.call(new JiraCall<JSON>()
+        {
+            @Override
+            public JSON call(JiraClient client) throws JiraException
+            {
+                try
+                {
+                    return client.getRestClient().get(Resource.getBaseUri() + "issue/" + issueKey + "/transitions");
+                }
+                catch (Exception e)
+                {
+                    throw new JiraException("Failed to retrieve transitions for " + issueKey, e);
+                }
+            }
+        });
+
+        if (!(response instanceof JSONObject) || !(((JSONObject) response).get("transitions") instanceof JSONArray))
+        {
+            throw new JiraException("Unexpected transitions response for " + issueKey);
+        }
+
+        Map<String, String> ids = new HashMap<String, String>();
+        for (Object transition : (JSONArray) ((JSONObject) response).get("transitions"))
+        {
+            if (transition instanceof JSONObject)
+            {
+                ids.put(((JSONObject) transition).getString("name"), ((JSONObject) transition).getString("id"));
+            }
+        }
+
+        synchronized (this)
+        {
+            String prefix = transitionsPrefix(projectOf(issueKey), issueType, status);
+            removeAll(prefix + ".");
+            for (Map.Entry<String, String> id : ids.entrySet())
+            {
+                props().setProperty(prefix + "." + id.getKey(), id.getValue());
+            }
+            props().setProperty(prefix + FETCHED, Long.toString(System.currentTimeMillis()));
+            save();
+        }
+
+        String id = ids.get(transitionName);
+        return (null == id) ? null : Integer.valueOf(id);
+    }
+
+    /**
+     * Drops the cached transitions of a project, issue type and status, e.g. after Jira rejected one of them
+     *
+     * @param project   The project key
+     * @param issueType The issue type
+     * @param status    The status
+     */
+    public synchronized void forget(String project, String issueType, String status)
+    {
+        String prefix = transitionsPrefix(project, issueType, status);
+        removeAll(prefix + ".");
+        props().remove(prefix + FETCHED);
+        save();
+    }
+
+    private static String transitionsPrefix(String project, String issueType, String status)
+    {
+        return TRANSITIONS + project + "." + issueType + "." + status;
+    }
+
+    private boolean isFresh(String prefix)
+    {
+        long fetched;
+        try
+        {
+            fetched = Long.parseLong(props().getProperty(prefix + FETCHED, "0"));
+        }
+        catch (NumberFormatException e)
+        {
+            return false;
+        }
+
+        long age = System.currentTimeMillis() - fetched;
+        return fetched > 0 && age >= 0 && age < ttlMillis;
+    }
+
+    private void removeAll(String prefix)
+    {
+        for (String name : props().stringPropertyNames())
+        {
+            if (name.startsWith(prefix) && !name.endsWith(FETCHED))
+            {
+                props().remove(name);
+            }
+        }
+    }
+
+    private static List<String> split(String value)
+    {
+        List<String> values = new ArrayList<String>();
+        for (String part : Splitter.on(SEPARATOR).omitEmptyStrings().split(value))
+        {
+            values.add(part);
+        }
+
+        return values;
+    }
+
+    /*
+     * The file is only trusted for the server it was written for
+     */
+    private Properties props()
+    {
+        if (null == props)
+        {
+            props = new Properties();
+            if (file.isFile())
+            {
+                try
+                {
+                    Properties loaded = new Properties();
+                    InputStream in = new FileInputStream(file);
+                    try
+                    {
+                        loaded.load(in);
+                    }
+                    finally
+                    {
+                        in.close();
+                    }
+
+                    if (jira.getUrl().equals(loaded.getProperty(URL)))
+                    {
+                        props = loaded;
+                    }
+                }
+                catch (IOException e)
+                {
+                    log.debug("unable to read " + file.getName() + ": " + e.getMessage());
+                }
+            }
+        }
+
+        if (!jira.getUrl().equals(props.getProperty(URL, jira.getUrl())))
+        {
+            props.clear();
+        }
+        props.setProperty(URL, jira.getUrl());
+
+        return props;
+    }
+
+    private void save()
+    {
+        try
+        {
+            file.getParentFile().mkdirs();
+            File tmpFile = File.createTempFile(FILE_NAME + "-", TMP_SUFFIX, file.getParentFile());
+            OutputStream out = new FileOutputStream(tmpFile);
+            try
+            {
+                props().store(out, "jgitflow jira metadata");
+            }
+            finally
+            {
+                out.close();
+            }
+
+            if (!tmpFile.renameTo(file))
+            {
+                file.delete();
+                if (!tmpFile.renameTo(file))
+                {
+                    tmpFile.delete();
+                }
+            }
+        }
+        catch (IOException e)
+        {
+            //still cached in memory
+            log.debug("unable to save " + file.getName() + ": " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,614 @@
+package com.atlassian.jgitflow.core.jira;
+
+import java.io.*;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.*;
+
+import com.atlassian.jgitflow.core.JGitFlowConstants;
+import com.atlassian.jgitflow.core.exception.MissingTimeSpentException;
+
+import com.google.common.base.Strings;
+
+import net.rcarz.jiraclient.Field;
+import net.rcarz.jiraclient.JiraClient;
+import net.rcarz.jiraclient.JiraException;
+import net.rcarz.jiraclient.Resource;
+import net.rcarz.jiraclient.RestException;
+import net.sf.json.JSONObject;
+import org.eclipse.jgit.lib.Repository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A durable queue of Jira transitions, so git flow commands never wait on Jira.
+ * <p>
+ * A command only writes a small record to .git/jgitflow/jira-outbox and carries on. A daemon worker sends the records
+ * through the repository's {@link JiraGateway} in the order they were written. A record that fails is retried with an
+ * exponential backoff, and after {@link #DEFAULT_MAX_ATTEMPTS} attempts it is renamed to .failed and left for a person
+ * to look at. Records Jira turns down for good, e.g. a transition the issue doesn't have, are renamed to .failed right
+ * away. A comment is only ever added once, the record remembers it was sent. Records survive the process, so whatever
+ * the worker didn't get to is sent by the next command, or by {@link #flush()}.
+ * </p>
+ */
+public class JiraOutbox
+{
+    public static final String DIR_NAME = "jira-outbox";
+    public static final int DEFAULT_MAX_ATTEMPTS = 8;
+
+    private static final String SUFFIX = ".transition";
+    private static final String FAILED_SUFFIX = ".failed";
+    private static final String TMP_SUFFIX = ".tmp";
+    private static final String ATTEMPTS = "attempts";
+    private static final String NEXT_ATTEMPT = "nextAttempt";
+    private static final String LAST_ERROR = "lastError";
+    private static final String COMMENT_SENT = "commentSent";
+    private static final long BASE_BACKOFF_MILLIS = 2000L;
+    private static final long MAX_BACKOFF_MILLIS = 10 * 60 * 1000L;
+
+    private static final Logger log = LoggerFactory.getLogger(JiraOutbox.class);
+    private static final ConcurrentMap<File, JiraOutbox> OUTBOXES = new ConcurrentHashMap<File, JiraOutbox>();
+
+    private final File dir;
+    //sending and scheduling are locked separately so enqueue never waits for a send in progress
+    private final Object sendLock = new Object();
+    private final Object scheduleLock = new Object();
+    private volatile JiraGateway jira;
+    private volatile JiraIssueCache issues;
+    private volatile JiraMetadataCache metadata;
+    private ScheduledExecutorService worker;
+    private ScheduledFuture<?> nextDrain;
+
+    JiraOutbox(File dir, JiraGateway jira, JiraIssueCache issues, JiraMetadataCache metadata)
+    {
+        this.dir = dir;
+        this.jira = jira;
+        this.issues = issues;
+        this.metadata = metadata;
+    }
+
+    /**
+     * Gets the outbox for the given repository, creating it on first use. A new outbox starts sending the records left
+     * by earlier runs straight away.
+     *
+     * @param repository The repository
+     * @param jira       The gateway to send the transitions through
+     * @return the outbox for the repository
+     */
+    public static JiraOutbox forRepository(Repository repository, JiraGateway jira)
+    {
+        File key = new File(new File(repository.getDirectory(), JGitFlowConstants.JGITFLOW_DIR), DIR_NAME).getAbsoluteFile();
+        JiraIssueCache issues = JiraIssueCache.forRepository(repository, jira);
+        JiraMetadataCache metadata = JiraMetadataCache.forRepository(repository, jira);
+        JiraOutbox outbox = OUTBOXES.get(key);
+
+        if (null == outbox)
+        {
+            JiraOutbox created = new JiraOutbox(key, jira, issues, metadata);
+            outbox = OUTBOXES.putIfAbsent(key, created);
+            if (null == outbox)
+            {
+                outbox = created;
+                if (!outbox.getPending().isEmpty())
+                {
+                    outbox.scheduleDrain(0L);
+                }
+            }
+        }
+
+        outbox.jira = jira;
+        outbox.issues = issues;
+        outbox.metadata = metadata;
+
+        return outbox;
+    }
+
+    /**
+     * Writes the transition to the outbox and wakes the worker. This never talks to Jira.
+     *
+     * @param transition The transition to send
+     * @throws java.io.IOException if the record can't be written
+     */
+    public void enqueue(JiraTransition transition) throws IOException
+    {
+        Properties props = new Properties();
+        transition.writeTo(props);
+        props.setProperty(ATTEMPTS, "0");
+        props.setProperty(NEXT_ATTEMPT, "0");
+
+        dir.mkdirs();
+        //the time first keeps the records in the order they were written
+        File tmpFile = File.createTempFile(String.format("%013d-", System.currentTimeMillis()), TMP_SUFFIX, dir);
+        write(props, tmpFile);
+
+        File file = new File(dir, tmpFile.getName().substring(0, tmpFile.getName().length() - TMP_SUFFIX.length()) + SUFFIX);
+        if (!tmpFile.renameTo(file))
+        {
+            tmpFile.delete();
+            throw new IOException("unable to write " + file.getAbsolutePath());
+        }
+
+        scheduleDrain(0L);
+    }
+
+    /**
+     * Sends every waiting record now, ignoring the backoff, in the calling thread
+     *
+     * @return the number of records still waiting
+     */
+    public int flush()
+    {
+        drain(true, Long.MAX_VALUE);
+
+        return getPending().size();
+    }
+
+    /**
+     * Like {@link #flush()}, but stops starting new sends once the time is up. A send in progress is bounded by the
+     * gateway's timeouts.
+     *
+     * @param timeoutMillis How long to keep sending
+     * @return the number of records still waiting
+     */
+    public int flush(long timeoutMillis)
+    {
+        long now = System.currentTimeMillis();
+        drain(true, (timeoutMillis > Long.MAX_VALUE - now) ? Long.MAX_VALUE : now + timeoutMillis);
+
+        return getPending().size();
+    }
+
+    /**
+     * @return the records waiting to be sent, oldest first
+     */
+    public List<Entry> getPending()
+    {
+        return entries(SUFFIX);
+    }
+
+    /**
+     * @return the records that were given up on, oldest first
+     */
+    public List<Entry> getFailed()
+    {
+        return entries(FAILED_SUFFIX);
+    }
+
+    private long drain(boolean ignoreBackoff, long deadline)
+    {
+        synchronized (sendLock)
+        {
+            return drainLocked(ignoreBackoff, deadline);
+        }
+    }
+
+    private long drainLocked(boolean ignoreBackoff, long deadline)
+    {
+        long nextDue = -1L;
+
+        for (Entry entry : getPending())
+        {
+            if (!jira.isEnabled())
+            {
+                //kept for a later run, jira is off in this process
+                return -1L;
+            }
+
+            long now = System.currentTimeMillis();
+            if (now >= deadline)
+            {
+                //the rest is left to the worker
+                return now;
+            }
+
+            if (!ignoreBackoff && entry.getNextAttempt() > now)
+            {
+                nextDue = (nextDue < 0) ? entry.getNextAttempt() : Math.min(nextDue, entry.getNextAttempt());
+                continue;
+            }
+
+            try
+            {
+                deliver(entry);
+                entry.file.delete();
+            }
+            catch (MissingTimeSpentException e)
+            {
+                giveUp(entry, "no time has been logged on the issue");
+            }
+            catch (RejectedException e)
+            {
+                giveUp(entry, e.getMessage());
+            }
+            catch (Exception e)
+            {
+                int attempts = entry.getAttempts() + 1;
+                if (attempts >= DEFAULT_MAX_ATTEMPTS)
+                {
+                    giveUp(entry, e.getMessage());
+                    continue;
+                }
+
+                long backoff = Math.min(BASE_BACKOFF_MILLIS << (attempts - 1), MAX_BACKOFF_MILLIS);
+                long next = now + backoff;
+                retryLater(entry, attempts, next, e.getMessage());
+
+                nextDue = (nextDue < 0) ? next : Math.min(nextDue, next);
+            }
+        }
+
+        return nextDue;
+    }
+
+    private void deliver(Entry entry) throws JiraException, MissingTimeSpentException, RejectedException
+    {
+        JiraTransition transition = entry.getTransition();
+        final String issueKey = transition.getIssueKey();
+
+        //the time spent decides whether the transition runs at all, so it's always read fresh
+        JiraIssue issue = transition.isRequireTimeSpent() ? issues.refresh(issueKey) : issues.get(issueKey);
+
+        if (transition.isRequireTimeSpent() && issue.getTimeSpent() == 0)
+        {
+            throw new MissingTimeSpentException();
+        }
+
+        //a retry must not add the comment a second time
+        if (!transition.getComment().isEmpty() && !entry.isCommentSent())
+        {
+            JSONObject comment = new JSONObject();
+            comment.put("body", transition.getComment());
+            rejectIfPermanent(post(issueKey, "comment", comment));
+
+            entry.props.setProperty(COMMENT_SENT, Boolean.TRUE.toString());
+            save(entry);
+        }
+
+        String project = JiraMetadataCache.projectOf(issueKey);
+        Integer id = metadata.getTransitionId(project, issue.getIssueType(), issue.getStatus(), transition.getTransitionName());
+
+        if (null != id)
+        {
+            JiraException error = post(issueKey, "transitions", transitionBody(id, transition));
+            if (null == error)
+            {
+                issues.invalidate(issueKey);
+                log.debug("sent jira transition " + transition + " with cached id " + id);
+
+                return;
+            }
+            if (!JiraGateway.reachedJira(error))
+            {
+                throw error;
+            }
+
+            //jira turned the id down, the workflow changed or the issue moved on since it was cached
+            metadata.forget(project, issue.getIssueType(), issue.getStatus());
+            issue = issues.refresh(issueKey);
+        }
+
+        id = metadata.lookupTransitionId(issueKey, issue.getIssueType(), issue.getStatus(), transition.getTransitionName());
+        if (null == id)
+        {
+            throw new RejectedException("No transition found matching " + transition.getTransitionName() + " from " + issue.getStatus());
+        }
+
+        rejectIfPermanent(post(issueKey, "transitions", transitionBody(id, transition)));
+        issues.invalidate(issueKey);
+
+        log.debug("sent jira transition " + transition);
+    }
+
+    private static JSONObject transitionBody(int id, JiraTransition transition)
+    {
+        JSONObject body = new JSONObject();
+
+        JSONObject transitionId = new JSONObject();
+        transitionId.put("id", Integer.toString(id));
+        body.put("transition", transitionId);
+
+        if (!transition.getResolution().isEmpty())
+        {
+            JSONObject resolution = new JSONObject();
+            resolution.put("name", transition.getResolution());
+
+            JSONObject fields = new JSONObject();
+            fields.put(Field.RESOLUTION, resolution);
+            body.put("fields", fields);
+        }
+
+        return body;
+    }
+
+    /*
+     * Returns the error instead of throwing it so the caller can decide whether it's worth retrying
+     */
+    private JiraException post(final String issueKey, final String path, final JSONObject body)
+    {
+        try
+        {
+            jira.call(new JiraCall<Void>()
+        {
+            @Override
+                public Void call(JiraClient client) throws JiraException
+                {
+                    try
+                    {
+                        client.getRestClient().post(Resource.getBaseUri() + "issue/" + issueKey + "/" + path, body);
+                    }
+                    catch (Exception e)
+                    {
+                        throw new JiraException("Failed to post " + path + " to " + issueKey, e);
+                    }
+
+                    return null;
+                }
+            });
+
+            return null;
+        }
+        catch (JiraException e)
+        {
+            return e;
+        }
+    }
+
+    /*
+     * A request Jira answered with a client error won't get any better by sending it again, apart from a timeout or
+     * rate limit
+     */
+    private static void rejectIfPermanent(JiraException error) throws JiraException, RejectedException
+    {
+        if (null == error)
+        {
+            return;
+        }
+
+        for (Throwable cause = error; null != cause; cause = cause.getCause())
+        {
+            if (cause instanceof RestException)
+            {
+                int status = ((RestException) cause).getHttpStatusCode();
+                if (status >= 400 && status < 500 && status != 408 && status != 429)
+                {
+                    throw new RejectedException(error.getMessage() + ": " + cause.getMessage());
+                }
+            }
+        }
+
+        throw error;
+    }
+
+    private void retryLater(Entry entry, int attempts, long nextAttempt, String error)
+    {
+        Properties props = entry.props;
+        props.setProperty(ATTEMPTS, Integer.toString(attempts));
+        props.setProperty(NEXT_ATTEMPT, Long.toString(nextAttempt));
+        props.setProperty(LAST_ERROR, Strings.nullToEmpty(error));
+
+        save(entry);
+    }
+
+    private void save(Entry entry)
+    {
+        try
+        {
+            File tmpFile = new File(dir, entry.file.getName() + TMP_SUFFIX);
+            write(entry.props, tmpFile);
+            if (!tmpFile.renameTo(entry.file))
+            {
+                entry.file.delete();
+                tmpFile.renameTo(entry.file);
+            }
+        }
+        catch (IOException e)
+        {
+            //the old record is still there and is sent again as it was
+            log.debug("unable to update jira outbox record " + entry.file.getName() + ": " + e.getMessage());
+        }
+    }
+
+    private void giveUp(Entry entry, String error)
+    {
+        entry.props.setProperty(LAST_ERROR, Strings.nullToEmpty(error));
+
+        File failed = new File(dir, entry.file.getName().substring(0, entry.file.getName().length() - SUFFIX.length()) + FAILED_SUFFIX);
+        try
+        {
+            write(entry.props, failed);
+        }
+        catch (IOException e)
+        {
+            log.debug("unable to write " + failed.getName() + ": " + e.getMessage());
+        }
+        entry.file.delete();
+
+        log.warn("giving up on jira transition " + entry.getTransition() + ": " + error);
+    }
+
+    private void scheduleDrain(long delayMillis)
+    {
+        synchronized (scheduleLock)
+        {
+            //a drain that is already running doesn't count, it may have read the records before the new one was written
+            if (null != nextDrain && !nextDrain.isDone() && nextDrain.getDelay(TimeUnit.MILLISECONDS) > 0 && nextDrain.getDelay(TimeUnit.MILLISECONDS) <= delayMillis)
+            {
+                return;
+            }
+
+            if (null != nextDrain)
+            {
+                nextDrain.cancel(false);
+            }
+
+            nextDrain = worker().schedule(new Runnable()
+            {
+                @Override
+                public void run()
+                {
+                    try
+                    {
+                        long nextDue = drain(false, Long.MAX_VALUE);
+                        if (nextDue >= 0)
+                        {
+                            scheduleDrain(Math.max(0L, nextDue - System.currentTimeMillis()));
+                        }
+                    }
+                    catch (RuntimeException e)
+                    {
+                        log.warn("jira outbox worker failed: " + e.getMessage(), e);
+                    }
+                }
+            }, delayMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private ScheduledExecutorService worker()
+    {
+        if (null == worker)
+        {
+            worker = Executors.newSingleThreadScheduledExecutor(new ThreadFactory()
+            {
+                @Override
+                public Thread newThread(Runnable r)
+                {
+                    Thread thread = new Thread(r, "jgitflow-jira-outbox");
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+        }
+
+        return worker;
+    }
+
+    private List<Entry> entries(final String suffix)
+    {
+        List<Entry> entries = new ArrayList<Entry>();
+        File[] files = dir.listFiles(new FilenameFilter()
+        {
+            @Override
+            public boolean accept(File d, String name)
+            {
+                return name.endsWith(suffix);
+            }
+        });
+
+        if (null == files)
+        {
+            return entries;
+        }
+
+        Arrays.sort(files);
+        for (File file : files)
+        {
+            try
+            {
+                entries.add(new Entry(file, read(file)));
+            }
+            catch (Exception e)
+            {
+                //e.g. removed by another process in the meantime
+                log.debug("skipping jira outbox record " + file.getName() + ": " + e.getMessage());
+            }
+        }
+
+        return entries;
+    }
+
+    private static Properties read(File file) throws IOException
+    {
+        Properties props = new Properties();
+        InputStream in = new FileInputStream(file);
+        try
+        {
+            props.load(in);
+        }
+        finally
+        {
+            in.close();
+        }
+
+        return props;
+    }
+
+    private static void write(Properties props, File file) throws IOException
+    {
+        OutputStream out = new FileOutputStream(file);
+        try
+        {
+            props.store(out, "jgitflow jira transition");
+        }
+        finally
+        {
+            out.close();
+        }
+    }
+
+    /**
+     * A record in the outbox
+     */
+    public static class Entry
+    {
+        private final File file;
+        private final Properties props;
+        private final JiraTransition transition;
+
+        private Entry(File file, Properties props)
+        {
+            this.file = file;
+            this.props = props;
+            this.transition = JiraTransition.readFrom(props);
+        }
+
+        public JiraTransition getTransition()
+        {
+            return transition;
+        }
+
+        public int getAttempts()
+        {
+            return Integer.parseInt(props.getProperty(ATTEMPTS, "0"));
+        }
+
+        /**
+         * @return whether the comment has been added to the issue and only the transition is left
+         */
+        public boolean isCommentSent()
+        {
+            return Boolean.parseBoolean(props.getProperty(COMMENT_SENT));
+        }
+
+        public long getNextAttempt()
+        {
+            return Long.parseLong(props.getProperty(NEXT_ATTEMPT, "0"));
+        }
+
+        /**
+         * @return the error of the last failed attempt, or an empty string
+         */
+        public String getLastError()
+        {
+            return props.getProperty(LAST_ERROR, "");
+        }
+
+        @Override
+        public String toString()
+        {
+            return transition + " (" + getAttempts() + " attempts" + (getLastError().isEmpty() ? "" : ", " + getLastError()) + ")";
+        }
+    }
+
+    /**
+     * Jira turned a record down for good, it goes straight to .failed
+     */
+    private static class RejectedException extends Exception
+    {
+        RejectedException(String message)
+        {
+            super(message);
+        }
+    }
+}
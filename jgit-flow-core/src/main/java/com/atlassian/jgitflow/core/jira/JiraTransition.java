@@ -0,0 +1,122 @@
+package com.atlassian.jgitflow.core.jira;
+
+import java.util.Properties;
+
+import com.google.common.base.Strings;
+
+import static com.atlassian.jgitflow.core.util.Preconditions.checkState;
+
+/**
+ * A Jira transition waiting in the {@link JiraOutbox}: an issue, the transition to run on it and an optional comment
+ * and resolution.
+ */
+public class JiraTransition
+{
+    private static final String ISSUE = "issue";
+    private static final String TRANSITION = "transition";
+    private static final String COMMENT = "comment";
+    private static final String RESOLUTION = "resolution";
+    private static final String REQUIRE_TIME_SPENT = "requireTimeSpent";
+
+    private final String issueKey;
+    private final String transitionName;
+    private String comment;
+    private String resolution;
+    private boolean requireTimeSpent;
+
+    public JiraTransition(String issueKey, String transitionName)
+    {
+        checkState(!Strings.isNullOrEmpty(issueKey));
+        checkState(!Strings.isNullOrEmpty(transitionName));
+
+        this.issueKey = issueKey;
+        this.transitionName = transitionName;
+        this.comment = "";
+        this.resolution = "";
+        this.requireTimeSpent = false;
+    }
+
+    /**
+     * Set a comment to add to the issue before the transition
+     *
+     * @param comment
+     * @return {@code this}
+     */
+    public JiraTransition setComment(String comment)
+    {
+        this.comment = Strings.nullToEmpty(comment);
+        return this;
+    }
+
+    /**
+     * Set the resolution to send with the transition
+     *
+     * @param resolution
+     * @return {@code this}
+     */
+    public JiraTransition setResolution(String resolution)
+    {
+        this.resolution = Strings.nullToEmpty(resolution);
+        return this;
+    }
+
+    /**
+     * Set whether the transition is dropped when no time has been logged on the issue
+     *
+     * @param requireTimeSpent {@code true} to require logged time, {@code false}(default) otherwise
+     * @return {@code this}
+     */
+    public JiraTransition setRequireTimeSpent(boolean requireTimeSpent)
+    {
+        this.requireTimeSpent = requireTimeSpent;
+        return this;
+    }
+
+    public String getIssueKey()
+    {
+        return issueKey;
+    }
+
+    public String getTransitionName()
+    {
+        return transitionName;
+    }
+
+    public String getComment()
+    {
+        return comment;
+    }
+
+    public String getResolution()
+    {
+        return resolution;
+    }
+
+    public boolean isRequireTimeSpent()
+    {
+        return requireTimeSpent;
+    }
+
+    @Override
+    public String toString()
+    {
+        return issueKey + " -> " + transitionName;
+    }
+
+    void writeTo(Properties props)
+    {
+        props.setProperty(ISSUE, issueKey);
+        props.setProperty(TRANSITION, transitionName);
+        props.setProperty(COMMENT, comment);
+        props.setProperty(RESOLUTION, resolution);
+        props.setProperty(REQUIRE_TIME_SPENT, Boolean.toString(requireTimeSpent));
+    }
+
+    static JiraTransition readFrom(Properties props)
+    {
+        return new JiraTransition(props.getProperty(ISSUE), props.getProperty(TRANSITION))
+                .setComment(props.getProperty(COMMENT))
+                .setResolution(props.getProperty(RESOLUTION))
+                .setRequireTimeSpent(Boolean.parseBoolean(props.getProperty(REQUIRE_TIME_SPENT)));
+    }
+}
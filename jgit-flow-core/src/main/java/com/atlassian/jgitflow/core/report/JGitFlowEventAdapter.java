@@ -0,0 +1,49 @@
+package com.atlassian.jgitflow.core.report;
+
+import com.atlassian.jgitflow.core.exception.JGitFlowExtensionException;
+import com.atlassian.jgitflow.core.extension.ExtensionCommand;
+
+import org.eclipse.jgit.api.MergeResult;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.transport.PushResult;
+
+/**
+ * A {@link JGitFlowEventListener} that ignores every event, for listeners that only care about some of them
+ */
+public abstract class JGitFlowEventAdapter implements JGitFlowEventListener
+{
+    @Override
+    public void commandStarted(String commandName, String branchName)
+    {
+    }
+
+    @Override
+    public void commandEnded(String commandName, String branchName, long durationNanos)
+    {
+    }
+
+    @Override
+    public void extensionCommandExecuted(String commandName, ExtensionCommand command, long durationNanos, JGitFlowExtensionException failure)
+    {
+    }
+
+    @Override
+    public void refUpdated(String commandName, String refName, ObjectId oldId, ObjectId newId)
+    {
+    }
+
+    @Override
+    public void mergeResult(String commandName, String branchToMerge, String mergeTarget, MergeResult result)
+    {
+    }
+
+    @Override
+    public void pushResult(String commandName, PushResult result)
+    {
+    }
+
+    @Override
+    public void checkoutPerformed(String commandName, String branchName)
+    {
+    }
+}
@@ -0,0 +1,242 @@
+package com.atlassian.jgitflow.core.report;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentMap;
+
+import com.atlassian.jgitflow.core.JGitFlowReporter;
+import com.atlassian.jgitflow.core.exception.JGitFlowExtensionException;
+import com.atlassian.jgitflow.core.extension.ExtensionCommand;
+
+import com.google.common.collect.MapMaker;
+
+import org.eclipse.jgit.api.MergeResult;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.transport.PushResult;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Hands the events of a repository's commands to the registered listeners.
+ * <p>
+ * Each repository has one dispatcher, see {@link #forRepository(Repository)}. It starts out with a
+ * {@link JGitFlowReportListener} for the repository's reporter, which can be removed when nobody reads the jgitflow log.
+ * The listeners are kept in an array that is replaced when a listener is added or removed, so publishing an event
+ * doesn't lock or allocate anything, and costs nothing but a length check when there are no listeners.
+ * </p>
+ * <p>
+ * A listener that throws never breaks a command, the exception is logged and the other listeners are still called.
+ * </p>
+ */
+public class JGitFlowEventDispatcher implements JGitFlowEventListener
+{
+    private static final Logger log = LoggerFactory.getLogger(JGitFlowEventDispatcher.class);
+    private static final JGitFlowEventListener[] NONE = new JGitFlowEventListener[0];
+    //kept alive by the JGitFlow instances and commands using them
+    private static final ConcurrentMap<File, JGitFlowEventDispatcher> DISPATCHERS = new MapMaker().weakValues().makeMap();
+
+    private final JGitFlowReportListener reportListener;
+    private volatile JGitFlowEventListener[] listeners;
+
+    public JGitFlowEventDispatcher(JGitFlowReporter reporter)
+    {
+        this.reportListener = new JGitFlowReportListener(reporter);
+        this.listeners = new JGitFlowEventListener[]{reportListener};
+    }
+
+    /**
+     * Gets the dispatcher for the given repository, creating it on first use
+     *
+     * @param repository The repository
+     * @return the dispatcher for the repository
+     */
+    public static JGitFlowEventDispatcher forRepository(Repository repository)
+    {
+        File gitDir = repository.getDirectory();
+        if (null == gitDir)
+        {
+            return new JGitFlowEventDispatcher(JGitFlowReporter.forRepository(repository));
+        }
+
+        File key = gitDir.getAbsoluteFile();
+        JGitFlowEventDispatcher dispatcher = DISPATCHERS.get(key);
+        if (null == dispatcher)
+        {
+            JGitFlowEventDispatcher created = new JGitFlowEventDispatcher(JGitFlowReporter.forRepository(repository));
+            dispatcher = DISPATCHERS.putIfAbsent(key, created);
+            if (null == dispatcher)
+            {
+                dispatcher = created;
+            }
+        }
+
+        return dispatcher;
+    }
+
+    public synchronized void addListener(JGitFlowEventListener listener)
+    {
+        JGitFlowEventListener[] current = listeners;
+        JGitFlowEventListener[] updated = Arrays.copyOf(current, current.length + 1);
+        updated[current.length] = listener;
+        listeners = updated;
+    }
+
+    public synchronized void removeListener(JGitFlowEventListener listener)
+    {
+        JGitFlowEventListener[] current = listeners;
+        for (int i = 0; i < current.length; i++)
+        {
+            if (current[i] == listener)
+            {
+                if (current.length == 1)
+                {
+                    listeners = NONE;
+                    return;
+                }
+
+                JGitFlowEventListener[] updated = new JGitFlowEventListener[current.length - 1];
+                System.arraycopy(current, 0, updated, 0, i);
+                System.arraycopy(current, i + 1, updated, i, current.length - i - 1);
+                listeners = updated;
+                return;
+            }
+        }
+    }
+
+    /**
+     * Turns writing events to the jgitflow log on or off
+     *
+     * @param enabled whether the jgitflow log gets the events
+     */
+    public synchronized void setReportListenerEnabled(boolean enabled)
+    {
+        removeListener(reportListener);
+        if (enabled)
+        {
+            addListener(reportListener);
+        }
+    }
+
+    /**
+     * Callers that need to do extra work to build an event, e.g. read a ref or the clock, should check this first
+     *
+     * @return whether anyone is listening
+     */
+    public boolean hasListeners()
+    {
+        return listeners.length > 0;
+    }
+
+    @Override
+    public void commandStarted(String commandName, String branchName)
+    {
+        for (JGitFlowEventListener listener : listeners)
+        {
+            try
+            {
+                listener.commandStarted(commandName, branchName);
+            }
+            catch (RuntimeException e)
+            {
+                log.warn("Error notifying JGitFlow event listener", e);
+            }
+        }
+    }
+
+    @Override
+    public void commandEnded(String commandName, String branchName, long durationNanos)
+    {
+        for (JGitFlowEventListener listener : listeners)
+        {
+            try
+            {
+                listener.commandEnded(commandName, branchName, durationNanos);
+            }
+            catch (RuntimeException e)
+            {
+                log.warn("Error notifying JGitFlow event listener", e);
+            }
+        }
+    }
+
+    @Override
+    public void extensionCommandExecuted(String commandName, ExtensionCommand command, long durationNanos, JGitFlowExtensionException failure)
+    {
+        for (JGitFlowEventListener listener : listeners)
+        {
+            try
+            {
+                listener.extensionCommandExecuted(commandName, command, durationNanos, failure);
+            }
+            catch (RuntimeException e)
+            {
+                log.warn("Error notifying JGitFlow event listener", e);
+            }
+        }
+    }
+
+    @Override
+    public void refUpdated(String commandName, String refName, ObjectId oldId, ObjectId newId)
+    {
+        for (JGitFlowEventListener listener : listeners)
+        {
+            try
+            {
+                listener.refUpdated(commandName, refName, oldId, newId);
+            }
+            catch (RuntimeException e)
+            {
+                log.warn("Error notifying JGitFlow event listener", e);
+            }
+        }
+    }
+
+    @Override
+    public void mergeResult(String commandName, String branchToMerge, String mergeTarget, MergeResult result)
+    {
+        for (JGitFlowEventListener listener : listeners)
+        {
+            try
+            {
+                listener.mergeResult(commandName, branchToMerge, mergeTarget, result);
+            }
+            catch (RuntimeException e)
+            {
+                log.warn("Error notifying JGitFlow event listener", e);
+            }
+        }
+    }
+
+    @Override
+    public void pushResult(String commandName, PushResult result)
+    {
+        for (JGitFlowEventListener listener : listeners)
+        {
+            try
+            {
+                listener.pushResult(commandName, result);
+            }
+            catch (RuntimeException e)
+            {
+                log.warn("Error notifying JGitFlow event listener", e);
+            }
+        }
+    }
+
+    @Override
+    public void checkoutPerformed(String commandName, String branchName)
+    {
+        for (JGitFlowEventListener listener : listeners)
+        {
+            try
+            {
+                listener.checkoutPerformed(commandName, branchName);
+            }
+            catch (RuntimeException e)
+            {
+                log.warn("Error notifying JGitFlow event listener", e);
+            }
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package com.atlassian.jgitflow.core.report;
+
+import com.atlassian.jgitflow.core.exception.JGitFlowExtensionException;
+import com.atlassian.jgitflow.core.extension.ExtensionCommand;
+
+import org.eclipse.jgit.api.MergeResult;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.transport.PushResult;
+
+/**
+ * Receives what jgitflow commands do as it happens.
+ * <p>
+ * Listeners are registered with the {@link JGitFlowEventDispatcher} of a repository and are called on the thread that
+ * runs the command, so they should return quickly. Extend {@link JGitFlowEventAdapter} to only handle some events.
+ * </p>
+ */
+public interface JGitFlowEventListener
+{
+    /**
+     * @param commandName The short name of the command
+     * @param branchName  The name the command was called with, e.g. the feature name
+     */
+    void commandStarted(String commandName, String branchName);
+
+    /**
+     * @param commandName   The short name of the command
+     * @param branchName    The name the command was called with, e.g. the feature name
+     * @param durationNanos How long the command ran
+     */
+    void commandEnded(String commandName, String branchName, long durationNanos);
+
+    /**
+     * @param commandName   The short name of the command running the extension
+     * @param command       The extension command
+     * @param durationNanos How long the extension command ran
+     * @param failure       The exception thrown by the extension command, or null if it succeeded
+     */
+    void extensionCommandExecuted(String commandName, ExtensionCommand command, long durationNanos, JGitFlowExtensionException failure);
+
+    /**
+     * @param commandName The short name of the command
+     * @param refName     The full name of the ref
+     * @param oldId       The id the ref pointed at, or null if the ref was created
+     * @param newId       The id the ref points at now, or null if the ref was deleted
+     */
+    void refUpdated(String commandName, String refName, ObjectId oldId, ObjectId newId);
+
+    /**
+     * @param commandName   The short name of the command
+     * @param branchToMerge The branch that was merged
+     * @param mergeTarget   The branch it was merged into
+     * @param result        The result of the merge
+     */
+    void mergeResult(String commandName, String branchToMerge, String mergeTarget, MergeResult result);
+
+    /**
+     * @param commandName The short name of the command
+     * @param result      The result of a push to origin
+     */
+    void pushResult(String commandName, PushResult result);
+
+    /**
+     * @param commandName The short name of the command
+     * @param branchName  The branch that was checked out into the working tree
+     */
+    void checkoutPerformed(String commandName, String branchName);
+}
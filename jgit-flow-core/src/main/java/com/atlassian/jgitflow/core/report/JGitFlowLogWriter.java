@@ -0,0 +1,370 @@
+package com.atlassian.jgitflow.core.report;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Writes the jgitflow log on a background thread.
+ * <p>
+ * Content is handed over through a bounded queue, so writing only blocks the caller when the writer has fallen behind.
+ * The writer drains everything that's queued, joins the content for the same file and writes it with one call on an
+ * open {@link FileChannel}. The channel is kept open while there's work and closed once the writer has been idle for a
+ * moment, at which point the thread exits. The thread isn't a daemon, so anything queued is written before the JVM
+ * exits normally.
+ * </p>
+ * <p>
+ * Once a log file reaches the maximum size it's rotated: it's compressed to log.1.gz, the older segments move up one
+ * number and the oldest is deleted when there are more than the maximum number of segments.
+ * </p>
+ */
+public class JGitFlowLogWriter
+{
+    public static final int DEFAULT_CAPACITY = 1024;
+    public static final long DEFAULT_MAX_LOG_SIZE = 10L * 1024L * 1024L;
+    public static final int DEFAULT_MAX_LOG_FILES = 5;
+
+    private static final long IDLE_MILLIS = 1000L;
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+
+    private final BlockingQueue<Chunk> queue;
+    private Thread thread;
+    private volatile long maxLogSize;
+    private volatile int maxLogFiles;
+
+    public JGitFlowLogWriter()
+    {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public JGitFlowLogWriter(int capacity)
+    {
+        this.queue = new ArrayBlockingQueue<Chunk>(capacity);
+        this.maxLogSize = DEFAULT_MAX_LOG_SIZE;
+        this.maxLogFiles = DEFAULT_MAX_LOG_FILES;
+    }
+
+    /**
+     * @param maxLogSize  The size in bytes a log file may grow to before it's rotated, 0 or less to never rotate
+     * @param maxLogFiles The number of compressed segments to keep, 0 to throw away the log when it's rotated
+     */
+    public void setRotation(long maxLogSize, int maxLogFiles)
+    {
+        this.maxLogSize = maxLogSize;
+        this.maxLogFiles = Math.max(0, maxLogFiles);
+    }
+
+    /**
+     * Queues content to be appended to a log file
+     *
+     * @param logFile  The file to append to
+     * @param content  The content to append
+     * @param truncate whether to empty the file before appending
+     */
+    public void write(File logFile, String content, boolean truncate)
+    {
+        enqueue(new Chunk(logFile, content, truncate, null));
+    }
+
+    /**
+     * Waits until everything queued so far has been written
+     */
+    public void sync()
+    {
+        CountDownLatch written = new CountDownLatch(1);
+        enqueue(new Chunk(null, null, false, written));
+
+        try
+        {
+            written.await();
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void enqueue(Chunk chunk)
+    {
+        boolean interrupted = false;
+        try
+        {
+            while (true)
+            {
+                try
+                {
+                    queue.put(chunk);
+                    break;
+                }
+                catch (InterruptedException e)
+                {
+                    interrupted = true;
+                }
+            }
+        }
+        finally
+        {
+            if (interrupted)
+            {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        startIfNeeded();
+    }
+
+    private synchronized void startIfNeeded()
+    {
+        if (null == thread)
+        {
+            thread = new Thread(new Runnable()
+            {
+                @Override
+                public void run()
+                {
+                    drain();
+                }
+            }, "jgitflow-log-writer");
+            thread.start();
+        }
+    }
+
+    private synchronized boolean stopIfIdle()
+    {
+        //checked under the lock so a chunk queued after the last poll always finds a running writer
+        if (queue.isEmpty())
+        {
+            thread = null;
+            return true;
+        }
+
+        return false;
+    }
+
+    private void drain()
+    {
+        FileChannel channel = null;
+        File channelFile = null;
+        List<Chunk> batch = new ArrayList<Chunk>();
+
+        try
+        {
+            while (true)
+            {
+                Chunk first;
+                try
+                {
+                    first = queue.poll(IDLE_MILLIS, TimeUnit.MILLISECONDS);
+                }
+                catch (InterruptedException e)
+                {
+                    first = null;
+                }
+
+                if (null == first)
+                {
+                    if (stopIfIdle())
+                    {
+                        return;
+                    }
+
+                    continue;
+                }
+
+                batch.clear();
+                batch.add(first);
+                queue.drainTo(batch);
+
+                StringBuilder pending = new StringBuilder();
+
+                for (Chunk chunk : batch)
+                {
+                    if (null != chunk.written)
+                    {
+                        channel = writeAndRotate(channel, channelFile, pending);
+                        channelFile = (null == channel) ? null : channelFile;
+                        chunk.written.countDown();
+                        continue;
+                    }
+
+                    if (chunk.truncate || !chunk.logFile.equals(channelFile))
+                    {
+                        writeQuietly(channel, pending);
+                        closeQuietly(channel);
+                        channel = open(chunk.logFile, chunk.truncate);
+                        channelFile = (null == channel) ? null : chunk.logFile;
+                    }
+
+                    pending.append(chunk.content);
+                }
+
+                channel = writeAndRotate(channel, channelFile, pending);
+                channelFile = (null == channel) ? null : channelFile;
+            }
+        }
+        finally
+        {
+            closeQuietly(channel);
+        }
+    }
+
+    private FileChannel writeAndRotate(FileChannel channel, File channelFile, StringBuilder pending)
+    {
+        writeQuietly(channel, pending);
+
+        if (null == channel || !needsRotation(channel))
+        {
+            return channel;
+        }
+
+        closeQuietly(channel);
+        rotate(channelFile);
+
+        return open(channelFile, true);
+    }
+
+    private boolean needsRotation(FileChannel channel)
+    {
+        try
+        {
+            return maxLogSize > 0 && channel.size() >= maxLogSize;
+        }
+        catch (IOException e)
+        {
+            return false;
+        }
+    }
+
+    private void rotate(File logFile)
+    {
+        int segments = maxLogFiles;
+        File parent = logFile.getParentFile();
+        String name = logFile.getName();
+
+        new File(parent, name + "." + segments + ".gz").delete();
+        for (int i = segments - 1; i > 0; i--)
+        {
+            File segment = new File(parent, name + "." + i + ".gz");
+            if (segment.exists())
+            {
+                segment.renameTo(new File(parent, name + "." + (i + 1) + ".gz"));
+            }
+        }
+
+        if (segments > 0)
+        {
+            compress(logFile, new File(parent, name + ".1.gz"));
+        }
+
+        logFile.delete();
+    }
+
+    private void compress(File logFile, File segment)
+    {
+        byte[] buffer = new byte[64 * 1024];
+        InputStream in = null;
+        OutputStream out = null;
+        try
+        {
+            in = new FileInputStream(logFile);
+            out = new GZIPOutputStream(new FileOutputStream(segment));
+
+            int read;
+            while ((read = in.read(buffer)) > 0)
+            {
+                out.write(buffer, 0, read);
+            }
+        }
+        catch (IOException e)
+        {
+            //losing a segment is better than keeping a log that never stops growing
+            segment.delete();
+        }
+        finally
+        {
+            closeQuietly(in);
+            closeQuietly(out);
+        }
+    }
+
+    private FileChannel open(File logFile, boolean truncate)
+    {
+        try
+        {
+            logFile.getParentFile().mkdirs();
+            return new FileOutputStream(logFile, !truncate).getChannel();
+        }
+        catch (IOException e)
+        {
+            //logging must never break a command
+            return null;
+        }
+    }
+
+    private void writeQuietly(FileChannel channel, StringBuilder content)
+    {
+        if (null == channel || content.length() == 0)
+        {
+            content.setLength(0);
+            return;
+        }
+
+        try
+        {
+            ByteBuffer buffer = UTF8.encode(content.toString());
+            while (buffer.hasRemaining())
+            {
+                channel.write(buffer);
+            }
+        }
+        catch (IOException e)
+        {
+            //ignore
+        }
+        finally
+        {
+            content.setLength(0);
+        }
+    }
+
+    private void closeQuietly(Closeable closeable)
+    {
+        if (null == closeable)
+        {
+            return;
+        }
+
+        try
+        {
+            closeable.close();
+        }
+        catch (IOException e)
+        {
+            //ignore
+        }
+    }
+
+    private static class Chunk
+    {
+        private final File logFile;
+        private final String content;
+        private final boolean truncate;
+        private final CountDownLatch written;
+
+        private Chunk(File logFile, String content, boolean truncate, CountDownLatch written)
+        {
+            this.logFile = logFile;
+            this.content = content;
+            this.truncate = truncate;
+            this.written = written;
+        }
+    }
+}
@@ -1,31 +1,91 @@
 package com.atlassian.jgitflow.core.report;
 
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import com.google.common.base.Strings;
+
 /**
  * @since version
  */
 public class JGitFlowReportEntry
 {
+    private static final ConcurrentMap<String, String> IDS = new ConcurrentHashMap<String, String>();
+    private static final String[] PADDING = new String[16];
+
+    static
+    {
+        for (int i = 0; i < PADDING.length; i++)
+        {
+            PADDING[i] = Strings.repeat(" ", i * 4);
+        }
+    }
+
     private final String id;
-    private final String entry;
+    private final String text;
+    private final int indent;
     private final boolean debug;
     private final boolean error;
 
     public JGitFlowReportEntry(String id, String entry, boolean debug, boolean error)
     {
-        this.id = id;
-        this.entry = entry;
+        this(id, 0, entry, debug, error);
+    }
+
+    /**
+     * @param id     The name of the reporting class, shared between entries
+     * @param indent The number of spaces to put in front of the text
+     * @param text   The text of the entry
+     * @param debug  whether this is a debug entry
+     * @param error  whether this is an error entry
+     */
+    public JGitFlowReportEntry(String id, int indent, String text, boolean debug, boolean error)
+    {
+        this.id = canonicalId(id);
+        this.text = text;
+        this.indent = indent;
         this.debug = debug;
         this.error = error;
     }
 
+    private static String canonicalId(String id)
+    {
+        if (null == id)
+        {
+            return null;
+        }
+
+        String canonical = IDS.putIfAbsent(id, id);
+
+        return (null == canonical) ? id : canonical;
+    }
+
     public String getId()
     {
         return id;
     }
 
+    /**
+     * @return the text of the entry, padded with its indent
+     */
     public String getEntry()
     {
-        return entry;
+        if (0 == indent)
+        {
+            return text;
+        }
+
+        return (indent % 4 == 0 && indent / 4 < PADDING.length) ? PADDING[indent / 4] + text : Strings.repeat(" ", indent) + text;
+    }
+
+    public String getText()
+    {
+        return text;
+    }
+
+    public int getIndent()
+    {
+        return indent;
     }
 
     public boolean isDebug()
@@ -0,0 +1,122 @@
+package com.atlassian.jgitflow.core.report;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * The most recent report entries, kept in memory so they can be shown when something fails.
+ * <p>
+ * Entries are kept in a ring buffer that is limited both by the number of entries and by the total length of their
+ * text. When either limit is reached the oldest entries are dropped, they can still be found in the log file.
+ * </p>
+ */
+public class JGitFlowReportHistory
+{
+    public static final int DEFAULT_MAX_ENTRIES = 1000;
+    public static final int DEFAULT_MAX_CHARS = 256 * 1024;
+
+    private JGitFlowReportEntry[] ring;
+    private int first;
+    private int size;
+    private long chars;
+    private int maxChars;
+
+    public JGitFlowReportHistory()
+    {
+        this(DEFAULT_MAX_ENTRIES, DEFAULT_MAX_CHARS);
+    }
+
+    public JGitFlowReportHistory(int maxEntries, int maxChars)
+    {
+        this.ring = new JGitFlowReportEntry[Math.max(1, maxEntries)];
+        this.maxChars = maxChars;
+    }
+
+    public synchronized void addAll(Collection<JGitFlowReportEntry> entries)
+    {
+        for (JGitFlowReportEntry entry : entries)
+        {
+            add(entry);
+        }
+    }
+
+    public synchronized void add(JGitFlowReportEntry entry)
+    {
+        if (size == ring.length)
+        {
+            removeOldest();
+        }
+
+        ring[(first + size) % ring.length] = entry;
+        size++;
+        chars += entry.getText().length();
+
+        //always keep the newest entry, however long it is
+        while (chars > maxChars && size > 1)
+        {
+            removeOldest();
+        }
+    }
+
+    /**
+     * @param max The maximum number of entries to return
+     * @return the newest entries, oldest first
+     */
+    public synchronized List<JGitFlowReportEntry> getRecent(int max)
+    {
+        int count = Math.min(Math.max(0, max), size);
+        List<JGitFlowReportEntry> recent = new ArrayList<JGitFlowReportEntry>(count);
+
+        for (int i = size - count; i < size; i++)
+        {
+            recent.add(ring[(first + i) % ring.length]);
+        }
+
+        return recent;
+    }
+
+    /**
+     * Changes the limits, dropping the oldest entries if there are too many for the new ones
+     *
+     * @param maxEntries The maximum number of entries to keep
+     * @param maxChars   The maximum total length of the text of the entries to keep
+     */
+    public synchronized void setLimits(int maxEntries, int maxChars)
+    {
+        List<JGitFlowReportEntry> kept = getRecent(maxEntries);
+
+        this.ring = new JGitFlowReportEntry[Math.max(1, maxEntries)];
+        this.maxChars = maxChars;
+        this.first = 0;
+        this.size = 0;
+        this.chars = 0;
+
+        addAll(kept);
+    }
+
+    public synchronized int size()
+    {
+        return size;
+    }
+
+    public synchronized void clear()
+    {
+        for (int i = 0; i < ring.length; i++)
+        {
+            ring[i] = null;
+        }
+
+        first = 0;
+        size = 0;
+        chars = 0;
+    }
+
+    private void removeOldest()
+    {
+        chars -= ring[first].getText().length();
+        ring[first] = null;
+        first = (first + 1) % ring.length;
+        size--;
+    }
+}
@@ -0,0 +1,18 @@
+package com.atlassian.jgitflow.core.report;
+
+/**
+ * The levels of the entries in the jgitflow log, from the most to the least verbose
+ */
+public enum JGitFlowReportLevel
+{
+    DEBUG, INFO, ERROR, OFF;
+
+    /**
+     * @param threshold The level the reporter is set to
+     * @return whether entries of this level are reported at the given threshold
+     */
+    public boolean isEnabledAt(JGitFlowReportLevel threshold)
+    {
+        return OFF != this && compareTo(threshold) >= 0;
+    }
+}
@@ -0,0 +1,90 @@
+package com.atlassian.jgitflow.core.report;
+
+import java.util.concurrent.TimeUnit;
+
+import com.atlassian.jgitflow.core.JGitFlowReporter;
+import com.atlassian.jgitflow.core.exception.JGitFlowExtensionException;
+import com.atlassian.jgitflow.core.extension.ExtensionCommand;
+
+import org.eclipse.jgit.api.MergeResult;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.transport.PushResult;
+import org.eclipse.jgit.transport.RemoteRefUpdate;
+
+/**
+ * Writes the events of a repository to its jgitflow log
+ */
+public class JGitFlowReportListener implements JGitFlowEventListener
+{
+    private final JGitFlowReporter reporter;
+
+    public JGitFlowReportListener(JGitFlowReporter reporter)
+    {
+        this.reporter = reporter;
+    }
+
+    @Override
+    public void commandStarted(String commandName, String branchName)
+    {
+        //the command writes its own start and end to the log
+    }
+
+    @Override
+    public void commandEnded(String commandName, String branchName, long durationNanos)
+    {
+        if (reporter.isDebugEnabled())
+        {
+            reporter.debugText(commandName, "command took {} ms", TimeUnit.NANOSECONDS.toMillis(durationNanos));
+        }
+    }
+
+    @Override
+    public void extensionCommandExecuted(String commandName, ExtensionCommand command, long durationNanos, JGitFlowExtensionException failure)
+    {
+        if (null != failure)
+        {
+            reporter.errorText(commandName, "extension " + command.getClass().getName() + " failed: " + failure.getMessage());
+        }
+        else if (reporter.isDebugEnabled())
+        {
+            reporter.debugText(commandName, "ran extension {} in {} ms", command.getClass().getName(), TimeUnit.NANOSECONDS.toMillis(durationNanos));
+        }
+    }
+
+    @Override
+    public void refUpdated(String commandName, String refName, ObjectId oldId, ObjectId newId)
+    {
+        if (reporter.isDebugEnabled())
+        {
+            reporter.debugText(commandName, "updated " + refName + ": " + name(oldId) + " -> " + name(newId));
+        }
+    }
+
+    @Override
+    public void mergeResult(String commandName, String branchToMerge, String mergeTarget, MergeResult result)
+    {
+        reporter.mergeResult(commandName, result);
+    }
+
+    @Override
+    public void pushResult(String commandName, PushResult result)
+    {
+        reporter.infoText(commandName, "messages: '" + result.getMessages() + "'");
+
+        for (RemoteRefUpdate update : result.getRemoteUpdates())
+        {
+            reporter.infoText(commandName, "pushed '" + update.getRemoteName() + "': " + update.getStatus().name());
+        }
+    }
+
+    @Override
+    public void checkoutPerformed(String commandName, String branchName)
+    {
+        reporter.debugText(commandName, "checked out '{}'", branchName);
+    }
+
+    private String name(ObjectId id)
+    {
+        return (null == id) ? "(none)" : id.name();
+    }
+}
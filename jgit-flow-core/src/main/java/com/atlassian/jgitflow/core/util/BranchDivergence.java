@@ -0,0 +1,71 @@
+package com.atlassian.jgitflow.core.util;
+
+import org.eclipse.jgit.lib.ObjectId;
+
+/**
+ * How far a local branch and its remote branch have moved apart
+ */
+public class BranchDivergence
+{
+    private final String branchName;
+    private final ObjectId localId;
+    private final ObjectId remoteId;
+    private final int ahead;
+    private final int behind;
+
+    public BranchDivergence(String branchName, ObjectId localId, ObjectId remoteId, int ahead, int behind)
+    {
+        this.branchName = branchName;
+        this.localId = localId;
+        this.remoteId = remoteId;
+        this.ahead = ahead;
+        this.behind = behind;
+    }
+
+    public String getBranchName()
+    {
+        return branchName;
+    }
+
+    public ObjectId getLocalId()
+    {
+        return localId;
+    }
+
+    public ObjectId getRemoteId()
+    {
+        return remoteId;
+    }
+
+    /**
+     * @return the number of commits on the local branch that are not on the remote branch
+     */
+    public int getAhead()
+    {
+        return ahead;
+    }
+
+    /**
+     * @return the number of commits on the remote branch that are not on the local branch
+     */
+    public int getBehind()
+    {
+        return behind;
+    }
+
+    public boolean isAhead()
+    {
+        return ahead > 0;
+    }
+
+    public boolean isBehind()
+    {
+        return behind > 0;
+    }
+
+    @Override
+    public String toString()
+    {
+        return branchName + " [ahead " + ahead + ", behind " + behind + "]";
+    }
+}
@@ -0,0 +1,119 @@
+package com.atlassian.jgitflow.core.util;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+import com.atlassian.jgitflow.core.BranchType;
+
+/**
+ * Maps branch names to the git flow prefix they start with.
+ * <p>
+ * The prefixes are sorted longest first when the matcher is built, so a lookup is a single pass that stops at the
+ * first prefix the branch starts with, and that is always the most specific one. Prefixes of the same length keep the
+ * order they were added in. Matchers never change.
+ * </p>
+ */
+public final class BranchPrefixMatcher
+{
+    private final String[] prefixes;
+    private final BranchType[] types;
+
+    private BranchPrefixMatcher(List<Entry> entries)
+    {
+        this.prefixes = new String[entries.size()];
+        this.types = new BranchType[entries.size()];
+
+        for (int i = 0; i < entries.size(); i++)
+        {
+            prefixes[i] = entries.get(i).prefix;
+            types[i] = entries.get(i).type;
+        }
+    }
+
+    public static Builder builder()
+    {
+        return new Builder();
+    }
+
+    /**
+     * @param branchName The short name of a branch
+     * @return the longest prefix the branch starts with, or an empty string if there is none
+     */
+    public String prefixFor(String branchName)
+    {
+        int i = indexOf(branchName);
+
+        return (i < 0) ? "" : prefixes[i];
+    }
+
+    /**
+     * @param branchName The short name of a branch
+     * @return the type of the longest prefix the branch starts with, or {@link BranchType#UNKNOWN} if there is none
+     */
+    public BranchType typeFor(String branchName)
+    {
+        int i = indexOf(branchName);
+
+        return (i < 0) ? BranchType.UNKNOWN : types[i];
+    }
+
+    private int indexOf(String branchName)
+    {
+        for (int i = 0; i < prefixes.length; i++)
+        {
+            if (branchName.startsWith(prefixes[i]))
+            {
+                return i;
+            }
+        }
+
+        return -1;
+    }
+
+    public static class Builder
+    {
+        private final List<Entry> entries = new ArrayList<Entry>();
+
+        private Builder()
+        {
+        }
+
+        public Builder add(String prefix, BranchType type)
+        {
+            entries.add(new Entry(prefix, type));
+
+            return this;
+        }
+
+        public BranchPrefixMatcher build()
+        {
+            List<Entry> sorted = new ArrayList<Entry>(entries);
+
+            //the sort is stable, so prefixes of the same length keep their order
+            Collections.sort(sorted, new Comparator<Entry>()
+            {
+                @Override
+                public int compare(Entry e1, Entry e2)
+                {
+                    return e2.prefix.length() - e1.prefix.length();
+                }
+            });
+
+            return new BranchPrefixMatcher(sorted);
+        }
+    }
+
+    private static class Entry
+    {
+        private final String prefix;
+        private final BranchType type;
+
+        private Entry(String prefix, BranchType type)
+        {
+            this.prefix = prefix;
+            this.type = type;
+        }
+    }
+}
@@ -0,0 +1,153 @@
+package com.atlassian.jgitflow.core.util;
+
+import java.io.IOException;
+
+import com.atlassian.jgitflow.core.exception.JGitFlowGitAPIException;
+import com.atlassian.jgitflow.core.exception.JGitFlowIOException;
+
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.api.errors.GitAPIException;
+import org.eclipse.jgit.lib.Constants;
+
+import static com.atlassian.jgitflow.core.util.Preconditions.checkNotNull;
+
+/**
+ * Keeps track of the branch checked out by a command and avoids checkouts that don't change anything.
+ * <p>
+ * {@link #checkout(String)} only records the branch that should end up checked out. The working tree is updated by
+ * {@link #sync()}, so a run of checkouts with nothing in between that needs the working tree becomes a single checkout,
+ * and a checkout of the branch that is already checked out never touches the working tree at all.
+ * </p>
+ * <p>
+ * Anything that reads or changes the working tree, the index or HEAD must call {@link #sync()} first. Anything that may
+ * have moved HEAD behind the coordinator's back must call {@link #invalidate()} afterwards.
+ * </p>
+ */
+public class CheckoutCoordinator
+{
+    private final Git git;
+    private String headBranch;
+    private String pendingBranch;
+    private int checkoutCount;
+    private int skippedCount;
+
+    public CheckoutCoordinator(Git git)
+    {
+        checkNotNull(git);
+        this.git = git;
+    }
+
+    /**
+     * Asks for a branch to be checked out. The working tree is not updated until {@link #sync()} is called.
+     *
+     * @param branchName The short name of the branch to check out
+     * @throws com.atlassian.jgitflow.core.exception.JGitFlowIOException
+     */
+    public void checkout(String branchName) throws JGitFlowIOException
+    {
+        if (null != pendingBranch)
+        {
+            //the earlier checkout was never needed
+            skippedCount++;
+            pendingBranch = null;
+        }
+
+        if (branchName.equals(getHeadBranch()))
+        {
+            skippedCount++;
+        }
+        else
+        {
+            pendingBranch = branchName;
+        }
+    }
+
+    /**
+     * Checks out the branch asked for by the last {@link #checkout(String)}, if it isn't checked out already.
+     *
+     * @return the branch that was checked out, or null if the working tree didn't need to be touched
+     * @throws com.atlassian.jgitflow.core.exception.JGitFlowGitAPIException
+     */
+    public String sync() throws JGitFlowGitAPIException
+    {
+        if (null == pendingBranch)
+        {
+            return null;
+        }
+
+        String branchName = pendingBranch;
+        pendingBranch = null;
+        headBranch = null;
+
+        try
+        {
+            git.checkout().setName(branchName).call();
+        }
+        catch (GitAPIException e)
+        {
+            throw new JGitFlowGitAPIException(e);
+        }
+
+        headBranch = branchName;
+        checkoutCount++;
+
+        return branchName;
+    }
+
+    /**
+     * @param branchName The short name of a branch
+     * @return whether HEAD really points at the branch, regardless of any checkout waiting for {@link #sync()}
+     * @throws com.atlassian.jgitflow.core.exception.JGitFlowIOException
+     */
+    public boolean isCheckedOut(String branchName) throws JGitFlowIOException
+    {
+        return branchName.equals(getHeadBranch());
+    }
+
+    public boolean hasPendingCheckout()
+    {
+        return null != pendingBranch;
+    }
+
+    /**
+     * Forgets the known HEAD, e.g. after an extension or another command ran and may have checked something out
+     */
+    public void invalidate()
+    {
+        headBranch = null;
+    }
+
+    /**
+     * @return the number of checkouts that touched the working tree
+     */
+    public int getCheckoutCount()
+    {
+        return checkoutCount;
+    }
+
+    /**
+     * @return the number of checkouts that were asked for but never needed to touch the working tree
+     */
+    public int getSkippedCount()
+    {
+        return skippedCount;
+    }
+
+    private String getHeadBranch() throws JGitFlowIOException
+    {
+        if (null == headBranch)
+        {
+            try
+            {
+                String fullBranch = git.getRepository().getFullBranch();
+                headBranch = (null != fullBranch && fullBranch.startsWith(Constants.R_HEADS)) ? fullBranch.substring(Constants.R_HEADS.length()) : "";
+            }
+            catch (IOException e)
+            {
+                throw new JGitFlowIOException(e);
+            }
+        }
+
+        return headBranch;
+    }
+}
@@ -0,0 +1,142 @@
+package com.atlassian.jgitflow.core.util;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.atlassian.jgitflow.core.exception.JGitFlowIOException;
+
+import org.eclipse.jgit.errors.ConfigInvalidException;
+import org.eclipse.jgit.lib.Config;
+import org.eclipse.jgit.lib.StoredConfig;
+
+import static com.atlassian.jgitflow.core.util.Preconditions.checkNotNull;
+
+/**
+ * Batches changes to a git config so the file is written once.
+ * <p>
+ * Changes are made to the config in memory as usual, without calling save. {@link #commit()} writes the file only if
+ * the config differs from what it was when the transaction started, and {@link #rollback()} throws the changes away by
+ * reading the file again.
+ * </p>
+ */
+public class ConfigTransaction
+{
+    private final StoredConfig config;
+    private final String original;
+    private boolean open;
+
+    public ConfigTransaction(StoredConfig config)
+    {
+        checkNotNull(config);
+        this.config = config;
+        this.original = valuesOf(config);
+        this.open = true;
+    }
+
+    public StoredConfig getConfig()
+    {
+        return config;
+    }
+
+    public boolean isOpen()
+    {
+        return open;
+    }
+
+    /**
+     * @return whether the config has been changed since the transaction started
+     */
+    public boolean isChanged()
+    {
+        return !original.equals(valuesOf(config));
+    }
+
+    /**
+     * Writes the config if it has been changed and ends the transaction
+     *
+     * @return whether the config file was written
+     * @throws com.atlassian.jgitflow.core.exception.JGitFlowIOException
+     */
+    public boolean commit() throws JGitFlowIOException
+    {
+        open = false;
+
+        if (!isChanged())
+        {
+            return false;
+        }
+
+        try
+        {
+            config.save();
+        }
+        catch (IOException e)
+        {
+            throw new JGitFlowIOException(e);
+        }
+
+        return true;
+    }
+
+    /**
+     * Drops the changes made since the transaction started and ends the transaction. Does nothing if the transaction
+     * has already ended.
+     *
+     * @throws com.atlassian.jgitflow.core.exception.JGitFlowIOException
+     */
+    public void rollback() throws JGitFlowIOException
+    {
+        if (!open)
+        {
+            return;
+        }
+
+        open = false;
+
+        try
+        {
+            config.load();
+        }
+        catch (IOException e)
+        {
+            throw new JGitFlowIOException(e);
+        }
+        catch (ConfigInvalidException e)
+        {
+            throw new JGitFlowIOException(e);
+        }
+    }
+
+    /*
+     * The values rather than the text, because setting an entry to the value it already has can change how the line is
+     * rendered. An empty value reads back as null once saved, so the two are treated the same.
+     */
+    static String valuesOf(Config config)
+    {
+        StringBuilder values = new StringBuilder();
+
+        for (String section : config.getSections())
+        {
+            List<String> subsections = new ArrayList<String>(config.getSubsections(section));
+            subsections.add(0, null);
+
+            for (String subsection : subsections)
+            {
+                for (String name : config.getNames(section, subsection))
+                {
+                    values.append(section).append('\0').append(subsection).append('\0').append(name);
+
+                    for (String value : config.getStringList(section, subsection, name))
+                    {
+                        values.append('\0').append(null == value ? "" : value);
+                    }
+
+                    values.append('\n');
+                }
+            }
+        }
+
+        return values.toString();
+    }
+}
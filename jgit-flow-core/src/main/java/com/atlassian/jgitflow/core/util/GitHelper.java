@@ -1,6 +1,7 @@
 package com.atlassian.jgitflow.core.util;
 
 import java.io.IOException;
+import java.net.URISyntaxException;
 import java.util.*;
 
 import com.atlassian.jgitflow.core.JGitFlowConstants;
@@ -14,8 +15,14 @@ import org.eclipse.jgit.api.ListBranchCommand;
 import org.eclipse.jgit.api.errors.GitAPIException;
 import org.eclipse.jgit.lib.*;
 import org.eclipse.jgit.revwalk.RevCommit;
+import org.eclipse.jgit.revwalk.RevFlag;
+import org.eclipse.jgit.revwalk.RevFlagSet;
 import org.eclipse.jgit.revwalk.RevWalk;
 import org.eclipse.jgit.revwalk.filter.RevFilter;
+import org.eclipse.jgit.transport.PushResult;
+import org.eclipse.jgit.transport.RefSpec;
+import org.eclipse.jgit.transport.RemoteConfig;
+import org.eclipse.jgit.transport.RemoteRefUpdate;
 import org.eclipse.jgit.treewalk.FileTreeIterator;
 import org.eclipse.jgit.util.StringUtils;
 
@@ -26,6 +33,17 @@ import static com.atlassian.jgitflow.core.util.Preconditions.checkNotNull;
  */
 public class GitHelper
 {
+    /**
+     * How far a commit's time may be behind the time of one of its parents before reachability checks could miss it
+     */
+    public static final int MAX_CLOCK_SKEW_SECONDS = 24 * 60 * 60;
+
+    //how many commits in a row older than the cutoff a reachability walk takes before giving up, like git's SLOP
+    private static final int CLOCK_SKEW_SLOP = 5;
+
+    private static final int MAX_BRANCHES_PER_WALK = 8;
+    private static final int OVER_SCAN = 5;
+
     /**
      * Checks to see if one branch is merged into another
      *
@@ -39,9 +57,33 @@ public class GitHelper
      */
     public static boolean isMergedInto(Git git, String commitString, String baseBranch) throws LocalBranchMissingException, JGitFlowIOException, JGitFlowGitAPIException
     {
-        RevCommit branchCommit = getCommitForString(git, commitString);
+        GitSession session = new GitSession(git);
+        try
+        {
+            return isMergedInto(session, commitString, baseBranch);
+        }
+        finally
+        {
+            session.release();
+        }
+    }
 
-        return isMergedInto(git, branchCommit, baseBranch);
+    /**
+     * Same as {@link #isMergedInto(org.eclipse.jgit.api.Git, String, String)} but reuses the walk of a session
+     *
+     * @param session      The session to use
+     * @param commitString The name of the commit we're testing
+     * @param baseBranch   The name of the base branch to look for the merge
+     * @return if the contents of branchName has been merged into baseName
+     * @throws com.atlassian.jgitflow.core.exception.LocalBranchMissingException
+     * @throws com.atlassian.jgitflow.core.exception.JGitFlowIOException
+     * @throws com.atlassian.jgitflow.core.exception.JGitFlowGitAPIException
+     */
+    public static boolean isMergedInto(GitSession session, String commitString, String baseBranch) throws LocalBranchMissingException, JGitFlowIOException, JGitFlowGitAPIException
+    {
+        RevCommit branchCommit = getCommitForString(session, commitString);
+
+        return isMergedInto(session, branchCommit, baseBranch);
     }
 
     /**
@@ -54,32 +96,47 @@ public class GitHelper
      */
     public static RevCommit getCommitForString(Git git, String commitId) throws JGitFlowIOException, LocalBranchMissingException
     {
-        RevWalk walk = null;
+        GitSession session = new GitSession(git);
+        try
+        {
+            return session.parseBody(getCommitForString(session, commitId));
+        }
+        catch (IOException e)
+        {
+            throw new JGitFlowIOException(e);
+        }
+        finally
+        {
+            session.release();
+        }
+    }
+
+    /**
+     * Gets a commit for a given string using the walk of a session. The body of the commit is not loaded.
+     *
+     * @param session  The session to use
+     * @param commitId The name of the commit to find
+     * @return The commit
+     * @throws com.atlassian.jgitflow.core.exception.JGitFlowIOException
+     * @throws com.atlassian.jgitflow.core.exception.LocalBranchMissingException
+     */
+    public static RevCommit getCommitForString(GitSession session, String commitId) throws JGitFlowIOException, LocalBranchMissingException
+    {
         try
         {
-            ObjectId commit = git.getRepository().resolve(commitId);
+            ObjectId commit = session.getRepository().resolve(commitId);
 
             if (null == commit)
             {
                 throw new LocalBranchMissingException("commit " + commitId + " does not exist");
             }
 
-            walk = new RevWalk(git.getRepository());
-            walk.setRetainBody(true);
-
-            return walk.parseCommit(commit);
+            return session.parseCommit(commit);
         }
         catch (IOException e)
         {
             throw new JGitFlowIOException(e);
         }
-        finally
-        {
-            if (null != walk)
-            {
-                walk.release();
-            }
-        }
     }
 
     /**
@@ -94,7 +151,30 @@ public class GitHelper
      */
     public static boolean isMergedInto(Git git, RevCommit commit, String branchName) throws JGitFlowGitAPIException, JGitFlowIOException
     {
-        Repository repo = git.getRepository();
+        GitSession session = new GitSession(git);
+        try
+        {
+            return isMergedInto(session, commit, branchName);
+        }
+        finally
+        {
+            session.release();
+        }
+    }
+
+    /**
+     * Same as {@link #isMergedInto(org.eclipse.jgit.api.Git, org.eclipse.jgit.revwalk.RevCommit, String)} but reuses the walk of a session
+     *
+     * @param session    The session to use
+     * @param commit     The commit to test
+     * @param branchName The name of the base branch to look for the merge
+     * @return if the contents of commit has been merged into baseName
+     * @throws com.atlassian.jgitflow.core.exception.JGitFlowGitAPIException
+     * @throws com.atlassian.jgitflow.core.exception.JGitFlowIOException
+     */
+    public static boolean isMergedInto(GitSession session, RevCommit commit, String branchName) throws JGitFlowGitAPIException, JGitFlowIOException
+    {
+        Repository repo = session.getRepository();
         try
         {
             ObjectId base = repo.resolve(branchName);
@@ -104,35 +184,77 @@ public class GitHelper
                 return false;
             }
 
-            Iterable<RevCommit> baseCommits = git.log().add(base).call();
-
-            boolean merged = false;
-
-            for (RevCommit entry : baseCommits)
+            Boolean indexed = session.getReachabilityIndex().isReachable(commit, base);
+            if (null != indexed)
             {
-                if (entry.getId().equals(commit))
-                {
-                    merged = true;
-                    break;
-                }
-                if (entry.getParentCount() > 1 && Arrays.asList(entry.getParents()).contains(commit))
-                {
-                    merged = true;
-                    break;
-                }
+                return indexed;
             }
 
-            return merged;
-        }
-        catch (GitAPIException e)
-        {
-            throw new JGitFlowGitAPIException(e);
+            return isMergedInto(session.getWalk(), commit, base);
         }
         catch (IOException e)
         {
             throw new JGitFlowIOException(e);
         }
+    }
+
+    /**
+     * Checks to see if a commit is reachable from a tip commit using an existing walk.
+     * <p>
+     * The walk starts at the tip and visits commits newest first. Since a commit can only be reached through commits
+     * that were created after it, the walk stops once it gets to commits that are older than the commit we're
+     * looking for (minus {@link #MAX_CLOCK_SKEW_SECONDS} to tolerate bad clocks) instead of walking all the way back
+     * to the root commit. A single commit with a bad date can still have newer parents, so the walk only stops after
+     * several old commits in a row.
+     * </p>
+     * <p>
+     * The walk is reset before it is used, so the same walk can be passed in for many checks and commits parsed by
+     * one check are reused by the next.
+     * </p>
+     *
+     * @param walk   The walk to use
+     * @param commit The commit to test
+     * @param tip    The tip to look for the commit from
+     * @return if the commit is the tip or one of its ancestors
+     * @throws java.io.IOException
+     */
+    public static boolean isMergedInto(RevWalk walk, AnyObjectId commit, AnyObjectId tip) throws IOException
+    {
+        RevCommit needle = walk.parseCommit(commit);
+        RevCommit start = walk.parseCommit(tip);
 
+        if (needle.equals(start))
+        {
+            return true;
+        }
+
+        walk.reset();
+        walk.setRevFilter(RevFilter.ALL);
+        walk.markStart(start);
+
+        long oldestCandidate = (long) needle.getCommitTime() - MAX_CLOCK_SKEW_SECONDS;
+        int slop = CLOCK_SKEW_SLOP;
+
+        RevCommit next;
+        while (null != (next = walk.next()))
+        {
+            if (next.equals(needle))
+            {
+                return true;
+            }
+
+            //commits come out newest first, so once enough of them are too old everything left in the walk is too
+            if (next.getCommitTime() >= oldestCandidate)
+            {
+                slop = CLOCK_SKEW_SLOP;
+            }
+            else if (--slop <= 0)
+            {
+                return false;
+            }
+        }
+
+        return false;
     }
 
     /**
@@ -145,14 +267,10 @@ public class GitHelper
      */
     public static RevCommit getLatestCommit(Git git, String branchName) throws JGitFlowIOException
     {
-        RevWalk walk = null;
+        GitSession session = new GitSession(git);
         try
         {
-            ObjectId branch = git.getRepository().resolve(branchName);
-            walk = new RevWalk(git.getRepository());
-            walk.setRetainBody(true);
-
-            return walk.parseCommit(branch);
+            return session.parseBody(getLatestCommit(session, branchName));
         }
         catch (IOException e)
         {
@@ -160,10 +278,29 @@ public class GitHelper
         }
         finally
         {
-            if (null != walk)
-            {
-                walk.release();
-            }
+            session.release();
+        }
+    }
+
+    /**
+     * Gets the latest commit for a branch using the walk of a session. The body of the commit is not loaded.
+     *
+     * @param session    The session to use
+     * @param branchName The name of the branch to find the commit on
+     * @return The latest commit for the branch
+     * @throws com.atlassian.jgitflow.core.exception.JGitFlowIOException
+     */
+    public static RevCommit getLatestCommit(GitSession session, String branchName) throws JGitFlowIOException
+    {
+        try
+        {
+            ObjectId branch = session.getRepository().resolve(branchName);
+
+            return session.parseCommit(branch);
+        }
+        catch (IOException e)
+        {
+            throw new JGitFlowIOException(e);
         }
     }
 
@@ -216,9 +353,9 @@ public class GitHelper
      */
     public static boolean remoteBranchExists(Git git, final String branch) throws JGitFlowGitAPIException
     {
-        JGitFlowReporter reporter = JGitFlowReporter.get();
+        JGitFlowReporter reporter = JGitFlowReporter.get(git);
         reporter.debugMethod(getName(), "remoteBranchExists");
-        reporter.debugText(getName(), "checking for branch: " + branch);
+        reporter.debugText(getName(), "checking for branch: {}", branch);
         boolean exists = false;
 
         if (StringUtils.isEmptyOrNull(branch))
@@ -229,10 +366,10 @@ public class GitHelper
         try
         {
             List<Ref> refs = git.branchList().setListMode(ListBranchCommand.ListMode.REMOTE).call();
-            reporter.debugText(getName(), "got " + refs.size() + " remote refs");
+            reporter.debugText(getName(), "got {} remote refs", refs.size());
             for (Ref ref : refs)
             {
-                reporter.debugText(getName(), "ref name: " + ref.getName());
+                reporter.debugText(getName(), "ref name: {}", ref.getName());
 
                 //if we're not coming from origin, just ignore
                 if (!ref.getName().contains(JGitFlowConstants.R_REMOTE_ORIGIN))
@@ -242,10 +379,11 @@ public class GitHelper
 
                 String simpleName = ref.getName().substring(ref.getName().indexOf(JGitFlowConstants.R_REMOTE_ORIGIN) + JGitFlowConstants.R_REMOTE_ORIGIN.length());
 
-                reporter.debugText(getName(), "ref simple name: " + simpleName);
+                reporter.debugText(getName(), "ref simple name: {}", simpleName);
 
-                reporter.debugText(getName(), "simple name equals branch? " + simpleName.equals(branch));
-                if (simpleName.equals(branch))
+                boolean matches = simpleName.equals(branch);
+                reporter.debugText(getName(), "simple name equals branch? {}", matches);
+                if (matches)
                 {
                     exists = true;
                     break;
@@ -267,43 +405,58 @@ public class GitHelper
 
     public static boolean localBranchBehindRemote(Git git, final String branch) throws JGitFlowIOException
     {
-        JGitFlowReporter reporter = JGitFlowReporter.get();
-        final RevWalk walk = new RevWalk(git.getRepository());
-        walk.setRetainBody(true);
-        boolean behind = false;
+        GitSession session = new GitSession(git);
         try
         {
-            Ref remote = getRemoteBranch(git, branch);
-            Ref local = getLocalBranch(git, branch);
+            return localBranchBehindRemote(session, getLocalBranch(git, branch), getRemoteBranch(git, branch));
+        }
+        finally
+        {
+            session.release();
+        }
+    }
 
+    /**
+     * Checks to see if a local branch is behind its remote branch using the refs and walk of a session
+     *
+     * @param session The session to use
+     * @param branch  The name of the branch to test
+     * @return if the local branch is behind the remote branch
+     * @throws com.atlassian.jgitflow.core.exception.JGitFlowIOException
+     * @throws com.atlassian.jgitflow.core.exception.JGitFlowGitAPIException
+     */
+    public static boolean localBranchBehindRemote(GitSession session, final String branch) throws JGitFlowIOException, JGitFlowGitAPIException
+    {
+        RefSnapshot refs = session.refs();
+
+        return localBranchBehindRemote(session, refs.getLocalBranch(branch), refs.getRemoteBranch(branch));
+    }
+
+    private static boolean localBranchBehindRemote(GitSession session, Ref local, Ref remote) throws JGitFlowIOException
+    {
+        JGitFlowReporter reporter = JGitFlowReporter.forRepository(session.getRepository());
+        boolean behind = false;
+        try
+        {
             checkNotNull(remote);
             checkNotNull(local);
 
-            ObjectId remoteId = git.getRepository().resolve(remote.getObjectId().getName());
-            RevCommit remoteCommit = walk.parseCommit(remoteId);
-            RevCommit localCommit = walk.parseCommit(local.getObjectId());
+            RevCommit remoteCommit = session.parseCommit(remote.getObjectId());
+            RevCommit localCommit = session.parseCommit(local.getObjectId());
 
-            if (!localCommit.equals(remoteCommit))
+            Boolean indexed = session.getReachabilityIndex().isReachable(remoteCommit, localCommit);
+            if (null != indexed)
             {
-                reporter.debugText(getName(), localCommit.getName() + " !equals " + remoteCommit.getName());
-                behind = true;
-                walk.setRevFilter(RevFilter.MERGE_BASE);
-                walk.markStart(localCommit);
-                walk.markStart(remoteCommit);
-
-                RevCommit base = walk.next();
-                reporter.debugText(getName(), "checking if remote is at our merge base");
-                if (null != base)
-                {
-                    walk.parseBody(base);
+                //the reachability index knows if the remote is part of our branch
+                behind = !indexed;
+            }
+            else if (!localCommit.equals(remoteCommit))
+            {
+                reporter.debugText(getName(), "{} !equals {}", localCommit.getName(), remoteCommit.getName());
+                reporter.debugText(getName(), "checking if remote is an ancestor of our branch");
 
-                    //remote is behind
-                    if (remoteCommit.equals(base))
-                    {
-                        reporter.debugText(getName(), "remote equals merge base, branch is newer");
-                        behind = false;
-                    }
-                }
+                //remote is behind
+                behind = !isMergedInto(session.getWalk(), remoteCommit, localCommit);
             }
         }
         catch (IOException e)
@@ -313,12 +466,238 @@ public class GitHelper
             reporter.flush();
             throw new JGitFlowIOException(e);
         }
+
+        return behind;
+    }
+
+    /**
+     * Counts how far each of the given local branches is ahead of and behind its branch on origin.
+     * <p>
+     * All branches are counted with a single walk. Every local and remote tip paints its commits with its own flag and
+     * the walk stops soon after no commit left to visit is painted by only one side of a branch pair, so history that
+     * all the branches share is not walked. Branches that don't exist both locally and on origin are skipped.
+     * </p>
+     *
+     * @param session  The session to use
+     * @param branches The short names of the branches to count
+     * @return the divergence of each branch that exists locally and on origin, in the order they were given
+     * @throws com.atlassian.jgitflow.core.exception.JGitFlowIOException
+     * @throws com.atlassian.jgitflow.core.exception.JGitFlowGitAPIException
+     */
+    public static List<BranchDivergence> aheadBehind(GitSession session, String... branches) throws JGitFlowIOException, JGitFlowGitAPIException
+    {
+        RefSnapshot refs = session.refs();
+        List<BranchDivergence> result = new ArrayList<BranchDivergence>();
+        List<String> names = new ArrayList<String>();
+
+        for (String branch : branches)
+        {
+            if (!names.contains(branch) && refs.localBranchExists(branch) && refs.remoteBranchExists(branch))
+            {
+                names.add(branch);
+            }
+        }
+
+        try
+        {
+            //each branch needs two flags and a walk only has a couple of dozen of them
+            for (int start = 0; start < names.size(); start += MAX_BRANCHES_PER_WALK)
+            {
+                List<String> batch = names.subList(start, Math.min(names.size(), start + MAX_BRANCHES_PER_WALK));
+                result.addAll(aheadBehind(session.getWalk(), refs, batch));
+            }
+        }
+        catch (IOException e)
+        {
+            throw new JGitFlowIOException(e);
+        }
+
+        return result;
+    }
+
+    private static List<BranchDivergence> aheadBehind(RevWalk walk, RefSnapshot refs, List<String> names) throws IOException
+    {
+        int count = names.size();
+        RevFlag[] localFlags = new RevFlag[count];
+        RevFlag[] remoteFlags = new RevFlag[count];
+        RevFlagSet allFlags = new RevFlagSet();
+
+        for (int i = 0; i < count; i++)
+        {
+            localFlags[i] = walk.newFlag("local-" + i);
+            remoteFlags[i] = walk.newFlag("remote-" + i);
+            allFlags.add(localFlags[i]);
+            allFlags.add(remoteFlags[i]);
+        }
+
+        RevFlag queued = walk.newFlag("queued");
+        RevFlag visited = walk.newFlag("visited");
+
+        PriorityQueue<RevCommit> queue = new PriorityQueue<RevCommit>(11, new Comparator<RevCommit>()
+        {
+            @Override
+            public int compare(RevCommit c1, RevCommit c2)
+            {
+                return c2.getCommitTime() - c1.getCommitTime();
+            }
+        });
+        List<RevCommit> touched = new ArrayList<RevCommit>();
+        List<RevCommit> counted = new ArrayList<RevCommit>();
+        RevCommit[] localTips = new RevCommit[count];
+        RevCommit[] remoteTips = new RevCommit[count];
+
+        try
+        {
+            for (int i = 0; i < count; i++)
+            {
+                localTips[i] = walk.parseCommit(refs.getLocalBranch(names.get(i)).getObjectId());
+                remoteTips[i] = walk.parseCommit(refs.getRemoteBranch(names.get(i)).getObjectId());
+                localTips[i].add(localFlags[i]);
+                remoteTips[i].add(remoteFlags[i]);
+            }
+
+            int oneSided = 0;
+            for (int i = 0; i < count; i++)
+            {
+                for (RevCommit tip : new RevCommit[]{localTips[i], remoteTips[i]})
+                {
+                    if (!tip.has(queued))
+                    {
+                        tip.add(queued);
+                        queue.add(tip);
+                        touched.add(tip);
+                        if (isOneSided(tip, localFlags, remoteFlags))
+                        {
+                            oneSided++;
+                        }
+                    }
+                }
+            }
+
+            int oldestOneSided = Integer.MAX_VALUE;
+            int overScan = OVER_SCAN;
+
+            while (!queue.isEmpty())
+            {
+                //once nothing left in the queue belongs to only one side of a pair, the rest of the history is shared.
+                //we keep going until the queue is older than anything we counted so commits with the same time (or a
+                //slightly wrong clock) can't leave a shared commit counted as ahead or behind
+                if (oneSided == 0 && (oldestOneSided == Integer.MAX_VALUE || (queue.peek().getCommitTime() < oldestOneSided && overScan-- <= 0)))
+                {
+                    break;
+                }
+
+                RevCommit commit = queue.poll();
+                commit.remove(queued);
+
+                if (isOneSided(commit, localFlags, remoteFlags))
+                {
+                    oneSided--;
+                    oldestOneSided = Math.min(oldestOneSided, commit.getCommitTime());
+                }
+
+                if (!commit.has(visited))
+                {
+                    commit.add(visited);
+                    counted.add(commit);
+                }
+
+                for (RevCommit parent : commit.getParents())
+                {
+                    walk.parseHeaders(parent);
+
+                    boolean wasQueued = parent.has(queued);
+                    boolean wasOneSided = wasQueued && isOneSided(parent, localFlags, remoteFlags);
+                    boolean changed = false;
+
+                    for (RevFlag flag : allFlags)
+                    {
+                        if (commit.has(flag) && !parent.has(flag))
+                        {
+                            parent.add(flag);
+                            changed = true;
+                        }
+                    }
+
+                    if (wasQueued)
+                    {
+                        if (wasOneSided != isOneSided(parent, localFlags, remoteFlags))
+                        {
+                            oneSided += wasOneSided ? -1 : 1;
+                        }
+                    }
+                    else if (changed || !parent.has(visited))
+                    {
+                        //a parent we already visited only comes back if clock skew made us visit it too early
+                        if (!parent.has(visited))
+                        {
+                            touched.add(parent);
+                        }
+
+                        parent.add(queued);
+                        queue.add(parent);
+                        if (isOneSided(parent, localFlags, remoteFlags))
+                        {
+                            oneSided++;
+                        }
+                    }
+                }
+            }
+
+            List<BranchDivergence> result = new ArrayList<BranchDivergence>();
+            for (int i = 0; i < count; i++)
+            {
+                int ahead = 0;
+                int behind = 0;
+
+                for (RevCommit commit : counted)
+                {
+                    boolean local = commit.has(localFlags[i]);
+                    boolean remote = commit.has(remoteFlags[i]);
+
+                    if (local && !remote)
+                    {
+                        ahead++;
+                    }
+                    else if (remote && !local)
+                    {
+                        behind++;
+                    }
+                }
+
+                result.add(new BranchDivergence(names.get(i), localTips[i].copy(), remoteTips[i].copy(), ahead, behind));
+            }
+
+            return result;
+        }
         finally
         {
-            walk.release();
+            allFlags.add(queued);
+            allFlags.add(visited);
+
+            for (RevCommit commit : touched)
+            {
+                commit.remove(allFlags);
+            }
+
+            for (RevFlag flag : allFlags)
+            {
+                walk.disposeFlag(flag);
+            }
         }
+    }
 
-        return behind;
+    private static boolean isOneSided(RevCommit commit, RevFlag[] localFlags, RevFlag[] remoteFlags)
+    {
+        for (int i = 0; i < localFlags.length; i++)
+        {
+            if (commit.has(localFlags[i]) != commit.has(remoteFlags[i]))
+            {
+                return true;
+            }
+        }
+
+        return false;
     }
 
     /**
@@ -397,7 +776,7 @@ public class GitHelper
      */
     public static List<Ref> listBranchesWithPrefix(Git git, String prefix) throws JGitFlowGitAPIException
     {
-        JGitFlowReporter reporter = JGitFlowReporter.get();
+        JGitFlowReporter reporter = JGitFlowReporter.get(git);
         List<Ref> branches = new ArrayList<Ref>();
         reporter.debugMethod(getName(), "listBranchesWithPrefix");
 
@@ -424,7 +803,10 @@ public class GitHelper
                     simpleName = "";
                 }
 
-                reporter.debugText(getName(), "simple name [" + simpleName + "] startsWith prefix [" + prefix + "] ? " + simpleName.startsWith(prefix));
+                if (reporter.isDebugEnabled())
+                {
+                    reporter.debugText(getName(), "simple name [" + simpleName + "] startsWith prefix [" + prefix + "] ? " + simpleName.startsWith(prefix));
+                }
 
                 if (simpleName.startsWith(prefix))
                 {
@@ -444,6 +826,37 @@ public class GitHelper
         }
     }
 
+    /**
+     * Finds the first change in the working tree without working out all of the changes. Uses the stat cache if it's
+     * turned on for the repository.
+     *
+     * @param git            The git instance to use
+     * @param allowUntracked whether untracked files are allowed in a clean tree
+     * @return the path of the first change, or null if the working tree is clean
+     * @throws com.atlassian.jgitflow.core.exception.JGitFlowIOException
+     */
+    public static String findFirstWorkingTreeChange(Git git, boolean allowUntracked) throws JGitFlowIOException
+    {
+        try
+        {
+            return findFirstWorkingTreeChange(git.getRepository(), allowUntracked);
+        }
+        catch (IOException e)
+        {
+            throw new JGitFlowIOException(e);
+        }
+    }
+
+    private static String findFirstWorkingTreeChange(Repository repo, boolean allowUntracked) throws IOException
+    {
+        if (StatCache.isEnabled(repo))
+        {
+            return StatCache.get(repo).findFirstChange(repo, allowUntracked);
+        }
+
+        return new WorkingTreeScanner(repo).findFirstChange(allowUntracked);
+    }
+
     /**
      * Tests to see if a working folder is clean. e.g. all changes have been committed.
      *
@@ -454,11 +867,22 @@ public class GitHelper
      */
     public static CleanStatus workingTreeIsClean(Git git, boolean allowUntracked) throws JGitFlowIOException, JGitFlowGitAPIException
     {
-        JGitFlowReporter reporter = JGitFlowReporter.get();
+        JGitFlowReporter reporter = JGitFlowReporter.get(git);
 
         reporter.debugMethod(getName(), "workingTreeIsClean");
         try
         {
+            //the full diff is only worth computing to explain a dirty tree
+            String firstChange = findFirstWorkingTreeChange(git.getRepository(), allowUntracked);
+            if (null == firstChange)
+            {
+                reporter.debugText(getName(), "working tree is clean");
+                reporter.endMethod();
+                return new CleanStatus(false, false, "Working tree is clean");
+            }
+
+            reporter.debugText(getName(), "first change found at '{}'", firstChange);
+
             IndexDiff diffIndex = new IndexDiff(git.getRepository(), Constants.HEAD, new FileTreeIterator(git.getRepository()));
 
             if (diffIndex.diff())
@@ -479,24 +903,24 @@ public class GitHelper
                 StringBuilder sb = new StringBuilder();
 
                 reporter.debugText(getName(), "diffIndex.diff() returned diffs. working tree is dirty!");
-                reporter.debugText(getName(), "added size: " + addedSize);
-                reportDirtyDetails(getName(), "added", diffIndex.getAdded());
-                reporter.debugText(getName(), "assume unchanged size: " + assumedSize);
-                reporter.debugText(getName(), "changed size: " + changedSize);
-                reportDirtyDetails(getName(), "changed", diffIndex.getChanged());
-                reporter.debugText(getName(), "conflicting size: " + conflictSize);
-                reportDirtyDetails(getName(), "conflicting", diffIndex.getConflicting());
-                reporter.debugText(getName(), "ignored not in index size: " + ignoredSize);
-                reporter.debugText(getName(), "missing size: " + missingSize);
-                reportDirtyDetails(getName(), "missing", diffIndex.getMissing());
-                reporter.debugText(getName(), "modified size: " + modifiedSize);
-                reportDirtyDetails(getName(), "modified", diffIndex.getModified());
-                reporter.debugText(getName(), "removed size: " + removedSize);
-                reportDirtyDetails(getName(), "removed", diffIndex.getRemoved());
-                reporter.debugText(getName(), "untracked size: " + untrackedSize);
-                reportDirtyDetails(getName(), "untracked", diffIndex.getUntracked());
-                reporter.debugText(getName(), "untracked folders size: " + untrackedFolderSize);
-                reportDirtyDetails(getName(), "untracked folders", diffIndex.getUntrackedFolders());
+                reporter.debugText(getName(), "added size: {}", addedSize);
+                reportDirtyDetails(reporter, getName(), "added", diffIndex.getAdded());
+                reporter.debugText(getName(), "assume unchanged size: {}", assumedSize);
+                reporter.debugText(getName(), "changed size: {}", changedSize);
+                reportDirtyDetails(reporter, getName(), "changed", diffIndex.getChanged());
+                reporter.debugText(getName(), "conflicting size: {}", conflictSize);
+                reportDirtyDetails(reporter, getName(), "conflicting", diffIndex.getConflicting());
+                reporter.debugText(getName(), "ignored not in index size: {}", ignoredSize);
+                reporter.debugText(getName(), "missing size: {}", missingSize);
+                reportDirtyDetails(reporter, getName(), "missing", diffIndex.getMissing());
+                reporter.debugText(getName(), "modified size: {}", modifiedSize);
+                reportDirtyDetails(reporter, getName(), "modified", diffIndex.getModified());
+                reporter.debugText(getName(), "removed size: {}", removedSize);
+                reportDirtyDetails(reporter, getName(), "removed", diffIndex.getRemoved());
+                reporter.debugText(getName(), "untracked size: {}", untrackedSize);
+                reportDirtyDetails(reporter, getName(), "untracked", diffIndex.getUntracked());
+                reporter.debugText(getName(), "untracked folders size: {}", untrackedFolderSize);
+                reportDirtyDetails(reporter, getName(), "untracked folders", diffIndex.getUntrackedFolders());
                 reporter.endMethod();
 
                 if (addedSize > 0 || changedSize > 0 || conflictSize > 0 || missingSize > 0 || modifiedSize > 0 || removedSize > 0)
@@ -559,16 +983,15 @@ public class GitHelper
         }
     }
 
-    private static void reportDirtyDetails(String cmdName, String reason, Set<String> files)
+    private static void reportDirtyDetails(JGitFlowReporter reporter, String cmdName, String reason, Set<String> files)
     {
-        JGitFlowReporter reporter = JGitFlowReporter.get();
-        if (files.size() > 0)
+        if (files.size() > 0 && reporter.isDebugEnabled())
         {
-            reporter.debugText(cmdName, reason + " details: ");
+            reporter.debugText(cmdName, "{} details: ", reason);
 
             for (String file : files)
             {
-                reporter.debugText(cmdName, " -- " + reason + ": " + file);
+                reporter.debugText(cmdName, " -- {}: {}", reason, file);
             }
         }
     }
@@ -611,6 +1034,111 @@ public class GitHelper
         }
     }
 
+    /**
+     * Brings the local remote-tracking refs in line with the results of a push, so no fetch is needed afterwards.
+     * <p>
+     * For every ref the remote accepted, the tracking ref given by the remote's fetch refspecs is moved to the pushed
+     * object, or deleted if the remote ref was deleted. Refs JGit already updated while pushing are only checked.
+     * </p>
+     *
+     * @param git        The git instance to use
+     * @param remoteName The name of the remote that was pushed to
+     * @param results    The results of the push
+     * @return {@code false} if a result was ambiguous and the tracking refs should be refreshed with a fetch
+     * @throws com.atlassian.jgitflow.core.exception.JGitFlowIOException
+     */
+    public static boolean updateTrackingRefs(Git git, String remoteName, Iterable<PushResult> results) throws JGitFlowIOException
+    {
+        Repository repo = git.getRepository();
+        try
+        {
+            RemoteConfig remoteConfig = new RemoteConfig(repo.getConfig(), remoteName);
+
+            for (PushResult result : results)
+            {
+                for (RemoteRefUpdate update : result.getRemoteUpdates())
+                {
+                    RemoteRefUpdate.Status status = update.getStatus();
+                    if (!RemoteRefUpdate.Status.OK.equals(status) && !RemoteRefUpdate.Status.UP_TO_DATE.equals(status) && !RemoteRefUpdate.Status.NON_EXISTING.equals(status))
+                    {
+                        //we don't know what the remote ended up with
+                        return false;
+                    }
+
+                    String trackingName = getTrackingRefName(remoteConfig, update.getRemoteName());
+                    if (null == trackingName)
+                    {
+                        continue;
+                    }
+
+                    ObjectId newId = RemoteRefUpdate.Status.NON_EXISTING.equals(status) ? ObjectId.zeroId() : update.getNewObjectId();
+                    Ref trackingRef = repo.getRef(trackingName);
+                    ObjectId currentId = (null == trackingRef) ? ObjectId.zeroId() : trackingRef.getObjectId();
+
+                    if (currentId.equals(newId))
+                    {
+                        continue;
+                    }
+
+                    if (update.hasTrackingRefUpdate())
+                    {
+                        //JGit should have done this already
+                        return false;
+                    }
+
+                    RefUpdate refUpdate = repo.updateRef(trackingName);
+                    refUpdate.setForceUpdate(true);
+                    refUpdate.setRefLogMessage("update by push", false);
+
+                    RefUpdate.Result refResult;
+                    if (ObjectId.zeroId().equals(newId))
+                    {
+                        refResult = refUpdate.delete();
+                    }
+                    else
+                    {
+                        refUpdate.setNewObjectId(newId);
+                        refResult = refUpdate.update();
+                    }
+
+                    switch (refResult)
+                    {
+                        case NEW:
+                        case FORCED:
+                        case FAST_FORWARD:
+                        case NO_CHANGE:
+                            break;
+                        default:
+                            return false;
+                    }
+                }
+            }
+
+            return true;
+        }
+        catch (URISyntaxException e)
+        {
+            return false;
+        }
+        catch (IOException e)
+        {
+            throw new JGitFlowIOException(e);
+        }
+    }
+
+    static String getTrackingRefName(RemoteConfig remoteConfig, String remoteRefName)
+    {
+        for (RefSpec spec : remoteConfig.getFetchRefSpecs())
+        {
+            if (spec.matchSource(remoteRefName))
+            {
+                return spec.expandFromSource(remoteRefName).getDestination();
+            }
+        }
+
+        return null;
+    }
+
     private static String getName()
     {
         return GitHelper.class.getSimpleName();
@@ -0,0 +1,152 @@
+package com.atlassian.jgitflow.core.util;
+
+import java.io.IOException;
+
+import com.atlassian.jgitflow.core.exception.JGitFlowGitAPIException;
+
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.lib.AnyObjectId;
+import org.eclipse.jgit.lib.ObjectReader;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.eclipse.jgit.revwalk.RevWalk;
+
+import static com.atlassian.jgitflow.core.util.Preconditions.checkNotNull;
+
+/**
+ * The git state shared by all the steps of a single command.
+ * <p>
+ * A session holds one {@link ObjectReader} and one {@link RevWalk} so a commit that has been parsed once is reused by
+ * every later step instead of being looked up and inflated again. Commit bodies are not kept unless a caller asks for
+ * them with {@link #parseBody(RevCommit)}. The session also holds the command's {@link RefCache} and brings the
+ * {@link ReachabilityIndex} up to date once for every state of it.
+ * </p>
+ * <p>
+ * The reader and walk are created on first use. {@link #release()} should be called when the command is done, after
+ * which the session can still be used and will simply create a new reader.
+ * </p>
+ */
+public class GitSession
+{
+    private final Git git;
+    private final RefCache refCache;
+    private ObjectReader reader;
+    private RevWalk walk;
+    private int indexedAt = -1;
+
+    public GitSession(Git git)
+    {
+        checkNotNull(git);
+        this.git = git;
+        this.refCache = new RefCache(git.getRepository());
+    }
+
+    public Git getGit()
+    {
+        return git;
+    }
+
+    public Repository getRepository()
+    {
+        return git.getRepository();
+    }
+
+    public RefCache getRefCache()
+    {
+        return refCache;
+    }
+
+    /**
+     * @return the current ref snapshot
+     * @throws com.atlassian.jgitflow.core.exception.JGitFlowGitAPIException
+     */
+    public RefSnapshot refs() throws JGitFlowGitAPIException
+    {
+        return refCache.get();
+    }
+
+    /**
+     * @return the reachability index, refreshed if the refs may have moved since this session last used it
+     * @throws java.io.IOException
+     */
+    public ReachabilityIndex getReachabilityIndex() throws IOException
+    {
+        ReachabilityIndex index = ReachabilityIndex.get(getRepository());
+
+        if (indexedAt != refCache.getInvalidations())
+        {
+            index.refresh(getRepository());
+            indexedAt = refCache.getInvalidations();
+        }
+
+        return index;
+    }
+
+    public ObjectReader getReader()
+    {
+        if (null == reader)
+        {
+            reader = git.getRepository().newObjectReader();
+        }
+
+        return reader;
+    }
+
+    /**
+     * @return the walk for this session. Callers may reset it, but must not release it.
+     */
+    public RevWalk getWalk()
+    {
+        if (null == walk)
+        {
+            walk = new RevWalk(getReader());
+            walk.setRetainBody(false);
+        }
+
+        return walk;
+    }
+
+    /**
+     * Parses a commit's headers, reusing the commit if it was already parsed in this session
+     *
+     * @param id The id of the commit
+     * @return the commit without its body
+     * @throws java.io.IOException
+     */
+    public RevCommit parseCommit(AnyObjectId id) throws IOException
+    {
+        return getWalk().parseCommit(id);
+    }
+
+    /**
+     * Makes sure a commit's message and identities are available
+     *
+     * @param commit The commit to load the body for
+     * @return the same commit
+     * @throws java.io.IOException
+     */
+    public RevCommit parseBody(RevCommit commit) throws IOException
+    {
+        getWalk().parseBody(commit);
+
+        return commit;
+    }
+
+    /**
+     * Releases the walk and reader. Commits parsed by this session stay usable.
+     */
+    public void release()
+    {
+        if (null != walk)
+        {
+            walk.release();
+            walk = null;
+        }
+
+        if (null != reader)
+        {
+            reader.release();
+            reader = null;
+        }
+    }
+}
@@ -0,0 +1,163 @@
+package com.atlassian.jgitflow.core.util;
+
+import java.io.*;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.List;
+
+import com.atlassian.jgitflow.core.JGitFlowConstants;
+import com.atlassian.jgitflow.core.JGitFlowReporter;
+
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.Ref;
+import org.eclipse.jgit.lib.Repository;
+
+/**
+ * A fingerprint of what a successful init left behind, so a later init with the same settings can attach to the
+ * repository without redoing the work.
+ * <p>
+ * The fingerprint is a SHA-1 over the settings init was called with, every value in the git config and the ids of the
+ * given local branches. Init saves it when it finishes and a fast attach compares it against the current state: if
+ * anything differs, e.g. a branch moved or the config was edited, the full init runs again. The fingerprint is stored
+ * in .git/jgitflow/initfingerprint and can be deleted at any time.
+ * </p>
+ */
+public final class InitFingerprint
+{
+    public static final String FILE_NAME = "initfingerprint";
+
+    private InitFingerprint()
+    {
+    }
+
+    /**
+     * Computes the fingerprint of the repository's current state
+     *
+     * @param repository The repository to fingerprint
+     * @param settings   The init settings, in a fixed order
+     * @param branches   The short names of the local branches whose ids are part of the fingerprint
+     * @return the fingerprint as a hex string
+     * @throws java.io.IOException
+     */
+    public static String compute(Repository repository, List<String> settings, String... branches) throws IOException
+    {
+        StringBuilder state = new StringBuilder();
+
+        for (String setting : settings)
+        {
+            state.append(setting).append('\n');
+        }
+
+        state.append(ConfigTransaction.valuesOf(repository.getConfig()));
+
+        for (String branch : branches)
+        {
+            Ref ref = repository.getRefDatabase().getRef(Constants.R_HEADS + branch);
+            boolean exists = null != ref && ref.getName().equals(Constants.R_HEADS + branch) && null != ref.getObjectId();
+
+            state.append(branch).append('\0').append(exists ? ref.getObjectId().name() : "-").append('\n');
+        }
+
+        try
+        {
+            MessageDigest digest = MessageDigest.getInstance("SHA-1");
+            return ObjectId.fromRaw(digest.digest(state.toString().getBytes("UTF-8"))).name();
+        }
+        catch (NoSuchAlgorithmException e)
+        {
+            throw new IOException(e);
+        }
+    }
+
+    /**
+     * @param repository  The repository to check
+     * @param fingerprint The fingerprint of the current state
+     * @return whether the fingerprint is the one saved by the last init
+     */
+    public static boolean matches(Repository repository, String fingerprint)
+    {
+        File file = fileFor(repository);
+
+        if (null == file || !file.isFile())
+        {
+            return false;
+        }
+
+        try
+        {
+            BufferedReader in = new BufferedReader(new InputStreamReader(new FileInputStream(file), "UTF-8"));
+            try
+            {
+                return fingerprint.equals(in.readLine());
+            }
+            finally
+            {
+                in.close();
+            }
+        }
+        catch (IOException e)
+        {
+            JGitFlowReporter.forRepository(repository).debugText(InitFingerprint.class.getSimpleName(), "unable to read init fingerprint: " + e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Saves the fingerprint for the next init to compare against
+     *
+     * @param repository  The repository the fingerprint belongs to
+     * @param fingerprint The fingerprint of the state init left behind
+     */
+    public static void save(Repository repository, String fingerprint)
+    {
+        File file = fileFor(repository);
+
+        if (null == file)
+        {
+            return;
+        }
+
+        File tmpFile = new File(file.getParentFile(), FILE_NAME + ".tmp");
+        try
+        {
+            file.getParentFile().mkdirs();
+
+            Writer out = new OutputStreamWriter(new FileOutputStream(tmpFile), "UTF-8");
+            try
+            {
+                out.write(fingerprint);
+                out.write('\n');
+            }
+            finally
+            {
+                out.close();
+            }
+
+            if (!tmpFile.renameTo(file))
+            {
+                file.delete();
+                if (!tmpFile.renameTo(file))
+                {
+                    throw new IOException("unable to write " + file.getAbsolutePath());
+                }
+            }
+        }
+        catch (IOException e)
+        {
+            //without a fingerprint the next init just does the full run
+            JGitFlowReporter.forRepository(repository).debugText(InitFingerprint.class.getSimpleName(), "unable to save init fingerprint: " + e.getMessage());
+            tmpFile.delete();
+        }
+    }
+
+    private static File fileFor(Repository repository)
+    {
+        if (null == repository.getDirectory())
+        {
+            return null;
+        }
+
+        return new File(new File(repository.getDirectory(), JGitFlowConstants.JGITFLOW_DIR), FILE_NAME);
+    }
+}
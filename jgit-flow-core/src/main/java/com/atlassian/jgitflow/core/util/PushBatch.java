@@ -0,0 +1,69 @@
+package com.atlassian.jgitflow.core.util;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.transport.RefSpec;
+
+/**
+ * The ref updates a command wants to push, collected so they can be sent to the remote in one push.
+ * <p>
+ * Refs are pushed in the order they were added. Deleting a branch that was added earlier replaces the update, since
+ * pushing a branch and then deleting it is the same as just deleting it.
+ * </p>
+ */
+public class PushBatch
+{
+    private final Map<String, RefSpec> specs;
+
+    public PushBatch()
+    {
+        this.specs = new LinkedHashMap<String, RefSpec>();
+    }
+
+    /**
+     * @param branchName The short name of a local branch to push to the branch with the same name on the remote
+     */
+    public void addBranch(String branchName)
+    {
+        String refName = Constants.R_HEADS + branchName;
+        specs.put(refName, new RefSpec(refName + ":" + refName));
+    }
+
+    /**
+     * @param tagName The short name of a local tag to push
+     */
+    public void addTag(String tagName)
+    {
+        String refName = Constants.R_TAGS + tagName;
+        specs.put(refName, new RefSpec(refName + ":" + refName));
+    }
+
+    /**
+     * @param branchName The short name of a branch to delete on the remote
+     */
+    public void deleteBranch(String branchName)
+    {
+        String refName = Constants.R_HEADS + branchName;
+        specs.remove(refName);
+        specs.put(refName, new RefSpec().setSource(null).setDestination(refName));
+    }
+
+    public boolean isEmpty()
+    {
+        return specs.isEmpty();
+    }
+
+    public List<RefSpec> getRefSpecs()
+    {
+        return new ArrayList<RefSpec>(specs.values());
+    }
+
+    public void clear()
+    {
+        specs.clear();
+    }
+}
@@ -0,0 +1,486 @@
+package com.atlassian.jgitflow.core.util;
+
+import java.io.*;
+import java.security.DigestInputStream;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+
+import com.atlassian.jgitflow.core.GitFlowConfiguration;
+import com.atlassian.jgitflow.core.JGitFlowConstants;
+import com.atlassian.jgitflow.core.JGitFlowReporter;
+
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.lib.*;
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.eclipse.jgit.revwalk.RevSort;
+import org.eclipse.jgit.revwalk.RevWalk;
+import org.eclipse.jgit.util.StringUtils;
+
+/**
+ * A persistent index of commit reachability for the long lived git flow branches.
+ * <p>
+ * The index keeps a table of commits with their generation numbers (one more than the highest generation of their
+ * parents) and, for the master and develop branches, a bitmap of all the commits reachable from the branch tip. This
+ * lets "is this commit on develop" be answered with a single bit lookup instead of a walk over the history.
+ * </p>
+ * <p>
+ * When one of the branches moves, only the new commits are walked and added. If a branch was rewritten the bitmap for
+ * that branch is rebuilt. The index is stored in .git/jgitflow/reachability, is verified against the object database
+ * when it is loaded and is only ever a cache: it can be deleted at any time and will be rebuilt the next time it's used.
+ * </p>
+ */
+public final class ReachabilityIndex
+{
+    public static final String FILE_NAME = "reachability";
+
+    private static final int MAGIC = 0x4a474652;
+    private static final int VERSION = 1;
+    private static final Map<Repository, ReachabilityIndex> INDEXES = new WeakHashMap<Repository, ReachabilityIndex>();
+
+    private final File indexFile;
+    private final JGitFlowReporter reporter;
+
+    private final List<ObjectId> commits;
+    private final Map<ObjectId, Integer> positions;
+    private int[] generations;
+    private final Map<String, BranchBitmap> branches;
+
+    private ReachabilityIndex(File indexFile, JGitFlowReporter reporter)
+    {
+        this.indexFile = indexFile;
+        this.reporter = reporter;
+        this.commits = new ArrayList<ObjectId>();
+        this.positions = new HashMap<ObjectId, Integer>();
+        this.generations = new int[64];
+        this.branches = new HashMap<String, BranchBitmap>();
+    }
+
+    /**
+     * Gets the index for a repository, loading it from disk the first time it's used
+     *
+     * @param repository The repository to get the index for
+     * @return the index
+     */
+    public static ReachabilityIndex get(Repository repository)
+    {
+        synchronized (INDEXES)
+        {
+            ReachabilityIndex index = INDEXES.get(repository);
+
+            if (null == index)
+            {
+                File indexFile = null;
+                if (null != repository.getDirectory())
+                {
+                    indexFile = new File(new File(repository.getDirectory(), JGitFlowConstants.JGITFLOW_DIR), FILE_NAME);
+                }
+
+                index = new ReachabilityIndex(indexFile, JGitFlowReporter.forRepository(repository));
+                index.load(repository);
+                INDEXES.put(repository, index);
+            }
+
+            return index;
+        }
+    }
+
+    /**
+     * Checks to see if a commit is reachable from a tip.
+     * <p>
+     * The index can answer if the tip is the tip of the master or develop branch as of the last {@link
+     * #refresh(Repository)}, or if both commits are in the index and the generation numbers prove the commit can't be
+     * an ancestor of the tip. Use {@link GitSession#getReachabilityIndex()} to get an index that is up to date.
+     * </p>
+     *
+     * @param commit The commit to look for
+     * @param tip    The tip to look for the commit from
+     * @return {@link Boolean#TRUE} or {@link Boolean#FALSE} if the index knows the answer, null if it doesn't
+     */
+    public synchronized Boolean isReachable(AnyObjectId commit, AnyObjectId tip)
+    {
+        if (AnyObjectId.equals(commit, tip))
+        {
+            return Boolean.TRUE;
+        }
+
+        Integer commitPosition = positions.get(commit);
+
+        for (BranchBitmap branch : branches.values())
+        {
+            if (AnyObjectId.equals(branch.tip, tip))
+            {
+                //everything reachable from the tip is in the table, so a commit we don't know about isn't reachable
+                return (null != commitPosition && branch.reachable.get(commitPosition));
+            }
+        }
+
+        Integer tipPosition = positions.get(tip);
+        if (null != commitPosition && null != tipPosition && generations[commitPosition] >= generations[tipPosition])
+        {
+            return Boolean.FALSE;
+        }
+
+        return null;
+    }
+
+    /**
+     * @param commit The commit to get the generation for
+     * @return the generation number of the commit, or 0 if it's not in the index
+     */
+    public synchronized int getGeneration(AnyObjectId commit)
+    {
+        Integer position = positions.get(commit);
+
+        return (null == position) ? 0 : generations[position];
+    }
+
+    /**
+     * Brings the bitmaps for the master and develop branches up to date with the refs, saving the index if anything moved
+     *
+     * @param repository The repository the index belongs to
+     * @throws java.io.IOException
+     */
+    public synchronized void refresh(Repository repository) throws IOException
+    {
+        GitFlowConfiguration gfConfig = new GitFlowConfiguration(Git.wrap(repository));
+        boolean changed = false;
+
+        Set<String> names = new HashSet<String>();
+        for (String branchName : new String[]{gfConfig.getMaster(), gfConfig.getDevelop()})
+        {
+            if (StringUtils.isEmptyOrNull(branchName))
+            {
+                continue;
+            }
+
+            names.add(branchName);
+
+            Ref ref = repository.getRef(Constants.R_HEADS + branchName);
+            if (null == ref || null == ref.getObjectId())
+            {
+                changed |= (null != branches.remove(branchName));
+                continue;
+            }
+
+            changed |= update(repository, branchName, ref.getObjectId());
+        }
+
+        changed |= branches.keySet().retainAll(names);
+
+        if (changed)
+        {
+            save();
+        }
+    }
+
+    private boolean update(Repository repository, String branchName, ObjectId newTip) throws IOException
+    {
+        BranchBitmap current = branches.get(branchName);
+
+        if (null != current && AnyObjectId.equals(current.tip, newTip))
+        {
+            return false;
+        }
+
+        RevWalk walk = new RevWalk(repository);
+        try
+        {
+            BitSet reachable = null;
+
+            if (null != current && walk.getObjectReader().has(current.tip))
+            {
+                reachable = addNewCommits(walk, newTip, current);
+            }
+
+            if (null == reachable)
+            {
+                walk.release();
+                walk = new RevWalk(repository);
+                reachable = addNewCommits(walk, newTip, null);
+            }
+
+            branches.put(branchName, new BranchBitmap(newTip.copy(), reachable));
+        }
+        finally
+        {
+            walk.release();
+        }
+
+        return true;
+    }
+
+    /**
+     * Walks the commits reachable from the new tip but not from the old one, parents first, and adds them to the table.
+     *
+     * @return the bitmap for the new tip or null if the old tip isn't an ancestor of the new one
+     */
+    private BitSet addNewCommits(RevWalk walk, ObjectId newTip, BranchBitmap old) throws IOException
+    {
+        walk.sort(RevSort.TOPO, true);
+        walk.sort(RevSort.REVERSE, true);
+        walk.markStart(walk.parseCommit(newTip));
+
+        BitSet reachable;
+        boolean fastForward;
+
+        if (null != old)
+        {
+            walk.markUninteresting(walk.parseCommit(old.tip));
+            reachable = (BitSet) old.reachable.clone();
+            fastForward = false;
+        }
+        else
+        {
+            reachable = new BitSet();
+            fastForward = true;
+        }
+
+        RevCommit commit;
+        while (null != (commit = walk.next()))
+        {
+            //the old tip is an ancestor of the new one if one of the new commits has it as a parent
+            if (!fastForward)
+            {
+                for (RevCommit parent : commit.getParents())
+                {
+                    if (AnyObjectId.equals(parent, old.tip))
+                    {
+                        fastForward = true;
+                        break;
+                    }
+                }
+            }
+
+            reachable.set(add(commit));
+        }
+
+        return fastForward ? reachable : null;
+    }
+
+    private int add(RevCommit commit)
+    {
+        Integer existing = positions.get(commit);
+        if (null != existing)
+        {
+            return existing;
+        }
+
+        int generation = 1;
+        for (RevCommit parent : commit.getParents())
+        {
+            Integer parentPosition = positions.get(parent);
+            if (null != parentPosition)
+            {
+                generation = Math.max(generation, generations[parentPosition] + 1);
+            }
+        }
+
+        return append(commit.copy(), generation);
+    }
+
+    private int append(ObjectId id, int generation)
+    {
+        int position = commits.size();
+
+        if (position == generations.length)
+        {
+            generations = Arrays.copyOf(generations, position * 2);
+        }
+
+        commits.add(id);
+        positions.put(id, position);
+        generations[position] = generation;
+
+        return position;
+    }
+
+    private void clear()
+    {
+        commits.clear();
+        positions.clear();
+        branches.clear();
+    }
+
+    private void load(Repository repository)
+    {
+        if (null == indexFile || !indexFile.isFile())
+        {
+            return;
+        }
+
+        ObjectReader reader = repository.newObjectReader();
+        try
+        {
+            MessageDigest digest = MessageDigest.getInstance("SHA-1");
+            DigestInputStream digestIn = new DigestInputStream(new BufferedInputStream(new FileInputStream(indexFile)), digest);
+            DataInputStream in = new DataInputStream(digestIn);
+            try
+            {
+                if (in.readInt() != MAGIC || in.readInt() != VERSION)
+                {
+                    throw new IOException("unknown reachability index format");
+                }
+
+                byte[] raw = new byte[Constants.OBJECT_ID_LENGTH];
+                int commitCount = in.readInt();
+                for (int i = 0; i < commitCount; i++)
+                {
+                    in.readFully(raw);
+                    append(ObjectId.fromRaw(raw), in.readInt());
+                }
+
+                Map<String, BranchBitmap> loaded = new HashMap<String, BranchBitmap>();
+                int branchCount = in.readInt();
+                for (int i = 0; i < branchCount; i++)
+                {
+                    String name = in.readUTF();
+                    in.readFully(raw);
+                    ObjectId tip = ObjectId.fromRaw(raw);
+
+                    BitSet reachable = new BitSet(commitCount);
+                    int words = in.readInt();
+                    for (int w = 0; w < words; w++)
+                    {
+                        long word = in.readLong();
+                        for (int bit = 0; bit < 64 && 0L != word; bit++, word >>>= 1)
+                        {
+                            if (0L != (word & 1L))
+                            {
+                                reachable.set(w * 64 + bit);
+                            }
+                        }
+                    }
+
+                    loaded.put(name, new BranchBitmap(tip, reachable));
+                }
+
+                byte[] expected = digest.digest();
+                digestIn.on(false);
+                byte[] trailer = new byte[expected.length];
+                in.readFully(trailer);
+
+                if (!MessageDigest.isEqual(expected, trailer))
+                {
+                    throw new IOException("reachability index checksum mismatch");
+                }
+
+                //a tip that's gone from the object store can't be trusted, it will be rebuilt when it's next needed
+                for (Map.Entry<String, BranchBitmap> entry : loaded.entrySet())
+                {
+                    if (reader.has(entry.getValue().tip))
+                    {
+                        branches.put(entry.getKey(), entry.getValue());
+                    }
+                }
+            }
+            finally
+            {
+                in.close();
+            }
+        }
+        catch (Exception e)
+        {
+            reporter.debugText(getClass().getSimpleName(), "discarding reachability index: " + e.getMessage());
+            clear();
+        }
+        finally
+        {
+            reader.release();
+        }
+    }
+
+    private void save()
+    {
+        if (null == indexFile)
+        {
+            return;
+        }
+
+        File tmpFile = new File(indexFile.getParentFile(), FILE_NAME + ".tmp");
+        try
+        {
+            indexFile.getParentFile().mkdirs();
+
+            MessageDigest digest = MessageDigest.getInstance("SHA-1");
+            DigestOutputStream digestOut = new DigestOutputStream(new BufferedOutputStream(new FileOutputStream(tmpFile)), digest);
+            DataOutputStream out = new DataOutputStream(digestOut);
+            try
+            {
+                byte[] raw = new byte[Constants.OBJECT_ID_LENGTH];
+
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+
+                out.writeInt(commits.size());
+                for (int i = 0; i < commits.size(); i++)
+                {
+                    commits.get(i).copyRawTo(raw, 0);
+                    out.write(raw);
+                    out.writeInt(generations[i]);
+                }
+
+                out.writeInt(branches.size());
+                for (Map.Entry<String, BranchBitmap> entry : branches.entrySet())
+                {
+                    out.writeUTF(entry.getKey());
+                    entry.getValue().tip.copyRawTo(raw, 0);
+                    out.write(raw);
+
+                    BitSet reachable = entry.getValue().reachable;
+                    long[] words = new long[(reachable.length() + 63) / 64];
+                    for (int bit = reachable.nextSetBit(0); bit >= 0; bit = reachable.nextSetBit(bit + 1))
+                    {
+                        words[bit / 64] |= 1L << (bit % 64);
+                    }
+
+                    out.writeInt(words.length);
+                    for (long word : words)
+                    {
+                        out.writeLong(word);
+                    }
+                }
+
+                out.flush();
+                digestOut.on(false);
+                out.write(digest.digest());
+            }
+            finally
+            {
+                out.close();
+            }
+
+            if (!tmpFile.renameTo(indexFile))
+            {
+                indexFile.delete();
+                if (!tmpFile.renameTo(indexFile))
+                {
+                    throw new IOException("unable to write " + indexFile.getAbsolutePath());
+                }
+            }
+        }
+        catch (IOException e)
+        {
+            //the index is only a cache, we'll just rebuild it next time
+            reporter.debugText(getClass().getSimpleName(), "unable to save reachability index: " + e.getMessage());
+            tmpFile.delete();
+        }
+        catch (NoSuchAlgorithmException e)
+        {
+            reporter.debugText(getClass().getSimpleName(), "unable to save reachability index: " + e.getMessage());
+        }
+    }
+
+    private static class BranchBitmap
+    {
+        private final ObjectId tip;
+        private final BitSet reachable;
+
+        private BranchBitmap(ObjectId tip, BitSet reachable)
+        {
+            this.tip = tip;
+            this.reachable = reachable;
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package com.atlassian.jgitflow.core.util;
+
+import java.io.IOException;
+
+import com.atlassian.jgitflow.core.exception.JGitFlowGitAPIException;
+
+import org.eclipse.jgit.lib.Repository;
+
+import static com.atlassian.jgitflow.core.util.Preconditions.checkNotNull;
+
+/**
+ * Holds the current {@link RefSnapshot} for a command.
+ * <p>
+ * The snapshot is read lazily on first use and kept until {@link #invalidate()} is called. Commands invalidate the
+ * cache whenever they create, move or delete a ref themselves, so every check in between is answered from memory.
+ * </p>
+ */
+public class RefCache
+{
+    private final Repository repository;
+    private RefSnapshot snapshot;
+    private int invalidations;
+
+    public RefCache(Repository repository)
+    {
+        checkNotNull(repository);
+        this.repository = repository;
+    }
+
+    /**
+     * @return the current snapshot, reading the ref database if needed
+     * @throws com.atlassian.jgitflow.core.exception.JGitFlowGitAPIException
+     */
+    public RefSnapshot get() throws JGitFlowGitAPIException
+    {
+        if (null == snapshot)
+        {
+            try
+            {
+                snapshot = RefSnapshot.read(repository);
+            }
+            catch (IOException e)
+            {
+                throw new JGitFlowGitAPIException("unable to read refs", e);
+            }
+        }
+
+        return snapshot;
+    }
+
+    /**
+     * Drops the current snapshot. The next call to {@link #get()} will re-read the ref database.
+     */
+    public void invalidate()
+    {
+        this.snapshot = null;
+        invalidations++;
+    }
+
+    /**
+     * @return how many times the cache has been invalidated, so callers can tell if the refs may have moved
+     */
+    public int getInvalidations()
+    {
+        return invalidations;
+    }
+}
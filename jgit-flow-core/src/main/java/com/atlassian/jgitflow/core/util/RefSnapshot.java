@@ -0,0 +1,177 @@
+package com.atlassian.jgitflow.core.util;
+
+import java.io.IOException;
+import java.util.*;
+
+import com.atlassian.jgitflow.core.JGitFlowConstants;
+
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.Ref;
+import org.eclipse.jgit.lib.RefDatabase;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.util.StringUtils;
+
+/**
+ * An immutable, indexed view of the branches and tags of a repository.
+ * <p>
+ * The ref database is read exactly once when the snapshot is created. Existence checks are answered with hash
+ * lookups by short name and prefix queries are answered with a binary search over the sorted branch names, so
+ * repositories with thousands of remote branches and tags don't pay for a full listing on every check.
+ * </p>
+ * <p>
+ * Snapshots never change. Callers that update refs should throw their snapshot away, usually through a {@link RefCache}.
+ * </p>
+ */
+public final class RefSnapshot
+{
+    private final Map<String, Ref> localBranches;
+    private final Map<String, Ref> remoteBranches;
+    private final Map<String, Ref> tags;
+    private final String[] sortedLocalNames;
+    private final String[] sortedRemoteNames;
+    private final List<Ref> otherRemoteBranches;
+
+    private RefSnapshot(Map<String, Ref> localBranches, Map<String, Ref> remoteBranches, Map<String, Ref> tags, List<Ref> otherRemoteBranches)
+    {
+        this.localBranches = localBranches;
+        this.remoteBranches = remoteBranches;
+        this.tags = tags;
+        this.otherRemoteBranches = Collections.unmodifiableList(otherRemoteBranches);
+        this.sortedLocalNames = sortedKeys(localBranches);
+        this.sortedRemoteNames = sortedKeys(remoteBranches);
+    }
+
+    /**
+     * Reads all branches and tags of the given repository into a new snapshot
+     *
+     * @param repository The repository to read
+     * @return a new snapshot
+     * @throws java.io.IOException
+     */
+    public static RefSnapshot read(Repository repository) throws IOException
+    {
+        Map<String, Ref> allRefs = repository.getRefDatabase().getRefs(RefDatabase.ALL);
+
+        Map<String, Ref> localBranches = new HashMap<String, Ref>();
+        Map<String, Ref> remoteBranches = new HashMap<String, Ref>();
+        Map<String, Ref> tags = new HashMap<String, Ref>();
+        List<Ref> otherRemoteBranches = new ArrayList<Ref>();
+
+        for (Ref ref : allRefs.values())
+        {
+            String name = ref.getName();
+
+            if (name.startsWith(Constants.R_HEADS))
+            {
+                localBranches.put(name.substring(Constants.R_HEADS.length()), ref);
+            }
+            else if (name.startsWith(JGitFlowConstants.R_REMOTE_ORIGIN))
+            {
+                remoteBranches.put(name.substring(JGitFlowConstants.R_REMOTE_ORIGIN.length()), ref);
+            }
+            else if (name.startsWith(Constants.R_REMOTES))
+            {
+                otherRemoteBranches.add(ref);
+            }
+            else if (name.startsWith(Constants.R_TAGS))
+            {
+                tags.put(name.substring(Constants.R_TAGS.length()), ref);
+            }
+        }
+
+        return new RefSnapshot(localBranches, remoteBranches, tags, otherRemoteBranches);
+    }
+
+    /**
+     * @param branchName the short name of the branch, e.g. develop
+     * @return if a local branch with the given name exists
+     */
+    public boolean localBranchExists(String branchName)
+    {
+        return !StringUtils.isEmptyOrNull(branchName) && localBranches.containsKey(branchName);
+    }
+
+    /**
+     * @param branchName the short name of the branch, e.g. develop
+     * @return if a branch with the given name exists on origin
+     */
+    public boolean remoteBranchExists(String branchName)
+    {
+        return !StringUtils.isEmptyOrNull(branchName) && remoteBranches.containsKey(branchName);
+    }
+
+    /**
+     * @param tagName the short name of the tag
+     * @return if a tag with the given name exists
+     */
+    public boolean tagExists(String tagName)
+    {
+        return !StringUtils.isEmptyOrNull(tagName) && tags.containsKey(tagName);
+    }
+
+    /**
+     * @param branchName the short name of the branch
+     * @return the local branch ref or null
+     */
+    public Ref getLocalBranch(String branchName)
+    {
+        return localBranches.get(branchName);
+    }
+
+    /**
+     * @param branchName the short name of the branch
+     * @return the origin branch ref or null
+     */
+    public Ref getRemoteBranch(String branchName)
+    {
+        return remoteBranches.get(branchName);
+    }
+
+    /**
+     * Gets all local and origin branches whose short name starts with the given prefix.
+     * <p>
+     * Local branches are returned first, followed by origin branches, each sorted by name.
+     * </p>
+     *
+     * @param prefix The prefix to test for
+     * @return A list of branch references matching the given prefix
+     */
+    public List<Ref> branchesWithPrefix(String prefix)
+    {
+        List<Ref> branches = new ArrayList<Ref>();
+
+        addRange(branches, sortedLocalNames, localBranches, prefix);
+        addRange(branches, sortedRemoteNames, remoteBranches, prefix);
+
+        //branches on other remotes don't have a simple name, so they only match an empty prefix
+        if ("".equals(prefix))
+        {
+            branches.addAll(otherRemoteBranches);
+        }
+
+        return branches;
+    }
+
+    private static void addRange(List<Ref> branches, String[] sortedNames, Map<String, Ref> refs, String prefix)
+    {
+        int index = Arrays.binarySearch(sortedNames, prefix);
+        if (index < 0)
+        {
+            index = -(index + 1);
+        }
+
+        while (index < sortedNames.length && sortedNames[index].startsWith(prefix))
+        {
+            branches.add(refs.get(sortedNames[index]));
+            index++;
+        }
+    }
+
+    private static String[] sortedKeys(Map<String, Ref> refs)
+    {
+        String[] names = refs.keySet().toArray(new String[refs.size()]);
+        Arrays.sort(names);
+
+        return names;
+    }
+}
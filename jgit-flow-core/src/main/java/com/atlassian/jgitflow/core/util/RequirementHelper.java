@@ -18,13 +18,23 @@ public class RequirementHelper
 {
     protected final Git git;
     protected final GitFlowConfiguration gfConfig;
-    protected final JGitFlowReporter reporter = JGitFlowReporter.get();
+    protected final JGitFlowReporter reporter;
     protected final String commandName;
+    protected final GitSession session;
+    protected final RefCache refCache;
 
     public RequirementHelper(Git git, GitFlowConfiguration gfConfig, String commandName)
+    {
+        this(git, gfConfig, new GitSession(git), commandName);
+    }
+
+    public RequirementHelper(Git git, GitFlowConfiguration gfConfig, GitSession session, String commandName)
     {
         this.git = git;
         this.gfConfig = gfConfig;
+        this.reporter = JGitFlowReporter.get(git);
+        this.session = session;
+        this.refCache = session.getRefCache();
         this.commandName = commandName;
     }
 
@@ -36,7 +46,7 @@ public class RequirementHelper
      */
     public void requireGitFlowInitialized() throws NotInitializedException, JGitFlowGitAPIException
     {
-        if (!gfConfig.gitFlowIsInitialized())
+        if (!gfConfig.gitFlowIsInitialized(refCache.get()))
         {
             reporter.errorText(commandName, "requireGitFlowInitialized() failed");
             reporter.flush();
@@ -53,7 +63,7 @@ public class RequirementHelper
      */
     public void requireLocalBranchAbsent(String branch) throws LocalBranchExistsException, JGitFlowGitAPIException
     {
-        if (GitHelper.localBranchExists(git, branch))
+        if (refCache.get().localBranchExists(branch))
         {
             reporter.errorText(commandName, "requireLocalBranchAbsent() failed: '" + branch + "' already exists");
             reporter.flush();
@@ -70,7 +80,8 @@ public class RequirementHelper
      */
     public void requireLocalBranchExists(String branch) throws LocalBranchMissingException, JGitFlowGitAPIException
     {
-        if (!GitHelper.localBranchExists(git, branch) && GitHelper.remoteBranchExists(git, branch))
+        RefSnapshot refs = refCache.get();
+        if (!refs.localBranchExists(branch) && refs.remoteBranchExists(branch))
         {
             try
             {
@@ -85,9 +96,13 @@ public class RequirementHelper
             {
                 throw new JGitFlowGitAPIException("error checking out remote branch.", e);
             }
+            finally
+            {
+                refCache.invalidate();
+            }
         }
 
-        if (!GitHelper.localBranchExists(git, branch))
+        if (!refCache.get().localBranchExists(branch))
         {
             reporter.errorText(commandName, "localBranchExists() failed: '" + branch + "' does not exist");
             reporter.flush();
@@ -104,7 +119,7 @@ public class RequirementHelper
      */
     public void requireRemoteBranchAbsent(String branch) throws RemoteBranchExistsException, JGitFlowGitAPIException
     {
-        if (GitHelper.remoteBranchExists(git, branch))
+        if (refCache.get().remoteBranchExists(branch))
         {
             reporter.errorText(commandName, "requireRemoteBranchAbsent() failed: '" + branch + "' already exists");
             reporter.flush();
@@ -121,7 +136,7 @@ public class RequirementHelper
      */
     public void requireRemoteBranchExists(String branch) throws RemoteBranchMissingException, JGitFlowGitAPIException
     {
-        if (!GitHelper.remoteBranchExists(git, branch))
+        if (!refCache.get().remoteBranchExists(branch))
         {
             reporter.errorText(commandName, "requireRemoteBranchExists() failed: '" + branch + "' does not exist");
             reporter.flush();
@@ -138,7 +153,7 @@ public class RequirementHelper
      */
     public void requireTagAbsent(String name) throws TagExistsException, JGitFlowGitAPIException
     {
-        if (GitHelper.tagExists(git, name))
+        if (refCache.get().tagExists(name))
         {
             reporter.errorText(commandName, "requireTagAbsent() failed: '" + name + "' already exists");
             reporter.flush();
@@ -152,11 +167,12 @@ public class RequirementHelper
      * @param branch The name of the branch to test
      * @throws com.atlassian.jgitflow.core.exception.BranchOutOfDateException
      * @throws com.atlassian.jgitflow.core.exception.JGitFlowIOException
+     * @throws com.atlassian.jgitflow.core.exception.JGitFlowGitAPIException
      */
-    public void requireLocalBranchNotBehindRemote(String branch) throws BranchOutOfDateException, JGitFlowIOException
+    public void requireLocalBranchNotBehindRemote(String branch) throws BranchOutOfDateException, JGitFlowIOException, JGitFlowGitAPIException
     {
         reporter.debugMethod(commandName, "requireLocalBranchNotBehindRemote");
-        boolean behind = GitHelper.localBranchBehindRemote(git, branch);
+        boolean behind = GitHelper.localBranchBehindRemote(session, branch);
 
         if (behind)
         {
@@ -169,6 +185,39 @@ public class RequirementHelper
         reporter.endMethod();
     }
 
+    /**
+     * Requires that none of the given local branches are behind their branch on origin.
+     * <p>
+     * Branches that don't exist on origin are ignored. All branches are checked with a single walk.
+     * </p>
+     *
+     * @param branches The names of the branches to test
+     * @throws com.atlassian.jgitflow.core.exception.BranchOutOfDateException
+     * @throws com.atlassian.jgitflow.core.exception.JGitFlowIOException
+     * @throws com.atlassian.jgitflow.core.exception.JGitFlowGitAPIException
+     */
+    public void requireLocalBranchesNotBehindRemotes(String... branches) throws BranchOutOfDateException, JGitFlowIOException, JGitFlowGitAPIException
+    {
+        reporter.debugMethod(commandName, "requireLocalBranchesNotBehindRemotes");
+        List<BranchDivergence> divergences = GitHelper.aheadBehind(session, branches);
+
+        for (BranchDivergence divergence : divergences)
+        {
+            reporter.debugText(commandName, "local branch {}", divergence);
+
+            if (divergence.isBehind())
+            {
+                String message = "local branch '" + divergence.getBranchName() + "' is behind the remote branch by " + divergence.getBehind() + " commit(s)";
+                reporter.errorText(commandName, message);
+                reporter.endMethod();
+                reporter.flush();
+                throw new BranchOutOfDateException(message);
+            }
+        }
+
+        reporter.endMethod();
+    }
+
     /**
      * Requires that the local working tree has no un-committed changes
      *
@@ -195,7 +244,7 @@ public class RequirementHelper
      */
     public void requireNoExistingReleaseBranches() throws ReleaseBranchExistsException, JGitFlowGitAPIException
     {
-        List<Ref> branches = GitHelper.listBranchesWithPrefix(git, gfConfig.getPrefixValue(JGitFlowConstants.PREFIXES.RELEASE.configKey()));
+        List<Ref> branches = refCache.get().branchesWithPrefix(gfConfig.getPrefixValue(JGitFlowConstants.PREFIXES.RELEASE.configKey()));
 
         if (!branches.isEmpty())
         {
@@ -213,7 +262,7 @@ public class RequirementHelper
      */
     public void requireNoExistingHotfixBranches() throws HotfixBranchExistsException, JGitFlowGitAPIException
     {
-        List<Ref> branches = GitHelper.listBranchesWithPrefix(git, gfConfig.getPrefixValue(JGitFlowConstants.PREFIXES.HOTFIX.configKey()));
+        List<Ref> branches = refCache.get().branchesWithPrefix(gfConfig.getPrefixValue(JGitFlowConstants.PREFIXES.HOTFIX.configKey()));
 
         if (!branches.isEmpty())
         {
@@ -231,7 +280,7 @@ public class RequirementHelper
      */
     public void requireCommitOnBranch(RevCommit commit, String branch) throws LocalBranchExistsException, JGitFlowGitAPIException, JGitFlowIOException
     {
-        if (!GitHelper.isMergedInto(git, commit, branch))
+        if (!GitHelper.isMergedInto(session, commit, branch))
         {
             reporter.errorText(commandName, "requireCommitOnBranch() failed: '" + commit.getName() + "' is not on " + branch);
             reporter.flush();
@@ -0,0 +1,581 @@
+package com.atlassian.jgitflow.core.util;
+
+import java.io.*;
+import java.security.DigestInputStream;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+
+import com.atlassian.jgitflow.core.JGitFlowConstants;
+import com.atlassian.jgitflow.core.JGitFlowReporter;
+
+import org.eclipse.jgit.dircache.DirCache;
+import org.eclipse.jgit.dircache.DirCacheEntry;
+import org.eclipse.jgit.dircache.DirCacheIterator;
+import org.eclipse.jgit.lib.*;
+import org.eclipse.jgit.treewalk.EmptyTreeIterator;
+import org.eclipse.jgit.treewalk.TreeWalk;
+import org.eclipse.jgit.treewalk.WorkingTreeIterator;
+import org.eclipse.jgit.treewalk.filter.TreeFilter;
+
+/**
+ * A persistent journal of file stats that lets the clean working tree check skip files that haven't changed.
+ * <p>
+ * After a clean scan the cache records the modification time and size of every tracked file along with its index id,
+ * and the modification time of every directory. The next check only stats those paths and rescans the files whose
+ * stat or index entry changed and the directories whose entries were added or removed. Files and directories modified
+ * within a few seconds of a scan are racy, and directories with untracked files in them may hold an untracked file
+ * that was allowed by the last check, so they are always rescanned.
+ * </p>
+ * <p>
+ * When the cache is cold, or an ignore file changed, the whole working tree is scanned. The cache is stored in
+ * .git/jgitflow/statcache and is only used when the gitflow.statcache config option is set.
+ * </p>
+ */
+public final class StatCache
+{
+    public static final String FILE_NAME = "statcache";
+
+    private static final int MAGIC = 0x4a474653;
+    private static final int VERSION = 1;
+    private static final long RACY_MILLIS = 3000L;
+    private static final long UNKNOWN = -1L;
+    private static final Map<Repository, StatCache> CACHES = new WeakHashMap<Repository, StatCache>();
+
+    private final File cacheFile;
+    private final JGitFlowReporter reporter;
+
+    private boolean warm;
+    private ObjectId headTree;
+    private long excludeModified;
+    private final Map<String, FileStat> files;
+    private final Map<String, Long> directories;
+
+    private StatCache(File cacheFile, JGitFlowReporter reporter)
+    {
+        this.cacheFile = cacheFile;
+        this.reporter = reporter;
+        this.files = new HashMap<String, FileStat>();
+        this.directories = new HashMap<String, Long>();
+    }
+
+    /**
+     * @param repository The repository to check
+     * @return whether the stat cache is turned on for the repository
+     */
+    public static boolean isEnabled(Repository repository)
+    {
+        return !repository.isBare() && repository.getConfig().getBoolean(JGitFlowConstants.SECTION, JGitFlowConstants.STAT_CACHE_KEY, false);
+    }
+
+    /**
+     * Gets the cache for a repository, loading it from disk the first time it's used
+     *
+     * @param repository The repository to get the cache for
+     * @return the cache
+     */
+    public static StatCache get(Repository repository)
+    {
+        synchronized (CACHES)
+        {
+            StatCache cache = CACHES.get(repository);
+
+            if (null == cache)
+            {
+                cache = new StatCache(new File(new File(repository.getDirectory(), JGitFlowConstants.JGITFLOW_DIR), FILE_NAME), JGitFlowReporter.forRepository(repository));
+                cache.load();
+                CACHES.put(repository, cache);
+            }
+
+            return cache;
+        }
+    }
+
+    /**
+     * Finds the first change in the working tree, only looking at the paths that changed since the last clean check
+     *
+     * @param repository     The repository the cache belongs to
+     * @param allowUntracked whether untracked files are allowed in a clean tree
+     * @return the path of the first entry that makes the tree dirty, or null if the tree is clean
+     * @throws java.io.IOException
+     */
+    public synchronized String findFirstChange(Repository repository, boolean allowUntracked) throws IOException
+    {
+        ObjectId head = repository.resolve(Constants.HEAD + "^{tree}");
+        long exclude = new File(repository.getDirectory(), Constants.INFO_EXCLUDE).lastModified();
+
+        if (!warm || exclude != excludeModified)
+        {
+            reporter.debugText(getClass().getSimpleName(), "stat cache is cold, scanning the whole working tree");
+            return scan(repository, allowUntracked, new ChangedPathFilter(), head, exclude);
+        }
+
+        DirCache dirCache = repository.readDirCache();
+        File workTree = repository.getWorkTree();
+        Set<String> changedFiles = new HashSet<String>();
+        Set<String> changedDirectories = new HashSet<String>();
+        int journaled = 0;
+
+        for (int i = 0; i < dirCache.getEntryCount(); i++)
+        {
+            DirCacheEntry entry = dirCache.getEntry(i);
+            String path = entry.getPathString();
+
+            if (entry.getStage() > 0)
+            {
+                return path;
+            }
+
+            FileStat stat = files.get(path);
+            if (null != stat)
+            {
+                journaled++;
+            }
+
+            if (entry.isAssumeValid() || entry.isSkipWorkTree() || FileMode.GITLINK.equals(entry.getFileMode()))
+            {
+                continue;
+            }
+
+            File file = new File(workTree, path);
+            if (null == stat || !stat.id.equals(entry.getObjectId()) || stat.lastModified != file.lastModified() || stat.length != file.length())
+            {
+                changedFiles.add(path);
+            }
+        }
+
+        if (journaled < files.size())
+        {
+            //files that were taken out of the index
+            for (String path : files.keySet())
+            {
+                if (dirCache.findEntry(path) < 0)
+                {
+                    changedFiles.add(path);
+                }
+            }
+        }
+
+        if (!isHeadTree(head))
+        {
+            //the journal only proves the index matched the old HEAD
+            String staged = findStagedChange(repository, dirCache, head);
+            if (null != staged)
+            {
+                return staged;
+            }
+        }
+
+        for (Map.Entry<String, Long> directory : directories.entrySet())
+        {
+            File dir = (directory.getKey().length() == 0) ? workTree : new File(workTree, directory.getKey());
+            if (dir.lastModified() != directory.getValue())
+            {
+                changedDirectories.add(directory.getKey());
+            }
+        }
+
+        for (String path : changedFiles)
+        {
+            if (path.equals(Constants.DOT_GIT_IGNORE) || path.endsWith("/" + Constants.DOT_GIT_IGNORE))
+            {
+                reporter.debugText(getClass().getSimpleName(), "ignore rules changed, scanning the whole working tree");
+                return scan(repository, allowUntracked, new ChangedPathFilter(), head, exclude);
+            }
+        }
+
+        reporter.debugText(getClass().getSimpleName(), "rescanning " + changedFiles.size() + " files and " + changedDirectories.size() + " directories");
+
+        if (changedFiles.isEmpty() && changedDirectories.isEmpty())
+        {
+            if (!isHeadTree(head))
+            {
+                headTree = head;
+                save();
+            }
+
+            return null;
+        }
+
+        return scan(repository, allowUntracked, new ChangedPathFilter(changedFiles, changedDirectories, directories.keySet()), head, exclude);
+    }
+
+    private String scan(Repository repository, boolean allowUntracked, ChangedPathFilter filter, ObjectId head, long exclude) throws IOException
+    {
+        Recorder recorder = new Recorder(repository, filter);
+        recorder.setFilter(filter);
+
+        String change = recorder.findFirstChange(allowUntracked);
+        if (null != change)
+        {
+            //a dirty scan stops early and may not have seen everything in the directories it entered
+            return change;
+        }
+
+        if (filter.isEverything())
+        {
+            files.clear();
+            directories.clear();
+        }
+        else
+        {
+            files.keySet().removeAll(filter.files);
+            directories.keySet().removeAll(filter.directories);
+        }
+
+        files.putAll(recorder.files);
+        directories.putAll(recorder.directories);
+        for (String directory : recorder.untracked)
+        {
+            directories.put(directory, UNKNOWN);
+        }
+
+        headTree = head;
+        excludeModified = exclude;
+        warm = true;
+        save();
+
+        return null;
+    }
+
+    private boolean isHeadTree(ObjectId head)
+    {
+        return (null == headTree) ? null == head : headTree.equals(head);
+    }
+
+    private String findStagedChange(Repository repository, DirCache dirCache, ObjectId head) throws IOException
+    {
+        TreeWalk walk = new TreeWalk(repository);
+        try
+        {
+            walk.setRecursive(true);
+            walk.setFilter(TreeFilter.ANY_DIFF);
+
+            if (null == head)
+            {
+                walk.addTree(new EmptyTreeIterator());
+            }
+            else
+            {
+                walk.addTree(head);
+            }
+            walk.addTree(new DirCacheIterator(dirCache));
+
+            return walk.next() ? walk.getPathString() : null;
+        }
+        finally
+        {
+            walk.release();
+        }
+    }
+
+    private void load()
+    {
+        if (!cacheFile.isFile())
+        {
+            return;
+        }
+
+        try
+        {
+            MessageDigest digest = MessageDigest.getInstance("SHA-1");
+            DigestInputStream digestIn = new DigestInputStream(new BufferedInputStream(new FileInputStream(cacheFile)), digest);
+            DataInputStream in = new DataInputStream(digestIn);
+            try
+            {
+                if (in.readInt() != MAGIC || in.readInt() != VERSION)
+                {
+                    throw new IOException("unknown stat cache format");
+                }
+
+                byte[] raw = new byte[Constants.OBJECT_ID_LENGTH];
+                ObjectId head = null;
+                if (in.readBoolean())
+                {
+                    in.readFully(raw);
+                    head = ObjectId.fromRaw(raw);
+                }
+                long exclude = in.readLong();
+
+                Map<String, Long> loadedDirectories = new HashMap<String, Long>();
+                int directoryCount = in.readInt();
+                for (int i = 0; i < directoryCount; i++)
+                {
+                    String path = in.readUTF();
+                    loadedDirectories.put(path, in.readLong());
+                }
+
+                Map<String, FileStat> loadedFiles = new HashMap<String, FileStat>();
+                int fileCount = in.readInt();
+                for (int i = 0; i < fileCount; i++)
+                {
+                    String path = in.readUTF();
+                    long lastModified = in.readLong();
+                    long length = in.readLong();
+                    in.readFully(raw);
+                    loadedFiles.put(path, new FileStat(lastModified, length, ObjectId.fromRaw(raw)));
+                }
+
+                byte[] expected = digest.digest();
+                digestIn.on(false);
+                byte[] trailer = new byte[expected.length];
+                in.readFully(trailer);
+
+                if (!MessageDigest.isEqual(expected, trailer))
+                {
+                    throw new IOException("stat cache checksum mismatch");
+                }
+
+                headTree = head;
+                excludeModified = exclude;
+                directories.putAll(loadedDirectories);
+                files.putAll(loadedFiles);
+                warm = true;
+            }
+            finally
+            {
+                in.close();
+            }
+        }
+        catch (Exception e)
+        {
+            reporter.debugText(getClass().getSimpleName(), "discarding stat cache: " + e.getMessage());
+        }
+    }
+
+    private void save()
+    {
+        File tmpFile = new File(cacheFile.getParentFile(), FILE_NAME + ".tmp");
+        try
+        {
+            cacheFile.getParentFile().mkdirs();
+
+            MessageDigest digest = MessageDigest.getInstance("SHA-1");
+            DigestOutputStream digestOut = new DigestOutputStream(new BufferedOutputStream(new FileOutputStream(tmpFile)), digest);
+            DataOutputStream out = new DataOutputStream(digestOut);
+            try
+            {
+                byte[] raw = new byte[Constants.OBJECT_ID_LENGTH];
+
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+
+                out.writeBoolean(null != headTree);
+                if (null != headTree)
+                {
+                    headTree.copyRawTo(raw, 0);
+                    out.write(raw);
+                }
+                out.writeLong(excludeModified);
+
+                out.writeInt(directories.size());
+                for (Map.Entry<String, Long> directory : directories.entrySet())
+                {
+                    out.writeUTF(directory.getKey());
+                    out.writeLong(directory.getValue());
+                }
+
+                out.writeInt(files.size());
+                for (Map.Entry<String, FileStat> file : files.entrySet())
+                {
+                    out.writeUTF(file.getKey());
+                    out.writeLong(file.getValue().lastModified);
+                    out.writeLong(file.getValue().length);
+                    file.getValue().id.copyRawTo(raw, 0);
+                    out.write(raw);
+                }
+
+                out.flush();
+                digestOut.on(false);
+                out.write(digest.digest());
+            }
+            finally
+            {
+                out.close();
+            }
+
+            if (!tmpFile.renameTo(cacheFile))
+            {
+                cacheFile.delete();
+                if (!tmpFile.renameTo(cacheFile))
+                {
+                    throw new IOException("unable to write " + cacheFile.getAbsolutePath());
+                }
+            }
+        }
+        catch (IOException e)
+        {
+            //the cache is only an optimisation, the next check will just scan everything
+            reporter.debugText(getClass().getSimpleName(), "unable to save stat cache: " + e.getMessage());
+            tmpFile.delete();
+            warm = false;
+        }
+        catch (NoSuchAlgorithmException e)
+        {
+            reporter.debugText(getClass().getSimpleName(), "unable to save stat cache: " + e.getMessage());
+            warm = false;
+        }
+    }
+
+    private static String parentOf(String path)
+    {
+        int slash = path.lastIndexOf('/');
+
+        return (slash < 0) ? "" : path.substring(0, slash);
+    }
+
+    private static class FileStat
+    {
+        private final long lastModified;
+        private final long length;
+        private final ObjectId id;
+
+        private FileStat(long lastModified, long length, ObjectId id)
+        {
+            this.lastModified = lastModified;
+            this.length = length;
+            this.id = id;
+        }
+    }
+
+    /**
+     * Accepts the changed files, everything in the changed directories and in directories the journal doesn't know
+     * about, and the directories leading to them.
+     */
+    private static class ChangedPathFilter extends TreeFilter
+    {
+        private final Set<String> files;
+        private final Set<String> directories;
+        private final Set<String> known;
+        private final Set<String> paths;
+
+        private ChangedPathFilter()
+        {
+            this(Collections.<String>emptySet(), Collections.<String>emptySet(), Collections.<String>emptySet());
+        }
+
+        private ChangedPathFilter(Set<String> files, Set<String> directories, Set<String> known)
+        {
+            this.files = files;
+            this.directories = directories;
+            this.known = new HashSet<String>(known);
+            this.paths = new HashSet<String>();
+
+            addWithParents(files);
+            addWithParents(directories);
+        }
+
+        private void addWithParents(Set<String> changed)
+        {
+            for (String path : changed)
+            {
+                String p = path;
+                while (p.length() > 0 && paths.add(p))
+                {
+                    p = parentOf(p);
+                }
+            }
+        }
+
+        private boolean isEverything()
+        {
+            return known.isEmpty();
+        }
+
+        private boolean includesChildrenOf(String directory)
+        {
+            return directories.contains(directory) || !known.contains(directory);
+        }
+
+        @Override
+        public boolean include(TreeWalk walker)
+        {
+            String path = walker.getPathString();
+
+            return paths.contains(path) || includesChildrenOf(parentOf(path));
+        }
+
+        @Override
+        public boolean shouldBeRecursive()
+        {
+            return false;
+        }
+
+        @Override
+        public TreeFilter clone()
+        {
+            return this;
+        }
+
+        @Override
+        public String toString()
+        {
+            return "CHANGED_PATHS";
+        }
+    }
+
+    /**
+     * Scans the working tree and collects the stats of everything it finds unchanged
+     */
+    private static class Recorder extends WorkingTreeScanner
+    {
+        private final File workTree;
+        private final ChangedPathFilter filter;
+        private final long racyTime;
+
+        private final Map<String, FileStat> files;
+        private final Map<String, Long> directories;
+        private final Set<String> untracked;
+
+        private Recorder(Repository repository, ChangedPathFilter filter)
+        {
+            super(repository);
+            this.workTree = repository.getWorkTree();
+            this.filter = filter;
+            this.racyTime = System.currentTimeMillis() - RACY_MILLIS;
+            this.files = new HashMap<String, FileStat>();
+            this.directories = new HashMap<String, Long>();
+            this.untracked = new HashSet<String>();
+        }
+
+        @Override
+        protected void enteringDirectory(String path)
+        {
+            //a directory is only known if every entry in it is seen
+            if (!filter.includesChildrenOf(path))
+            {
+                return;
+            }
+
+            long lastModified = ((path.length() == 0) ? workTree : new File(workTree, path)).lastModified();
+            if (0L < lastModified)
+            {
+                //racy directories are still journaled so the next check goes back to them
+                directories.put(path, (lastModified < racyTime) ? lastModified : UNKNOWN);
+            }
+        }
+
+        @Override
+        protected void untrackedEntry(String path)
+        {
+            untracked.add(parentOf(path));
+        }
+
+        @Override
+        protected void unchangedFile(String path, DirCacheEntry entry, WorkingTreeIterator working)
+        {
+            if (FileMode.SYMLINK.equals(entry.getFileMode()))
+            {
+                return;
+            }
+
+            //use the stat the scan compared, the file may have changed since
+            long lastModified = working.getEntryLastModified();
+            if (0L < lastModified && lastModified < racyTime)
+            {
+                files.put(path, new FileStat(lastModified, working.getEntryLength(), entry.getObjectId()));
+            }
+        }
+    }
+}
@@ -0,0 +1,173 @@
+package com.atlassian.jgitflow.core.util;
+
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.util.*;
+
+import com.atlassian.jgitflow.core.exception.JGitFlowIOException;
+
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.api.errors.GitAPIException;
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.Ref;
+import org.eclipse.jgit.transport.RefSpec;
+import org.eclipse.jgit.transport.RemoteConfig;
+import org.eclipse.jgit.transport.TagOpt;
+
+import static com.atlassian.jgitflow.core.util.Preconditions.checkNotNull;
+
+/**
+ * Fetches only the branches and tags a command needs instead of everything the remote has.
+ * <p>
+ * The remote refs are listed first. Refs that don't exist on the remote, or whose local copy already has the advertised
+ * id, are left out, and if nothing is left the fetch is skipped. Tags are never followed automatically.
+ * </p>
+ * <p></p>
+ * Examples:
+ * <p></p>
+ * <pre>
+ * new TargetedFetch(git, &quot;origin&quot;).addBranches(&quot;master&quot;, &quot;develop&quot;).addBranchPrefixes(&quot;release/&quot;).addTag(&quot;1.0&quot;).call();
+ * </pre>
+ */
+public class TargetedFetch
+{
+    private final Git git;
+    private final String remote;
+    private final Set<String> branches;
+    private final Set<String> branchPrefixes;
+    private final Set<String> tags;
+
+    public TargetedFetch(Git git, String remote)
+    {
+        checkNotNull(git);
+        checkNotNull(remote);
+        this.git = git;
+        this.remote = remote;
+        this.branches = new LinkedHashSet<String>();
+        this.branchPrefixes = new LinkedHashSet<String>();
+        this.tags = new LinkedHashSet<String>();
+    }
+
+    /**
+     * @param branchNames The short names of the remote branches to fetch
+     * @return {@code this}
+     */
+    public TargetedFetch addBranches(String... branchNames)
+    {
+        branches.addAll(Arrays.asList(branchNames));
+        return this;
+    }
+
+    /**
+     * @param prefixes Branch prefixes, e.g. release/, whose remote branches should all be fetched
+     * @return {@code this}
+     */
+    public TargetedFetch addBranchPrefixes(String... prefixes)
+    {
+        for (String prefix : prefixes)
+        {
+            if (null != prefix && !prefix.isEmpty())
+            {
+                branchPrefixes.add(prefix);
+            }
+        }
+        return this;
+    }
+
+    /**
+     * @param tagName The short name of a remote tag to fetch
+     * @return {@code this}
+     */
+    public TargetedFetch addTag(String tagName)
+    {
+        tags.add(tagName);
+        return this;
+    }
+
+    /**
+     * @return the ref specs that were fetched, empty if everything was already current
+     * @throws org.eclipse.jgit.api.errors.GitAPIException
+     * @throws com.atlassian.jgitflow.core.exception.JGitFlowIOException
+     */
+    public List<RefSpec> call() throws GitAPIException, JGitFlowIOException
+    {
+        Map<String, Ref> remoteRefs = git.lsRemote().setRemote(remote).callAsMap();
+
+        RemoteConfig remoteConfig;
+        try
+        {
+            remoteConfig = new RemoteConfig(git.getRepository().getConfig(), remote);
+        }
+        catch (URISyntaxException e)
+        {
+            throw new JGitFlowIOException(e);
+        }
+
+        List<RefSpec> specs = new ArrayList<RefSpec>();
+
+        Set<String> wanted = new LinkedHashSet<String>(branches);
+        for (String remoteName : remoteRefs.keySet())
+        {
+            for (String prefix : branchPrefixes)
+            {
+                if (remoteName.startsWith(Constants.R_HEADS + prefix))
+                {
+                    wanted.add(remoteName.substring(Constants.R_HEADS.length()));
+                }
+            }
+        }
+
+        for (String branch : wanted)
+        {
+            String remoteName = Constants.R_HEADS + branch;
+            String trackingName = GitHelper.getTrackingRefName(remoteConfig, remoteName);
+            if (null == trackingName)
+            {
+                trackingName = Constants.R_REMOTES + remote + "/" + branch;
+            }
+
+            if (needsFetch(remoteRefs.get(remoteName), trackingName))
+            {
+                specs.add(new RefSpec("+" + remoteName + ":" + trackingName));
+            }
+        }
+
+        for (String tag : tags)
+        {
+            String tagName = Constants.R_TAGS + tag;
+
+            if (needsFetch(remoteRefs.get(tagName), tagName))
+            {
+                specs.add(new RefSpec(tagName + ":" + tagName));
+            }
+        }
+
+        if (!specs.isEmpty())
+        {
+            git.fetch().setRemote(remote).setRefSpecs(specs).setTagOpt(TagOpt.NO_TAGS).call();
+        }
+
+        return specs;
+    }
+
+    private boolean needsFetch(Ref remoteRef, String localName) throws JGitFlowIOException
+    {
+        if (null == remoteRef || null == remoteRef.getObjectId())
+        {
+            return false;
+        }
+
+        try
+        {
+            Ref localRef = git.getRepository().getRef(localName);
+            ObjectId localId = (null == localRef) ? null : localRef.getObjectId();
+
+            return !remoteRef.getObjectId().equals(localId);
+        }
+        catch (IOException e)
+        {
+            throw new JGitFlowIOException(e);
+        }
+    }
+}
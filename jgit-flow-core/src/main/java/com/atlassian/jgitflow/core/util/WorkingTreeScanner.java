@@ -0,0 +1,191 @@
+package com.atlassian.jgitflow.core.util;
+
+import java.io.IOException;
+
+import org.eclipse.jgit.dircache.DirCache;
+import org.eclipse.jgit.dircache.DirCacheEntry;
+import org.eclipse.jgit.dircache.DirCacheIterator;
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.FileMode;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.treewalk.*;
+import org.eclipse.jgit.treewalk.filter.TreeFilter;
+
+import static com.atlassian.jgitflow.core.util.Preconditions.checkNotNull;
+
+/**
+ * Checks whether the working tree is clean without computing a full status.
+ * <p>
+ * HEAD, the index and the working tree are walked together and the walk stops at the first entry that makes the tree
+ * dirty. Untracked directories are only entered when an untracked file in them would matter, and ignored ones never
+ * are. Use {@link org.eclipse.jgit.lib.IndexDiff} when the details of a dirty tree are needed.
+ * </p>
+ */
+public class WorkingTreeScanner
+{
+    private final Repository repo;
+    private TreeFilter filter;
+
+    public WorkingTreeScanner(Repository repo)
+    {
+        checkNotNull(repo);
+        this.repo = repo;
+        this.filter = TreeFilter.ALL;
+    }
+
+    /**
+     * Limits the scan to the entries accepted by a filter. Directories must be accepted for anything in them to be
+     * scanned.
+     *
+     * @param filter The filter to use, must not be recursive
+     * @return {@code this}
+     */
+    public WorkingTreeScanner setFilter(TreeFilter filter)
+    {
+        checkNotNull(filter);
+        this.filter = filter;
+        return this;
+    }
+
+    /**
+     * @param allowUntracked whether untracked files are allowed in a clean tree
+     * @return the path of the first entry that makes the tree dirty, or null if the tree is clean
+     * @throws java.io.IOException
+     */
+    public String findFirstChange(boolean allowUntracked) throws IOException
+    {
+        DirCache dirCache = repo.readDirCache();
+        TreeWalk walk = new TreeWalk(repo);
+        try
+        {
+            walk.setRecursive(false);
+            walk.setFilter(filter);
+
+            ObjectId headTree = repo.resolve(Constants.HEAD + "^{tree}");
+            int headIndex = (null == headTree) ? walk.addTree(new EmptyTreeIterator()) : walk.addTree(headTree);
+            int indexIndex = walk.addTree(new DirCacheIterator(dirCache));
+            FileTreeIterator workingTree = new FileTreeIterator(repo);
+            int workingIndex = walk.addTree(workingTree);
+            workingTree.setDirCacheIterator(walk, indexIndex);
+
+            enteringDirectory("");
+
+            while (walk.next())
+            {
+                AbstractTreeIterator head = walk.getTree(headIndex, AbstractTreeIterator.class);
+                DirCacheIterator index = walk.getTree(indexIndex, DirCacheIterator.class);
+                WorkingTreeIterator working = walk.getTree(workingIndex, WorkingTreeIterator.class);
+
+                if (null == head && null == index)
+                {
+                    //untracked
+                    if (null == working || working.isEntryIgnored())
+                    {
+                        continue;
+                    }
+
+                    if (allowUntracked)
+                    {
+                        untrackedEntry(walk.getPathString());
+                        continue;
+                    }
+
+                    if (walk.isSubtree())
+                    {
+                        //only matters if something in it isn't ignored
+                        enteringDirectory(walk.getPathString());
+                        walk.enterSubtree();
+                        continue;
+                    }
+
+                    return walk.getPathString();
+                }
+
+                if (walk.isSubtree())
+                {
+                    enteringDirectory(walk.getPathString());
+                    walk.enterSubtree();
+                    continue;
+                }
+
+                if (null == head || null == index)
+                {
+                    //added or removed
+                    return walk.getPathString();
+                }
+
+                DirCacheEntry entry = index.getDirCacheEntry();
+                if (null == entry || entry.getStage() > 0)
+                {
+                    //conflicting
+                    return walk.getPathString();
+                }
+
+                if (walk.getRawMode(headIndex) != walk.getRawMode(indexIndex) || !walk.idEqual(headIndex, indexIndex))
+                {
+                    //staged change
+                    return walk.getPathString();
+                }
+
+                if (entry.isAssumeValid() || entry.isSkipWorkTree() || FileMode.GITLINK.equals(entry.getFileMode()))
+                {
+                    continue;
+                }
+
+                if (null == working || working.isModified(entry, true, walk.getObjectReader()))
+                {
+                    //missing or modified
+                    return walk.getPathString();
+                }
+
+                unchangedFile(walk.getPathString(), entry, working);
+            }
+
+            return null;
+        }
+        finally
+        {
+            walk.release();
+        }
+    }
+
+    /**
+     * Called before the scan reads the entries of a directory, with an empty path for the root of the working tree
+     *
+     * @param path The path of the directory
+     */
+    protected void enteringDirectory(String path)
+    {
+    }
+
+    /**
+     * Called for untracked entries that aren't ignored and were skipped because untracked files are allowed
+     *
+     * @param path The path of the file or directory
+     */
+    protected void untrackedEntry(String path)
+    {
+    }
+
+    /**
+     * Called for tracked files that match both HEAD and the index
+     *
+     * @param path    The path of the file
+     * @param entry   The index entry of the file
+     * @param working The working tree entry of the file
+     */
+    protected void unchangedFile(String path, DirCacheEntry entry, WorkingTreeIterator working)
+    {
+    }
+
+    /**
+     * @param allowUntracked whether untracked files are allowed in a clean tree
+     * @return whether the working tree and index match HEAD
+     * @throws java.io.IOException
+     */
+    public boolean isClean(boolean allowUntracked) throws IOException
+    {
+        return null == findFirstChange(allowUntracked);
+    }
+}
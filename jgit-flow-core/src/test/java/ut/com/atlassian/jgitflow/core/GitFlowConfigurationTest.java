@@ -0,0 +1,70 @@
+package ut.com.atlassian.jgitflow.core;
+
+import com.atlassian.jgitflow.core.BranchType;
+import com.atlassian.jgitflow.core.GitFlowConfiguration;
+import com.atlassian.jgitflow.core.JGitFlow;
+import com.atlassian.jgitflow.core.JGitFlowConstants;
+
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.lib.ConfigConstants;
+import org.eclipse.jgit.lib.StoredConfig;
+import org.junit.Test;
+
+import ut.com.atlassian.jgitflow.core.testutils.RepoUtil;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class GitFlowConfigurationTest extends BaseGitFlowTest
+{
+    @Test
+    public void branchTypes() throws Exception
+    {
+        Git git = RepoUtil.createRepositoryWithMasterAndDevelop(newDir());
+        JGitFlow flow = JGitFlow.forceInit(git.getRepository().getWorkTree());
+        GitFlowConfiguration config = new GitFlowConfiguration(git);
+
+        assertTrue(config.gitFlowIsInitialized());
+        assertEquals(BranchType.MASTER, config.getTypeForBranch(flow.getMasterBranchName()));
+        assertEquals(BranchType.DEVELOP, config.getTypeForBranch(flow.getDevelopBranchName()));
+        assertEquals(BranchType.FEATURE, config.getTypeForBranch(flow.getFeatureBranchPrefix() + "my-feature"));
+        assertEquals(BranchType.RELEASE, config.getTypeForBranch(flow.getReleaseBranchPrefix() + "1.0"));
+        assertEquals(BranchType.HOTFIX, config.getTypeForBranch(flow.getHotfixBranchPrefix() + "1.0.1"));
+        assertEquals(flow.getFeatureBranchPrefix(), config.getPrefixForBranch(flow.getFeatureBranchPrefix() + "my-feature"));
+    }
+
+    @Test
+    public void longestPrefixWins() throws Exception
+    {
+        Git git = RepoUtil.createRepositoryWithMasterAndDevelop(newDir());
+        JGitFlow.forceInit(git.getRepository().getWorkTree());
+        GitFlowConfiguration config = new GitFlowConfiguration(git);
+
+        config.setPrefix(JGitFlowConstants.PREFIXES.FEATURE.configKey(), "work/");
+        config.setPrefix(JGitFlowConstants.PREFIXES.HOTFIX.configKey(), "work/fix/");
+
+        assertEquals(BranchType.FEATURE, config.getTypeForBranch("work/thing"));
+        assertEquals(BranchType.HOTFIX, config.getTypeForBranch("work/fix/1.0.1"));
+        assertEquals("work/fix/", config.getPrefixForBranch("work/fix/1.0.1"));
+    }
+
+    @Test
+    public void settingsAreReadAgainAfterInvalidate() throws Exception
+    {
+        Git git = RepoUtil.createRepositoryWithMasterAndDevelop(newDir());
+        JGitFlow.forceInit(git.getRepository().getWorkTree());
+        GitFlowConfiguration config = new GitFlowConfiguration(git);
+        String develop = config.getDevelop();
+
+        StoredConfig stored = git.getRepository().getConfig();
+        stored.setString(JGitFlowConstants.SECTION, ConfigConstants.CONFIG_BRANCH_SECTION, JGitFlowConstants.DEVELOP_KEY, "integration");
+        stored.save();
+
+        assertEquals(develop, config.getDevelop());
+
+        config.invalidate();
+        assertEquals("integration", config.getDevelop());
+        assertFalse(config.gitFlowIsInitialized());
+    }
+}
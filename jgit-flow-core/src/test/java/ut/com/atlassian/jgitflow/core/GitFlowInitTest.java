@@ -7,13 +7,21 @@ import com.atlassian.jgitflow.core.JGitFlow;
 import com.atlassian.jgitflow.core.JGitFlowInitCommand;
 import com.atlassian.jgitflow.core.exception.AlreadyInitializedException;
 
+import org.apache.commons.io.FileUtils;
 import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.events.ConfigChangedEvent;
+import org.eclipse.jgit.events.ConfigChangedListener;
+import org.eclipse.jgit.events.ListenerHandle;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.lib.StoredConfig;
 import org.eclipse.jgit.util.IO;
 import org.junit.Test;
 
 import ut.com.atlassian.jgitflow.core.testutils.RepoUtil;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 
 public class GitFlowInitTest extends BaseGitFlowTest
@@ -425,4 +433,118 @@ public class GitFlowInitTest extends BaseGitFlowTest
         assertEquals(featureBranch, git.getRepository().getBranch());
 
     }
+
+    @Test
+    public void forceInitDoesNotRewriteUnchangedConfig() throws Exception
+    {
+        Git git = RepoUtil.createRepositoryWithMasterAndDevelop(newDir());
+        JGitFlow.forceInit(git.getRepository().getWorkTree());
+
+        File gitConfig = new File(git.getRepository().getDirectory(), "config");
+        long written = System.currentTimeMillis() - 60000L;
+        assertTrue(gitConfig.setLastModified(written));
+
+        JGitFlow.forceInit(git.getRepository().getWorkTree());
+
+        assertEquals(written / 1000L, gitConfig.lastModified() / 1000L);
+    }
+
+    @Test
+    public void initWritesConfigOnce() throws Exception
+    {
+        Git remoteGit = RepoUtil.createRepositoryWithMasterAndDevelop(newDir());
+        Git git = Git.cloneRepository().setDirectory(newDir()).setURI("file://" + remoteGit.getRepository().getWorkTree().getPath()).call();
+        final File gitDir = git.getRepository().getDirectory();
+        final int[] saves = new int[1];
+        InitContext ctx = new InitContext();
+        ctx.setMaster("master").setDevelop("develop");
+
+        ListenerHandle handle = Repository.getGlobalListenerList().addConfigChangedListener(new ConfigChangedListener()
+        {
+            @Override
+            public void onConfigChanged(ConfigChangedEvent event)
+            {
+                if (gitDir.equals(event.getRepository().getDirectory()))
+                {
+                    saves[0]++;
+                }
+            }
+        });
+
+        JGitFlow flow;
+        try
+        {
+            flow = new JGitFlowInitCommand().setDirectory(git.getRepository().getWorkTree()).setInitContext(ctx).call();
+        }
+        finally
+        {
+            handle.remove();
+        }
+
+        assertEquals(1, saves[0]);
+
+        StoredConfig config = git.getRepository().getConfig();
+        config.load();
+        assertEquals("master", flow.getMasterBranchName());
+        assertEquals("develop", config.getString("gitflow", "branch", "develop"));
+        assertFalse(config.getNames("gitflow", "prefix").isEmpty());
+        assertEquals("origin", config.getString("branch", "develop", "remote"));
+        assertEquals("refs/heads/develop", config.getString("branch", "develop", "merge"));
+    }
+
+    @Test
+    public void initDoesNotListBranchesForEachCheck() throws Exception
+    {
+        Git remoteGit = RepoUtil.createRepositoryWithMasterAndDevelop(newDir());
+        Git git = Git.cloneRepository().setDirectory(newDir()).setURI("file://" + remoteGit.getRepository().getWorkTree().getPath()).call();
+
+        JGitFlow flow = new JGitFlowInitCommand().setDirectory(git.getRepository().getWorkTree()).call();
+        flow.getReporter().sync();
+
+        String log = FileUtils.readFileToString(new File(git.getRepository().getDirectory(), "jgitflow.log"), "UTF-8");
+        assertTrue(log.contains("creating new local 'develop' branch from origin 'develop'"));
+        assertTrue(log.contains("Origin develop exists = true"));
+        assertFalse(log.contains("ref name:"));
+    }
+
+    @Test
+    public void fastAttachSkipsFetchWhenNothingChanged() throws Exception
+    {
+        Git remoteGit = RepoUtil.createRepositoryWithMasterAndDevelop(newDir());
+        Git git = Git.cloneRepository().setDirectory(newDir()).setURI("file://" + remoteGit.getRepository().getWorkTree().getPath()).call();
+        File workDir = git.getRepository().getWorkTree();
+
+        new JGitFlowInitCommand().setDirectory(workDir).setForce(true).setFastAttach(true).call();
+        ObjectId fetched = git.getRepository().resolve("refs/remotes/origin/develop");
+
+        remoteGit.checkout().setName("develop").call();
+        ObjectId remoteDevelop = remoteGit.commit().setMessage("remote commit").call().getId();
+        assertFalse(remoteDevelop.equals(fetched));
+
+        JGitFlow flow = new JGitFlowInitCommand().setDirectory(workDir).setForce(true).setFastAttach(true).call();
+
+        assertEquals("develop", flow.getDevelopBranchName());
+        assertEquals(fetched, git.getRepository().resolve("refs/remotes/origin/develop"));
+
+        new JGitFlowInitCommand().setDirectory(workDir).setForce(true).call();
+
+        assertEquals(remoteDevelop, git.getRepository().resolve("refs/remotes/origin/develop"));
+    }
+
+    @Test
+    public void fastAttachRunsFullInitWhenConfigChanged() throws Exception
+    {
+        Git git = RepoUtil.createRepositoryWithMasterAndDevelop(newDir());
+        File workDir = git.getRepository().getWorkTree();
+
+        new JGitFlowInitCommand().setDirectory(workDir).setForce(true).setFastAttach(true).call();
+
+        StoredConfig config = git.getRepository().getConfig();
+        config.setString("gitflow", "prefix", "feature", "features/");
+        config.save();
+
+        JGitFlow flow = new JGitFlowInitCommand().setDirectory(workDir).setForce(true).setFastAttach(true).call();
+
+        assertEquals("feature/", flow.getFeatureBranchPrefix());
+    }
 }
@@ -1,21 +1,34 @@
 package ut.com.atlassian.jgitflow.core;
 
 import java.io.File;
+import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Date;
 import java.util.List;
+import java.util.TimeZone;
 
 import com.atlassian.jgitflow.core.exception.LocalBranchMissingException;
+import com.atlassian.jgitflow.core.util.BranchDivergence;
 import com.atlassian.jgitflow.core.util.GitHelper;
+import com.atlassian.jgitflow.core.util.GitSession;
 
 import org.apache.commons.io.FileUtils;
 import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.errors.IncorrectObjectTypeException;
+import org.eclipse.jgit.errors.MissingObjectException;
 import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.PersonIdent;
 import org.eclipse.jgit.lib.Ref;
+import org.eclipse.jgit.lib.Repository;
 import org.eclipse.jgit.revwalk.RevCommit;
+import org.eclipse.jgit.revwalk.RevWalk;
+import org.eclipse.jgit.transport.PushResult;
+import org.eclipse.jgit.transport.RefSpec;
 import org.junit.Test;
 
 import ut.com.atlassian.jgitflow.core.testutils.RepoUtil;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 
@@ -148,6 +161,156 @@ public class
 
     }
 
+    @Test
+    public void unmergedCommitDoesNotWalkWholeHistory() throws Exception
+    {
+        Git git = RepoUtil.createRepositoryWithMaster(newDir());
+
+        //an hour between each commit, a couple of hundred of them on master
+        long time = System.currentTimeMillis() - (1000L * 60 * 60 * 1000);
+        RevCommit branchPoint = null;
+        for (int i = 0; i < 200; i++)
+        {
+            time += 60 * 60 * 1000;
+            RevCommit commit = commitAt(git, "master commit " + i, time);
+
+            if (i == 180)
+            {
+                branchPoint = commit;
+            }
+        }
+
+        git.checkout().setCreateBranch(true).setName("feature/deep").setStartPoint(branchPoint).call();
+        RevCommit featureCommit = commitAt(git, "feature commit", time - (10L * 60 * 60 * 1000));
+
+        CountingRevWalk walk = new CountingRevWalk(git.getRepository());
+        try
+        {
+            assertFalse(GitHelper.isMergedInto(walk, featureCommit, git.getRepository().resolve("master")));
+            assertTrue("walked " + walk.visited + " commits", walk.visited < 50);
+
+            assertTrue(GitHelper.isMergedInto(walk, branchPoint, git.getRepository().resolve("master")));
+            assertTrue(GitHelper.isMergedInto(walk, branchPoint, featureCommit));
+        }
+        finally
+        {
+            walk.release();
+        }
+
+        assertFalse(GitHelper.isMergedInto(git, featureCommit, "master"));
+        assertTrue(GitHelper.isMergedInto(git, branchPoint, "feature/deep"));
+    }
+
+    @Test
+    public void commitWithSkewedDateDoesNotHideAncestors() throws Exception
+    {
+        Git git = RepoUtil.createRepositoryWithMaster(newDir());
+
+        long time = System.currentTimeMillis() - (100L * 60 * 60 * 1000);
+        RevCommit needle = commitAt(git, "needle", time);
+        commitAt(git, "after needle", time + (60 * 60 * 1000));
+        //committed on a machine whose clock was a week behind
+        commitAt(git, "skewed", time - (7L * 24 * 60 * 60 * 1000));
+        commitAt(git, "after skewed", time + (2 * 60 * 60 * 1000));
+
+        RevWalk walk = new RevWalk(git.getRepository());
+        try
+        {
+            assertTrue(GitHelper.isMergedInto(walk, needle, git.getRepository().resolve("master")));
+        }
+        finally
+        {
+            walk.release();
+        }
+
+        assertTrue(GitHelper.isMergedInto(git, needle.getName(), "master"));
+    }
+
+    @Test
+    public void aheadBehindForSeveralBranches() throws Exception
+    {
+        Git remoteGit = RepoUtil.createRepositoryWithMasterAndDevelop(newDir());
+        Git git = Git.cloneRepository().setDirectory(newDir()).setURI("file://" + remoteGit.getRepository().getWorkTree().getPath()).call();
+        git.branchCreate().setName("develop").setStartPoint("origin/develop").call();
+        git.branchCreate().setName("feature/local-only").call();
+
+        //develop is two commits behind
+        remoteGit.checkout().setName("develop").call();
+        remoteGit.commit().setMessage("remote develop 1").call();
+        remoteGit.commit().setMessage("remote develop 2").call();
+
+        //master has gone both ways
+        remoteGit.checkout().setName("master").call();
+        remoteGit.commit().setMessage("remote master").call();
+        git.checkout().setName("master").call();
+        git.commit().setMessage("local master 1").call();
+        git.commit().setMessage("local master 2").call();
+        git.commit().setMessage("local master 3").call();
+
+        git.fetch().call();
+
+        GitSession session = new GitSession(git);
+        List<BranchDivergence> divergences = GitHelper.aheadBehind(session, "master", "develop", "feature/local-only");
+        session.release();
+
+        assertEquals(2, divergences.size());
+
+        assertEquals("master", divergences.get(0).getBranchName());
+        assertEquals(3, divergences.get(0).getAhead());
+        assertEquals(1, divergences.get(0).getBehind());
+
+        assertEquals("develop", divergences.get(1).getBranchName());
+        assertEquals(0, divergences.get(1).getAhead());
+        assertEquals(2, divergences.get(1).getBehind());
+        assertTrue(divergences.get(1).isBehind());
+    }
+
+    private RevCommit commitAt(Git git, String message, long time) throws Exception
+    {
+        PersonIdent ident = new PersonIdent("Unit Test", "unit@test.com", new Date(time), TimeZone.getTimeZone("UTC"));
+
+        return git.commit().setMessage(message).setAuthor(ident).setCommitter(ident).call();
+    }
+
+    private static class CountingRevWalk extends RevWalk
+    {
+        private int visited = 0;
+
+        private CountingRevWalk(Repository repo)
+        {
+            super(repo);
+        }
+
+        @Override
+        public RevCommit next() throws MissingObjectException, IncorrectObjectTypeException, IOException
+        {
+            RevCommit next = super.next();
+            if (null != next)
+            {
+                visited++;
+            }
+            return next;
+        }
+    }
+
+    @Test
+    public void trackingRefsUpdatedFromPushResults() throws Exception
+    {
+        Git remoteGit = RepoUtil.createRepositoryWithMasterAndDevelop(newDir());
+        String remoteUri = "file://" + remoteGit.getRepository().getWorkTree().getPath();
+        Git git = Git.cloneRepository().setDirectory(newDir()).setURI(remoteUri).call();
+
+        git.checkout().setCreateBranch(true).setName("develop").setStartPoint("origin/develop").call();
+        RevCommit commit = git.commit().setMessage("local commit").call();
+
+        //pushing to the url rather than the remote name leaves the tracking refs alone
+        Iterable<PushResult> results = git.push().setRemote(remoteUri).setRefSpecs(new RefSpec("refs/heads/develop:refs/heads/develop")).call();
+        assertFalse(commit.equals(git.getRepository().getRef("refs/remotes/origin/develop").getObjectId()));
+
+        assertTrue(GitHelper.updateTrackingRefs(git, Constants.DEFAULT_REMOTE_NAME, results));
+        assertEquals(commit, git.getRepository().getRef("refs/remotes/origin/develop").getObjectId());
+    }
+
     @Test
     public void localTagExists() throws Exception
     {
@@ -0,0 +1,139 @@
+package ut.com.atlassian.jgitflow.core;
+
+import java.io.File;
+import java.util.List;
+
+import com.atlassian.jgitflow.core.JGitFlow;
+import com.atlassian.jgitflow.core.JGitFlowInitCommand;
+import com.atlassian.jgitflow.core.report.JGitFlowEventAdapter;
+import com.atlassian.jgitflow.core.report.JGitFlowEventDispatcher;
+
+import org.apache.commons.io.FileUtils;
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.api.MergeResult;
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.ObjectId;
+import org.junit.Test;
+
+import ut.com.atlassian.jgitflow.core.testutils.RepoUtil;
+
+import static com.google.common.collect.Lists.newArrayList;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class JGitFlowEventDispatcherTest extends BaseGitFlowTest
+{
+    @Test
+    public void releaseCommandsPublishEvents() throws Exception
+    {
+        Git git = RepoUtil.createRepositoryWithMaster(newDir());
+        JGitFlow flow = new JGitFlowInitCommand().setDirectory(git.getRepository().getWorkTree()).call();
+
+        RecordingListener listener = new RecordingListener();
+        flow.events().addListener(listener);
+        try
+        {
+            flow.releaseStart("1.0").call();
+            flow.releaseFinish("1.0").call();
+        }
+        finally
+        {
+            flow.events().removeListener(listener);
+        }
+
+        String releaseBranch = flow.getReleaseBranchPrefix() + "1.0";
+        assertEquals(newArrayList("start release-start", "end release-start", "start release-finish", "end release-finish"), listener.commands);
+        assertTrue(listener.refs.toString(), listener.refs.contains("create " + Constants.R_HEADS + releaseBranch));
+        assertTrue(listener.refs.toString(), listener.refs.contains("create " + Constants.R_TAGS + flow.getVersionTagPrefix() + "1.0"));
+        assertTrue(listener.refs.toString(), listener.refs.contains("delete " + Constants.R_HEADS + releaseBranch));
+        assertTrue(listener.merges.toString(), listener.merges.contains(releaseBranch + " -> " + flow.getMasterBranchName()));
+        assertEquals(2, listener.merges.size());
+        assertTrue(listener.checkouts.toString(), listener.checkouts.contains(releaseBranch));
+    }
+
+    @Test
+    public void removedListenersGetNothing() throws Exception
+    {
+        Git git = RepoUtil.createRepositoryWithMaster(newDir());
+        JGitFlow flow = new JGitFlowInitCommand().setDirectory(git.getRepository().getWorkTree()).call();
+        JGitFlowEventDispatcher events = flow.events();
+
+        RecordingListener listener = new RecordingListener();
+        events.addListener(listener);
+        events.removeListener(listener);
+        events.setReportListenerEnabled(false);
+        try
+        {
+            assertFalse(events.hasListeners());
+            flow.releaseStart("1.0").call();
+        }
+        finally
+        {
+            events.setReportListenerEnabled(true);
+        }
+
+        assertTrue(events.hasListeners());
+        assertTrue(listener.commands.isEmpty());
+    }
+
+    @Test
+    public void logIsWrittenWithoutReportListener() throws Exception
+    {
+        Git git = RepoUtil.createRepositoryWithMaster(newDir());
+        JGitFlow flow = new JGitFlowInitCommand().setDirectory(git.getRepository().getWorkTree()).call();
+        JGitFlowEventDispatcher events = flow.events();
+
+        events.setReportListenerEnabled(false);
+        try
+        {
+            flow.releaseStart("1.0").call();
+        }
+        finally
+        {
+            events.setReportListenerEnabled(true);
+        }
+
+        String log = FileUtils.readFileToString(new File(git.getRepository().getDirectory(), "jgitflow.log"), "UTF-8");
+        assertTrue(log.contains("## Command call(): "));
+        assertTrue(log.contains("release-start"));
+    }
+
+    private static class RecordingListener extends JGitFlowEventAdapter
+    {
+        private final List<String> commands = newArrayList();
+        private final List<String> refs = newArrayList();
+        private final List<String> merges = newArrayList();
+        private final List<String> checkouts = newArrayList();
+
+        @Override
+        public void commandStarted(String commandName, String branchName)
+        {
+            commands.add("start " + commandName);
+        }
+
+        @Override
+        public void commandEnded(String commandName, String branchName, long durationNanos)
+        {
+            commands.add("end " + commandName);
+        }
+
+        @Override
+        public void refUpdated(String commandName, String refName, ObjectId oldId, ObjectId newId)
+        {
+            refs.add(((null == oldId) ? "create " : (null == newId) ? "delete " : "update ") + refName);
+        }
+
+        @Override
+        public void mergeResult(String commandName, String branchToMerge, String mergeTarget, MergeResult result)
+        {
+            merges.add(branchToMerge + " -> " + mergeTarget);
+        }
+
+        @Override
+        public void checkoutPerformed(String commandName, String branchName)
+        {
+            checkouts.add(branchName);
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package ut.com.atlassian.jgitflow.core;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.util.zip.GZIPInputStream;
+
+import com.atlassian.jgitflow.core.report.JGitFlowLogWriter;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+public class JGitFlowLogWriterTest extends BaseGitFlowTest
+{
+    @Test
+    public void writesInOrder() throws Exception
+    {
+        File logFile = new File(newDir(), "jgitflow.log");
+        JGitFlowLogWriter writer = new JGitFlowLogWriter(2);
+
+        for (int i = 0; i < 10; i++)
+        {
+            writer.write(logFile, i + ",", false);
+        }
+        writer.sync();
+
+        assertEquals("0,1,2,3,4,5,6,7,8,9,", FileUtils.readFileToString(logFile, "UTF-8"));
+    }
+
+    @Test
+    public void truncateEmptiesFile() throws Exception
+    {
+        File logFile = new File(newDir(), "jgitflow.log");
+        FileUtils.writeStringToFile(logFile, "old log");
+        JGitFlowLogWriter writer = new JGitFlowLogWriter();
+
+        writer.write(logFile, "before,", false);
+        writer.write(logFile, "new log", true);
+        writer.sync();
+
+        assertEquals("new log", FileUtils.readFileToString(logFile, "UTF-8"));
+    }
+
+    @Test
+    public void rotatesAndCompresses() throws Exception
+    {
+        File logFile = new File(newDir(), "jgitflow.log");
+        JGitFlowLogWriter writer = new JGitFlowLogWriter();
+        writer.setRotation(8, 2);
+
+        for (int i = 0; i < 4; i++)
+        {
+            writer.write(logFile, "segment " + i, false);
+            writer.sync();
+        }
+        writer.write(logFile, "current", false);
+        writer.sync();
+
+        File parent = logFile.getParentFile();
+        assertEquals("current", FileUtils.readFileToString(logFile, "UTF-8"));
+        assertEquals("segment 3", gunzip(new File(parent, "jgitflow.log.1.gz")));
+        assertEquals("segment 2", gunzip(new File(parent, "jgitflow.log.2.gz")));
+        assertFalse(new File(parent, "jgitflow.log.3.gz").exists());
+    }
+
+    private String gunzip(File segment) throws Exception
+    {
+        GZIPInputStream in = new GZIPInputStream(new FileInputStream(segment));
+        try
+        {
+            return IOUtils.toString(in, "UTF-8");
+        }
+        finally
+        {
+            in.close();
+        }
+    }
+}
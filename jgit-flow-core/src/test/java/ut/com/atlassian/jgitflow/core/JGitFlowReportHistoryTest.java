@@ -0,0 +1,51 @@
+package ut.com.atlassian.jgitflow.core;
+
+import java.util.List;
+
+import com.atlassian.jgitflow.core.report.JGitFlowReportEntry;
+import com.atlassian.jgitflow.core.report.JGitFlowReportHistory;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class JGitFlowReportHistoryTest
+{
+    @Test
+    public void keepsNewestEntries() throws Exception
+    {
+        JGitFlowReportHistory history = new JGitFlowReportHistory(3, 1000);
+
+        for (int i = 0; i < 5; i++)
+        {
+            history.add(new JGitFlowReportEntry("test", 4, "entry " + i, true, false));
+        }
+
+        List<JGitFlowReportEntry> recent = history.getRecent(10);
+        assertEquals(3, recent.size());
+        assertEquals("entry 2", recent.get(0).getText());
+        assertEquals("    entry 4", recent.get(2).getEntry());
+
+        assertEquals(1, history.getRecent(1).size());
+        assertEquals("entry 4", history.getRecent(1).get(0).getText());
+    }
+
+    @Test
+    public void limitsTotalLength() throws Exception
+    {
+        JGitFlowReportHistory history = new JGitFlowReportHistory(100, 20);
+
+        history.add(new JGitFlowReportEntry("test", "0123456789", true, false));
+        history.add(new JGitFlowReportEntry("test", "0123456789", true, false));
+        history.add(new JGitFlowReportEntry("test", "abc", true, false));
+        assertEquals(2, history.size());
+
+        //the newest entry is kept even when it's over the limit on its own
+        history.add(new JGitFlowReportEntry("test", "012345678901234567890123456789", true, false));
+        assertEquals(1, history.size());
+
+        history.setLimits(1, 1000);
+        history.add(new JGitFlowReportEntry("test", "last", true, false));
+        assertEquals("last", history.getRecent(5).get(0).getText());
+    }
+}
@@ -0,0 +1,217 @@
+package ut.com.atlassian.jgitflow.core;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.atlassian.jgitflow.core.GitFlowConfiguration;
+import com.atlassian.jgitflow.core.JGitFlow;
+import com.atlassian.jgitflow.core.JGitFlowReporter;
+import com.atlassian.jgitflow.core.command.JGitFlowCommand;
+import com.atlassian.jgitflow.core.extension.ExtensionCommand;
+import com.atlassian.jgitflow.core.extension.ExtensionFailStrategy;
+import com.atlassian.jgitflow.core.extension.impl.EmptyFeatureFinishExtension;
+import com.atlassian.jgitflow.core.report.JGitFlowReportLevel;
+
+import com.google.common.collect.Lists;
+
+import org.apache.commons.io.FileUtils;
+import org.eclipse.jgit.api.Git;
+import org.junit.After;
+import org.junit.Test;
+
+import ut.com.atlassian.jgitflow.core.testutils.RepoUtil;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class JGitFlowReporterTest extends BaseGitFlowTest
+{
+    @After
+    public void clearCurrent()
+    {
+        JGitFlowReporter.clearCurrent();
+    }
+
+    @Test
+    public void debugEntriesSkippedAtInfoLevel() throws Exception
+    {
+        Git git = RepoUtil.createRepositoryWithMasterAndDevelop(newDir());
+        JGitFlow.forceInit(git.getRepository().getWorkTree());
+
+        JGitFlowReporter reporter = JGitFlowReporter.get(git);
+        reporter.setLevel(JGitFlowReportLevel.INFO);
+        assertFalse(reporter.isDebugEnabled());
+
+        reporter.debugText("test", "hidden {} entry", "debug");
+        reporter.infoText("test", "shown info entry");
+        reporter.setLevel(JGitFlowReportLevel.DEBUG);
+        reporter.debugText("test", "shown {} {} entry", "debug", 2);
+        reporter.sync();
+
+        String log = FileUtils.readFileToString(new File(git.getRepository().getDirectory(), "jgitflow.log"), "UTF-8");
+        assertFalse(log.contains("hidden debug entry"));
+        assertTrue(log.contains("shown info entry"));
+        assertTrue(log.contains("shown debug 2 entry"));
+    }
+
+    @Test
+    public void levelsAreOrdered() throws Exception
+    {
+        assertTrue(JGitFlowReportLevel.ERROR.isEnabledAt(JGitFlowReportLevel.INFO));
+        assertFalse(JGitFlowReportLevel.DEBUG.isEnabledAt(JGitFlowReportLevel.INFO));
+        assertFalse(JGitFlowReportLevel.ERROR.isEnabledAt(JGitFlowReportLevel.OFF));
+    }
+
+    @Test
+    public void eachRepositoryHasItsOwnLog() throws Exception
+    {
+        Git first = RepoUtil.createRepositoryWithMasterAndDevelop(newDir());
+        Git second = RepoUtil.createRepositoryWithMasterAndDevelop(newDir());
+        JGitFlow.forceInit(first.getRepository().getWorkTree());
+        JGitFlow.forceInit(second.getRepository().getWorkTree());
+
+        JGitFlowReporter firstReporter = JGitFlowReporter.get(first);
+        JGitFlowReporter secondReporter = JGitFlowReporter.get(second);
+        assertNotSame(firstReporter, secondReporter);
+        //init doesn't leave its reporter bound to the thread
+        assertNotSame(secondReporter, JGitFlowReporter.get());
+
+        firstReporter.infoText("test", "first entry");
+        secondReporter.infoText("test", "second entry");
+        firstReporter.sync();
+        secondReporter.sync();
+
+        String firstLog = FileUtils.readFileToString(new File(first.getRepository().getDirectory(), "jgitflow.log"), "UTF-8");
+        String secondLog = FileUtils.readFileToString(new File(second.getRepository().getDirectory(), "jgitflow.log"), "UTF-8");
+        assertTrue(firstLog.contains("first entry"));
+        assertFalse(firstLog.contains("second entry"));
+        assertTrue(secondLog.contains("second entry"));
+        assertFalse(secondLog.contains("first entry"));
+    }
+
+    @Test
+    public void settingsLastAsLongAsTheRepository() throws Exception
+    {
+        Git git = RepoUtil.createRepositoryWithMasterAndDevelop(newDir());
+        JGitFlowReporter.forRepository(git.getRepository()).setLevel(JGitFlowReportLevel.ERROR);
+
+        for (int i = 0; i < 5; i++)
+        {
+            System.gc();
+            Thread.sleep(20);
+        }
+
+        assertEquals(JGitFlowReportLevel.ERROR, JGitFlowReporter.forRepository(git.getRepository()).getLevel());
+    }
+
+    @Test
+    public void commandsDontLeaveReporterBound() throws Exception
+    {
+        Git git = RepoUtil.createRepositoryWithMasterAndDevelop(newDir());
+        JGitFlow flow = JGitFlow.forceInit(git.getRepository().getWorkTree());
+
+        flow.featureStart("my-feature").call();
+
+        assertNotSame(flow.getReporter(), JGitFlowReporter.get());
+    }
+
+    @Test
+    public void afterExtensionsLogToTheRepository() throws Exception
+    {
+        Git git = RepoUtil.createRepositoryWithMasterAndDevelop(newDir());
+        JGitFlow flow = JGitFlow.forceInit(git.getRepository().getWorkTree());
+        flow.featureStart("my-feature").call();
+
+        final JGitFlowReporter[] reporterInAfter = new JGitFlowReporter[1];
+        flow.featureFinish("my-feature").setExtension(new EmptyFeatureFinishExtension()
+        {
+            @Override
+            public Iterable<ExtensionCommand> after()
+            {
+                return Lists.<ExtensionCommand>newArrayList(new ExtensionCommand()
+                {
+                    @Override
+                    public void execute(GitFlowConfiguration configuration, Git git, JGitFlowCommand gitFlowCommand)
+                    {
+                        reporterInAfter[0] = JGitFlowReporter.get();
+                    }
+
+                    @Override
+                    public ExtensionFailStrategy failStrategy()
+                    {
+                        return ExtensionFailStrategy.ERROR;
+                    }
+                });
+            }
+        }).call();
+
+        assertSame(flow.getReporter(), reporterInAfter[0]);
+        assertNotSame(flow.getReporter(), JGitFlowReporter.get());
+    }
+
+    @Test
+    public void entriesLoggedBeforeAFlowExistAreWritten() throws Exception
+    {
+        JGitFlowReporter.get().debugText("test", "logged before init");
+
+        Git git = RepoUtil.createRepositoryWithMasterAndDevelop(newDir());
+        JGitFlow flow = JGitFlow.forceInit(git.getRepository().getWorkTree());
+        flow.getReporter().sync();
+
+        String log = FileUtils.readFileToString(new File(git.getRepository().getDirectory(), "jgitflow.log"), "UTF-8");
+        assertTrue(log.contains("logged before init"));
+    }
+
+    @Test
+    public void concurrentEntriesAreAllWritten() throws Exception
+    {
+        final Git git = RepoUtil.createRepositoryWithMasterAndDevelop(newDir());
+        JGitFlow.forceInit(git.getRepository().getWorkTree());
+        final JGitFlowReporter reporter = JGitFlowReporter.get(git);
+
+        List<Thread> threads = new ArrayList<Thread>();
+        for (int t = 0; t < 4; t++)
+        {
+            final int id = t;
+            Thread thread = new Thread(new Runnable()
+            {
+                @Override
+                public void run()
+                {
+                    for (int i = 0; i < 250; i++)
+                    {
+                        reporter.debugMethod("test", "thread " + id);
+                        reporter.debugText("test", "entry {}-{}", id, i);
+                        reporter.endMethod();
+                    }
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+
+        for (Thread thread : threads)
+        {
+            thread.join();
+        }
+        reporter.sync();
+
+        String log = FileUtils.readFileToString(new File(git.getRepository().getDirectory(), "jgitflow.log"), "UTF-8");
+        int found = 0;
+        for (int t = 0; t < 4; t++)
+        {
+            for (int i = 0; i < 250; i++)
+            {
+                if (log.contains("entry " + t + "-" + i + " "))
+                {
+                    found++;
+                }
+            }
+        }
+        assertEquals(1000, found);
+    }
+}
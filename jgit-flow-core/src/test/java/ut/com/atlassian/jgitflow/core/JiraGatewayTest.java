@@ -0,0 +1,88 @@
+package ut.com.atlassian.jgitflow.core;
+
+import com.atlassian.jgitflow.core.JGitFlowConstants;
+import com.atlassian.jgitflow.core.jira.JiraCall;
+import com.atlassian.jgitflow.core.jira.JiraGateway;
+
+import net.rcarz.jiraclient.JiraClient;
+import net.rcarz.jiraclient.JiraException;
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.lib.StoredConfig;
+import org.junit.Test;
+
+import ut.com.atlassian.jgitflow.core.testutils.RepoUtil;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class JiraGatewayTest extends BaseGitFlowTest
+{
+    private static final JiraCall<Object> ISSUE_TYPES = new JiraCall<Object>()
+    {
+        @Override
+        public Object call(JiraClient jira) throws JiraException
+        {
+            return jira.getIssueTypes();
+        }
+    };
+
+    @Test
+    public void offWithoutUrl() throws Exception
+    {
+        Git git = RepoUtil.createRepositoryWithMasterAndDevelop(newDir());
+        JiraGateway jira = JiraGateway.forRepository(git.getRepository());
+
+        assertFalse(jira.isEnabled());
+
+        try
+        {
+            jira.call(ISSUE_TYPES);
+            fail("call should not reach jira");
+        }
+        catch (JiraException e)
+        {
+            //expected
+        }
+    }
+
+    @Test
+    public void readsSettingsFromConfig() throws Exception
+    {
+        Git git = RepoUtil.createRepositoryWithMasterAndDevelop(newDir());
+        StoredConfig config = git.getRepository().getConfig();
+        config.setString(JGitFlowConstants.SECTION, JGitFlowConstants.JIRA_SUB, JiraGateway.URL_KEY, "http://127.0.0.1:1/config");
+        config.save();
+
+        JiraGateway jira = JiraGateway.forRepository(git.getRepository());
+
+        assertTrue(jira.isEnabled());
+        assertEquals("http://127.0.0.1:1/config", jira.getUrl());
+    }
+
+    @Test
+    public void repeatedFailuresTurnJiraOff() throws Exception
+    {
+        //nothing listens on port 1, so every call fails to connect
+        JiraGateway jira = new JiraGateway("http://127.0.0.1:1/breaker", "", "", 1000, 1000, 2);
+        JiraGateway sameServer = new JiraGateway("http://127.0.0.1:1/breaker", "", "", 1000, 1000, 2);
+
+        for (int i = 0; i < 2; i++)
+        {
+            assertTrue(jira.isEnabled());
+            try
+            {
+                jira.call(ISSUE_TYPES);
+                fail("jira should be unreachable");
+            }
+            catch (JiraException e)
+            {
+                //expected
+            }
+        }
+
+        assertFalse(jira.isEnabled());
+        assertFalse(sameServer.isEnabled());
+    }
+}
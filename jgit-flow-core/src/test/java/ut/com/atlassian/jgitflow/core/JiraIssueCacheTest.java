@@ -0,0 +1,144 @@
+package ut.com.atlassian.jgitflow.core;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.Properties;
+
+import com.atlassian.jgitflow.core.JGitFlowConstants;
+import com.atlassian.jgitflow.core.jira.JiraCall;
+import com.atlassian.jgitflow.core.jira.JiraGateway;
+import com.atlassian.jgitflow.core.jira.JiraIssue;
+import com.atlassian.jgitflow.core.jira.JiraIssueCache;
+
+import net.rcarz.jiraclient.JiraClient;
+import net.rcarz.jiraclient.JiraException;
+import org.eclipse.jgit.api.Git;
+import org.junit.Test;
+
+import ut.com.atlassian.jgitflow.core.testutils.RepoUtil;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.fail;
+
+public class JiraIssueCacheTest extends BaseGitFlowTest
+{
+    @Test
+    public void issueKeyComesFromBranchName() throws Exception
+    {
+        assertEquals("PROJ-12", JiraIssueCache.issueKeyOf("feature/PROJ-12"));
+        assertEquals("PROJ-12", JiraIssueCache.issueKeyOf("PROJ-12"));
+    }
+
+    @Test
+    public void freshSnapshotIsUsedWithoutJira() throws Exception
+    {
+        Git git = RepoUtil.createRepositoryWithMasterAndDevelop(newDir());
+        writeSnapshot(git, "PROJ-1", System.currentTimeMillis());
+
+        JiraIssueCache cache = JiraIssueCache.forRepository(git.getRepository(), off("http://127.0.0.1:1/fresh"));
+        JiraIssue issue = cache.getForBranch("feature/PROJ-1");
+
+        assertEquals("PROJ-1", issue.getKey());
+        assertEquals("Story", issue.getIssueType());
+        assertEquals("In Progress", issue.getStatus());
+        assertEquals("", issue.getResolution());
+        assertEquals(3600, issue.getTimeSpent());
+        assertEquals(Arrays.asList("1.0", "1.1"), issue.getFixVersions());
+    }
+
+    @Test
+    public void staleSnapshotGoesToJira() throws Exception
+    {
+        Git git = RepoUtil.createRepositoryWithMasterAndDevelop(newDir());
+        writeSnapshot(git, "PROJ-2", System.currentTimeMillis() - 1000L * (JiraIssueCache.DEFAULT_TTL_SECONDS + 1));
+
+        JiraIssueCache cache = JiraIssueCache.forRepository(git.getRepository(), off("http://127.0.0.1:1/stale"));
+        try
+        {
+            cache.get("PROJ-2");
+            fail("expected a trip to jira");
+        }
+        catch (JiraException e)
+        {
+            //expected, jira is off
+        }
+    }
+
+    @Test
+    public void invalidateDropsSnapshot() throws Exception
+    {
+        Git git = RepoUtil.createRepositoryWithMasterAndDevelop(newDir());
+        File file = writeSnapshot(git, "PROJ-3", System.currentTimeMillis());
+
+        JiraIssueCache cache = JiraIssueCache.forRepository(git.getRepository(), off("http://127.0.0.1:1/invalidate"));
+        cache.get("PROJ-3");
+        cache.invalidate("PROJ-3");
+
+        assertFalse(file.exists());
+        try
+        {
+            cache.get("PROJ-3");
+            fail("expected a trip to jira");
+        }
+        catch (JiraException e)
+        {
+            //expected, jira is off
+        }
+    }
+
+    private static File writeSnapshot(Git git, String key, long fetched) throws Exception
+    {
+        Properties props = new Properties();
+        props.setProperty("key", key);
+        props.setProperty("issueType", "Story");
+        props.setProperty("status", "In Progress");
+        props.setProperty("resolution", "");
+        props.setProperty("timeSpent", "3600");
+        props.setProperty("fixVersions", "1.0\n1.1");
+        props.setProperty("fetched", Long.toString(fetched));
+
+        File dir = new File(new File(git.getRepository().getDirectory(), JGitFlowConstants.JGITFLOW_DIR), JiraIssueCache.DIR_NAME);
+        dir.mkdirs();
+        File file = new File(dir, key + ".issue");
+        OutputStream out = new FileOutputStream(file);
+        try
+        {
+            props.store(out, null);
+        }
+        finally
+        {
+            out.close();
+        }
+
+        return file;
+    }
+
+    private static JiraGateway off(String url)
+    {
+        //nothing listens on port 1
+        JiraGateway jira = new JiraGateway(url, "", "", 500, 500, 1);
+        while (jira.isEnabled())
+        {
+            try
+            {
+                jira.call(new JiraCall<Object>()
+                {
+                    @Override
+                    public Object call(JiraClient client) throws JiraException
+                    {
+                        return client.getIssueTypes();
+                    }
+                });
+            }
+            catch (JiraException e)
+            {
+                //expected
+            }
+        }
+
+        return jira;
+    }
+}
@@ -0,0 +1,137 @@
+package ut.com.atlassian.jgitflow.core;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.Properties;
+
+import com.atlassian.jgitflow.core.JGitFlowConstants;
+import com.atlassian.jgitflow.core.jira.JiraGateway;
+import com.atlassian.jgitflow.core.jira.JiraMetadataCache;
+
+import org.eclipse.jgit.api.Git;
+import org.junit.Test;
+
+import ut.com.atlassian.jgitflow.core.testutils.RepoUtil;
+
+import static org.junit.Assert.*;
+
+public class JiraMetadataCacheTest extends BaseGitFlowTest
+{
+    private static final String URL = "http://127.0.0.1:1/metadata";
+
+    @Test
+    public void projectComesFromIssueKey() throws Exception
+    {
+        assertEquals("PROJ", JiraMetadataCache.projectOf("PROJ-12"));
+        assertEquals("MY-PROJ", JiraMetadataCache.projectOf("MY-PROJ-12"));
+    }
+
+    @Test
+    public void cachedTransitionIdsAreReused() throws Exception
+    {
+        Git git = RepoUtil.createRepositoryWithMasterAndDevelop(newDir());
+        Properties props = metadata(URL);
+        props.setProperty("transitions.PROJ.Story.In Progress.QA", "31");
+        props.setProperty("transitions.PROJ.Story.In Progress.fetched", Long.toString(System.currentTimeMillis()));
+        write(git, props);
+
+        JiraMetadataCache cache = JiraMetadataCache.forRepository(git.getRepository(), gateway(URL));
+
+        assertEquals(Integer.valueOf(31), cache.getTransitionId("PROJ", "Story", "In Progress", "QA"));
+        assertNull(cache.getTransitionId("PROJ", "Story", "In Progress", "Done"));
+        assertNull(cache.getTransitionId("PROJ", "Story", "Open", "QA"));
+        assertNull(cache.getTransitionId("OTHER", "Story", "In Progress", "QA"));
+        //a bug can have its own workflow
+        assertNull(cache.getTransitionId("PROJ", "Bug", "In Progress", "QA"));
+    }
+
+    @Test
+    public void staleTransitionIdsAreIgnored() throws Exception
+    {
+        Git git = RepoUtil.createRepositoryWithMasterAndDevelop(newDir());
+        Properties props = metadata(URL);
+        props.setProperty("transitions.PROJ.Story.Open.QA", "31");
+        props.setProperty("transitions.PROJ.Story.Open.fetched", Long.toString(System.currentTimeMillis() - 1000L * (JiraMetadataCache.DEFAULT_TTL_SECONDS + 1)));
+        write(git, props);
+
+        JiraMetadataCache cache = JiraMetadataCache.forRepository(git.getRepository(), gateway(URL));
+
+        assertNull(cache.getTransitionId("PROJ", "Story", "Open", "QA"));
+    }
+
+    @Test
+    public void forgetDropsTransitionIds() throws Exception
+    {
+        Git git = RepoUtil.createRepositoryWithMasterAndDevelop(newDir());
+        Properties props = metadata(URL);
+        props.setProperty("transitions.PROJ.Story.Open.QA", "31");
+        props.setProperty("transitions.PROJ.Story.Open.fetched", Long.toString(System.currentTimeMillis()));
+        write(git, props);
+
+        JiraMetadataCache cache = JiraMetadataCache.forRepository(git.getRepository(), gateway(URL));
+        cache.forget("PROJ", "Story", "Open");
+
+        assertNull(cache.getTransitionId("PROJ", "Story", "Open", "QA"));
+    }
+
+    @Test
+    public void issueTypesFromProbeAreCached() throws Exception
+    {
+        Git git = RepoUtil.createRepositoryWithMasterAndDevelop(newDir());
+        Properties props = metadata(URL);
+        props.setProperty("issuetypes", "Bug\nStory");
+        props.setProperty("issuetypes.fetched", Long.toString(System.currentTimeMillis()));
+        write(git, props);
+
+        JiraMetadataCache cache = JiraMetadataCache.forRepository(git.getRepository(), gateway(URL));
+
+        assertTrue(cache.hasFreshIssueTypes());
+        assertEquals(Arrays.asList("Bug", "Story"), cache.getIssueTypes());
+    }
+
+    @Test
+    public void metadataOfAnotherServerIsIgnored() throws Exception
+    {
+        Git git = RepoUtil.createRepositoryWithMasterAndDevelop(newDir());
+        Properties props = metadata("http://127.0.0.1:1/other");
+        props.setProperty("issuetypes", "Bug");
+        props.setProperty("issuetypes.fetched", Long.toString(System.currentTimeMillis()));
+        write(git, props);
+
+        JiraMetadataCache cache = JiraMetadataCache.forRepository(git.getRepository(), gateway(URL));
+
+        assertFalse(cache.hasFreshIssueTypes());
+        assertTrue(cache.getIssueTypes().isEmpty());
+    }
+
+    private static JiraGateway gateway(String url)
+    {
+        //never called, everything comes from the cache
+        return new JiraGateway(url, "", "", 500, 500, JiraGateway.DEFAULT_MAX_FAILURES);
+    }
+
+    private static Properties metadata(String url)
+    {
+        Properties props = new Properties();
+        props.setProperty("url", url);
+
+        return props;
+    }
+
+    private static void write(Git git, Properties props) throws Exception
+    {
+        File dir = new File(git.getRepository().getDirectory(), JGitFlowConstants.JGITFLOW_DIR);
+        dir.mkdirs();
+        OutputStream out = new FileOutputStream(new File(dir, JiraMetadataCache.FILE_NAME));
+        try
+        {
+            props.store(out, null);
+        }
+        finally
+        {
+            out.close();
+        }
+    }
+}
@@ -0,0 +1,127 @@
+package ut.com.atlassian.jgitflow.core;
+
+import java.util.List;
+
+import com.atlassian.jgitflow.core.JGitFlow;
+import com.atlassian.jgitflow.core.JGitFlowConstants;
+import com.atlassian.jgitflow.core.JGitFlowInitCommand;
+import com.atlassian.jgitflow.core.jira.JiraCall;
+import com.atlassian.jgitflow.core.jira.JiraGateway;
+import com.atlassian.jgitflow.core.jira.JiraOutbox;
+import com.atlassian.jgitflow.core.jira.JiraTransition;
+
+import net.rcarz.jiraclient.JiraClient;
+import net.rcarz.jiraclient.JiraException;
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.lib.StoredConfig;
+import org.junit.Test;
+
+import ut.com.atlassian.jgitflow.core.testutils.RepoUtil;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class JiraOutboxTest extends BaseGitFlowTest
+{
+    @Test
+    public void transitionsWaitWhileJiraIsOff() throws Exception
+    {
+        Git git = RepoUtil.createRepositoryWithMasterAndDevelop(newDir());
+        JiraGateway jira = unreachable("http://127.0.0.1:1/off", 1);
+        switchOff(jira);
+
+        JiraOutbox outbox = JiraOutbox.forRepository(git.getRepository(), jira);
+        outbox.enqueue(new JiraTransition("PROJ-1", "QA").setComment("done").setResolution("Done").setRequireTimeSpent(true));
+
+        assertEquals(1, outbox.flush());
+
+        List<JiraOutbox.Entry> pending = outbox.getPending();
+        assertEquals(1, pending.size());
+
+        JiraTransition transition = pending.get(0).getTransition();
+        assertEquals("PROJ-1", transition.getIssueKey());
+        assertEquals("QA", transition.getTransitionName());
+        assertEquals("done", transition.getComment());
+        assertEquals("Done", transition.getResolution());
+        assertTrue(transition.isRequireTimeSpent());
+        assertEquals(0, pending.get(0).getAttempts());
+    }
+
+    @Test
+    public void failedSendsAreRetriedLater() throws Exception
+    {
+        Git git = RepoUtil.createRepositoryWithMasterAndDevelop(newDir());
+        JiraGateway jira = unreachable("http://127.0.0.1:1/retry", 100);
+        long start = System.currentTimeMillis();
+
+        JiraOutbox outbox = JiraOutbox.forRepository(git.getRepository(), jira);
+        outbox.enqueue(new JiraTransition("PROJ-2", "In Progress"));
+
+        assertEquals(1, outbox.flush());
+
+        JiraOutbox.Entry entry = outbox.getPending().get(0);
+        assertTrue(entry.getAttempts() >= 1);
+        assertTrue(entry.getNextAttempt() > start);
+        assertFalse(entry.getLastError().isEmpty());
+        assertTrue(outbox.getFailed().isEmpty());
+    }
+
+    @Test
+    public void featureStartQueuesTransition() throws Exception
+    {
+        Git git = RepoUtil.createRepositoryWithMasterAndDevelop(newDir());
+        StoredConfig config = git.getRepository().getConfig();
+        config.setString(JGitFlowConstants.SECTION, JGitFlowConstants.JIRA_SUB, JiraGateway.URL_KEY, "http://127.0.0.1:1/feature");
+        config.setInt(JGitFlowConstants.SECTION, JGitFlowConstants.JIRA_SUB, JiraGateway.MAX_FAILURES_KEY, 1);
+        config.save();
+        switchOff(JiraGateway.forRepository(git.getRepository()));
+
+        JGitFlow flow = new JGitFlowInitCommand().setDirectory(git.getRepository().getWorkTree()).call();
+        flow.featureStart("PROJ-3").call();
+
+        List<JiraOutbox.Entry> pending = flow.jiraOutbox().getPending();
+        assertEquals(1, pending.size());
+        assertEquals("PROJ-3", pending.get(0).getTransition().getIssueKey());
+        assertEquals("In Progress", pending.get(0).getTransition().getTransitionName());
+    }
+
+    @Test
+    public void nothingIsQueuedWithoutJira() throws Exception
+    {
+        Git git = RepoUtil.createRepositoryWithMasterAndDevelop(newDir());
+
+        JGitFlow flow = new JGitFlowInitCommand().setDirectory(git.getRepository().getWorkTree()).call();
+        flow.featureStart("PROJ-4").call();
+
+        assertTrue(flow.jiraOutbox().getPending().isEmpty());
+    }
+
+    private static JiraGateway unreachable(String url, int maxFailures)
+    {
+        //nothing listens on port 1
+        return new JiraGateway(url, "", "", 500, 500, maxFailures);
+    }
+
+    private static void switchOff(JiraGateway jira)
+    {
+        while (jira.isEnabled())
+        {
+            try
+            {
+                jira.call(new JiraCall<Object>()
+                {
+                    @Override
+                    public Object call(JiraClient client) throws JiraException
+                    {
+                        return client.getIssueTypes();
+                    }
+                });
+            }
+            catch (JiraException e)
+            {
+                //expected
+            }
+        }
+    }
+}
@@ -0,0 +1,166 @@
+package ut.com.atlassian.jgitflow.core;
+
+import java.io.File;
+
+import com.atlassian.jgitflow.core.GitFlowConfiguration;
+import com.atlassian.jgitflow.core.JGitFlowConstants;
+import com.atlassian.jgitflow.core.util.GitHelper;
+import com.atlassian.jgitflow.core.util.GitSession;
+import com.atlassian.jgitflow.core.util.ReachabilityIndex;
+
+import org.apache.commons.io.FileUtils;
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.api.ResetCommand;
+import org.eclipse.jgit.lib.AnyObjectId;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.junit.Test;
+
+import ut.com.atlassian.jgitflow.core.testutils.RepoUtil;
+
+import static org.junit.Assert.*;
+
+public class ReachabilityIndexTest extends BaseGitFlowTest
+{
+    @Test
+    public void indexIsBuiltLazily() throws Exception
+    {
+        Git git = createFlowRepository();
+        File indexFile = indexFile(git);
+
+        assertFalse(indexFile.exists());
+
+        git.checkout().setName("develop").call();
+        RevCommit developCommit = git.commit().setMessage("develop commit").call();
+
+        git.checkout().setCreateBranch(true).setName("feature/my-feature").call();
+        RevCommit featureCommit = git.commit().setMessage("feature commit").call();
+
+        Repository repo = git.getRepository();
+        ReachabilityIndex index = ReachabilityIndex.get(repo);
+        index.refresh(repo);
+
+        assertEquals(Boolean.TRUE, index.isReachable(developCommit, repo.resolve("develop")));
+        assertEquals(Boolean.FALSE, index.isReachable(featureCommit, repo.resolve("develop")));
+        assertEquals(Boolean.FALSE, index.isReachable(developCommit, repo.resolve("master")));
+        assertTrue(indexFile.exists());
+
+        //feature branches aren't indexed
+        assertNull(index.isReachable(developCommit, featureCommit));
+
+        //but generation numbers can still rule out an ancestor
+        RevCommit parent = developCommit.getParent(0);
+        assertTrue(index.getGeneration(developCommit) > index.getGeneration(parent));
+        assertEquals(Boolean.FALSE, index.isReachable(developCommit, parent));
+    }
+
+    @Test
+    public void indexFollowsBranchMoves() throws Exception
+    {
+        Git git = createFlowRepository();
+        Repository repo = git.getRepository();
+        ReachabilityIndex index = ReachabilityIndex.get(repo);
+
+        git.checkout().setName("develop").call();
+        RevCommit first = git.commit().setMessage("first").call();
+        index.refresh(repo);
+        assertEquals(Boolean.TRUE, index.isReachable(first, repo.resolve("develop")));
+
+        git.checkout().setCreateBranch(true).setName("feature/my-feature").call();
+        RevCommit featureCommit = git.commit().setMessage("feature commit").call();
+        index.refresh(repo);
+        assertEquals(Boolean.FALSE, index.isReachable(featureCommit, repo.resolve("develop")));
+
+        git.checkout().setName("develop").call();
+        git.merge().include(repo.getRef("feature/my-feature")).call();
+        index.refresh(repo);
+        assertEquals(Boolean.TRUE, index.isReachable(featureCommit, repo.resolve("develop")));
+
+        //rewinding develop drops the commits from the index
+        git.reset().setMode(ResetCommand.ResetType.HARD).setRef(first.getName()).call();
+        index.refresh(repo);
+        assertEquals(Boolean.FALSE, index.isReachable(featureCommit, repo.resolve("develop")));
+        assertEquals(Boolean.TRUE, index.isReachable(first, repo.resolve("develop")));
+        assertFalse(GitHelper.isMergedInto(git, featureCommit, "develop"));
+    }
+
+    @Test
+    public void deletedOrCorruptIndexIsRebuilt() throws Exception
+    {
+        Git git = createFlowRepository();
+        git.checkout().setName("develop").call();
+        RevCommit developCommit = git.commit().setMessage("develop commit").call();
+        git.commit().setMessage("another develop commit").call();
+
+        assertTrue(GitHelper.isMergedInto(git, developCommit, "develop"));
+
+        File indexFile = indexFile(git);
+        assertTrue(indexFile.exists());
+
+        //a fresh repository instance loads the index from disk
+        Repository reopened = Git.open(git.getRepository().getWorkTree()).getRepository();
+        assertEquals(Boolean.TRUE, isReachable(reopened, developCommit, reopened.resolve("develop")));
+
+        FileUtils.writeStringToFile(indexFile, "not an index");
+        reopened = Git.open(git.getRepository().getWorkTree()).getRepository();
+        assertEquals(Boolean.TRUE, isReachable(reopened, developCommit, reopened.resolve("develop")));
+        assertEquals(Boolean.FALSE, isReachable(reopened, developCommit, reopened.resolve("master")));
+
+        assertTrue(indexFile.delete());
+        reopened = Git.open(git.getRepository().getWorkTree()).getRepository();
+        assertEquals(Boolean.TRUE, isReachable(reopened, developCommit, reopened.resolve("develop")));
+        assertTrue(indexFile.exists());
+    }
+
+    @Test
+    public void sessionRefreshesOnlyWhenRefsMayHaveMoved() throws Exception
+    {
+        Git git = createFlowRepository();
+        Repository repo = git.getRepository();
+        git.checkout().setName("develop").call();
+        RevCommit first = git.commit().setMessage("first").call();
+
+        GitSession session = new GitSession(git);
+        try
+        {
+            assertEquals(Boolean.TRUE, session.getReachabilityIndex().isReachable(first, repo.resolve("develop")));
+            long saved = indexFile(git).lastModified();
+
+            //develop moves behind the session's back, queries keep using what was loaded
+            RevCommit second = git.commit().setMessage("second").call();
+            git.commit().setMessage("third").call();
+            assertNull(session.getReachabilityIndex().isReachable(second, repo.resolve("develop")));
+            assertEquals(saved, indexFile(git).lastModified());
+
+            session.getRefCache().invalidate();
+            assertEquals(Boolean.TRUE, session.getReachabilityIndex().isReachable(second, repo.resolve("develop")));
+        }
+        finally
+        {
+            session.release();
+        }
+    }
+
+    private Boolean isReachable(Repository repo, AnyObjectId commit, AnyObjectId tip) throws Exception
+    {
+        ReachabilityIndex index = ReachabilityIndex.get(repo);
+        index.refresh(repo);
+
+        return index.isReachable(commit, tip);
+    }
+
+    private Git createFlowRepository() throws Exception
+    {
+        Git git = RepoUtil.createRepositoryWithMasterAndDevelop(newDir());
+        GitFlowConfiguration gfConfig = new GitFlowConfiguration(git);
+        gfConfig.setMaster("master");
+        gfConfig.setDevelop("develop");
+
+        return git;
+    }
+
+    private File indexFile(Git git)
+    {
+        return new File(new File(git.getRepository().getDirectory(), JGitFlowConstants.JGITFLOW_DIR), ReachabilityIndex.FILE_NAME);
+    }
+}
@@ -0,0 +1,86 @@
+package ut.com.atlassian.jgitflow.core;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.atlassian.jgitflow.core.util.RefCache;
+import com.atlassian.jgitflow.core.util.RefSnapshot;
+
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.Ref;
+import org.junit.Test;
+
+import ut.com.atlassian.jgitflow.core.testutils.RepoUtil;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class RefSnapshotTest extends BaseGitFlowTest
+{
+    @Test
+    public void localBranchesAndTags() throws Exception
+    {
+        Git git = RepoUtil.createRepositoryWithMasterAndDevelop(newDir());
+        git.tag().setName("1.0").setMessage("tagged 1.0").call();
+
+        RefSnapshot refs = RefSnapshot.read(git.getRepository());
+
+        assertTrue(refs.localBranchExists("master"));
+        assertTrue(refs.localBranchExists("develop"));
+        assertFalse(refs.localBranchExists("feature/none"));
+        assertFalse(refs.remoteBranchExists("develop"));
+        assertTrue(refs.tagExists("1.0"));
+        assertFalse(refs.tagExists("1.1"));
+        assertEquals(Constants.R_HEADS + "develop", refs.getLocalBranch("develop").getName());
+    }
+
+    @Test
+    public void remoteBranches() throws Exception
+    {
+        Git remoteGit = RepoUtil.createRepositoryWithMasterAndDevelop(newDir());
+        Git git = Git.cloneRepository().setDirectory(newDir()).setURI("file://" + remoteGit.getRepository().getWorkTree().getPath()).call();
+
+        RefSnapshot refs = RefSnapshot.read(git.getRepository());
+
+        assertTrue(refs.remoteBranchExists("develop"));
+        assertTrue(refs.remoteBranchExists("master"));
+        assertFalse(refs.localBranchExists("develop"));
+    }
+
+    @Test
+    public void branchesWithPrefix() throws Exception
+    {
+        Git git = RepoUtil.createRepositoryWithMaster(newDir());
+        git.branchCreate().setName("feature/b").call();
+        git.branchCreate().setName("feature/a").call();
+        git.branchCreate().setName("featureless").call();
+        git.branchCreate().setName("release/1.1").call();
+
+        List<String> names = new ArrayList<String>();
+        for (Ref ref : RefSnapshot.read(git.getRepository()).branchesWithPrefix("feature/"))
+        {
+            names.add(ref.getName());
+        }
+
+        assertEquals(2, names.size());
+        assertEquals(Constants.R_HEADS + "feature/a", names.get(0));
+        assertEquals(Constants.R_HEADS + "feature/b", names.get(1));
+    }
+
+    @Test
+    public void cacheKeepsSnapshotUntilInvalidated() throws Exception
+    {
+        Git git = RepoUtil.createRepositoryWithMaster(newDir());
+        RefCache cache = new RefCache(git.getRepository());
+
+        assertFalse(cache.get().localBranchExists("develop"));
+
+        git.branchCreate().setName("develop").call();
+        assertFalse(cache.get().localBranchExists("develop"));
+
+        cache.invalidate();
+        assertTrue(cache.get().localBranchExists("develop"));
+    }
+}
@@ -6,6 +6,7 @@ import java.util.List;
 import com.atlassian.jgitflow.core.JGitFlow;
 import com.atlassian.jgitflow.core.JGitFlowInitCommand;
 import com.atlassian.jgitflow.core.ReleaseMergeResult;
+import com.atlassian.jgitflow.core.command.ReleaseFinishCommand;
 import com.atlassian.jgitflow.core.exception.BranchOutOfDateException;
 import com.atlassian.jgitflow.core.exception.DirtyWorkingTreeException;
 import com.atlassian.jgitflow.core.util.GitHelper;
@@ -131,6 +132,61 @@ public class ReleaseFinishTest extends BaseGitFlowTest
         assertEquals(2, GitHelper.getLatestCommit(git, flow.getMasterBranchName()).getParentCount());
     }
 
+    @Test
+    public void finishReleaseInCore() throws Exception
+    {
+        Git git = RepoUtil.createRepositoryWithMasterAndDevelop(newDir());
+        JGitFlowInitCommand initCommand = new JGitFlowInitCommand();
+        JGitFlow flow = initCommand.setDirectory(git.getRepository().getWorkTree()).call();
+
+        flow.releaseStart("1.0").call();
+
+        //create a new commit
+        File junkFile = new File(git.getRepository().getWorkTree(), "junk.txt");
+        FileUtils.writeStringToFile(junkFile, "I am junk");
+        git.add().addFilepattern(junkFile.getName()).call();
+        RevCommit commit = git.commit().setMessage("committing junk file").call();
+
+        ReleaseMergeResult result = flow.releaseFinish("1.0").setInCoreMerge(true).call();
+
+        assertTrue(result.wasSuccessful());
+
+        //we should be on develop branch with the release in the working tree
+        assertEquals(flow.getDevelopBranchName(), git.getRepository().getBranch());
+        assertTrue(junkFile.exists());
+        assertTrue(git.status().call().isClean());
+
+        //both branches should have our commit in a merge commit
+        assertTrue(GitHelper.isMergedInto(git, commit, flow.getMasterBranchName()));
+        assertEquals(2, GitHelper.getLatestCommit(git, flow.getMasterBranchName()).getParentCount());
+        assertTrue(GitHelper.isMergedInto(git, commit, flow.getDevelopBranchName()));
+        assertEquals(2, GitHelper.getLatestCommit(git, flow.getDevelopBranchName()).getParentCount());
+
+        //the tag should point at master
+        Ref tag = git.getRepository().getRef(Constants.R_TAGS + flow.getVersionTagPrefix() + "1.0");
+        assertNotNull(tag);
+        assertEquals(GitHelper.getLatestCommit(git, flow.getMasterBranchName()).getId(), git.getRepository().peel(tag).getPeeledObjectId());
+    }
+
+    @Test
+    public void finishReleaseSkipsNeedlessCheckouts() throws Exception
+    {
+        Git git = RepoUtil.createRepositoryWithMasterAndDevelop(newDir());
+        JGitFlowInitCommand initCommand = new JGitFlowInitCommand();
+        JGitFlow flow = initCommand.setDirectory(git.getRepository().getWorkTree()).call();
+
+        flow.releaseStart("1.0").call();
+
+        ReleaseFinishCommand finishCommand = flow.releaseFinish("1.0");
+        ReleaseMergeResult result = finishCommand.call();
+
+        assertTrue(result.wasSuccessful());
+        assertEquals(flow.getDevelopBranchName(), git.getRepository().getBranch());
+
+        //the topic branch is already checked out, master is already up to date and develop is checked out once for the merge
+        assertEquals(4, finishCommand.getSkippedCheckoutCount());
+    }
+
     @Test
     public void finishReleaseWithNewCommitNoMerge() throws Exception
     {
@@ -339,6 +395,36 @@ public class ReleaseFinishTest extends BaseGitFlowTest
         assertFalse(GitHelper.localBranchExists(remoteGit, flow.getReleaseBranchPrefix() + "1.0"));
     }
 
+    @Test
+    public void finishReleaseWithPushSendsOnlyReleaseTag() throws Exception
+    {
+        Git remoteGit = RepoUtil.createRepositoryWithMasterAndDevelop(newDir());
+        Git git = Git.cloneRepository().setDirectory(newDir()).setURI("file://" + remoteGit.getRepository().getWorkTree().getPath()).call();
+
+        JGitFlowInitCommand initCommand = new JGitFlowInitCommand();
+        JGitFlow flow = initCommand.setDirectory(git.getRepository().getWorkTree()).call();
+
+        flow.releaseStart("1.0").call();
+        flow.git().push().setRemote("origin").call();
+
+        File junkFile = new File(flow.git().getRepository().getWorkTree(), "junk.txt");
+        FileUtils.writeStringToFile(junkFile, "I am junk");
+        flow.git().add().addFilepattern(junkFile.getName()).call();
+        flow.git().commit().setMessage("adding junk file").call();
+
+        //a local tag that isn't part of the release
+        flow.git().tag().setName("local-only").call();
+
+        ReleaseMergeResult result = flow.releaseFinish("1.0").setPush(true).call();
+
+        assertTrue(result.wasSuccessful());
+
+        assertNotNull(remoteGit.getRepository().getRef(Constants.R_TAGS + flow.getVersionTagPrefix() + "1.0"));
+        assertNull(remoteGit.getRepository().getRef(Constants.R_TAGS + "local-only"));
+        assertFalse(GitHelper.localBranchExists(remoteGit, flow.getReleaseBranchPrefix() + "1.0"));
+        assertFalse(GitHelper.remoteBranchExists(git, flow.getReleaseBranchPrefix() + "1.0"));
+    }
+
     @Test
     public void finishReleaseAfterHotfix() throws Exception
     {
@@ -0,0 +1,99 @@
+package ut.com.atlassian.jgitflow.core;
+
+import java.io.File;
+
+import com.atlassian.jgitflow.core.JGitFlowConstants;
+import com.atlassian.jgitflow.core.util.GitHelper;
+import com.atlassian.jgitflow.core.util.StatCache;
+
+import org.apache.commons.io.FileUtils;
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.api.ResetCommand;
+import org.eclipse.jgit.lib.StoredConfig;
+import org.junit.Test;
+
+import ut.com.atlassian.jgitflow.core.testutils.RepoUtil;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class StatCacheTest extends BaseGitFlowTest
+{
+    @Test
+    public void detectsChangesAfterCleanCheck() throws Exception
+    {
+        Git git = createRepositoryWithStatCache();
+        File workTree = git.getRepository().getWorkTree();
+
+        FileUtils.writeStringToFile(new File(workTree, "src/main.txt"), "main");
+        FileUtils.writeStringToFile(new File(workTree, ".gitignore"), "*.class");
+        git.add().addFilepattern(".").call();
+        git.commit().setMessage("adding files").call();
+        makeOld(workTree);
+
+        assertNull(GitHelper.findFirstWorkingTreeChange(git, false));
+        assertTrue(new File(new File(git.getRepository().getDirectory(), JGitFlowConstants.JGITFLOW_DIR), StatCache.FILE_NAME).isFile());
+
+        //ignored files don't count, even in a directory the cache knows about
+        FileUtils.writeStringToFile(new File(workTree, "src/Main.class"), "compiled");
+        assertNull(GitHelper.findFirstWorkingTreeChange(git, false));
+
+        FileUtils.writeStringToFile(new File(workTree, "src/other.txt"), "untracked");
+        assertNull(GitHelper.findFirstWorkingTreeChange(git, true));
+        assertEquals("src/other.txt", GitHelper.findFirstWorkingTreeChange(git, false));
+
+        new File(workTree, "src/other.txt").delete();
+        assertNull(GitHelper.findFirstWorkingTreeChange(git, false));
+
+        FileUtils.writeStringToFile(new File(workTree, "src/main.txt"), "changed main");
+        assertEquals("src/main.txt", GitHelper.findFirstWorkingTreeChange(git, false));
+    }
+
+    @Test
+    public void detectsStagedChangesWhenHeadMoves() throws Exception
+    {
+        Git git = createRepositoryWithStatCache();
+        File workTree = git.getRepository().getWorkTree();
+
+        FileUtils.writeStringToFile(new File(workTree, "junk.txt"), "junk");
+        git.add().addFilepattern("junk.txt").call();
+        git.commit().setMessage("adding junk").call();
+        makeOld(workTree);
+
+        assertNull(GitHelper.findFirstWorkingTreeChange(git, false));
+
+        //moving HEAD back leaves junk.txt staged
+        git.reset().setMode(ResetCommand.ResetType.SOFT).setRef("HEAD~1").call();
+        assertEquals("junk.txt", GitHelper.findFirstWorkingTreeChange(git, false));
+    }
+
+    private Git createRepositoryWithStatCache() throws Exception
+    {
+        Git git = RepoUtil.createRepositoryWithMasterAndDevelop(newDir());
+
+        StoredConfig config = git.getRepository().getConfig();
+        config.setBoolean(JGitFlowConstants.SECTION, null, JGitFlowConstants.STAT_CACHE_KEY, true);
+        config.save();
+
+        return git;
+    }
+
+    private void makeOld(File dir)
+    {
+        //files modified in the last few seconds are racy and never trusted by the cache
+        long old = System.currentTimeMillis() - 60000L;
+        for (File file : dir.listFiles())
+        {
+            if (!file.getName().equals(".git"))
+            {
+                if (file.isDirectory())
+                {
+                    makeOld(file);
+                }
+                file.setLastModified(old);
+            }
+        }
+        dir.setLastModified(old);
+    }
+}
@@ -0,0 +1,73 @@
+package ut.com.atlassian.jgitflow.core;
+
+import java.util.List;
+
+import com.atlassian.jgitflow.core.util.TargetedFetch;
+
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.eclipse.jgit.transport.RefSpec;
+import org.junit.Test;
+
+import ut.com.atlassian.jgitflow.core.testutils.RepoUtil;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class TargetedFetchTest extends BaseGitFlowTest
+{
+    @Test
+    public void fetchesOnlyRequestedRefs() throws Exception
+    {
+        Git remoteGit = RepoUtil.createRepositoryWithMasterAndDevelop(newDir());
+        Git git = Git.cloneRepository().setDirectory(newDir()).setURI("file://" + remoteGit.getRepository().getWorkTree().getPath()).call();
+
+        remoteGit.checkout().setName("develop").call();
+        RevCommit developCommit = remoteGit.commit().setMessage("develop commit").call();
+        remoteGit.branchCreate().setName("other").call();
+        remoteGit.tag().setName("1.0").setMessage("tagging 1.0").call();
+        remoteGit.tag().setName("1.1").setMessage("tagging 1.1").call();
+
+        List<RefSpec> fetched = new TargetedFetch(git, Constants.DEFAULT_REMOTE_NAME).addBranches("master", "develop").addTag("1.0").call();
+
+        //master is current, so only develop and the tag are fetched
+        assertEquals(2, fetched.size());
+        assertEquals(developCommit, git.getRepository().getRef("refs/remotes/origin/develop").getObjectId());
+        assertNull(git.getRepository().getRef("refs/remotes/origin/other"));
+        assertNotNull(git.getRepository().getRef(Constants.R_TAGS + "1.0"));
+        assertNull(git.getRepository().getRef(Constants.R_TAGS + "1.1"));
+    }
+
+    @Test
+    public void skipsFetchWhenTrackingRefsAreCurrent() throws Exception
+    {
+        Git remoteGit = RepoUtil.createRepositoryWithMasterAndDevelop(newDir());
+        Git git = Git.cloneRepository().setDirectory(newDir()).setURI("file://" + remoteGit.getRepository().getWorkTree().getPath()).call();
+
+        //branches missing on the remote are ignored
+        List<RefSpec> fetched = new TargetedFetch(git, Constants.DEFAULT_REMOTE_NAME).addBranches("master", "develop", "release/1.0").addTag("1.0").call();
+
+        assertTrue(fetched.isEmpty());
+    }
+
+    @Test
+    public void fetchesEveryBranchWithPrefix() throws Exception
+    {
+        Git remoteGit = RepoUtil.createRepositoryWithMasterAndDevelop(newDir());
+        Git git = Git.cloneRepository().setDirectory(newDir()).setURI("file://" + remoteGit.getRepository().getWorkTree().getPath()).call();
+
+        //started on the remote after the clone, the release start check has to see it
+        remoteGit.branchCreate().setName("release/1.0").call();
+        remoteGit.branchCreate().setName("hotfix/1.0.1").call();
+        remoteGit.branchCreate().setName("other").call();
+
+        new TargetedFetch(git, Constants.DEFAULT_REMOTE_NAME).addBranches("master", "develop").addBranchPrefixes("release/", "hotfix/").call();
+
+        assertNotNull(git.getRepository().getRef("refs/remotes/origin/release/1.0"));
+        assertNotNull(git.getRepository().getRef("refs/remotes/origin/hotfix/1.0.1"));
+        assertNull(git.getRepository().getRef("refs/remotes/origin/other"));
+    }
+}
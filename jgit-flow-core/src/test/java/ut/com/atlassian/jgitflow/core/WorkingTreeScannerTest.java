@@ -0,0 +1,67 @@
+package ut.com.atlassian.jgitflow.core;
+
+import java.io.File;
+
+import com.atlassian.jgitflow.core.util.WorkingTreeScanner;
+
+import org.apache.commons.io.FileUtils;
+import org.eclipse.jgit.api.Git;
+import org.junit.Test;
+
+import ut.com.atlassian.jgitflow.core.testutils.RepoUtil;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class WorkingTreeScannerTest extends BaseGitFlowTest
+{
+    @Test
+    public void cleanTree() throws Exception
+    {
+        Git git = RepoUtil.createRepositoryWithMasterAndDevelop(newDir());
+
+        assertTrue(new WorkingTreeScanner(git.getRepository()).isClean(false));
+    }
+
+    @Test
+    public void modifiedAndStagedFiles() throws Exception
+    {
+        Git git = RepoUtil.createRepositoryWithMasterAndDevelop(newDir());
+        File workTree = git.getRepository().getWorkTree();
+
+        File junkFile = new File(workTree, "junk.txt");
+        FileUtils.writeStringToFile(junkFile, "I am junk");
+        git.add().addFilepattern(junkFile.getName()).call();
+
+        WorkingTreeScanner scanner = new WorkingTreeScanner(git.getRepository());
+        assertEquals("junk.txt", scanner.findFirstChange(true));
+
+        git.commit().setMessage("committing junk file").call();
+        assertTrue(scanner.isClean(false));
+
+        FileUtils.writeStringToFile(junkFile, "I am changed junk");
+        assertEquals("junk.txt", scanner.findFirstChange(true));
+    }
+
+    @Test
+    public void untrackedAndIgnoredFiles() throws Exception
+    {
+        Git git = RepoUtil.createRepositoryWithMasterAndDevelop(newDir());
+        File workTree = git.getRepository().getWorkTree();
+
+        FileUtils.writeStringToFile(new File(workTree, ".gitignore"), "target/");
+        git.add().addFilepattern(".gitignore").call();
+        git.commit().setMessage("ignoring target").call();
+
+        FileUtils.writeStringToFile(new File(workTree, "target/classes/junk.txt"), "I am ignored");
+
+        WorkingTreeScanner scanner = new WorkingTreeScanner(git.getRepository());
+        assertTrue(scanner.isClean(false));
+
+        FileUtils.writeStringToFile(new File(workTree, "src/junk.txt"), "I am untracked");
+        assertTrue(scanner.isClean(true));
+        assertFalse(scanner.isClean(false));
+        assertEquals("src/junk.txt", scanner.findFirstChange(false));
+    }
+}
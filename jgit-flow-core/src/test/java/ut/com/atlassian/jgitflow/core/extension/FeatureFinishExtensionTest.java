@@ -161,4 +161,26 @@ public class FeatureFinishExtensionTest extends BaseGitFlowTest
         assertTrue("after was not called", extension.wasCalled(BaseExtensionForTests.AFTER));
 
     }
+
+    @Test
+    public void afterPushRunsWhenNothingIsOnTheRemote() throws Exception
+    {
+        Git remoteGit = RepoUtil.createRepositoryWithMaster(newDir());
+        Git git = Git.cloneRepository().setDirectory(newDir()).setURI("file://" + remoteGit.getRepository().getWorkTree().getPath()).call();
+
+        JGitFlow flow = new JGitFlowInitCommand().setDirectory(git.getRepository().getWorkTree()).call();
+        flow.featureStart(MY_FEATURE).call();
+
+        File junkFile = new File(flow.git().getRepository().getWorkTree(), "junk.txt");
+        FileUtils.writeStringToFile(junkFile, "I am junk");
+        flow.git().add().addFilepattern(junkFile.getName()).call();
+        flow.git().commit().setMessage("adding junk file").call();
+
+        FeatureFinishExtensionForTests extension = new FeatureFinishExtensionForTests();
+        flow.featureFinish(MY_FEATURE).setPush(true).setExtension(extension).call();
+
+        //neither develop nor the feature is on origin, so there was nothing to push
+        assertNull(remoteGit.getRepository().getRef(flow.getDevelopBranchName()));
+        assertTrue("afterPush was not called", extension.wasCalled(BaseExtensionForTests.AFTER_PUSH));
+    }
 }
@@ -1,10 +1,11 @@
 package com.atlassian.maven.jgitflow.api.util;
 
 import com.atlassian.jgitflow.core.JGitFlowInfo;
+import com.atlassian.jgitflow.core.exception.JGitFlowIOException;
+import com.atlassian.jgitflow.core.util.GitHelper;
 import com.atlassian.maven.jgitflow.api.exception.MavenJGitFlowExtensionException;
 
 import org.eclipse.jgit.api.Git;
-import org.eclipse.jgit.api.Status;
 import org.eclipse.jgit.api.errors.GitAPIException;
 
 /**
@@ -25,8 +26,7 @@ public class JGitFlowCommitHelper
         {
             Git git = flow.git();
 
-            Status status = git.status().call();
-            if (!status.isClean())
+            if (null != GitHelper.findFirstWorkingTreeChange(git, false))
             {
                 git.add().addFilepattern(".").call();
                 git.commit().setMessage(commitMessage).call();
@@ -36,5 +36,9 @@ public class JGitFlowCommitHelper
         {
             throw new MavenJGitFlowExtensionException("error committing changes: " + e.getMessage(), e);
         }
+        catch (JGitFlowIOException e)
+        {
+            throw new MavenJGitFlowExtensionException("error committing changes: " + e.getMessage(), e);
+        }
     }
 }
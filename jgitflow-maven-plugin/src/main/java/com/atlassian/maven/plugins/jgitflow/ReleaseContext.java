@@ -1,6 +1,7 @@
 package com.atlassian.maven.plugins.jgitflow;
 
 import com.atlassian.jgitflow.core.InitContext;
+import com.atlassian.jgitflow.core.report.JGitFlowLogWriter;
 import com.atlassian.maven.jgitflow.api.MavenHotfixFinishExtension;
 import com.atlassian.maven.jgitflow.api.MavenHotfixStartExtension;
 import com.atlassian.maven.jgitflow.api.MavenReleaseFinishExtension;
@@ -53,6 +54,10 @@ public class ReleaseContext
     private String username;
     private String password;
     private boolean alwaysUpdateOrigin;
+    private boolean targetedFetch;
+    private boolean fastAttach;
+    private long logMaxSize;
+    private int logMaxFiles;
     private boolean consistentProjectVersions;
     private MavenReleaseStartExtension releaseStartExtension;
     private MavenReleaseFinishExtension releaseFinishExtension;
@@ -99,6 +104,10 @@ public class ReleaseContext
         this.username = "";
         this.password = "";
         this.alwaysUpdateOrigin = true;
+        this.targetedFetch = true;
+        this.fastAttach = false;
+        this.logMaxSize = JGitFlowLogWriter.DEFAULT_MAX_LOG_SIZE;
+        this.logMaxFiles = JGitFlowLogWriter.DEFAULT_MAX_LOG_FILES;
         this.consistentProjectVersions = false;
         this.releaseStartExtension = null;
         this.releaseFinishExtension = null;
@@ -546,6 +555,50 @@ public class ReleaseContext
         return this;
     }
 
+    public boolean isTargetedFetch()
+    {
+        return targetedFetch;
+    }
+
+    public ReleaseContext setTargetedFetch(boolean targetedFetch)
+    {
+        this.targetedFetch = targetedFetch;
+        return this;
+    }
+
+    public boolean isFastAttach()
+    {
+        return fastAttach;
+    }
+
+    public ReleaseContext setFastAttach(boolean fastAttach)
+    {
+        this.fastAttach = fastAttach;
+        return this;
+    }
+
+    public long getLogMaxSize()
+    {
+        return logMaxSize;
+    }
+
+    public ReleaseContext setLogMaxSize(long logMaxSize)
+    {
+        this.logMaxSize = logMaxSize;
+        return this;
+    }
+
+    public int getLogMaxFiles()
+    {
+        return logMaxFiles;
+    }
+
+    public ReleaseContext setLogMaxFiles(int logMaxFiles)
+    {
+        this.logMaxFiles = logMaxFiles;
+        return this;
+    }
+
     public boolean isConsistentProjectVersions()
     {
         return consistentProjectVersions;
@@ -153,7 +153,8 @@ public class DefaultJGitFlowSetupHelper extends AbstractLogEnabled implements JG
 
             String shortName = getClass().getSimpleName();
 
-            JGitFlowReporter.get().debugText(shortName, "# Maven JGitFlow Plugin")
+            JGitFlowReporter reporter = jGitFlowProvider.gitFlow().getReporter();
+            reporter.debugText(shortName, "# Maven JGitFlow Plugin")
                 .debugText(shortName, JGitFlowReporter.P)
                 .debugText(shortName, "  ## Configuration")
                 .debugText(shortName, JGitFlowReporter.EOL)
@@ -186,11 +187,15 @@ public class DefaultJGitFlowSetupHelper extends AbstractLogEnabled implements JG
                 .debugText(shortName, "    use release profile: " + ctx.isUseReleaseProfile())
                 .debugText(shortName, JGitFlowReporter.HR);
 
-            JGitFlowReporter.get().flush();
+            reporter.flush();
             this.headerWritten = true;
         }
     }
 
+    /*
+     * The credentials have to be in place before the flow's init fetches, so there's no flow to log through yet.
+     * JGitFlowReporter.get() holds on to these until the repository's reporter writes them to its log.
+     */
     private boolean setupUserPasswordCredentialsProvider() throws JGitFlowException
     {
         ReleaseContext ctx = contextProvider.getContext();
@@ -6,6 +6,8 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
+import com.atlassian.jgitflow.core.exception.JGitFlowIOException;
+import com.atlassian.jgitflow.core.util.GitHelper;
 import com.atlassian.maven.plugins.jgitflow.VersionState;
 import com.atlassian.maven.plugins.jgitflow.exception.MavenJGitFlowException;
 import com.atlassian.maven.plugins.jgitflow.provider.ProjectCacheKey;
@@ -28,7 +30,6 @@ import org.codehaus.plexus.logging.AbstractLogEnabled;
 import org.codehaus.plexus.util.StringUtils;
 import org.eclipse.jgit.api.AddCommand;
 import org.eclipse.jgit.api.Git;
-import org.eclipse.jgit.api.Status;
 import org.eclipse.jgit.api.errors.GitAPIException;
 import org.eclipse.jgit.lib.Repository;
 
@@ -57,8 +58,7 @@ public class DefaultProjectHelper extends AbstractLogEnabled implements ProjectH
     {
         try
         {
-            Status status = git.status().call();
-            if (!status.isClean())
+            if (null != GitHelper.findFirstWorkingTreeChange(git, false))
             {
                 git.add().addFilepattern(".").call();
                 git.commit().setMessage(message).call();
@@ -68,6 +68,10 @@ public class DefaultProjectHelper extends AbstractLogEnabled implements ProjectH
         {
             throw new MavenJGitFlowException("error committing changes: " + e.getMessage(), e);
         }
+        catch (JGitFlowIOException e)
+        {
+            throw new MavenJGitFlowException("error committing changes: " + e.getMessage(), e);
+        }
 
     }
 
@@ -78,7 +82,7 @@ public class DefaultProjectHelper extends AbstractLogEnabled implements ProjectH
 
         try
         {
-            Status status = git.status().call();
+            boolean clean = (null == GitHelper.findFirstWorkingTreeChange(git, false));
             Repository repository = git.getRepository();
 
             if (getLogger().isDebugEnabled())
@@ -107,7 +111,7 @@ public class DefaultProjectHelper extends AbstractLogEnabled implements ProjectH
                 }
             }
 
-            if (!status.isClean())
+            if (!clean)
             {
                 AddCommand add = git.add();
 
@@ -141,6 +145,10 @@ public class DefaultProjectHelper extends AbstractLogEnabled implements ProjectH
         {
             throw new MavenJGitFlowException("error committing pom changes: " + e.getMessage(), e);
         }
+        catch (JGitFlowIOException e)
+        {
+            throw new MavenJGitFlowException("error committing pom changes: " + e.getMessage(), e);
+        }
     }
 
     private String relativePath(File canonicalBasedir, File file) throws MavenJGitFlowException
@@ -6,6 +6,7 @@ import com.atlassian.jgitflow.core.BranchType;
 import com.atlassian.jgitflow.core.JGitFlow;
 import com.atlassian.jgitflow.core.JGitFlowReporter;
 import com.atlassian.jgitflow.core.exception.JGitFlowException;
+import com.atlassian.jgitflow.core.jira.JiraOutbox;
 import com.atlassian.maven.plugins.jgitflow.ReleaseContext;
 import com.atlassian.maven.plugins.jgitflow.exception.MavenJGitFlowException;
 import com.atlassian.maven.plugins.jgitflow.exception.ReactorReloadException;
@@ -37,6 +38,9 @@ import org.eclipse.jgit.api.errors.GitAPIException;
 @Component(role = FlowReleaseManager.class, hint = "feature")
 public class DefaultFlowFeatureManager extends AbstractFlowReleaseManager
 {
+    //how long feature start and finish wait for their jira transitions before maven exits
+    private static final long JIRA_FLUSH_MILLIS = 15000L;
+
     @Requirement
     private MavenExecutionHelper mavenExecutionHelper;
 
@@ -68,11 +72,14 @@ public class DefaultFlowFeatureManager extends AbstractFlowReleaseManager
             flow.featureStart(featureName)
                 .setAllowUntracked(ctx.isAllowUntracked())
                 .setPush(ctx.isPushFeatures())
+                .setTargetedFetch(ctx.isTargetedFetch())
                 .setStartCommit(ctx.getStartCommit())
                 .setScmMessagePrefix(ctx.getScmCommentPrefix())
                 .setScmMessageSuffix(ctx.getScmCommentSuffix())
                 .setExtension(startExtension)
                 .call();
+
+            flushJiraOutbox(flow);
         }
         catch (JGitFlowException e)
         {
@@ -82,7 +89,7 @@ public class DefaultFlowFeatureManager extends AbstractFlowReleaseManager
         {
             if (null != flow)
             {
-                JGitFlowReporter.get().flush();
+                flow.getReporter().flush();
             }
         }
 
@@ -100,7 +107,7 @@ public class DefaultFlowFeatureManager extends AbstractFlowReleaseManager
             String featureLabel = getFinishLabelAndRunPreflight(ctx, reactorProjects, session);
             flow = jGitFlowProvider.gitFlow();
 
-            JGitFlowReporter reporter = JGitFlowReporter.get();
+            JGitFlowReporter reporter = flow.getReporter();
 
             getLogger().info("running jgitflow feature finish...");
 
@@ -110,6 +117,7 @@ public class DefaultFlowFeatureManager extends AbstractFlowReleaseManager
                                           .setRebase(ctx.isFeatureRebase())
                                           .setAllowUntracked(ctx.isAllowUntracked())
                                           .setPush(ctx.isPushFeatures())
+                                          .setTargetedFetch(ctx.isTargetedFetch())
                                           .setNoMerge(ctx.isNoFeatureMerge())
                                           .setSuppressFastForward(ctx.isSuppressFastForward())
                                           .setScmMessagePrefix(ctx.getScmCommentPrefix())
@@ -126,6 +134,7 @@ public class DefaultFlowFeatureManager extends AbstractFlowReleaseManager
                 throw new MavenJGitFlowException("Error while merging feature!");
             }
 
+            flushJiraOutbox(flow);
         }
         catch (JGitFlowException e)
         {
@@ -139,8 +148,25 @@ public class DefaultFlowFeatureManager extends AbstractFlowReleaseManager
         {
             if (null != flow)
             {
-                JGitFlowReporter.get().flush();
+                flow.getReporter().flush();
+            }
+        }
+    }
+
+    /*
+     * The outbox worker is a daemon thread and maven exits right after the mojo, so give the queued transitions a
+     * chance to go out now and say which ones didn't
+     */
+    private void flushJiraOutbox(JGitFlow flow)
+    {
+        JiraOutbox outbox = flow.jiraOutbox();
+        if (outbox.flush(JIRA_FLUSH_MILLIS) > 0)
+        {
+            for (JiraOutbox.Entry entry : outbox.getPending())
+            {
+                getLogger().warn("jira transition still queued: " + entry);
             }
+            getLogger().warn("queued jira transitions are sent by the next command, or run jgitflow:jira-flush");
         }
     }
 
@@ -154,7 +180,7 @@ public class DefaultFlowFeatureManager extends AbstractFlowReleaseManager
             String featureLabel = getFinishLabelAndRunPreflight(ctx, reactorProjects, session);
             flow = jGitFlowProvider.gitFlow();
 
-            JGitFlowReporter reporter = JGitFlowReporter.get();
+            JGitFlowReporter reporter = flow.getReporter();
 
             SessionAndProjects sessionAndProjects = checkoutAndGetProjects.run(flow.getFeatureBranchPrefix() + featureLabel);
 
@@ -222,7 +248,7 @@ public class DefaultFlowFeatureManager extends AbstractFlowReleaseManager
         {
             if (null != flow)
             {
-                JGitFlowReporter.get().flush();
+                flow.getReporter().flush();
             }
         }
     }
@@ -50,6 +50,7 @@ public class DefaultFlowHotfixManager extends AbstractProductionBranchManager
             flow.hotfixStart(hotfixLabel)
                 .setAllowUntracked(ctx.isAllowUntracked())
                 .setPush(ctx.isPushHotfixes())
+                .setTargetedFetch(ctx.isTargetedFetch())
                 .setStartCommit(ctx.getStartCommit())
                 .setScmMessagePrefix(ctx.getScmCommentPrefix())
                 .setScmMessageSuffix(ctx.getScmCommentSuffix())
@@ -64,7 +65,7 @@ public class DefaultFlowHotfixManager extends AbstractProductionBranchManager
         {
             if (null != flow)
             {
-                JGitFlowReporter.get().flush();
+                flow.getReporter().flush();
             }
         }
     }
@@ -84,6 +85,7 @@ public class DefaultFlowHotfixManager extends AbstractProductionBranchManager
             getLogger().info("running jgitflow hotfix finish...");
             ReleaseMergeResult mergeResult = flow.hotfixFinish(hotfixLabel)
                                                  .setPush(ctx.isPushHotfixes())
+                                                 .setTargetedFetch(ctx.isTargetedFetch())
                                                  .setKeepBranch(ctx.isKeepBranch())
                                                  .setNoTag(ctx.isNoTag())
                                                  .setAllowUntracked(ctx.isAllowUntracked())
@@ -120,7 +122,7 @@ public class DefaultFlowHotfixManager extends AbstractProductionBranchManager
         {
             if (null != flow)
             {
-                JGitFlowReporter.get().flush();
+                flow.getReporter().flush();
             }
         }
     }
@@ -51,6 +51,7 @@ public class DefaultFlowReleaseManager extends AbstractProductionBranchManager
             flow.releaseStart(releaseLabel)
                 .setAllowUntracked(ctx.isAllowUntracked())
                 .setPush(ctx.isPushReleases())
+                .setTargetedFetch(ctx.isTargetedFetch())
                 .setStartCommit(ctx.getStartCommit())
                 .setScmMessagePrefix(ctx.getScmCommentPrefix())
                 .setScmMessageSuffix(ctx.getScmCommentSuffix())
@@ -65,7 +66,7 @@ public class DefaultFlowReleaseManager extends AbstractProductionBranchManager
         {
             if (null != flow)
             {
-                JGitFlowReporter.get().flush();
+                flow.getReporter().flush();
             }
         }
     }
@@ -82,12 +83,13 @@ public class DefaultFlowReleaseManager extends AbstractProductionBranchManager
             String releaseLabel = getFinishLabelAndRunPreflight(ctx, reactorProjects, session);
 
             flow = jGitFlowProvider.gitFlow();
-            JGitFlowReporter reporter = JGitFlowReporter.get();
+            JGitFlowReporter reporter = flow.getReporter();
             MavenProject originalRootProject = ReleaseUtil.getRootProject(reactorProjects);
 
             getLogger().info("running jgitflow release finish...");
             ReleaseMergeResult mergeResult = flow.releaseFinish(releaseLabel)
                                                  .setPush(ctx.isPushReleases())
+                                                 .setTargetedFetch(ctx.isTargetedFetch())
                                                  .setKeepBranch(ctx.isKeepBranch())
                                                  .setNoTag(ctx.isNoTag())
                                                  .setSquash(ctx.isSquash())
@@ -126,7 +128,7 @@ public class DefaultFlowReleaseManager extends AbstractProductionBranchManager
         {
             if (null != flow)
             {
-                JGitFlowReporter.get().flush();
+                flow.getReporter().flush();
             }
         }
     }
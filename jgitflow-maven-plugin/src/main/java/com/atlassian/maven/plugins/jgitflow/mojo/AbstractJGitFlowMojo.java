@@ -146,6 +146,32 @@ public abstract class AbstractJGitFlowMojo extends AbstractMojo
     @Parameter(defaultValue = "false", property = "pullDevelop")
     protected boolean pullDevelop = false;
 
+    /**
+     * Whether fetches should only get master, develop, the release and hotfix branches and the branch and tag being
+     * worked on. Set to false to fetch every branch from origin.
+     */
+    @Parameter(defaultValue = "true", property = "targetedFetch")
+    protected boolean targetedFetch = true;
+
+    /**
+     * Whether to skip the fetch and setup done by init when the gitflow config and the master and develop branches are
+     * unchanged since the last init.
+     */
+    @Parameter(defaultValue = "false", property = "fastAttach")
+    protected boolean fastAttach = false;
+
+    /**
+     * The size in bytes .git/jgitflow.log may grow to before it's rotated and compressed. 0 turns rotation off.
+     */
+    @Parameter(defaultValue = "10485760", property = "logMaxSize")
+    protected long logMaxSize = 10485760L;
+
+    /**
+     * The number of compressed segments of .git/jgitflow.log to keep when it's rotated
+     */
+    @Parameter(defaultValue = "5", property = "logMaxFiles")
+    protected int logMaxFiles = 5;
+
     /**
      * This can be used to force the type of line ending used when rewriting poms.
      * If not set, blank or has an invalid value, the eol will be looked up from core.eol
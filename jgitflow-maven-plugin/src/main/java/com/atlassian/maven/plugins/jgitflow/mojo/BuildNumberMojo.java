@@ -128,6 +128,10 @@ public class BuildNumberMojo extends AbstractJGitFlowMojo
     {
         contextProvider.setContext(new ReleaseContext(getBasedir())
                 .setAlwaysUpdateOrigin(alwaysUpdateOrigin)
+                .setTargetedFetch(targetedFetch)
+                .setFastAttach(fastAttach)
+                .setLogMaxSize(logMaxSize)
+                .setLogMaxFiles(logMaxFiles)
                 .setDefaultOriginUrl(defaultOriginUrl)
                 .setEnableSshAgent(enableSshAgent)
                 .setUseReleaseProfile(false)
@@ -46,6 +46,10 @@ public class FeatureDeployMojo extends AbstractJGitFlowMojo
            .setNoDeploy(false)
            .setEnableFeatureVersions(true)
            .setAlwaysUpdateOrigin(alwaysUpdateOrigin)
+           .setTargetedFetch(targetedFetch)
+           .setFastAttach(fastAttach)
+           .setLogMaxSize(logMaxSize)
+           .setLogMaxFiles(logMaxFiles)
            .setPullMaster(pullMaster)
            .setPullDevelop(pullDevelop)
            .setDefaultOriginUrl(defaultOriginUrl)
@@ -99,6 +99,10 @@ public class FeatureFinishMojo extends AbstractJGitFlowMojo
            .setPushFeatures(pushFeatures)
            .setAllowRemote(isRemoteAllowed())
            .setAlwaysUpdateOrigin(alwaysUpdateOrigin)
+           .setTargetedFetch(targetedFetch)
+           .setFastAttach(fastAttach)
+           .setLogMaxSize(logMaxSize)
+           .setLogMaxFiles(logMaxFiles)
            .setNoFeatureMerge(noFeatureMerge)
            .setSuppressFastForward(suppressFastForward)
            .setNoBuild(noFeatureBuild)
@@ -58,6 +58,10 @@ public class FeatureStartMojo extends AbstractJGitFlowMojo
            .setStartCommit(startCommit)
            .setAllowRemote(isRemoteAllowed())
            .setAlwaysUpdateOrigin(alwaysUpdateOrigin)
+           .setTargetedFetch(targetedFetch)
+           .setFastAttach(fastAttach)
+           .setLogMaxSize(logMaxSize)
+           .setLogMaxFiles(logMaxFiles)
            .setDefaultOriginUrl(defaultOriginUrl)
            .setPullMaster(pullMaster)
            .setPullDevelop(pullDevelop)
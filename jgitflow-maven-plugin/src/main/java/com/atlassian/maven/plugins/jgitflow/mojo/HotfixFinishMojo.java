@@ -147,6 +147,10 @@ public class HotfixFinishMojo extends AbstractJGitFlowMojo
            .setAllowUntracked(allowUntracked)
            .setAllowRemote(isRemoteAllowed())
            .setAlwaysUpdateOrigin(alwaysUpdateOrigin)
+           .setTargetedFetch(targetedFetch)
+           .setFastAttach(fastAttach)
+           .setLogMaxSize(logMaxSize)
+           .setLogMaxFiles(logMaxFiles)
            .setNoBuild(noHotfixBuild)
            .setDefaultOriginUrl(defaultOriginUrl)
            .setScmCommentPrefix(scmCommentPrefix)
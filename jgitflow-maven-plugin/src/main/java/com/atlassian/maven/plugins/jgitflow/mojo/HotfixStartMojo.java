@@ -82,6 +82,10 @@ public class HotfixStartMojo extends AbstractJGitFlowMojo
            .setStartCommit(startCommit)
            .setAllowRemote(isRemoteAllowed())
            .setAlwaysUpdateOrigin(alwaysUpdateOrigin)
+           .setTargetedFetch(targetedFetch)
+           .setFastAttach(fastAttach)
+           .setLogMaxSize(logMaxSize)
+           .setLogMaxFiles(logMaxFiles)
            .setDefaultOriginUrl(defaultOriginUrl)
            .setPullMaster(pullMaster)
            .setPullDevelop(pullDevelop)
@@ -0,0 +1,43 @@
+package com.atlassian.maven.plugins.jgitflow.mojo;
+
+import com.atlassian.jgitflow.core.JGitFlow;
+import com.atlassian.jgitflow.core.exception.JGitFlowIOException;
+import com.atlassian.jgitflow.core.jira.JiraOutbox;
+
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.MojoFailureException;
+import org.apache.maven.plugins.annotations.Mojo;
+
+/**
+ * Sends the Jira transitions still waiting in the outbox and lists the ones that couldn't be sent
+ */
+@Mojo(name = "jira-flush", aggregator = true)
+public class JiraFlushMojo extends AbstractJGitFlowMojo
+{
+    @Override
+    public void execute() throws MojoExecutionException, MojoFailureException
+    {
+        JiraOutbox outbox;
+        try
+        {
+            outbox = JGitFlow.get(getBasedir()).jiraOutbox();
+        }
+        catch (JGitFlowIOException e)
+        {
+            throw new MojoExecutionException("Error opening the git flow repository: " + e.getMessage(), e);
+        }
+
+        int pending = outbox.flush();
+
+        for (JiraOutbox.Entry entry : outbox.getPending())
+        {
+            getLog().warn("waiting: " + entry);
+        }
+        for (JiraOutbox.Entry entry : outbox.getFailed())
+        {
+            getLog().warn("failed: " + entry);
+        }
+
+        getLog().info(pending + " jira transition(s) waiting, " + outbox.getFailed().size() + " failed");
+    }
+}
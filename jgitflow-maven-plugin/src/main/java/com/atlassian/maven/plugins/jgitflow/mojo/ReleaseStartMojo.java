@@ -98,6 +98,10 @@ public class ReleaseStartMojo extends AbstractJGitFlowMojo
            .setAllowRemote(isRemoteAllowed())
            .setDefaultOriginUrl(defaultOriginUrl)
            .setAlwaysUpdateOrigin(alwaysUpdateOrigin)
+           .setTargetedFetch(targetedFetch)
+           .setFastAttach(fastAttach)
+           .setLogMaxSize(logMaxSize)
+           .setLogMaxFiles(logMaxFiles)
            .setPullMaster(pullMaster)
            .setPullDevelop(pullDevelop)
            .setScmCommentPrefix(scmCommentPrefix)
@@ -1,5 +1,6 @@
 package com.atlassian.maven.plugins.jgitflow.provider;
 
+import com.atlassian.jgitflow.core.InitContext;
 import com.atlassian.jgitflow.core.JGitFlow;
 import com.atlassian.jgitflow.core.JGitFlowReporter;
 import com.atlassian.jgitflow.core.exception.JGitFlowException;
@@ -23,15 +24,23 @@ public class DefaultJGitFlowProvider implements JGitFlowProvider
 
         if (null == jgitFlow)
         {
-            jgitFlow = JGitFlow.forceInitCommand(ctx.getBaseDir(), ctx.getFlowInitContext())
+            //requested before init so the repository's reporter starts a fresh log with anything logged up to now,
+            //e.g. the credential setup
+            JGitFlowReporter.get().clearLog();
+
+            InitContext initContext = ctx.getFlowInitContext()
+                                         .setLogMaxSize(ctx.getLogMaxSize())
+                                         .setLogMaxFiles(ctx.getLogMaxFiles());
+
+            jgitFlow = JGitFlow.forceInitCommand(ctx.getBaseDir(), initContext)
                                .setDefaultOriginUrl(ctx.getDefaultOriginUrl())
                                .setAllowRemote(ctx.isRemoteAllowed())
                                .setAlwaysUpdateOrigin(ctx.isAlwaysUpdateOrigin())
+                               .setTargetedFetch(ctx.isTargetedFetch())
+                               .setFastAttach(ctx.isFastAttach())
                                .setPullMaster(ctx.isPullMaster())
                                .setPullDevelop(ctx.isPullDevelop())
                                .call();
-
-            JGitFlowReporter.get().clearLog();
         }
 
         return jgitFlow;